@@ -4,6 +4,10 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * 应用配置类
  */
@@ -15,12 +19,30 @@ public class AppConfig {
     private Task task = new Task();
     private Wecom wecom = new Wecom();
     private Persist persist = new Persist();
+    private Watchdog watchdog = new Watchdog();
+    private Db db = new Db();
+    private Startup startup = new Startup();
+    private Replay replay = new Replay();
+    private Escalation escalation = new Escalation();
+    private Audit audit = new Audit();
+    private Trace trace = new Trace();
+    private Jfr jfr = new Jfr();
+    private Report report = new Report();
+    private Ingest ingest = new Ingest();
+    private Stream stream = new Stream();
+    private Reviewer reviewer = new Reviewer();
+    private Pipeline pipeline = new Pipeline();
+    private Enrichment enrichment = new Enrichment();
+    private List<Route> routes = new ArrayList<>();
+    private List<Source> sources = new ArrayList<>();
     
     @Data
     public static class Task {
         private int timeoutMinutes = 3;
         private int checkIntervalSeconds = 60;
         private int unfinishedTimeoutMinutes = 10;
+        // 告警和 /api/oldest 中列出的等待最久任务数
+        private int oldestTopK = 5;
     }
     
     @Data
@@ -28,10 +50,256 @@ public class AppConfig {
         private String webhook;
         private String webhook2;
         private String webhook3;
+        private int connectTimeoutMs = 5000;
+        private int socketTimeoutMs = 10000;
+        // 每个告警目标的发送队列容量
+        private int queueCapacity = 100;
     }
     
     @Data
     public static class Persist {
         private String path = ".";
     }
+    
+    @Data
+    public static class Audit {
+        private boolean enabled = true;
+        // 审计日志目录，为空时使用 持久化路径/audit
+        private String path = "";
+        // 单个分段最多包含的任务ID数，达到后轮转（布隆过滤器按此容量分配）
+        private int maxIdsPerSegment = 20000;
+        // 分段保留天数，0表示不清理
+        private int retentionDays = 180;
+    }
+    
+    @Data
+    public static class Trace {
+        private boolean enabled = true;
+        // 保留的最近检查周期数
+        private int capacity = 120;
+        // 慢周期阈值（毫秒），超过时追加写入文件，0表示不写入
+        private long slowCycleMs = 0;
+        // 慢周期记录文件，为空时使用 持久化路径/slow-cycles.jsonl
+        private String dumpPath = "";
+    }
+    
+    @Data
+    public static class Jfr {
+        // 录制文件目录，为空时使用 持久化路径/jfr
+        private String path = "";
+        // 未指定时长时的默认录制时长（秒），0表示直到手动停止
+        private int defaultDurationSeconds = 600;
+        // 单次录制的最长时长（秒）
+        private int maxDurationSeconds = 3600;
+        // 单次录制的最大磁盘占用（MB），超过后丢弃最早的数据
+        private int maxSizeMb = 200;
+        // 保留的录制文件数
+        private int maxFiles = 10;
+    }
+    
+    @Data
+    public static class Report {
+        // 每日统计的发送时间（小时），错过后由之后的周期补发
+        private int hour = 9;
+        // 日报统计的超时未完成任务按创建时间限定在 [windowStartHour, windowEndHour) 内
+        private int windowStartHour = 9;
+        private int windowEndHour = 21;
+        // 每日汇总保留天数
+        private int retentionDays = 35;
+        // 按天去重计数草图（HyperLogLog）的精度，12对应每天4KB、标准误差约1.6%
+        private int sketchPrecision = 12;
+        // 去重计数草图保留天数
+        private int sketchRetentionDays = 400;
+    }
+    
+    @Data
+    public static class Ingest {
+        // 任务来源：polling（每周期查询数据库）或 push（接收 POST /api/events 推送，定期对账）
+        private String mode = "polling";
+        // 推送模式下查询数据库对账的间隔（分钟）
+        private int reconcileMinutes = 30;
+        // 单次推送的最大事件数
+        private int maxBatchSize = 1000;
+        // 推送请求需在 X-Event-Token 头中携带的令牌，推送模式下必须配置
+        private String token = "";
+    }
+    
+    @Data
+    public static class Stream {
+        // 广播缓冲区保留的事件数，客户端落后超过一半时改发快照
+        private int bufferSize = 1024;
+        // 最大客户端数
+        private int maxClients = 200;
+        // 推送事件的线程数，所有客户端共用
+        private int senderThreads = 2;
+        // 单次写入的截止时间（毫秒），超过后移出该客户端
+        private int writeTimeoutMs = 5000;
+        // 空闲时的心跳间隔（秒）
+        private int heartbeatSeconds = 15;
+        // 单个连接的最长时间（分钟），到期后浏览器EventSource自动重连
+        private int timeoutMinutes = 30;
+    }
+    
+    @Data
+    public static class Pipeline {
+        // 统计、落盘是否使用独立的阶段线程，false时与检测在同一周期内顺序执行（回放模式）
+        private boolean decoupled = true;
+        // 每个阶段交接队列的容量
+        private int queueCapacity = 16;
+        // 当天入网统计和日报检查的间隔，0表示与检查间隔相同
+        private int statisticsIntervalSeconds = 0;
+        // 超时任务和每日汇总的落盘间隔
+        private int persistIntervalSeconds = 600;
+    }
+    
+    @Data
+    public static class Reviewer {
+        // 按处理人发布Prometheus指标的人数上限，其余处理人合并为 reviewer="other"
+        private int topN = 10;
+    }
+    
+    @Data
+    public static class Watchdog {
+        // 单个阶段最长执行时间，超时后中断并放弃该阶段
+        private int stageTimeoutSeconds = 120;
+        // 超过该时间没有成功完成的检查周期，健康检查判定为DOWN
+        private int staleCycleSeconds = 300;
+    }
+    
+    @Data
+    public static class Startup {
+        // 首个检查周期结束后退出进程，用于生成AppCDS归档的训练运行
+        private boolean exitAfterFirstCycle = false;
+    }
+    
+    @Data
+    public static class Replay {
+        // 录制任务快照的目录，为空时不录制
+        private String recordPath = "";
+        // 回放输入：快照文件或目录（回放模式使用）
+        private String input = "";
+        // 虚拟时间步长（秒），0表示与检查间隔一致
+        private int stepSeconds = 0;
+        // 回放报告输出文件，为空时只打印日志
+        private String reportPath = "";
+        // 回放结束后退出进程
+        private boolean exitOnFinish = true;
+    }
+    
+    @Data
+    public static class Db {
+        // 主数据源（spring.datasource）在指标source标签和 /api/sources 中的名称
+        private String sourceName = "primary";
+        // 数据库方言：auto（按连接自动识别）、oracle、mysql、h2
+        private String dialect = "auto";
+        // 单条SQL执行超时时间
+        private int statementTimeoutSeconds = 20;
+        // 连续失败多少次后熔断
+        private int breakerFailureThreshold = 3;
+        // 首次熔断时长，之后每次探测失败翻倍
+        private int breakerOpenSeconds = 60;
+        // 熔断时长上限
+        private int breakerMaxOpenSeconds = 900;
+        // 任务查询按创建时间切分的分区数，1表示单条查询
+        private int fetchPartitions = 1;
+        // 分区并行查询的最大并发数（同时占用的连接数），应小于连接池大小
+        private int fetchConcurrency = 4;
+    }
+    
+    /**
+     * 告警升级配置，未领取和未完成各自一条升级阶梯
+     * 阶梯为空时使用单级默认配置：超时阈值时通知路由目标，之后按退避间隔重复提醒
+     */
+    @Data
+    public static class Escalation {
+        private List<EscalationLevel> unclaimed = new ArrayList<>();
+        private List<EscalationLevel> unfinished = new ArrayList<>();
+        // 各级别未单独配置时使用的重复提醒参数
+        private int renotifyMinutes = 10;
+        private double backoffMultiplier = 2.0;
+        private int maxRenotifyMinutes = 120;
+    }
+    
+    /**
+     * 告警内容补充：按 PROC_ID 从业务表批量查询商户名称和渠道，结果放在有界LRU缓存中
+     * 表名和列名直接拼入SQL，只允许字母、数字、下划线和点（schema.table）
+     */
+    @Data
+    public static class Enrichment {
+        private boolean enabled = false;
+        // 业务表（或视图），与 T_CURRENT_TASK 在同一数据源
+        private String table = "T_MERCH_ACCESS_APPLY";
+        private String keyColumn = "PROC_ID";
+        private String merchantNameColumn = "MERCH_NAME";
+        private String channelColumn = "CHANNEL_NAME";
+        // 单条 IN 查询最多的流程数（Oracle模式上限1000），本周期未命中超过该数时分批查询
+        private int batchSize = 500;
+        // 缓存条目上限，超过时淘汰最久未访问的条目
+        private int cacheSize = 10000;
+        // 缓存过期时间（分钟），商户名称和渠道变更后最迟在该时间后生效
+        private int ttlMinutes = 30;
+    }
+    
+    /**
+     * 升级级别，任务创建满 afterMinutes 后升级到该级别
+     */
+    @Data
+    public static class EscalationLevel {
+        private String name;
+        // 该级别的告警地址，为空时发送到路由规则确定的目标
+        private String webhook;
+        private int afterMinutes;
+        // 重复提醒的初始间隔（分钟），0表示该级别只通知一次
+        private Integer renotifyMinutes;
+        // 每次重复提醒后间隔乘以该系数
+        private Double backoffMultiplier;
+        private Integer maxRenotifyMinutes;
+    }
+    
+    /**
+     * 告警路由规则，按配置顺序匹配，第一条命中的规则决定告警目标
+     */
+    @Data
+    public static class Route {
+        private String name;
+        private String webhook;
+        // 匹配的超时类型（unclaimed/unfinished），为空表示全部
+        private List<String> types = new ArrayList<>();
+        // 匹配的任务节点键，为空表示全部
+        private List<String> taskKeys = new ArrayList<>();
+        // 匹配的任务年龄范围（分钟），为空表示不限
+        private Integer minAgeMinutes;
+        private Integer maxAgeMinutes;
+    }
+    
+    /**
+     * 附加数据源（其他OceanBase集群上的流程引擎租户）
+     * 每个数据源有独立的小连接池、映射器、熔断器和检查线程，按自己的规则判断超时，
+     * 首次超时的任务发送到该数据源的webhook；一个集群变慢或不可用不会推迟其他数据源的检查
+     */
+    @Data
+    public static class Source {
+        private String name;
+        private String jdbcUrl;
+        private String username;
+        private String password;
+        private String driverClassName = "com.oceanbase.jdbc.Driver";
+        // 数据库方言：auto、oracle、mysql、h2
+        private String dialect = "auto";
+        // 连接池大小，每个检查周期只执行一条查询
+        private int maxPoolSize = 2;
+        private int connectionTimeoutMs = 10000;
+        // 检查间隔，0表示与 app.task.check-interval-seconds 相同
+        private int checkIntervalSeconds = 0;
+        private String procKey = "ACT_MERCH_ACCESS_REGISTER";
+        private List<String> taskKeys = new ArrayList<>(Arrays.asList(
+            "LICENSE_MASTER_NEW_CHECK_TASK", "PERSON_MASTER_NEW_CHECK_TASK"));
+        // 查询最近多少天创建的任务
+        private int queryDays = 6;
+        // 超时阈值（分钟），0表示使用 app.task 中的值
+        private int timeoutMinutes = 0;
+        private int unfinishedTimeoutMinutes = 0;
+        // 该数据源告警的webhook，为空时发送到默认webhook（未领取）/webhook2（未完成）
+        private String webhook;
+    }
 }
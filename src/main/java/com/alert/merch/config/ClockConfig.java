@@ -0,0 +1,22 @@
+package com.alert.merch.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Clock;
+
+/**
+ * 时钟配置类
+ * 业务时间统一从注入的Clock获取，回放模式（replay）下替换为虚拟时钟；
+ * 看门狗和熔断器衡量的是真实耗时，仍使用系统时间
+ */
+@Configuration
+public class ClockConfig {
+    
+    @Bean
+    @Profile("!replay")
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
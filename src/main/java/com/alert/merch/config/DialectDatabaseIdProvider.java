@@ -0,0 +1,87 @@
+package com.alert.merch.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * 按数据库方言确定MyBatis的databaseId
+ * 映射文件中与方言相关的片段按 _databaseId 区分：oracle（Oracle模式的OceanBase）、mysql（MySQL模式的OceanBase或MySQL）、h2（测试和本地压测）。
+ * 配置为auto时根据连接元数据识别，OceanBase驱动在两种模式下的产品名不固定，识别不出时查询租户的兼容模式，仍无法识别时按Oracle模式处理；
+ * 连不上数据库时抛出异常而不是猜测方言，由调用方在下次连接时重新识别
+ */
+@Slf4j
+public class DialectDatabaseIdProvider implements DatabaseIdProvider {
+    
+    public static final String ORACLE = "oracle";
+    public static final String MYSQL = "mysql";
+    public static final String H2 = "h2";
+    
+    private final String dialect;
+    
+    /**
+     * @param dialect auto、oracle、mysql 或 h2
+     */
+    public DialectDatabaseIdProvider(String dialect) {
+        this.dialect = dialect == null ? "auto" : dialect.trim().toLowerCase(Locale.ROOT);
+        if (!"auto".equals(this.dialect) && !ORACLE.equals(this.dialect) && !MYSQL.equals(this.dialect)
+            && !H2.equals(this.dialect)) {
+            throw new IllegalArgumentException("不支持的数据库方言: " + dialect + "，可选 auto、oracle、mysql、h2");
+        }
+    }
+    
+    @Override
+    public String getDatabaseId(DataSource dataSource) throws SQLException {
+        if (!"auto".equals(dialect)) {
+            log.info("数据库方言: {}（配置指定）", dialect);
+            return dialect;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            String productName = connection.getMetaData().getDatabaseProductName();
+            String databaseId = fromProductName(productName);
+            if (databaseId == null) {
+                databaseId = fromCompatibilityMode(connection);
+            }
+            log.info("数据库方言: {}（自动识别，产品名: {}）", databaseId, productName);
+            return databaseId;
+        }
+    }
+    
+    /**
+     * 根据产品名识别方言，无法确定时返回null
+     */
+    static String fromProductName(String productName) {
+        String name = productName == null ? "" : productName.toLowerCase(Locale.ROOT);
+        if (name.contains("h2")) {
+            return H2;
+        }
+        if (name.contains("oracle")) {
+            return ORACLE;
+        }
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return MYSQL;
+        }
+        return null;
+    }
+    
+    /**
+     * 查询OceanBase租户的兼容模式，查询失败时按Oracle模式处理
+     */
+    private static String fromCompatibilityMode(Connection connection) {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SHOW VARIABLES LIKE 'ob_compatibility_mode'")) {
+            if (rs.next()) {
+                return "MYSQL".equalsIgnoreCase(rs.getString(2)) ? MYSQL : ORACLE;
+            }
+        } catch (SQLException e) {
+            log.warn("无法查询OceanBase兼容模式，按Oracle模式处理", e);
+        }
+        return ORACLE;
+    }
+}
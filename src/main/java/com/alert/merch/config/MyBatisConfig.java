@@ -2,25 +2,59 @@ package com.alert.merch.config;
 
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.NativeDetector;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
 import javax.sql.DataSource;
+import java.util.Arrays;
 
 /**
  * MyBatis配置类
+ * 主数据源的SqlSessionFactory和映射器延迟到首次使用时创建：方言自动识别需要连接数据库，
+ * 启动时数据库不可达（回放、推送模式或数据库暂时故障）不影响启动，首次查询连接成功时再识别，
+ * 失败时该次查询失败，由熔断器计数，下次查询重试
  */
 @Configuration
-@MapperScan("com.alert.merch.mapper")
+@MapperScan(value = "com.alert.merch.mapper", lazyInitialization = "true")
 public class MyBatisConfig {
     
+    // 原生镜像中使用的映射文件列表，新增映射文件时需同步添加
+    static final String[] NATIVE_MAPPER_LOCATIONS = {"mapper/TaskMapper.xml"};
+    
     /**
      * 配置SqlSessionFactory
      */
     @Bean
-    public SqlSessionFactory sqlSessionFactory(DataSource dataSource) throws Exception {
+    @Lazy
+    public SqlSessionFactory sqlSessionFactory(DataSource dataSource, AppConfig appConfig) throws Exception {
+        return buildSqlSessionFactory(dataSource, appConfig.getDb().getDialect(),
+            appConfig.getDb().getStatementTimeoutSeconds());
+    }
+    
+    /**
+     * 替代自动配置中立即创建的SqlSessionTemplate，避免启动时创建SqlSessionFactory
+     */
+    @Bean
+    @Lazy
+    public SqlSessionTemplate sqlSessionTemplate(SqlSessionFactory sqlSessionFactory) {
+        return new SqlSessionTemplate(sqlSessionFactory);
+    }
+    
+    /**
+     * 为指定数据源构建SqlSessionFactory，主数据源和附加数据源（app.sources）使用相同的映射文件
+     *
+     * @param dialect 方言：auto、oracle、mysql、h2
+     * @param statementTimeoutSeconds 单条SQL超时时间
+     */
+    public static SqlSessionFactory buildSqlSessionFactory(DataSource dataSource, String dialect,
+                                                           int statementTimeoutSeconds) throws Exception {
         SqlSessionFactoryBean sessionFactory = new SqlSessionFactoryBean();
         sessionFactory.setDataSource(dataSource);
         
@@ -28,12 +62,18 @@ public class MyBatisConfig {
         org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
         configuration.setMapUnderscoreToCamelCase(true);
         configuration.setLogImpl(org.apache.ibatis.logging.stdout.StdOutImpl.class);
+        // 单条SQL超时，避免数据库缓慢时无限期阻塞检查周期
+        configuration.setDefaultStatementTimeout(statementTimeoutSeconds);
         sessionFactory.setConfiguration(configuration);
         
-        // 设置映射文件位置
-        sessionFactory.setMapperLocations(
-            new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml")
-        );
+        // 映射文件中与方言相关的片段按databaseId区分
+        sessionFactory.setDatabaseIdProvider(new DialectDatabaseIdProvider(dialect));
+        
+        // 设置映射文件位置，原生镜像中不支持classpath通配符扫描，按文件名加载
+        Resource[] mapperLocations = NativeDetector.inNativeImage()
+            ? Arrays.stream(NATIVE_MAPPER_LOCATIONS).map(ClassPathResource::new).toArray(Resource[]::new)
+            : new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml");
+        sessionFactory.setMapperLocations(mapperLocations);
         
         return sessionFactory.getObject();
     }
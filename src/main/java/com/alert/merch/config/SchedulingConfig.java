@@ -0,0 +1,15 @@
+package com.alert.merch.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时调度配置类
+ * 回放模式（replay）下由回放驱动按虚拟时间逐个执行检查周期，不启用定时调度
+ */
+@Configuration
+@EnableScheduling
+@Profile("!replay")
+public class SchedulingConfig {
+}
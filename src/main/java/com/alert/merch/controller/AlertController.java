@@ -0,0 +1,61 @@
+package com.alert.merch.controller;
+
+import com.alert.merch.model.AlertAuditRecord;
+import com.alert.merch.service.AlertAuditService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 告警审计查询控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api")
+public class AlertController {
+    
+    @Autowired
+    private AlertAuditService alertAuditService;
+    
+    /**
+     * 按任务ID查询告警历史
+     * 只解压布隆过滤器命中的审计分段
+     *
+     * @param taskId 任务ID
+     */
+    @GetMapping("/alerts")
+    public Map<String, Object> getAlerts(@RequestParam String taskId) {
+        Map<String, Object> result = new HashMap<>();
+        if (!alertAuditService.isEnabled()) {
+            result.put("error", "告警审计日志未启用");
+            return result;
+        }
+        
+        int[] scannedSegments = new int[1];
+        long start = System.nanoTime();
+        List<AlertAuditRecord> alerts;
+        try {
+            alerts = alertAuditService.query(taskId, scannedSegments);
+        } catch (IOException e) {
+            log.error("查询告警审计日志失败: taskId={}", taskId, e);
+            result.put("error", "查询告警审计日志失败: " + e.getMessage());
+            return result;
+        }
+        
+        result.put("taskId", taskId);
+        result.put("count", alerts.size());
+        result.put("alerts", alerts);
+        result.put("totalSegments", alertAuditService.getSegmentCount());
+        result.put("scannedSegments", scannedSegments[0]);
+        result.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.alert.merch.controller;
+
+import com.alert.merch.service.AlertDispatcher;
+import com.alert.merch.service.CycleTraceService;
+import com.alert.merch.service.StagePipelineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调试信息控制器
+ */
+@RestController
+@RequestMapping("/api/debug")
+public class DebugController {
+    
+    @Autowired
+    private CycleTraceService cycleTraceService;
+    
+    @Autowired
+    private StagePipelineService stagePipelineService;
+    
+    @Autowired
+    private AlertDispatcher alertDispatcher;
+    
+    /**
+     * 最近检查周期的分阶段耗时，最新的在前
+     * 各阶段的 ms 为该周期内的累计耗时，query 包含逐行映射（mapping）的时间，
+     * webhookSend 为异步发送耗时，归属到消息入队时的周期
+     *
+     * @param limit 最多返回的周期数，默认全部
+     */
+    @GetMapping("/cycles")
+    public Map<String, Object> getCycles(@RequestParam(required = false) Integer limit) {
+        Map<String, Object> result = new HashMap<>();
+        if (!cycleTraceService.isEnabled()) {
+            result.put("error", "检查周期追踪未启用");
+            return result;
+        }
+        int capacity = cycleTraceService.getCapacity();
+        List<Map<String, Object>> cycles = cycleTraceService.getCycles(
+            limit != null && limit > 0 ? Math.min(limit, capacity) : capacity);
+        result.put("capacity", capacity);
+        result.put("count", cycles.size());
+        result.put("cycles", cycles);
+        return result;
+    }
+    
+    /**
+     * 阶段流水线状态：统计、落盘阶段的队列深度和执行情况，通知阶段为各告警目标的发送队列
+     */
+    @GetMapping("/pipeline")
+    public Map<String, Object> getPipeline() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("decoupled", stagePipelineService.isDecoupled());
+        result.put("stages", stagePipelineService.getStageStats());
+        result.put("notification", alertDispatcher.getTargetStats());
+        return result;
+    }
+}
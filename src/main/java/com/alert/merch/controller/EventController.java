@@ -0,0 +1,66 @@
+package com.alert.merch.controller;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.TaskEvent;
+import com.alert.merch.source.PushTaskEventSource;
+import com.alert.merch.util.TaskEventState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务事件接收控制器（推送模式）
+ */
+@RestController
+@RequestMapping("/api")
+public class EventController {
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    // 仅在 app.ingest.mode=push 时存在
+    @Autowired(required = false)
+    private PushTaskEventSource pushTaskEventSource;
+    
+    /**
+     * 批量接收任务事件
+     * 请求体为事件数组，每个事件包含 sequence、type（created/assigned/completed）、taskId、procKey、taskKey、createTime；
+     * 同一任务序号不大于已应用序号的事件视为重复，可安全重试整批。
+     * 未启用推送模式返回503，令牌无效返回401，超过单次事件数上限返回413
+     */
+    @PostMapping("/events")
+    public Map<String, Object> postEvents(@RequestBody List<TaskEvent> events,
+                                          @RequestHeader(value = "X-Event-Token", required = false) String token) {
+        if (pushTaskEventSource == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "未启用推送模式（app.ingest.mode=push）");
+        }
+        // 推送模式启动时已校验令牌非空
+        AppConfig.Ingest ingest = appConfig.getIngest();
+        if (token == null || !MessageDigest.isEqual(
+                ingest.getToken().getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "令牌无效");
+        }
+        if (events.size() > ingest.getMaxBatchSize()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "单次最多推送" + ingest.getMaxBatchSize() + "个事件");
+        }
+        
+        Map<TaskEventState.Outcome, Integer> outcomes = pushTaskEventSource.accept(events);
+        Map<String, Object> result = new HashMap<>();
+        result.put("received", events.size());
+        result.put("applied", outcomes.get(TaskEventState.Outcome.APPLIED));
+        result.put("duplicate", outcomes.get(TaskEventState.Outcome.DUPLICATE));
+        result.put("invalid", outcomes.get(TaskEventState.Outcome.INVALID));
+        return result;
+    }
+}
@@ -1,18 +1,29 @@
 package com.alert.merch.controller;
 
 import com.alert.merch.config.AppConfig;
+import com.alert.merch.service.AlertDispatcher;
+import com.alert.merch.service.DailyRollupService;
+import com.alert.merch.service.SourceMonitorService;
 import com.alert.merch.service.TaskMonitorService;
+import com.alert.merch.service.TaskQueryService;
 import com.alert.merch.service.TimeoutTasksService;
 import com.alert.merch.util.OceanBaseUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Clock;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -32,9 +43,24 @@ public class InfoController {
     @Autowired
     private TaskMonitorService taskMonitorService;
     
+    @Autowired
+    private TaskQueryService taskQueryService;
+    
+    @Autowired
+    private AlertDispatcher alertDispatcher;
+    
     @Autowired
     private OceanBaseUtil oceanBaseUtil;
     
+    @Autowired
+    private DailyRollupService dailyRollupService;
+    
+    @Autowired
+    private SourceMonitorService sourceMonitorService;
+    
+    @Autowired
+    private Clock clock;
+    
     /**
      * 获取应用状态信息
      */
@@ -45,7 +71,7 @@ public class InfoController {
         status.put("application", "Alert Merch");
         status.put("version", "1.0.0");
         status.put("status", "Running");
-        status.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        status.put("timestamp", LocalDateTime.now(clock).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
         
         // 任务统计
         Map<String, Object> taskStats = new HashMap<>();
@@ -67,8 +93,14 @@ public class InfoController {
         Map<String, Object> oceanbase = new HashMap<>();
         oceanbase.put("connectionTest", oceanBaseUtil.testConnection());
         oceanbase.put("databaseInfo", oceanBaseUtil.getDatabaseInfo());
+        oceanbase.put("circuitBreaker", taskQueryService.getCircuitBreakerState().name());
+        oceanbase.put("lastSnapshotTime", taskQueryService.getLastSnapshotTime() != null ?
+            taskQueryService.getLastSnapshotTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) : "N/A");
         status.put("oceanbase", oceanbase);
         
+        // 告警目标发送队列
+        status.put("alertTargets", alertDispatcher.getTargetStats());
+        
         return status;
     }
     
@@ -82,12 +114,115 @@ public class InfoController {
         int todayCount = taskMonitorService.getTodayTaskCount();
         LocalDateTime lastStatsTime = taskMonitorService.getLastStatsTime();
         
-        stats.put("today", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        stats.put("today", LocalDateTime.now(clock).format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
         stats.put("todayTaskCount", todayCount);
         stats.put("lastStatsTime", lastStatsTime != null ? 
             lastStatsTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) : "N/A");
-        stats.put("currentTime", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        stats.put("currentTime", LocalDateTime.now(clock).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        
+        return stats;
+    }
+    
+    /**
+     * 按创建时间范围统计超时任务数，时间格式 yyyy-MM-dd HH:mm:ss，范围为 [from, to)
+     * 未指定时默认统计最近24小时
+     */
+    @GetMapping("/timeout-stats")
+    public Map<String, Object> getTimeoutStats(@RequestParam(required = false) String from,
+                                               @RequestParam(required = false) String to) {
+        Map<String, Object> stats = new HashMap<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        
+        LocalDateTime end;
+        LocalDateTime start;
+        try {
+            end = to != null ? LocalDateTime.parse(to, formatter) : LocalDateTime.now(clock);
+            start = from != null ? LocalDateTime.parse(from, formatter) : end.minusDays(1);
+        } catch (DateTimeParseException e) {
+            stats.put("error", "时间格式错误，应为 yyyy-MM-dd HH:mm:ss");
+            return stats;
+        }
+        
+        stats.put("from", start.format(formatter));
+        stats.put("to", end.format(formatter));
+        stats.put("unclaimed", timeoutTasksService.countTimeoutTasksBetween(start, end));
+        stats.put("unfinished", timeoutTasksService.countTimeoutFinishTasksBetween(start, end));
         
         return stats;
     }
+    
+    /**
+     * 按创建日期查询每日统计汇总（入网任务数、超时未领取/未完成数及统计时段内的数量）
+     * 直接读取增量维护的汇总，不遍历任务，默认查询前一天
+     *
+     * @param date 日期，格式 yyyy-MM-dd
+     */
+    @GetMapping("/daily-stats")
+    public Map<String, Object> getDailyStats(@RequestParam(required = false) String date) {
+        Map<String, Object> stats = new HashMap<>();
+        LocalDate day;
+        try {
+            day = date != null ? LocalDate.parse(date) : LocalDate.now(clock).minusDays(1);
+        } catch (DateTimeParseException e) {
+            stats.put("error", "日期格式错误，应为 yyyy-MM-dd");
+            return stats;
+        }
+        
+        stats.putAll(dailyRollupService.summary(day));
+        stats.put("lastReportedDate", dailyRollupService.getLastReportedDate() != null
+            ? dailyRollupService.getLastReportedDate().toString() : "N/A");
+        return stats;
+    }
+    
+    /**
+     * 按创建日期范围 [from, to]（含两端）估计去重入网任务数，由按天的HyperLogLog草图合并得到
+     * 未指定时默认统计截至今天的最近7天
+     *
+     * @param from 开始日期，格式 yyyy-MM-dd
+     * @param to 结束日期，格式 yyyy-MM-dd
+     */
+    @GetMapping("/stats/distinct")
+    public Map<String, Object> getDistinctStats(@RequestParam(required = false) String from,
+                                                @RequestParam(required = false) String to) {
+        Map<String, Object> stats = new HashMap<>();
+        LocalDate end;
+        LocalDate start;
+        try {
+            end = to != null ? LocalDate.parse(to) : LocalDate.now(clock);
+            start = from != null ? LocalDate.parse(from) : end.minusDays(6);
+        } catch (DateTimeParseException e) {
+            stats.put("error", "日期格式错误，应为 yyyy-MM-dd");
+            return stats;
+        }
+        if (start.isAfter(end)) {
+            stats.put("error", "from不能晚于to");
+            return stats;
+        }
+        
+        stats.putAll(dailyRollupService.distinctSummary(start, end));
+        return stats;
+    }
+    
+    /**
+     * 获取各数据源的检查状态，第一项为主数据源，其后为 app.sources 中的附加数据源
+     */
+    @GetMapping("/sources")
+    public Map<String, Object> getSources() {
+        Map<String, Object> result = new HashMap<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        
+        Map<String, Object> primary = new LinkedHashMap<>();
+        primary.put("name", appConfig.getDb().getSourceName());
+        primary.put("primary", true);
+        primary.put("circuitBreaker", taskQueryService.getCircuitBreakerState().name());
+        primary.put("lastSnapshotTime", taskQueryService.getLastSnapshotTime() != null ?
+            taskQueryService.getLastSnapshotTime().format(formatter) : "N/A");
+        
+        List<Map<String, Object>> sources = new ArrayList<>();
+        sources.add(primary);
+        sources.addAll(sourceMonitorService.getSourceStats());
+        result.put("time", LocalDateTime.now(clock).format(formatter));
+        result.put("sources", sources);
+        return result;
+    }
 }
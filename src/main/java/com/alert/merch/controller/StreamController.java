@@ -0,0 +1,36 @@
+package com.alert.merch.controller;
+
+import com.alert.merch.service.StreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 实时事件流控制器
+ */
+@RestController
+@RequestMapping("/api")
+public class StreamController {
+    
+    @Autowired
+    private StreamService streamService;
+    
+    /**
+     * 订阅积压数量、新超时任务和告警发送事件（Server-Sent Events）
+     * 事件：snapshot（连接时及落后过多时的当前状态）、backlog（积压数量变化）、timeout（新超时任务）、alert（告警发出）
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = streamService.subscribe(lastEventId);
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "事件流客户端数已达上限");
+        }
+        return emitter;
+    }
+}
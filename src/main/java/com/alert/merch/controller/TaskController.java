@@ -0,0 +1,181 @@
+package com.alert.merch.controller;
+
+import com.alert.merch.model.ReviewerLoad;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskPage;
+import com.alert.merch.service.ReviewerStatsService;
+import com.alert.merch.service.TaskIndexService;
+import com.alert.merch.service.TaskMonitorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务查询控制器
+ * 数据来自检查周期维护的内存索引，不访问数据库
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api")
+public class TaskController {
+    
+    private static final int MAX_LIMIT = 500;
+    
+    @Autowired
+    private TaskIndexService taskIndexService;
+    
+    @Autowired
+    private TaskMonitorService taskMonitorService;
+    
+    @Autowired
+    private ReviewerStatsService reviewerStatsService;
+    
+    @Autowired
+    private Clock clock;
+    
+    /**
+     * 分页查询当前任务
+     *
+     * @param status 任务状态：unclaimed（未领取）或 unfinished（未完成）
+     * @param taskKey 任务节点键
+     * @param minAgeMinutes 最小等待时长（分钟）
+     * @param maxAgeMinutes 最大等待时长（分钟）
+     * @param order 排序：oldest（等待最久在前，默认）或 newest
+     * @param cursor 上一页返回的 nextCursor
+     * @param limit 每页条数，默认50，最大500
+     */
+    @GetMapping("/tasks")
+    public Map<String, Object> getTasks(@RequestParam(required = false) String status,
+                                        @RequestParam(required = false) String taskKey,
+                                        @RequestParam(required = false) Integer minAgeMinutes,
+                                        @RequestParam(required = false) Integer maxAgeMinutes,
+                                        @RequestParam(defaultValue = "oldest") String order,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> result = new HashMap<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        
+        if (status != null && !"unclaimed".equals(status) && !"unfinished".equals(status)) {
+            result.put("error", "status只能为unclaimed或unfinished");
+            return result;
+        }
+        if (!"oldest".equals(order) && !"newest".equals(order)) {
+            result.put("error", "order只能为oldest或newest");
+            return result;
+        }
+        
+        LocalDateTime now = LocalDateTime.now(clock);
+        TaskPage page;
+        try {
+            page = taskIndexService.query(status, taskKey, minAgeMinutes, maxAgeMinutes,
+                "newest".equals(order), cursor, Math.max(1, Math.min(limit, MAX_LIMIT)), now);
+        } catch (IllegalArgumentException e) {
+            result.put("error", e.getMessage());
+            return result;
+        }
+        
+        List<Map<String, Object>> tasks = new ArrayList<>(page.getTasks().size());
+        for (TaskInfo task : page.getTasks()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("taskId", task.getTaskId());
+            item.put("status", task.getType());
+            item.put("taskKey", task.getTaskKey());
+            item.put("assignee", task.getAssignee());
+            item.put("createTime", task.getCreateTime().format(formatter));
+            item.put("ageMinutes", Duration.between(task.getCreateTime(), now).toMinutes());
+            tasks.add(item);
+        }
+        
+        LocalDateTime snapshotTime = taskIndexService.getSnapshotTime();
+        result.put("snapshotTime", snapshotTime != null ? snapshotTime.format(formatter) : "N/A");
+        result.put("stale", taskIndexService.isStale());
+        result.put("indexedTotal", taskIndexService.size());
+        result.put("count", tasks.size());
+        result.put("tasks", tasks);
+        result.put("nextCursor", page.getNextCursor());
+        
+        return result;
+    }
+    
+    /**
+     * 等待最久的超时任务
+     * 由检查周期在超时分类时用有界堆选出，每类最多 app.task.oldest-top-k 条，按创建时间从早到晚
+     */
+    @GetMapping("/oldest")
+    public Map<String, Object> getOldest() {
+        Map<String, Object> result = new HashMap<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        LocalDateTime now = LocalDateTime.now(clock);
+        
+        for (Map.Entry<String, List<TaskInfo>> entry : taskMonitorService.getOldestTasks().entrySet()) {
+            List<Map<String, Object>> tasks = new ArrayList<>(entry.getValue().size());
+            for (TaskInfo task : entry.getValue()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("taskId", task.getTaskId());
+                item.put("taskKey", task.getTaskKey());
+                item.put("createTime", task.getCreateTime().format(formatter));
+                item.put("ageMinutes", Duration.between(task.getCreateTime(), now).toMinutes());
+                tasks.add(item);
+            }
+            result.put(entry.getKey(), tasks);
+        }
+        
+        LocalDateTime oldestTime = taskMonitorService.getOldestTime();
+        result.put("time", oldestTime != null ? oldestTime.format(formatter) : "N/A");
+        return result;
+    }
+    
+    /**
+     * 各处理人的积压明细
+     * 包含全部有积压的处理人，按超时未完成数、积压数从多到少；Prometheus指标只有前N人
+     *
+     * @param assignee 只看指定处理人
+     */
+    @GetMapping("/reviewers")
+    public Map<String, Object> getReviewers(@RequestParam(required = false) String assignee) {
+        Map<String, Object> result = new HashMap<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        LocalDateTime now = LocalDateTime.now(clock);
+        
+        List<ReviewerLoad> loads = reviewerStatsService.getReviewers();
+        List<Map<String, Object>> reviewers = new ArrayList<>();
+        int totalBacklog = 0;
+        int totalOverdue = 0;
+        for (ReviewerLoad load : loads) {
+            totalBacklog += load.getBacklog();
+            totalOverdue += load.getOverdue();
+            if (assignee != null && !assignee.equals(load.getAssignee())) {
+                continue;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("assignee", load.getAssignee());
+            item.put("backlog", load.getBacklog());
+            item.put("overdue", load.getOverdue());
+            item.put("oldestTaskId", load.getOldestTaskId());
+            item.put("oldestCreateTime", load.getOldestCreateTime().format(formatter));
+            item.put("oldestAgeMinutes", Duration.between(load.getOldestCreateTime(), now).toMinutes());
+            reviewers.add(item);
+        }
+        
+        LocalDateTime updateTime = reviewerStatsService.getUpdateTime();
+        result.put("time", updateTime != null ? updateTime.format(formatter) : "N/A");
+        result.put("reviewerCount", loads.size());
+        result.put("totalBacklog", totalBacklog);
+        result.put("totalOverdue", totalOverdue);
+        result.put("reviewers", reviewers);
+        return result;
+    }
+}
@@ -0,0 +1,25 @@
+package com.alert.merch.health;
+
+import com.alert.merch.service.CycleWatchdogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 检查周期就绪检查
+ * 超过阈值时间没有成功完成检查周期时返回DOWN，Pod暂时不接收流量；
+ * 存活检查使用 monitorCycleLiveness，只在周期卡死时失败
+ */
+@Component("monitorCycle")
+public class MonitorCycleHealthIndicator implements HealthIndicator {
+    
+    @Autowired
+    private CycleWatchdogService cycleWatchdogService;
+    
+    @Override
+    public Health health() {
+        Health.Builder builder = cycleWatchdogService.isStale() ? Health.down() : Health.up();
+        return builder.withDetails(cycleWatchdogService.getStatus()).build();
+    }
+}
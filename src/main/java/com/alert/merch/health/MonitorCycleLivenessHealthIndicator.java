@@ -0,0 +1,25 @@
+package com.alert.merch.health;
+
+import com.alert.merch.service.CycleWatchdogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 检查周期存活检查
+ * 只在周期卡死（长时间未结束，或阶段被放弃后一直没有正常结束的周期）时返回DOWN，由Kubernetes重启Pod；
+ * 数据库不可用等正常失败的周期只影响就绪检查（monitorCycle），重启无法恢复
+ */
+@Component("monitorCycleLiveness")
+public class MonitorCycleLivenessHealthIndicator implements HealthIndicator {
+    
+    @Autowired
+    private CycleWatchdogService cycleWatchdogService;
+    
+    @Override
+    public Health health() {
+        Health.Builder builder = cycleWatchdogService.isWedged() ? Health.down() : Health.up();
+        return builder.withDetails(cycleWatchdogService.getStatus()).build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.alert.merch.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 检查周期JFR事件，持续时间覆盖一次完整的 checkAndAlert
+ */
+@Name("com.alert.merch.Cycle")
+@Label("检查周期")
+@Description("一次任务检查周期，从开始到结束")
+@Category({"Alert Merch"})
+@StackTrace(false)
+public class CycleEvent extends Event {
+    
+    @Label("周期编号")
+    public long cycleId;
+    
+    @Label("是否成功")
+    public boolean success;
+}
@@ -0,0 +1,67 @@
+package com.alert.merch.jfr;
+
+import com.alert.merch.service.JfrRecordingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JFR录制Actuator端点
+ * GET  /actuator/jfr                                          - 录制状态和已有文件
+ * POST /actuator/jfr/start  {"preset":"lock","durationSeconds":300} - 按预设开始录制（allocation/lock/io）
+ * POST /actuator/jfr/dump                                     - 转储当前录制，不停止
+ * POST /actuator/jfr/stop                                     - 停止录制并写入文件
+ */
+@Slf4j
+@Component
+@Endpoint(id = "jfr")
+public class JfrEndpoint {
+    
+    @Autowired
+    private JfrRecordingService jfrRecordingService;
+    
+    @ReadOperation
+    public Map<String, Object> status() {
+        return jfrRecordingService.status();
+    }
+    
+    @WriteOperation
+    public Map<String, Object> control(@Selector String action, @Nullable String preset,
+                                       @Nullable Integer durationSeconds) {
+        if (!jfrRecordingService.isAvailable()) {
+            return error("当前JVM不支持JFR");
+        }
+        try {
+            switch (action) {
+                case "start":
+                    return jfrRecordingService.start(JfrPreset.fromLabel(preset != null ? preset : "allocation"),
+                        durationSeconds);
+                case "dump":
+                    return jfrRecordingService.dump();
+                case "stop":
+                    return jfrRecordingService.stop();
+                default:
+                    return error("未知操作: " + action + "，可选 start、dump、stop");
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return error(e.getMessage());
+        } catch (Exception e) {
+            log.error("JFR录制操作失败: {}", action, e);
+            return error("JFR录制操作失败: " + e.getMessage());
+        }
+    }
+    
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("error", message);
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+package com.alert.merch.jfr;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JFR录制预设
+ * 在JDK自带的 default 配置（开销约1%）上调整对应事件的开关和阈值
+ */
+public enum JfrPreset {
+    
+    /**
+     * 对象分配：TLAB内外分配采样和老年代对象样本，定位每个周期的分配热点
+     */
+    ALLOCATION("allocation") {
+        @Override
+        Map<String, String> overrides() {
+            Map<String, String> settings = new LinkedHashMap<>();
+            settings.put("jdk.ObjectAllocationInNewTLAB#enabled", "true");
+            settings.put("jdk.ObjectAllocationInNewTLAB#stackTrace", "true");
+            settings.put("jdk.ObjectAllocationOutsideTLAB#enabled", "true");
+            settings.put("jdk.ObjectAllocationOutsideTLAB#stackTrace", "true");
+            // JDK 16+ 的限速分配采样，较早的JDK忽略不存在的事件
+            settings.put("jdk.ObjectAllocationSample#enabled", "true");
+            settings.put("jdk.ObjectAllocationSample#throttle", "300/s");
+            settings.put("jdk.OldObjectSample#enabled", "true");
+            settings.put("jdk.OldObjectSample#stackTrace", "true");
+            return settings;
+        }
+    },
+    
+    /**
+     * 锁竞争：监视器进入/等待和线程park，阈值从20ms降到1ms
+     */
+    LOCK("lock") {
+        @Override
+        Map<String, String> overrides() {
+            Map<String, String> settings = new LinkedHashMap<>();
+            for (String event : new String[]{"jdk.JavaMonitorEnter", "jdk.JavaMonitorWait", "jdk.ThreadPark"}) {
+                settings.put(event + "#enabled", "true");
+                settings.put(event + "#stackTrace", "true");
+                settings.put(event + "#threshold", "1 ms");
+            }
+            return settings;
+        }
+    },
+    
+    /**
+     * I/O：Socket（数据库、webhook）和文件读写，阈值从20ms降到1ms
+     */
+    IO("io") {
+        @Override
+        Map<String, String> overrides() {
+            Map<String, String> settings = new LinkedHashMap<>();
+            for (String event : new String[]{"jdk.SocketRead", "jdk.SocketWrite", "jdk.FileRead", "jdk.FileWrite"}) {
+                settings.put(event + "#enabled", "true");
+                settings.put(event + "#stackTrace", "true");
+                settings.put(event + "#threshold", "1 ms");
+            }
+            return settings;
+        }
+    };
+    
+    private final String label;
+    
+    JfrPreset(String label) {
+        this.label = label;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    /**
+     * 在基础配置上需要覆盖的设置
+     */
+    abstract Map<String, String> overrides();
+    
+    /**
+     * 基础配置加上预设的覆盖，并确保本应用的自定义事件开启
+     */
+    public Map<String, String> settings(Map<String, String> base) {
+        Map<String, String> settings = new LinkedHashMap<>(base);
+        settings.putAll(overrides());
+        for (String event : new String[]{"com.alert.merch.Cycle", "com.alert.merch.Query", "com.alert.merch.WebhookSend"}) {
+            settings.put(event + "#enabled", "true");
+            settings.put(event + "#threshold", "0 ms");
+        }
+        return settings;
+    }
+    
+    public static JfrPreset fromLabel(String label) {
+        for (JfrPreset preset : values()) {
+            if (preset.label.equalsIgnoreCase(label)) {
+                return preset;
+            }
+        }
+        throw new IllegalArgumentException("未知的JFR预设: " + label + "，可选 allocation、lock、io");
+    }
+}
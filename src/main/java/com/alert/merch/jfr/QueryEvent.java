@@ -0,0 +1,28 @@
+package com.alert.merch.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 任务查询JFR事件，持续时间覆盖一次数据库查询（含逐行映射）
+ */
+@Name("com.alert.merch.Query")
+@Label("任务查询")
+@Description("查询最近任务并写入列式任务表")
+@Category({"Alert Merch"})
+@StackTrace(false)
+public class QueryEvent extends Event {
+    
+    @Label("分区数")
+    public int partitions;
+    
+    @Label("行数")
+    public int rows;
+    
+    @Label("是否成功")
+    public boolean success;
+}
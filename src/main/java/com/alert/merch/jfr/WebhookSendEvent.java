@@ -0,0 +1,33 @@
+package com.alert.merch.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 告警发送JFR事件，持续时间覆盖一次企业微信webhook调用
+ */
+@Name("com.alert.merch.WebhookSend")
+@Label("告警发送")
+@Description("向告警目标发送一条企业微信消息")
+@Category({"Alert Merch"})
+@StackTrace(false)
+public class WebhookSendEvent extends Event {
+    
+    @Label("告警目标")
+    public String target;
+    
+    @Label("消息大小")
+    @DataAmount
+    public long bytes;
+    
+    @Label("周期编号")
+    public long cycleId;
+    
+    @Label("是否成功")
+    public boolean success;
+}
@@ -1,9 +1,12 @@
 package com.alert.merch.mapper;
 
+import com.alert.merch.model.TaskEnrichment;
 import com.alert.merch.model.TaskInfo;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -34,6 +37,38 @@ public interface TaskMapper {
         @Param("taskKeys") List<String> taskKeys
     );
     
+    /**
+     * 根据任务状态流式查询任务，逐行回调，不在内存中保留结果列表
+     * 
+     * @param days 查询天数范围
+     * @param procKey 流程键
+     * @param taskKeys 任务键列表
+     * @param handler 行处理器
+     */
+    void scanTasksByStatus(
+        @Param("days") int days,
+        @Param("procKey") String procKey,
+        @Param("taskKeys") List<String> taskKeys,
+        ResultHandler<TaskInfo> handler
+    );
+    
+    /**
+     * 按创建时间范围流式查询任务，用于分区并行查询
+     * 
+     * @param from 创建时间下限（含）
+     * @param to 创建时间上限（不含），null表示不限
+     * @param procKey 流程键
+     * @param taskKeys 任务键列表
+     * @param handler 行处理器
+     */
+    void scanTasksByRange(
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("procKey") String procKey,
+        @Param("taskKeys") List<String> taskKeys,
+        ResultHandler<TaskInfo> handler
+    );
+    
     /**
      * 查询当天任务
      * 
@@ -45,4 +80,22 @@ public interface TaskMapper {
         @Param("procKey") String procKey,
         @Param("taskKeys") List<String> taskKeys
     );
+    
+    /**
+     * 按流程ID批量查询告警补充信息，业务表中没有记录的流程不在结果中
+     * 
+     * @param table 业务表
+     * @param keyColumn 流程ID列
+     * @param merchantNameColumn 商户名称列
+     * @param channelColumn 渠道列
+     * @param taskIds 流程ID列表，不能为空
+     * @return 补充信息列表
+     */
+    List<TaskEnrichment> selectEnrichments(
+        @Param("table") String table,
+        @Param("keyColumn") String keyColumn,
+        @Param("merchantNameColumn") String merchantNameColumn,
+        @Param("channelColumn") String channelColumn,
+        @Param("taskIds") List<String> taskIds
+    );
 }
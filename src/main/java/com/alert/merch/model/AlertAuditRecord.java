@@ -0,0 +1,39 @@
+package com.alert.merch.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 告警审计记录，每条超时告警消息在得到发送结果后记录一条
+ */
+@Data
+public class AlertAuditRecord {
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime time;
+    
+    private String type; // 超时类型：unclaimed（未领取）, unfinished（未完成）
+    
+    private String target; // 告警目标名称
+    
+    private String escalation; // 升级级别名称，第一级为null
+    
+    private List<String> taskIds;
+    
+    private Boolean delivered; // 是否送达：false为入队失败或企业微信返回错误，审计发送结果之前的旧记录为null
+    
+    public AlertAuditRecord() {}
+    
+    public AlertAuditRecord(LocalDateTime time, String type, String target, String escalation, List<String> taskIds,
+                            Boolean delivered) {
+        this.time = time;
+        this.type = type;
+        this.target = target;
+        this.escalation = escalation;
+        this.taskIds = taskIds;
+        this.delivered = delivered;
+    }
+}
@@ -0,0 +1,29 @@
+package com.alert.merch.model;
+
+import lombok.Data;
+
+/**
+ * 告警目标（企业微信群机器人）
+ */
+@Data
+public class AlertTarget {
+    
+    private String name;
+    
+    private String webhook;
+    
+    private String escalation; // 升级级别名称，第一级为null
+    
+    public AlertTarget() {}
+    
+    public AlertTarget(String name, String webhook) {
+        this.name = name;
+        this.webhook = webhook;
+    }
+    
+    public AlertTarget(String name, String webhook, String escalation) {
+        this.name = name;
+        this.webhook = webhook;
+        this.escalation = escalation;
+    }
+}
@@ -0,0 +1,45 @@
+package com.alert.merch.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 按创建日期汇总的每日统计
+ * 未结算的天（今天，以及日报发送前的昨天）保留任务ID集合用于去重（重启、快照重复、超时任务每日清空后不会重复计数）；
+ * 日报发送后该天结算，只保留计数，集合清空不再持久化
+ */
+@Data
+public class DailyRollup {
+    
+    private String date; // yyyy-MM-dd
+    
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Set<String> taskIds = new HashSet<>(); // 入网任务
+    
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Set<String> unclaimedIds = new HashSet<>(); // 超时未领取任务
+    
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Set<String> unfinishedIds = new HashSet<>(); // 超时未完成任务
+    
+    private int taskCount; // 入网任务数
+    
+    private int unclaimedCount; // 超时未领取任务数
+    
+    private int unfinishedCount; // 超时未完成任务数
+    
+    private int unclaimedInWindow; // 创建于统计时段内的超时未领取任务数
+    
+    private int unfinishedInWindow; // 创建于统计时段内的超时未完成任务数
+    
+    private boolean closed; // 已结算，不再接受新记录
+    
+    public DailyRollup() {}
+    
+    public DailyRollup(String date) {
+        this.date = date;
+    }
+}
@@ -0,0 +1,26 @@
+package com.alert.merch.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 录制的任务快照，每行一条，用于回放
+ */
+@Data
+public class RecordedSnapshot {
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime time;
+    
+    private List<TaskInfo> tasks;
+    
+    public RecordedSnapshot() {}
+    
+    public RecordedSnapshot(LocalDateTime time, List<TaskInfo> tasks) {
+        this.time = time;
+        this.tasks = tasks;
+    }
+}
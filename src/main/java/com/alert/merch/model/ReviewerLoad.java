@@ -0,0 +1,32 @@
+package com.alert.merch.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 单个处理人的积压情况
+ */
+@Data
+public class ReviewerLoad {
+    
+    private String assignee; // 处理人
+    
+    private int backlog; // 已领取未完成的任务数
+    
+    private int overdue; // 其中超时未完成的任务数
+    
+    private String oldestTaskId; // 最早创建的任务
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime oldestCreateTime;
+    
+    public ReviewerLoad() {}
+    
+    public ReviewerLoad(String assignee, int backlog, int overdue) {
+        this.assignee = assignee;
+        this.backlog = backlog;
+        this.overdue = overdue;
+    }
+}
@@ -0,0 +1,26 @@
+package com.alert.merch.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任务告警事件，每条任务被纳入一次告警时发布
+ */
+@Data
+public class TaskAlertEvent {
+    
+    private TaskInfo task;
+    
+    private String target; // 告警目标名称
+    
+    private LocalDateTime alertTime;
+    
+    public TaskAlertEvent() {}
+    
+    public TaskAlertEvent(TaskInfo task, String target, LocalDateTime alertTime) {
+        this.task = task;
+        this.target = target;
+        this.alertTime = alertTime;
+    }
+}
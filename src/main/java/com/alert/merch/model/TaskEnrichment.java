@@ -0,0 +1,31 @@
+package com.alert.merch.model;
+
+import lombok.Data;
+
+/**
+ * 告警中流程的补充信息（商户名称、渠道），按 PROC_ID 从业务表查询
+ */
+@Data
+public class TaskEnrichment {
+    
+    private String taskId;
+    
+    private String merchantName;
+    
+    private String channel;
+    
+    public TaskEnrichment() {}
+    
+    public TaskEnrichment(String taskId, String merchantName, String channel) {
+        this.taskId = taskId;
+        this.merchantName = merchantName;
+        this.channel = channel;
+    }
+    
+    /**
+     * 业务表中没有该流程的记录，或商户名称、渠道都为空
+     */
+    public boolean isEmpty() {
+        return (merchantName == null || merchantName.isEmpty()) && (channel == null || channel.isEmpty());
+    }
+}
@@ -0,0 +1,43 @@
+package com.alert.merch.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任务事件，由流程引擎的任务监听器推送
+ */
+@Data
+public class TaskEvent {
+    
+    public static final String CREATED = "created";
+    public static final String ASSIGNED = "assigned";
+    public static final String COMPLETED = "completed";
+    
+    private long sequence; // 事件序号，同一任务的事件序号必须递增，重复或更旧的序号被忽略
+    
+    private String type; // 事件类型：created（创建）, assigned（领取）, completed（完成）
+    
+    private String taskId;
+    
+    private String procKey; // 流程键
+    
+    private String taskKey; // 任务节点键
+    
+    private String assignee; // 处理人，assigned事件携带
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime; // 任务创建时间，created事件必填
+    
+    public TaskEvent() {}
+    
+    public TaskEvent(long sequence, String type, String taskId, String procKey, String taskKey, LocalDateTime createTime) {
+        this.sequence = sequence;
+        this.type = type;
+        this.taskId = taskId;
+        this.procKey = procKey;
+        this.taskKey = taskKey;
+        this.createTime = createTime;
+    }
+}
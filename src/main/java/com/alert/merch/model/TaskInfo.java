@@ -18,6 +18,10 @@ public class TaskInfo {
     
     private String type; // 超时类型：unclaimed（未领取）, unfinished（未完成）
     
+    private String taskKey; // 任务节点键，用于告警路由
+    
+    private String assignee; // 处理人（ASSIGNEE，为空时取ASSIGNEE_ID），未领取的任务为null
+    
     public TaskInfo() {}
     
     public TaskInfo(String taskId, LocalDateTime createTime, String type) {
@@ -0,0 +1,23 @@
+package com.alert.merch.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 任务分页查询结果
+ */
+@Data
+public class TaskPage {
+    
+    private List<TaskInfo> tasks;
+    
+    private String nextCursor; // 下一页游标，没有更多数据时为null
+    
+    public TaskPage() {}
+    
+    public TaskPage(List<TaskInfo> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,26 @@
+package com.alert.merch.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任务查询快照
+ */
+@Data
+public class TaskSnapshot {
+    
+    private TaskTable table;
+    
+    private LocalDateTime fetchTime;
+    
+    private boolean stale; // 是否为数据库不可用时沿用的旧快照
+    
+    public TaskSnapshot() {}
+    
+    public TaskSnapshot(TaskTable table, LocalDateTime fetchTime, boolean stale) {
+        this.table = table;
+        this.fetchTime = fetchTime;
+        this.stale = stale;
+    }
+}
@@ -0,0 +1,413 @@
+package com.alert.merch.model;
+
+import com.alert.merch.util.OldestTopK;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式任务表
+ * 按列存放一次查询的任务：数字形式的任务ID直接编码为long，其他ID单独存放；
+ * 创建时间存为秒级时间戳，状态和任务节点键存为byte编码，处理人按字典编码为int。
+ * 每行不再保留TaskInfo对象，超时判断在原始数组上顺序扫描完成，
+ * 只有需要落库或告警的行才还原为TaskInfo
+ */
+public class TaskTable {
+    
+    public static final byte STATUS_UNKNOWN = 0;
+    public static final byte STATUS_UNCLAIMED = 1;
+    public static final byte STATUS_UNFINISHED = 2;
+    
+    private static final int DEFAULT_CAPACITY = 64;
+    
+    private long[] idCodes;
+    // 非数字任务ID，按需分配
+    private String[] idStrings;
+    private long[] createEpochSeconds;
+    private byte[] statuses;
+    private byte[] taskKeyCodes;
+    private final List<String> taskKeyDictionary = new ArrayList<>();
+    // 处理人编码，0表示无处理人，其他为字典下标+1
+    private int[] assigneeCodes;
+    private final List<String> assigneeDictionary = new ArrayList<>();
+    private final Map<String, Integer> assigneeIndex = new HashMap<>();
+    private int size;
+    
+    public TaskTable() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    public TaskTable(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        idCodes = new long[capacity];
+        createEpochSeconds = new long[capacity];
+        statuses = new byte[capacity];
+        taskKeyCodes = new byte[capacity];
+        assigneeCodes = new int[capacity];
+    }
+    
+    /**
+     * 由任务列表构建列式任务表
+     */
+    public static TaskTable of(List<TaskInfo> tasks) {
+        TaskTable table = new TaskTable(tasks.size());
+        for (TaskInfo task : tasks) {
+            table.add(task);
+        }
+        return table;
+    }
+    
+    /**
+     * 追加一行任务
+     */
+    public void add(TaskInfo task) {
+        add(task.getTaskId(), task.getCreateTime(), task.getType(), task.getTaskKey(), task.getAssignee());
+    }
+    
+    /**
+     * 追加一行没有处理人的任务
+     */
+    public void add(String taskId, LocalDateTime createTime, String type, String taskKey) {
+        add(taskId, createTime, type, taskKey, null);
+    }
+    
+    /**
+     * 追加一行任务
+     */
+    public void add(String taskId, LocalDateTime createTime, String type, String taskKey, String assignee) {
+        ensureCapacity(size + 1);
+        long code = encodeId(taskId);
+        idCodes[size] = code;
+        if (code < 0) {
+            if (idStrings == null) {
+                idStrings = new String[idCodes.length];
+            }
+            idStrings[size] = taskId;
+        }
+        createEpochSeconds[size] = toEpochSecond(createTime);
+        statuses[size] = encodeStatus(type);
+        taskKeyCodes[size] = encodeTaskKey(taskKey);
+        assigneeCodes[size] = encodeAssignee(assignee);
+        size++;
+    }
+    
+    /**
+     * 追加另一张表的全部行，用于合并分区查询结果
+     */
+    public void addAll(TaskTable other) {
+        ensureCapacity(size + other.size);
+        for (int row = 0; row < other.size; row++) {
+            add(other.getTaskId(row), other.getCreateTime(row), other.getType(row), other.getTaskKey(row),
+                other.getAssignee(row));
+        }
+    }
+    
+    /**
+     * 超时分类：在原始数组上一次顺序扫描，返回超时未领取和超时未完成的行号
+     *
+     * @param nowEpochSecond 当前时间（秒级时间戳）
+     * @param unclaimedTimeoutSeconds 未领取超时阈值（秒）
+     * @param unfinishedTimeoutSeconds 未完成超时阈值（秒）
+     * @return 分类结果
+     */
+    public Classification classify(long nowEpochSecond, long unclaimedTimeoutSeconds, long unfinishedTimeoutSeconds) {
+        return classify(nowEpochSecond, unclaimedTimeoutSeconds, unfinishedTimeoutSeconds, 0);
+    }
+    
+    /**
+     * 超时分类，同一次扫描中用有界堆选出两类超时任务中等待最久的前 oldestK 条，O(n log k)，
+     * 并按处理人汇总已领取任务的积压数、超时未完成数和最早的任务
+     *
+     * @param oldestK 每类保留的最久任务数，0表示不统计
+     */
+    public Classification classify(long nowEpochSecond, long unclaimedTimeoutSeconds, long unfinishedTimeoutSeconds,
+                                   int oldestK) {
+        OldestTopK oldestUnclaimed = new OldestTopK(oldestK);
+        OldestTopK oldestUnfinished = new OldestTopK(oldestK);
+        int[] unclaimedRows = new int[size];
+        int[] unfinishedRows = new int[size];
+        int unclaimedCount = 0;
+        int unfinishedCount = 0;
+        long unclaimedBefore = nowEpochSecond - unclaimedTimeoutSeconds;
+        long unfinishedBefore = nowEpochSecond - unfinishedTimeoutSeconds;
+        int[] assigneeBacklog = new int[assigneeDictionary.size()];
+        int[] assigneeOverdue = new int[assigneeDictionary.size()];
+        int[] assigneeOldestRows = new int[assigneeDictionary.size()];
+        
+        for (int row = 0; row < size; row++) {
+            byte status = statuses[row];
+            long createTime = createEpochSeconds[row];
+            int assignee = assigneeCodes[row] - 1;
+            if (status == STATUS_UNFINISHED && assignee >= 0) {
+                if (assigneeBacklog[assignee]++ == 0 || createTime < createEpochSeconds[assigneeOldestRows[assignee]]) {
+                    assigneeOldestRows[assignee] = row;
+                }
+                if (createTime < unfinishedBefore) {
+                    assigneeOverdue[assignee]++;
+                }
+            }
+            if (status == STATUS_UNCLAIMED && createTime < unclaimedBefore) {
+                unclaimedRows[unclaimedCount++] = row;
+                oldestUnclaimed.offer(row, createTime);
+            } else if (status == STATUS_UNFINISHED && createTime < unfinishedBefore) {
+                unfinishedRows[unfinishedCount++] = row;
+                oldestUnfinished.offer(row, createTime);
+            }
+        }
+        return new Classification(unclaimedRows, unclaimedCount, unfinishedRows, unfinishedCount,
+            oldestUnclaimed.sortedRows(), oldestUnfinished.sortedRows(),
+            assigneeBacklog, assigneeOverdue, assigneeOldestRows);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public String getTaskId(int row) {
+        long code = idCodes[row];
+        return code >= 0 ? Long.toString(code) : idStrings[row];
+    }
+    
+    public long getCreateEpochSecond(int row) {
+        return createEpochSeconds[row];
+    }
+    
+    public LocalDateTime getCreateTime(int row) {
+        return LocalDateTime.ofEpochSecond(createEpochSeconds[row], 0, ZoneOffset.UTC);
+    }
+    
+    public byte getStatus(int row) {
+        return statuses[row];
+    }
+    
+    public String getType(int row) {
+        return decodeStatus(statuses[row]);
+    }
+    
+    public String getTaskKey(int row) {
+        int code = taskKeyCodes[row];
+        return code == 0 ? null : taskKeyDictionary.get(code - 1);
+    }
+    
+    public String getAssignee(int row) {
+        int code = assigneeCodes[row];
+        return code == 0 ? null : assigneeDictionary.get(code - 1);
+    }
+    
+    /**
+     * 不同处理人的个数，分类结果中按处理人汇总的数组以此为长度
+     */
+    public int getAssigneeCount() {
+        return assigneeDictionary.size();
+    }
+    
+    /**
+     * 按字典下标取处理人
+     */
+    public String getAssigneeName(int index) {
+        return assigneeDictionary.get(index);
+    }
+    
+    /**
+     * 将一行还原为TaskInfo
+     */
+    public TaskInfo toTaskInfo(int row) {
+        TaskInfo task = new TaskInfo(getTaskId(row), getCreateTime(row), getType(row));
+        task.setTaskKey(getTaskKey(row));
+        task.setAssignee(getAssignee(row));
+        return task;
+    }
+    
+    /**
+     * 还原为TaskInfo列表
+     */
+    public List<TaskInfo> toTaskInfos() {
+        List<TaskInfo> tasks = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            tasks.add(toTaskInfo(row));
+        }
+        return tasks;
+    }
+    
+    /**
+     * 估算占用的堆内存（字节），不含对象头对齐
+     */
+    public long estimatedBytes() {
+        long bytes = (long) idCodes.length * Long.BYTES + (long) createEpochSeconds.length * Long.BYTES
+            + statuses.length + taskKeyCodes.length + (long) assigneeCodes.length * Integer.BYTES;
+        for (String assignee : assigneeDictionary) {
+            bytes += 40 + assignee.length();
+        }
+        if (idStrings != null) {
+            bytes += (long) idStrings.length * 4;
+            for (int row = 0; row < size; row++) {
+                if (idStrings[row] != null) {
+                    bytes += 40 + idStrings[row].length();
+                }
+            }
+        }
+        return bytes;
+    }
+    
+    /**
+     * LocalDateTime与秒级时间戳互转，按原样编码，不做时区换算
+     */
+    public static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    /**
+     * 编码任务ID：不带前导0的非负数字ID直接存为long，其他返回-1
+     */
+    static long encodeId(String taskId) {
+        int length = taskId.length();
+        if (length == 0 || length > 18 || (length > 1 && taskId.charAt(0) == '0')) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = taskId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    public static byte encodeStatus(String type) {
+        if ("unclaimed".equals(type)) {
+            return STATUS_UNCLAIMED;
+        }
+        if ("unfinished".equals(type)) {
+            return STATUS_UNFINISHED;
+        }
+        return STATUS_UNKNOWN;
+    }
+    
+    static String decodeStatus(byte status) {
+        switch (status) {
+            case STATUS_UNCLAIMED:
+                return "unclaimed";
+            case STATUS_UNFINISHED:
+                return "unfinished";
+            default:
+                return null;
+        }
+    }
+    
+    private byte encodeTaskKey(String taskKey) {
+        if (taskKey == null) {
+            return 0;
+        }
+        int index = taskKeyDictionary.indexOf(taskKey);
+        if (index < 0) {
+            if (taskKeyDictionary.size() >= Byte.MAX_VALUE) {
+                throw new IllegalStateException("任务节点键种类超过上限: " + Byte.MAX_VALUE);
+            }
+            taskKeyDictionary.add(taskKey);
+            index = taskKeyDictionary.size() - 1;
+        }
+        return (byte) (index + 1);
+    }
+    
+    private int encodeAssignee(String assignee) {
+        if (assignee == null) {
+            return 0;
+        }
+        Integer index = assigneeIndex.get(assignee);
+        if (index == null) {
+            index = assigneeDictionary.size();
+            assigneeDictionary.add(assignee);
+            assigneeIndex.put(assignee, index);
+        }
+        return index + 1;
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required <= idCodes.length) {
+            return;
+        }
+        int capacity = Math.max(required, idCodes.length + (idCodes.length >> 1));
+        idCodes = Arrays.copyOf(idCodes, capacity);
+        createEpochSeconds = Arrays.copyOf(createEpochSeconds, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        taskKeyCodes = Arrays.copyOf(taskKeyCodes, capacity);
+        assigneeCodes = Arrays.copyOf(assigneeCodes, capacity);
+        if (idStrings != null) {
+            idStrings = Arrays.copyOf(idStrings, capacity);
+        }
+    }
+    
+    /**
+     * 超时分类结果
+     */
+    public static class Classification {
+        private final int[] unclaimedRows;
+        private final int unclaimedCount;
+        private final int[] unfinishedRows;
+        private final int unfinishedCount;
+        // 等待最久的行号，按创建时间从早到晚
+        private final int[] oldestUnclaimedRows;
+        private final int[] oldestUnfinishedRows;
+        // 按处理人字典下标：已领取任务数、其中超时未完成数、最早创建的任务行号
+        private final int[] assigneeBacklog;
+        private final int[] assigneeOverdue;
+        private final int[] assigneeOldestRows;
+        
+        Classification(int[] unclaimedRows, int unclaimedCount, int[] unfinishedRows, int unfinishedCount,
+                       int[] oldestUnclaimedRows, int[] oldestUnfinishedRows,
+                       int[] assigneeBacklog, int[] assigneeOverdue, int[] assigneeOldestRows) {
+            this.unclaimedRows = unclaimedRows;
+            this.unclaimedCount = unclaimedCount;
+            this.unfinishedRows = unfinishedRows;
+            this.unfinishedCount = unfinishedCount;
+            this.oldestUnclaimedRows = oldestUnclaimedRows;
+            this.oldestUnfinishedRows = oldestUnfinishedRows;
+            this.assigneeBacklog = assigneeBacklog;
+            this.assigneeOverdue = assigneeOverdue;
+            this.assigneeOldestRows = assigneeOldestRows;
+        }
+        
+        public int[] getUnclaimedRows() {
+            return unclaimedRows;
+        }
+        
+        public int getUnclaimedCount() {
+            return unclaimedCount;
+        }
+        
+        public int[] getUnfinishedRows() {
+            return unfinishedRows;
+        }
+        
+        public int getUnfinishedCount() {
+            return unfinishedCount;
+        }
+        
+        public int[] getOldestUnclaimedRows() {
+            return oldestUnclaimedRows;
+        }
+        
+        public int[] getOldestUnfinishedRows() {
+            return oldestUnfinishedRows;
+        }
+        
+        public int[] getAssigneeBacklog() {
+            return assigneeBacklog;
+        }
+        
+        public int[] getAssigneeOverdue() {
+            return assigneeOverdue;
+        }
+        
+        public int[] getAssigneeOldestRows() {
+            return assigneeOldestRows;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.alert.merch.replay;
+
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.service.WeComAlertService;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 回放模式的告警服务，只统计各告警目标的消息数，不发送企业微信
+ */
+public class ReplayAlertService extends WeComAlertService {
+    
+    private final Map<String, AtomicInteger> messagesByTarget = new ConcurrentHashMap<>();
+    private final AtomicInteger dailyReports = new AtomicInteger();
+    
+    @Override
+    public boolean sendMarkdownAlert(String content, AlertTarget target, Consumer<Boolean> onResult) {
+        messagesByTarget.computeIfAbsent(target.getName(), name -> new AtomicInteger()).incrementAndGet();
+        if (onResult != null) {
+            onResult.accept(true);
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean sendDailyStatsAlert(String date, int totalTimeout, int totalTasks, boolean late,
+                                       long weekDistinct, long monthDistinct) {
+        dailyReports.incrementAndGet();
+        return super.sendDailyStatsAlert(date, totalTimeout, totalTasks, late, weekDistinct, monthDistinct);
+    }
+    
+    public Map<String, Integer> getMessagesByTarget() {
+        Map<String, Integer> result = new TreeMap<>();
+        messagesByTarget.forEach((target, count) -> result.put(target, count.get()));
+        return result;
+    }
+    
+    public int getDailyReports() {
+        return dailyReports.get();
+    }
+}
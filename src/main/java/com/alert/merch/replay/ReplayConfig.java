@@ -0,0 +1,36 @@
+package com.alert.merch.replay;
+
+import com.alert.merch.util.VirtualClock;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * 回放模式配置类，通过 SPRING_PROFILES_ACTIVE=replay 启用
+ * 使用虚拟时钟、录制快照数据源和只计数不发送的告警服务
+ */
+@Configuration
+@Profile("replay")
+public class ReplayConfig {
+    
+    @Bean
+    public VirtualClock clock() {
+        return new VirtualClock(Instant.now(), ZoneId.systemDefault());
+    }
+    
+    @Bean
+    @Primary
+    public ReplayTaskQueryService replayTaskQueryService() {
+        return new ReplayTaskQueryService();
+    }
+    
+    @Bean
+    @Primary
+    public ReplayAlertService replayAlertService() {
+        return new ReplayAlertService();
+    }
+}
@@ -0,0 +1,214 @@
+package com.alert.merch.replay;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.RecordedSnapshot;
+import com.alert.merch.model.TaskAlertEvent;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.service.DailyRollupService;
+import com.alert.merch.service.TaskMonitorService;
+import com.alert.merch.service.TimeoutTasksService;
+import com.alert.merch.util.VirtualClock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 回放驱动
+ * 按虚拟时间推进，把录制的快照依次交给完整的检查周期（每日统计、当日统计、任务检查、告警路由），
+ * 统计告警数量、检测延迟和吞吐，用于在不访问数据库和企业微信的情况下复现历史行为、对比规则调整效果
+ */
+@Slf4j
+@Component
+@Profile("replay")
+public class ReplayDriver implements ApplicationRunner {
+    
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private VirtualClock clock;
+    
+    @Autowired
+    private ReplayTaskQueryService replayTaskQueryService;
+    
+    @Autowired
+    private ReplayAlertService replayAlertService;
+    
+    @Autowired
+    private TaskMonitorService taskMonitorService;
+    
+    @Autowired
+    private TimeoutTasksService timeoutTasksService;
+    
+    @Autowired
+    private DailyRollupService dailyRollupService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ApplicationContext applicationContext;
+    
+    // 每条任务的首次告警时间，用于计算检测延迟
+    private final Map<String, TaskAlertEvent> firstAlerts = new ConcurrentHashMap<>();
+    
+    // 每条任务以当前状态首次出现在快照中的时间（领取后才进入未完成状态的任务从此时起算）
+    private final Map<String, LocalDateTime> firstSeen = new HashMap<>();
+    
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        AppConfig.Replay config = appConfig.getReplay();
+        if (config.getInput() == null || config.getInput().isEmpty()) {
+            log.warn("未配置回放输入（app.replay.input），跳过回放");
+            return;
+        }
+        
+        ReplayReport report = replay(Paths.get(config.getInput()));
+        String json = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+        log.warn("回放完成:\n{}", json);
+        if (config.getReportPath() != null && !config.getReportPath().isEmpty()) {
+            Files.write(Paths.get(config.getReportPath()), json.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        if (config.isExitOnFinish()) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+    
+    /**
+     * 回放指定的快照文件或目录
+     * 虚拟时间从第一条快照开始，每步推进 stepSeconds（默认为检查间隔），
+     * 每个周期使用时间不晚于当前虚拟时间的最新一条快照
+     */
+    public ReplayReport replay(Path input) throws IOException {
+        int stepSeconds = appConfig.getReplay().getStepSeconds() > 0
+            ? appConfig.getReplay().getStepSeconds() : appConfig.getTask().getCheckIntervalSeconds();
+        Duration step = Duration.ofSeconds(stepSeconds);
+        
+        firstAlerts.clear();
+        firstSeen.clear();
+        timeoutTasksService.cleanupAllTimeoutTasks();
+        dailyRollupService.clear();
+        
+        ReplayReport report = new ReplayReport();
+        long startNanos = System.nanoTime();
+        try (SnapshotFileReader reader = new SnapshotFileReader(input, objectMapper)) {
+            RecordedSnapshot current = reader.next();
+            if (current == null) {
+                log.warn("回放输入中没有快照: {}", input);
+                return report;
+            }
+            RecordedSnapshot next = reader.next();
+            long snapshots = next != null ? 2 : 1;
+            LocalDateTime first = current.getTime();
+            LocalDateTime virtualTime = first;
+            trackFirstSeen(current);
+            
+            while (true) {
+                // 切换到不晚于当前虚拟时间的最新快照
+                while (next != null && !next.getTime().isAfter(virtualTime)) {
+                    current = next;
+                    trackFirstSeen(current);
+                    next = reader.next();
+                    if (next != null) {
+                        snapshots++;
+                    }
+                }
+                
+                clock.set(virtualTime);
+                replayTaskQueryService.setCurrent(current);
+                taskMonitorService.checkAndAlert();
+                report.setCycles(report.getCycles() + 1);
+                report.setRows(report.getRows() + current.getTasks().size());
+                
+                // 最后一条快照之后再运行一个周期即结束
+                if (next == null && virtualTime.isAfter(current.getTime())) {
+                    break;
+                }
+                virtualTime = virtualTime.plus(step);
+            }
+            
+            report.setSnapshots(snapshots);
+            report.setFirstSnapshotTime(first.format(FORMATTER));
+            report.setLastSnapshotTime(current.getTime().format(FORMATTER));
+            report.setVirtualSeconds(Duration.between(first, virtualTime).getSeconds());
+        }
+        
+        long wallMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        report.setWallMillis(wallMillis);
+        report.setSpeedup(report.getVirtualSeconds() * 1000.0 / wallMillis);
+        report.setCyclesPerSecond(report.getCycles() * 1000.0 / wallMillis);
+        report.setRowsPerSecond(report.getRows() * 1000.0 / wallMillis);
+        report.setAlertsByTarget(replayAlertService.getMessagesByTarget());
+        report.setDailyReports(replayAlertService.getDailyReports());
+        fillDetectionLag(report);
+        return report;
+    }
+    
+    @EventListener
+    public void onTaskAlert(TaskAlertEvent event) {
+        firstAlerts.putIfAbsent(stateKey(event.getTask()), event);
+    }
+    
+    private void trackFirstSeen(RecordedSnapshot snapshot) {
+        for (TaskInfo task : snapshot.getTasks()) {
+            firstSeen.putIfAbsent(stateKey(task), snapshot.getTime());
+        }
+    }
+    
+    private static String stateKey(TaskInfo task) {
+        return task.getType() + ":" + task.getTaskId();
+    }
+    
+    private void fillDetectionLag(ReplayReport report) {
+        long[] lags = firstAlerts.values().stream()
+            .mapToLong(event -> {
+                TaskInfo task = event.getTask();
+                int threshold = "unfinished".equals(task.getType())
+                    ? appConfig.getTask().getUnfinishedTimeoutMinutes()
+                    : appConfig.getTask().getTimeoutMinutes();
+                LocalDateTime due = task.getCreateTime().plusMinutes(threshold);
+                LocalDateTime seen = firstSeen.get(stateKey(task));
+                if (seen != null && seen.isAfter(due)) {
+                    due = seen;
+                }
+                return Math.max(0, Duration.between(due, event.getAlertTime()).getSeconds());
+            })
+            .sorted()
+            .toArray();
+        report.setAlertedTasks(lags.length);
+        if (lags.length == 0) {
+            return;
+        }
+        report.setDetectionLagP50Seconds(percentile(lags, 0.50));
+        report.setDetectionLagP95Seconds(percentile(lags, 0.95));
+        report.setDetectionLagMaxSeconds(lags[lags.length - 1]);
+    }
+    
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,45 @@
+package com.alert.merch.replay;
+
+import lombok.Data;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 回放结果报告
+ */
+@Data
+public class ReplayReport {
+    
+    private String firstSnapshotTime;
+    
+    private String lastSnapshotTime;
+    
+    private long snapshots; // 读取的快照数
+    
+    private long cycles; // 执行的检查周期数
+    
+    private long rows; // 各周期处理的任务行数合计
+    
+    private long virtualSeconds; // 回放覆盖的虚拟时长
+    
+    private long wallMillis; // 实际耗时
+    
+    private double speedup; // 虚拟时长 / 实际耗时
+    
+    private double cyclesPerSecond;
+    
+    private double rowsPerSecond;
+    
+    private Map<String, Integer> alertsByTarget = new TreeMap<>(); // 各告警目标的消息数
+    
+    private int alertedTasks; // 被告警过的任务数
+    
+    private int dailyReports; // 每日统计报告数
+    
+    private long detectionLagP50Seconds; // 检测延迟：首次告警时间 - max(创建时间 + 超时阈值, 该状态首次出现在快照中的时间)
+    
+    private long detectionLagP95Seconds;
+    
+    private long detectionLagMaxSeconds;
+}
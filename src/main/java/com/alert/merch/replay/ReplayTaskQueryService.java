@@ -0,0 +1,64 @@
+package com.alert.merch.replay;
+
+import com.alert.merch.model.RecordedSnapshot;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskSnapshot;
+import com.alert.merch.model.TaskTable;
+import com.alert.merch.service.TaskQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 回放模式的任务查询服务，返回回放驱动设置的录制快照，不访问数据库
+ */
+public class ReplayTaskQueryService extends TaskQueryService {
+    
+    @Autowired
+    private Clock clock;
+    
+    private volatile RecordedSnapshot current;
+    private volatile TaskTable currentTable;
+    
+    /**
+     * 设置当前回放的快照
+     */
+    public void setCurrent(RecordedSnapshot snapshot) {
+        if (snapshot != current) {
+            currentTable = TaskTable.of(snapshot.getTasks());
+            current = snapshot;
+        }
+    }
+    
+    @Override
+    public TaskSnapshot selectTasksByStatus(int days, String procKey, List<String> taskKeys) {
+        RecordedSnapshot snapshot = current;
+        if (snapshot == null) {
+            throw new IllegalStateException("回放快照尚未设置");
+        }
+        return new TaskSnapshot(currentTable, snapshot.getTime(), false);
+    }
+    
+    @Override
+    public List<TaskInfo> selectTodayTasks(String procKey, List<String> taskKeys) {
+        RecordedSnapshot snapshot = current;
+        if (snapshot == null) {
+            throw new IllegalStateException("回放快照尚未设置");
+        }
+        LocalDateTime today = LocalDate.now(clock).atStartOfDay();
+        return snapshot.getTasks().stream()
+            .filter(task -> !task.getCreateTime().isBefore(today))
+            .filter(task -> task.getTaskKey() == null || taskKeys.contains(task.getTaskKey()))
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public LocalDateTime getLastSnapshotTime() {
+        RecordedSnapshot snapshot = current;
+        return snapshot != null ? snapshot.getTime() : null;
+    }
+}
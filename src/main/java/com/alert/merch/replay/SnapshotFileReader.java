@@ -0,0 +1,86 @@
+package com.alert.merch.replay;
+
+import com.alert.merch.model.RecordedSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 录制快照读取器
+ * 输入可以是单个文件或目录（按文件名顺序读取其中的 .jsonl / .jsonl.gz 文件），
+ * 逐行读取，不一次性加载全部快照
+ */
+public class SnapshotFileReader implements Closeable {
+    
+    private final ObjectMapper objectMapper;
+    private final Iterator<Path> files;
+    private BufferedReader reader;
+    
+    public SnapshotFileReader(Path input, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> paths = Files.list(input)) {
+                List<Path> sorted = paths
+                    .filter(path -> path.getFileName().toString().endsWith(".jsonl")
+                        || path.getFileName().toString().endsWith(".jsonl.gz"))
+                    .sorted()
+                    .collect(Collectors.toList());
+                this.files = sorted.iterator();
+            }
+        } else {
+            this.files = Collections.singletonList(input).iterator();
+        }
+    }
+    
+    /**
+     * 读取下一条快照，全部读完返回null
+     */
+    public RecordedSnapshot next() throws IOException {
+        while (true) {
+            if (reader == null) {
+                if (!files.hasNext()) {
+                    return null;
+                }
+                reader = open(files.next());
+            }
+            String line = reader.readLine();
+            if (line == null) {
+                reader.close();
+                reader = null;
+                continue;
+            }
+            if (!line.trim().isEmpty()) {
+                return objectMapper.readValue(line, RecordedSnapshot.class);
+            }
+        }
+    }
+    
+    private BufferedReader open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            // 录制文件由多个gzip分段拼接而成，GZIPInputStream会依次读取
+            in = new GZIPInputStream(in);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+}
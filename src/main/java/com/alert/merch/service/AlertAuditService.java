@@ -0,0 +1,106 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.AlertAuditRecord;
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.util.AlertAuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 告警审计服务类
+ * 记录每条超时告警（时间、类型、目标、升级级别、任务ID、是否送达），用于SLA争议时按任务ID追溯告警历史
+ */
+@Slf4j
+@Service
+public class AlertAuditService {
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private AlertAuditLog auditLog;
+    
+    @PostConstruct
+    public void init() {
+        AppConfig.Audit audit = appConfig.getAudit();
+        if (!audit.isEnabled()) {
+            log.info("告警审计日志未启用");
+            return;
+        }
+        Path dir = audit.getPath().trim().isEmpty()
+            ? Paths.get(appConfig.getPersist().getPath(), "audit") : Paths.get(audit.getPath());
+        AlertAuditLog opened = new AlertAuditLog(dir, objectMapper, audit.getMaxIdsPerSegment(), audit.getRetentionDays());
+        try {
+            opened.open();
+            auditLog = opened;
+            log.info("告警审计日志目录: {}，已有分段: {}", dir.toAbsolutePath(), opened.getSegmentCount());
+        } catch (IOException e) {
+            log.error("打开告警审计日志失败，审计记录将不可用: {}", dir.toAbsolutePath(), e);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return auditLog != null;
+    }
+    
+    /**
+     * 记录一条超时告警及其发送结果，失败只记录日志，不影响告警发送
+     *
+     * @param delivered 是否送达（入队失败或企业微信返回错误时为false）
+     */
+    public void record(LocalDateTime time, String type, AlertTarget target, List<TaskInfo> tasks, boolean delivered) {
+        if (auditLog == null) {
+            return;
+        }
+        List<String> taskIds = tasks.stream().map(TaskInfo::getTaskId).collect(Collectors.toList());
+        try {
+            auditLog.append(new AlertAuditRecord(time, type, target.getName(), target.getEscalation(), taskIds, delivered));
+        } catch (IOException e) {
+            log.error("写入告警审计日志失败: target={}, tasks={}", target.getName(), taskIds.size(), e);
+        }
+    }
+    
+    /**
+     * 查询任务的告警历史
+     *
+     * @param scannedSegments 输出参数，返回实际解压扫描的分段数
+     */
+    public List<AlertAuditRecord> query(String taskId, int[] scannedSegments) throws IOException {
+        if (auditLog == null) {
+            return Collections.emptyList();
+        }
+        return auditLog.query(taskId, scannedSegments);
+    }
+    
+    public int getSegmentCount() {
+        return auditLog != null ? auditLog.getSegmentCount() : 0;
+    }
+    
+    @PreDestroy
+    public void close() {
+        if (auditLog == null) {
+            return;
+        }
+        try {
+            auditLog.close();
+        } catch (IOException e) {
+            log.error("关闭告警审计日志失败", e);
+        }
+    }
+}
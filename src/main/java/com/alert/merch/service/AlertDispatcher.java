@@ -0,0 +1,234 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.jfr.WebhookSendEvent;
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.util.CycleStage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 告警分发服务类
+ * 每个群机器人（webhook地址）一个有界队列和一个发送线程，某个群机器人响应慢不会拖慢其他目标，
+ * 也不会阻塞检查周期；队列满时丢弃新消息并计数。
+ * 队列按webhook地址区分而不按目标名称：升级级别、路由规则、附加数据源可能同名但地址不同，
+ * 同名时后建的队列名称加序号区分，队列的地址创建后不再改变
+ */
+@Slf4j
+@Service
+public class AlertDispatcher {
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private WeComWebhookClient weComWebhookClient;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Autowired
+    private CycleTraceService cycleTraceService;
+    
+    // webhook地址 -> 发送队列
+    private final Map<String, TargetQueue> targetQueues = new ConcurrentHashMap<>();
+    
+    // 已使用的队列名称，用作指标标签和线程名，保持唯一
+    private final Set<String> queueNames = ConcurrentHashMap.newKeySet();
+    
+    private volatile boolean running = true;
+    
+    /**
+     * 将消息放入目标的发送队列
+     *
+     * @return 是否成功入队
+     */
+    public boolean dispatch(AlertTarget target, String content) {
+        return dispatch(target, content, null);
+    }
+    
+    /**
+     * 将消息放入目标的发送队列，并在得到发送结果后回调
+     * 每条消息回调一次：成功入队的在发送线程中收到企业微信的发送结果，入队失败的在当前线程中立即收到false
+     *
+     * @param onResult 发送结果回调，可为null
+     * @return 是否成功入队
+     */
+    public boolean dispatch(AlertTarget target, String content, Consumer<Boolean> onResult) {
+        if (!running) {
+            log.warn("告警分发已停止，丢弃发往[{}]的消息", target.getName());
+            notifyResult(onResult, false);
+            return false;
+        }
+        String webhook = target.getWebhook() == null ? "" : target.getWebhook().trim();
+        TargetQueue targetQueue = targetQueues.computeIfAbsent(webhook, key -> startTargetQueue(target.getName(), key));
+        // 记录入队时所在的检查周期，发送耗时归属到该周期的追踪记录
+        if (!targetQueue.queue.offer(new PendingMessage(content, cycleTraceService.currentCycleId(), onResult))) {
+            targetQueue.dropped.incrementAndGet();
+            metricsService.incrementAlertDropped(targetQueue.name);
+            log.error("告警目标[{}]发送队列已满（{}条），丢弃消息", targetQueue.name, targetQueue.queue.size());
+            notifyResult(onResult, false);
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 回调发送结果，回调异常只记录日志，不影响发送线程
+     */
+    private void notifyResult(Consumer<Boolean> onResult, boolean success) {
+        if (onResult == null) {
+            return;
+        }
+        try {
+            onResult.accept(success);
+        } catch (RuntimeException e) {
+            log.error("处理告警发送结果失败", e);
+        }
+    }
+    
+    private TargetQueue startTargetQueue(String targetName, String webhook) {
+        String name = targetName;
+        for (int i = 2; !queueNames.add(name); i++) {
+            name = targetName + "#" + i;
+        }
+        TargetQueue targetQueue = new TargetQueue(name, webhook, appConfig.getWecom().getQueueCapacity());
+        metricsService.registerAlertQueue(name, targetQueue.queue);
+        Thread worker = new Thread(() -> runWorker(targetQueue), "alert-sender-" + name);
+        worker.setDaemon(true);
+        targetQueue.worker = worker;
+        worker.start();
+        if (name.equals(targetName)) {
+            log.info("已创建告警目标[{}]的发送队列，容量: {}", name, appConfig.getWecom().getQueueCapacity());
+        } else {
+            log.warn("告警目标[{}]已有其他webhook地址的发送队列，新队列命名为[{}]，容量: {}",
+                targetName, name, appConfig.getWecom().getQueueCapacity());
+        }
+        return targetQueue;
+    }
+    
+    private void runWorker(TargetQueue targetQueue) {
+        while (running || !targetQueue.queue.isEmpty()) {
+            PendingMessage message;
+            try {
+                message = targetQueue.queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (message == null) {
+                continue;
+            }
+            
+            WebhookSendEvent sendEvent = new WebhookSendEvent();
+            sendEvent.begin();
+            long start = System.nanoTime();
+            boolean success = weComWebhookClient.sendMarkdown(message.content, targetQueue.webhook);
+            long elapsedNanos = System.nanoTime() - start;
+            if (sendEvent.shouldCommit()) {
+                sendEvent.target = targetQueue.name;
+                sendEvent.bytes = message.content.getBytes(StandardCharsets.UTF_8).length;
+                sendEvent.cycleId = message.cycleId;
+                sendEvent.success = success;
+                sendEvent.commit();
+            }
+            cycleTraceService.recordFor(message.cycleId, CycleStage.WEBHOOK_SEND, elapsedNanos, 1);
+            
+            targetQueue.lastLatencyMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            if (success) {
+                targetQueue.sent.incrementAndGet();
+            } else {
+                targetQueue.failed.incrementAndGet();
+            }
+            metricsService.recordAlertSend(targetQueue.name, elapsedNanos, success);
+            notifyResult(message.onResult, success);
+        }
+    }
+    
+    /**
+     * 获取各告警目标的队列状态
+     */
+    public List<Map<String, Object>> getTargetStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (TargetQueue targetQueue : targetQueues.values()) {
+            Map<String, Object> stat = new HashMap<>();
+            stat.put("target", targetQueue.name);
+            stat.put("queueDepth", targetQueue.queue.size());
+            stat.put("sent", targetQueue.sent.get());
+            stat.put("failed", targetQueue.failed.get());
+            stat.put("dropped", targetQueue.dropped.get());
+            stat.put("lastLatencyMillis", targetQueue.lastLatencyMillis);
+            stats.add(stat);
+        }
+        return stats;
+    }
+    
+    /**
+     * 停止接收新消息，并等待已入队的消息发送完毕
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (TargetQueue targetQueue : targetQueues.values()) {
+            try {
+                targetQueue.worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!targetQueue.queue.isEmpty()) {
+                log.warn("告警目标[{}]仍有{}条消息未发送", targetQueue.name, targetQueue.queue.size());
+            }
+        }
+    }
+    
+    /**
+     * 单个告警目标的发送队列
+     */
+    private static class TargetQueue {
+        private final String name;
+        private final BlockingQueue<PendingMessage> queue;
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final String webhook;
+        private volatile long lastLatencyMillis;
+        private Thread worker;
+        
+        TargetQueue(String name, String webhook, int capacity) {
+            this.name = name;
+            this.webhook = webhook;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+    }
+    
+    /**
+     * 待发送的消息
+     */
+    private static class PendingMessage {
+        private final String content;
+        private final long cycleId;
+        private final Consumer<Boolean> onResult;
+        
+        PendingMessage(String content, long cycleId, Consumer<Boolean> onResult) {
+            this.content = content;
+            this.cycleId = cycleId;
+            this.onResult = onResult;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.model.TaskInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 告警路由服务类
+ * 按配置的路由规则将超时任务分配到各团队的告警目标，未命中任何规则的任务
+ * 沿用默认Webhook（未领取发webhook，未完成发webhook2）
+ */
+@Service
+public class AlertRouter {
+    
+    public static final String DEFAULT_UNCLAIMED_TARGET = "default-unclaimed";
+    public static final String DEFAULT_UNFINISHED_TARGET = "default-unfinished";
+    public static final String DAILY_TARGET = "daily";
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    /**
+     * 按路由规则对任务分组
+     *
+     * @param tasks 待告警任务
+     * @param type 超时类型（unclaimed/unfinished）
+     * @param now 当前时间
+     * @return 告警目标 -> 任务列表，保持规则顺序
+     */
+    public Map<AlertTarget, List<TaskInfo>> route(List<TaskInfo> tasks, String type, LocalDateTime now) {
+        Map<AlertTarget, List<TaskInfo>> routed = new LinkedHashMap<>();
+        for (TaskInfo task : tasks) {
+            AlertTarget target = resolveTarget(task, type, now);
+            routed.computeIfAbsent(target, key -> new ArrayList<>()).add(task);
+        }
+        return routed;
+    }
+    
+    /**
+     * 解析单个任务的告警目标
+     */
+    public AlertTarget resolveTarget(TaskInfo task, String type, LocalDateTime now) {
+        for (AppConfig.Route route : appConfig.getRoutes()) {
+            if (matches(route, task, type, now)) {
+                return new AlertTarget(route.getName(), route.getWebhook());
+            }
+        }
+        return getDefaultTarget(type);
+    }
+    
+    /**
+     * 获取超时类型对应的默认告警目标
+     */
+    public AlertTarget getDefaultTarget(String type) {
+        if ("unclaimed".equals(type)) {
+            return new AlertTarget(DEFAULT_UNCLAIMED_TARGET, appConfig.getWecom().getWebhook());
+        }
+        return new AlertTarget(DEFAULT_UNFINISHED_TARGET, appConfig.getWecom().getWebhook2());
+    }
+    
+    /**
+     * 获取每日统计告警目标
+     */
+    public AlertTarget getDailyTarget() {
+        return new AlertTarget(DAILY_TARGET, appConfig.getWecom().getWebhook3());
+    }
+    
+    private boolean matches(AppConfig.Route route, TaskInfo task, String type, LocalDateTime now) {
+        if (!route.getTypes().isEmpty() && !route.getTypes().contains(type)) {
+            return false;
+        }
+        if (!route.getTaskKeys().isEmpty() && !route.getTaskKeys().contains(task.getTaskKey())) {
+            return false;
+        }
+        long ageMinutes = Duration.between(task.getCreateTime(), now).toMinutes();
+        if (route.getMinAgeMinutes() != null && ageMinutes < route.getMinAgeMinutes()) {
+            return false;
+        }
+        return route.getMaxAgeMinutes() == null || ageMinutes < route.getMaxAgeMinutes();
+    }
+}
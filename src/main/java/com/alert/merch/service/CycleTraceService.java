@@ -0,0 +1,161 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.util.CycleStage;
+import com.alert.merch.util.CycleTraceBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 检查周期追踪服务类
+ * 按阶段（查询、映射、分类、落盘、告警发送等）记录最近N个检查周期的耗时，供 /api/debug/cycles 查看；
+ * 记录只写入预分配的环形缓冲区，可在生产环境常开。慢周期可选追加写入文件
+ */
+@Slf4j
+@Service
+public class CycleTraceService {
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private Clock clock;
+    
+    // 未启用时为null，所有记录方法为空操作
+    private CycleTraceBuffer buffer;
+    private long slowCycleNanos;
+    private Path dumpFile;
+    
+    @PostConstruct
+    public void init() {
+        AppConfig.Trace trace = appConfig.getTrace();
+        if (!trace.isEnabled()) {
+            log.info("检查周期追踪未启用");
+            return;
+        }
+        buffer = new CycleTraceBuffer(trace.getCapacity());
+        if (trace.getSlowCycleMs() > 0) {
+            slowCycleNanos = TimeUnit.MILLISECONDS.toNanos(trace.getSlowCycleMs());
+            dumpFile = trace.getDumpPath().trim().isEmpty()
+                ? Paths.get(appConfig.getPersist().getPath(), "slow-cycles.jsonl") : Paths.get(trace.getDumpPath());
+            log.info("检查周期追踪已启用，保留最近{}个周期，超过{}ms的周期写入: {}",
+                buffer.capacity(), trace.getSlowCycleMs(), dumpFile.toAbsolutePath());
+        } else {
+            log.info("检查周期追踪已启用，保留最近{}个周期", buffer.capacity());
+        }
+    }
+    
+    public boolean isEnabled() {
+        return buffer != null;
+    }
+    
+    /**
+     * 开始一个检查周期
+     */
+    public void beginCycle() {
+        if (buffer != null) {
+            buffer.begin(clock.millis());
+        }
+    }
+    
+    /**
+     * 结束当前检查周期，超过慢周期阈值时写入文件
+     */
+    public void endCycle(boolean success) {
+        if (buffer == null) {
+            return;
+        }
+        long cycleId = buffer.currentCycleId();
+        long totalNanos = buffer.end(success);
+        if (dumpFile != null && totalNanos >= slowCycleNanos) {
+            dumpSlowCycle(cycleId, totalNanos);
+        }
+    }
+    
+    /**
+     * 阶段计时起点
+     */
+    public long start() {
+        return buffer != null ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * 记录当前周期的一个阶段，从 start() 的返回值计到现在
+     *
+     * @param items 该阶段处理的条数（行数、任务数、消息数）
+     */
+    public void record(CycleStage stage, long startNanos, long items) {
+        if (buffer != null) {
+            buffer.record(stage, startNanos, items);
+        }
+    }
+    
+    /**
+     * 为当前周期的阶段累加已测得的耗时
+     */
+    public void add(CycleStage stage, long elapsedNanos, long items) {
+        if (buffer != null) {
+            buffer.add(stage, elapsedNanos, items);
+        }
+    }
+    
+    /**
+     * 当前周期编号，用于把异步完成的阶段归属到发起它的周期；未启用或不在周期内时返回0
+     */
+    public long currentCycleId() {
+        return buffer != null ? buffer.currentCycleId() : 0;
+    }
+    
+    /**
+     * 为指定周期的阶段累加耗时，该周期已被覆盖时忽略
+     */
+    public void recordFor(long cycleId, CycleStage stage, long elapsedNanos, long items) {
+        if (buffer != null) {
+            buffer.recordFor(cycleId, stage, elapsedNanos, items);
+        }
+    }
+    
+    /**
+     * 最近的检查周期，最新的在前
+     */
+    public List<Map<String, Object>> getCycles(int limit) {
+        return buffer != null ? buffer.snapshot(limit) : Collections.emptyList();
+    }
+    
+    public int getCapacity() {
+        return buffer != null ? buffer.capacity() : 0;
+    }
+    
+    private void dumpSlowCycle(long cycleId, long totalNanos) {
+        Map<String, Object> cycle = buffer.snapshotOf(cycleId);
+        if (cycle == null) {
+            return;
+        }
+        log.warn("检查周期{}耗时{}ms，超过慢周期阈值", cycleId, TimeUnit.NANOSECONDS.toMillis(totalNanos));
+        try {
+            Files.createDirectories(dumpFile.toAbsolutePath().getParent());
+            Files.write(dumpFile, (objectMapper.writeValueAsString(cycle) + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("写入慢周期记录失败: {}", dumpFile.toAbsolutePath(), e);
+        }
+    }
+}
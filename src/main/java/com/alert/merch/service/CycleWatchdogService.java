@@ -0,0 +1,266 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 检查周期看门狗服务类
+ * 记录最后一次成功完成的检查周期，并为每个阶段设置执行时限，
+ * 阶段卡住时中断并放弃执行该阶段的线程，避免单个挂起的调用拖死整个监控。
+ * 区分两种异常：周期停滞（一段时间没有成功的周期，如数据库不可用）只影响就绪检查；
+ * 周期卡死（周期长时间未结束，或阶段被放弃后一直没有正常结束的周期）才使存活检查失败，重启Pod。
+ * 中断无法唤醒阻塞在IO上的线程，被放弃的阶段之后可能醒来继续执行，与新的周期并发；
+ * 每个周期开始和阶段被放弃时递增周期代号，阶段在产生副作用前调用 {@link #ensureCurrentCycle()}，代号已变化时停止执行
+ */
+@Slf4j
+@Service
+public class CycleWatchdogService {
+    
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    private final AtomicInteger stageThreadIndex = new AtomicInteger();
+    
+    // 阶段执行线程，阶段超时后整体替换
+    private volatile ExecutorService stageExecutor = newStageExecutor();
+    
+    private final LocalDateTime startTime = LocalDateTime.now();
+    private volatile LocalDateTime lastCycleStartTime;
+    private volatile LocalDateTime lastSuccessTime;
+    private volatile boolean cycleInProgress;
+    // 本周期是否有阶段被放弃
+    private volatile boolean cycleAbandoned;
+    // 最后一次没有放弃阶段的周期结束时间（成功或正常失败）
+    private volatile LocalDateTime lastCleanEndTime;
+    private volatile LocalDateTime lastAbandonTime;
+    private volatile String currentStage;
+    private volatile LocalDateTime currentStageStartTime;
+    private volatile String lastFailedStage;
+    
+    // 周期代号，周期开始和阶段被放弃时递增
+    private final AtomicLong generation = new AtomicLong();
+    // 阶段线程正在执行的阶段所属的周期代号
+    private final ThreadLocal<Long> stageGeneration = new ThreadLocal<>();
+    
+    private final AtomicLong completedCycles = new AtomicLong();
+    private final AtomicLong abandonedStages = new AtomicLong();
+    
+    /**
+     * 标记检查周期开始
+     */
+    public void beginCycle() {
+        generation.incrementAndGet();
+        lastCycleStartTime = LocalDateTime.now();
+        cycleAbandoned = false;
+        cycleInProgress = true;
+    }
+    
+    /**
+     * 标记检查周期成功完成
+     */
+    public void completeCycle() {
+        lastSuccessTime = LocalDateTime.now();
+        completedCycles.incrementAndGet();
+        endCycle();
+    }
+    
+    /**
+     * 标记检查周期失败结束（阶段抛出异常或被放弃）
+     */
+    public void failCycle() {
+        endCycle();
+    }
+    
+    private void endCycle() {
+        cycleInProgress = false;
+        if (!cycleAbandoned) {
+            lastCleanEndTime = LocalDateTime.now();
+        }
+    }
+    
+    /**
+     * 在阶段线程中执行无返回值的阶段
+     */
+    public void runStage(String stage, Runnable work) throws Exception {
+        runStage(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+    
+    /**
+     * 在阶段线程中执行阶段，超过时限则中断并放弃
+     *
+     * @param stage 阶段名称
+     * @param work 阶段逻辑
+     * @return 阶段返回值
+     * @throws TimeoutException 阶段执行超时
+     */
+    public <T> T runStage(String stage, Callable<T> work) throws Exception {
+        int timeoutSeconds = appConfig.getWatchdog().getStageTimeoutSeconds();
+        currentStage = stage;
+        currentStageStartTime = LocalDateTime.now();
+        
+        long stageOf = generation.get();
+        Future<T> future = stageExecutor.submit(() -> {
+            stageGeneration.set(stageOf);
+            try {
+                return work.call();
+            } finally {
+                stageGeneration.remove();
+            }
+        });
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            abandonStage(stage, future, timeoutSeconds);
+            throw new TimeoutException(String.format("阶段[%s]执行超过%d秒，已放弃", stage, timeoutSeconds));
+        } catch (ExecutionException e) {
+            lastFailedStage = stage;
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        } finally {
+            currentStage = null;
+            currentStageStartTime = null;
+        }
+    }
+    
+    /**
+     * 放弃卡住的阶段：中断线程并换用新的阶段线程，卡在阻塞IO上的旧线程不再等待
+     */
+    private void abandonStage(String stage, Future<?> future, int timeoutSeconds) {
+        lastFailedStage = stage;
+        generation.incrementAndGet();
+        cycleAbandoned = true;
+        lastAbandonTime = LocalDateTime.now();
+        abandonedStages.incrementAndGet();
+        future.cancel(true);
+        
+        ExecutorService stuckExecutor = stageExecutor;
+        stageExecutor = newStageExecutor();
+        stuckExecutor.shutdownNow();
+        
+        log.error("阶段[{}]执行超过{}秒，已中断并放弃，后续阶段使用新的执行线程", stage, timeoutSeconds);
+    }
+    
+    /**
+     * 在阶段中产生副作用（同步升级队列、取出到期通知、发送告警、推送事件流）前调用：
+     * 阶段已被放弃或已开始新的周期时抛出 CancellationException，结束被放弃线程中剩余的阶段逻辑。
+     * 不在阶段线程中调用时（如拆分执行模式下的统计阶段）不检查
+     */
+    public void ensureCurrentCycle() {
+        Long stageOf = stageGeneration.get();
+        if (stageOf != null && stageOf != generation.get()) {
+            log.warn("线程[{}]执行的阶段已被放弃，停止执行剩余逻辑", Thread.currentThread().getName());
+            throw new CancellationException("阶段已被放弃");
+        }
+    }
+    
+    private ExecutorService newStageExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "monitor-stage-" + stageThreadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * 检查周期是否已停滞（超过阈值时间没有成功完成的周期）
+     */
+    public boolean isStale() {
+        return getSecondsSinceLastSuccess() > appConfig.getWatchdog().getStaleCycleSeconds();
+    }
+    
+    /**
+     * 检查周期是否已卡死：当前周期超过阈值时间仍未结束，
+     * 或有阶段被放弃且之后超过阈值时间没有正常结束的周期（成功或正常失败都算）。
+     * 数据库不可用等正常失败的周期不算卡死，重启Pod无法恢复这类故障
+     */
+    public boolean isWedged() {
+        long limit = appConfig.getWatchdog().getStaleCycleSeconds();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cycleStart = lastCycleStartTime;
+        if (cycleInProgress && cycleStart != null && Duration.between(cycleStart, now).getSeconds() > limit) {
+            return true;
+        }
+        LocalDateTime cleanEnd = lastCleanEndTime != null ? lastCleanEndTime : startTime;
+        LocalDateTime abandonTime = lastAbandonTime;
+        return abandonTime != null && !abandonTime.isBefore(cleanEnd)
+            && Duration.between(cleanEnd, now).getSeconds() > limit;
+    }
+    
+    /**
+     * 距最后一次成功周期的秒数，尚未成功过则从启动时间算起
+     */
+    public long getSecondsSinceLastSuccess() {
+        LocalDateTime reference = lastSuccessTime != null ? lastSuccessTime : startTime;
+        return Duration.between(reference, LocalDateTime.now()).getSeconds();
+    }
+    
+    public LocalDateTime getLastSuccessTime() {
+        return lastSuccessTime;
+    }
+    
+    public long getAbandonedStages() {
+        return abandonedStages.get();
+    }
+    
+    /**
+     * 获取看门狗状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("stale", isStale());
+        status.put("wedged", isWedged());
+        status.put("secondsSinceLastSuccess", getSecondsSinceLastSuccess());
+        status.put("staleCycleSeconds", appConfig.getWatchdog().getStaleCycleSeconds());
+        status.put("stageTimeoutSeconds", appConfig.getWatchdog().getStageTimeoutSeconds());
+        status.put("lastSuccessTime", format(lastSuccessTime));
+        status.put("lastCycleStartTime", format(lastCycleStartTime));
+        status.put("completedCycles", completedCycles.get());
+        status.put("abandonedStages", abandonedStages.get());
+        if (lastFailedStage != null) {
+            status.put("lastFailedStage", lastFailedStage);
+        }
+        String stage = currentStage;
+        LocalDateTime stageStart = currentStageStartTime;
+        if (stage != null && stageStart != null) {
+            status.put("currentStage", stage);
+            status.put("currentStageSeconds", Duration.between(stageStart, LocalDateTime.now()).getSeconds());
+        }
+        return status;
+    }
+    
+    private String format(LocalDateTime time) {
+        return time != null ? time.format(DATE_TIME_FORMATTER) : "N/A";
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        stageExecutor.shutdownNow();
+    }
+}
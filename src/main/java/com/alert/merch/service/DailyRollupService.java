@@ -0,0 +1,194 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.util.DailyRollupStore;
+import com.alert.merch.util.DistinctSketchStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每日统计汇总服务类
+ * 入网任务和超时任务在每个检查周期分类时增量计入按创建日期分桶的汇总，
+ * 日报随时可从汇总中直接生成，错过日报时间（周期卡住、进程重启）后由下一个周期补发。
+ * 入网任务同时写入按天的HyperLogLog草图，周、月等任意日期范围的去重入网数由草图合并估计
+ */
+@Slf4j
+@Service
+public class DailyRollupService {
+    
+    private static final String ROLLUP_FILE = "daily_rollups.json";
+    private static final String SKETCH_DIR = "sketches";
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private DailyRollupStore store;
+    
+    private DistinctSketchStore sketches;
+    
+    @PostConstruct
+    public void init() {
+        AppConfig.Report report = appConfig.getReport();
+        Path file = Paths.get(appConfig.getPersist().getPath(), ROLLUP_FILE);
+        store = new DailyRollupStore(file, objectMapper,
+            report.getWindowStartHour(), report.getWindowEndHour(), report.getRetentionDays());
+        try {
+            store.load();
+            log.info("已加载每日统计汇总: {}，共{}天，最后日报日期: {}", file, store.size(), store.getLastReportedDate());
+        } catch (IOException e) {
+            log.error("加载每日统计汇总失败，从空汇总开始: {}", file, e);
+        }
+        
+        Path sketchDir = Paths.get(appConfig.getPersist().getPath(), SKETCH_DIR);
+        sketches = new DistinctSketchStore(sketchDir, report.getSketchPrecision(), report.getSketchRetentionDays());
+        try {
+            int skipped = sketches.load();
+            log.info("已加载去重计数草图: {}，共{}天{}", sketchDir, sketches.size(),
+                skipped > 0 ? "，跳过" + skipped + "个精度不符或损坏的文件" : "");
+        } catch (IOException e) {
+            log.error("加载去重计数草图失败，从空草图开始: {}", sketchDir, e);
+        }
+        
+        // 未结算的天保留了精确的任务ID，缺少草图的天（首次启用、草图文件丢失）从汇总补建
+        int backfilled = 0;
+        for (Map.Entry<LocalDate, List<String>> entry : store.getTaskIds().entrySet()) {
+            if (!sketches.hasDay(entry.getKey())) {
+                entry.getValue().forEach(taskId -> sketches.add(taskId, entry.getKey()));
+                backfilled++;
+            }
+        }
+        if (backfilled > 0) {
+            log.info("从每日统计汇总补建{}天的去重计数草图", backfilled);
+        }
+        // 旧版本文件中已发送日报的天仍保存着任务ID，补建草图后结算
+        int closed = store.closeReportedDays();
+        if (closed > 0) {
+            log.info("结算{}天已发送日报的每日统计汇总", closed);
+        }
+    }
+    
+    /**
+     * 记录入网任务
+     *
+     * @return 是否为首次记录
+     */
+    public boolean recordTask(TaskInfo task) {
+        if (!store.recordTask(task.getTaskId(), task.getCreateTime())) {
+            return false;
+        }
+        sketches.add(task.getTaskId(), task.getCreateTime().toLocalDate());
+        return true;
+    }
+    
+    /**
+     * 记录超时未领取任务
+     */
+    public void recordUnclaimedTimeout(TaskInfo task) {
+        store.recordUnclaimed(task.getTaskId(), task.getCreateTime());
+    }
+    
+    /**
+     * 记录超时未完成任务
+     */
+    public void recordUnfinishedTimeout(TaskInfo task) {
+        store.recordUnfinished(task.getTaskId(), task.getCreateTime());
+    }
+    
+    /**
+     * 某天（按任务创建日期）的入网任务数
+     */
+    public int getTotalTasks(LocalDate date) {
+        return store.getTotalTasks(date);
+    }
+    
+    /**
+     * 某天的汇总计数
+     */
+    public Map<String, Object> summary(LocalDate date) {
+        return store.summary(date);
+    }
+    
+    /**
+     * 按创建日期 [from, to]（含两端）估计去重入网任务数
+     */
+    public long distinctTasks(LocalDate from, LocalDate to) {
+        return sketches.estimate(from, to);
+    }
+    
+    /**
+     * 日期范围内的去重入网统计：估计值、有数据的天数和相对标准误差
+     */
+    public Map<String, Object> distinctSummary(LocalDate from, LocalDate to) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("from", from.toString());
+        summary.put("to", to.toString());
+        summary.put("distinctTasks", sketches.estimate(from, to));
+        summary.put("daysWithData", sketches.daysWithData(from, to));
+        summary.put("standardError", sketches.getStandardError());
+        LocalDate firstDate = sketches.firstDate();
+        summary.put("firstDate", firstDate != null ? firstDate.toString() : "N/A");
+        return summary;
+    }
+    
+    public boolean hasData(LocalDate date) {
+        return store.hasData(date);
+    }
+    
+    /**
+     * 需要发送的日报日期，没有待发送的日报时返回null
+     */
+    public LocalDate pendingReportDate(LocalDateTime now) {
+        return store.pendingReportDate(now, appConfig.getReport().getHour());
+    }
+    
+    /**
+     * 标记日报已发送并立即持久化，重启后不会重复发送
+     */
+    public void markReported(LocalDate date) {
+        store.markReported(date);
+        save();
+    }
+    
+    public LocalDate getLastReportedDate() {
+        return store.getLastReportedDate();
+    }
+    
+    /**
+     * 清空汇总（回放开始时使用）
+     */
+    public void clear() {
+        store.clear();
+        sketches.clear();
+    }
+    
+    @PreDestroy
+    public void save() {
+        try {
+            store.save();
+        } catch (IOException e) {
+            log.error("保存每日统计汇总失败", e);
+        }
+        try {
+            sketches.save();
+        } catch (IOException e) {
+            log.error("保存去重计数草图失败", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskTable;
+import com.alert.merch.util.EscalationSchedule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 告警升级服务类
+ * 按配置的升级阶梯（如 3分钟→团队、15分钟→组长、60分钟→经理）决定每条超时任务何时、向谁告警，
+ * 同一级别内按指数退避重复提醒，替代原先固定10分钟的重复告警
+ */
+@Slf4j
+@Service
+public class EscalationService {
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private AlertRouter alertRouter;
+    
+    private final Map<String, EscalationSchedule> schedules = new LinkedHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        AppConfig.Escalation escalation = appConfig.getEscalation();
+        schedules.put("unclaimed", new EscalationSchedule(
+            toLevels(escalation.getUnclaimed(), appConfig.getTask().getTimeoutMinutes(), escalation)));
+        schedules.put("unfinished", new EscalationSchedule(
+            toLevels(escalation.getUnfinished(), appConfig.getTask().getUnfinishedTimeoutMinutes(), escalation)));
+    }
+    
+    /**
+     * 同步某类超时任务的升级状态
+     *
+     * @param type 超时类型（unclaimed/unfinished）
+     * @param timeoutTasks 本周期该类型的全部超时任务
+     */
+    public void sync(String type, List<TaskInfo> timeoutTasks) {
+        schedules.get(type).sync(timeoutTasks);
+    }
+    
+    /**
+     * 取出已到期的通知并按告警目标分组
+     * 第一级及未配置webhook的级别发送到路由规则确定的目标，其他级别发送到该级别自己的webhook
+     *
+     * @return 告警目标 -> 任务列表
+     */
+    public Map<AlertTarget, List<TaskInfo>> pollDue(String type, LocalDateTime now) {
+        List<EscalationSchedule.Notification> due = schedules.get(type).pollDue(TaskTable.toEpochSecond(now));
+        if (due.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        Map<AlertTarget, List<TaskInfo>> routed = new LinkedHashMap<>();
+        for (EscalationSchedule.Notification notification : due) {
+            EscalationSchedule.Level level = notification.getLevel();
+            String escalationName = notification.getLevelIndex() > 0 ? level.getName() : null;
+            AlertTarget target;
+            if (level.getWebhook() != null && !level.getWebhook().isEmpty()) {
+                target = new AlertTarget(level.getName(), level.getWebhook(), escalationName);
+            } else {
+                AlertTarget routedTarget = alertRouter.resolveTarget(notification.getTask(), type, now);
+                target = new AlertTarget(routedTarget.getName(), routedTarget.getWebhook(), escalationName);
+            }
+            routed.computeIfAbsent(target, key -> new ArrayList<>()).add(notification.getTask());
+        }
+        log.debug("{}类型到期通知{}条，分属{}个告警目标", type, due.size(), routed.size());
+        return routed;
+    }
+    
+    /**
+     * 当前处于升级跟踪中的任务数
+     */
+    public int size(String type) {
+        return schedules.get(type).size();
+    }
+    
+    private static List<EscalationSchedule.Level> toLevels(List<AppConfig.EscalationLevel> configured,
+                                                         int timeoutMinutes, AppConfig.Escalation defaults) {
+        List<EscalationSchedule.Level> levels = new ArrayList<>();
+        if (configured.isEmpty()) {
+            levels.add(new EscalationSchedule.Level(null, null, timeoutMinutes * 60L,
+                defaults.getRenotifyMinutes() * 60L, defaults.getBackoffMultiplier(),
+                defaults.getMaxRenotifyMinutes() * 60L));
+            return levels;
+        }
+        for (AppConfig.EscalationLevel level : configured) {
+            int renotifyMinutes = level.getRenotifyMinutes() != null
+                ? level.getRenotifyMinutes() : defaults.getRenotifyMinutes();
+            double backoffMultiplier = level.getBackoffMultiplier() != null
+                ? level.getBackoffMultiplier() : defaults.getBackoffMultiplier();
+            int maxRenotifyMinutes = level.getMaxRenotifyMinutes() != null
+                ? level.getMaxRenotifyMinutes() : defaults.getMaxRenotifyMinutes();
+            levels.add(new EscalationSchedule.Level(level.getName(), level.getWebhook(), level.getAfterMinutes() * 60L,
+                renotifyMinutes * 60L, backoffMultiplier, maxRenotifyMinutes * 60L));
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,198 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.jfr.JfrPreset;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * JFR录制服务类
+ * 在运行中的进程内按预设启动、转储、停止Flight Recorder录制，文件写入持久化卷，
+ * 不需要进入容器执行jcmd。同一时间只允许一个录制
+ */
+@Slf4j
+@Service
+public class JfrRecordingService {
+    
+    private static final String PREFIX = "alert-merch-";
+    private static final String SUFFIX = ".jfr";
+    private static final DateTimeFormatter NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    private Recording recording;
+    private JfrPreset preset;
+    private Path destination;
+    private LocalDateTime startTime;
+    
+    public boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+    
+    /**
+     * 按预设开始录制，到达时长后自动停止并写入文件
+     *
+     * @param durationSeconds 录制时长（秒），为空时使用配置的默认时长
+     */
+    public synchronized Map<String, Object> start(JfrPreset preset, Integer durationSeconds) throws IOException, ParseException {
+        if (isRecording()) {
+            throw new IllegalStateException("已有进行中的JFR录制: " + destination.getFileName());
+        }
+        AppConfig.Jfr jfr = appConfig.getJfr();
+        Path dir = directory();
+        Files.createDirectories(dir);
+        pruneOldRecordings(dir, jfr.getMaxFiles() - 1);
+        
+        Recording started = new Recording(preset.settings(Configuration.getConfiguration("default").getSettings()));
+        started.setName(PREFIX + preset.getLabel());
+        started.setToDisk(true);
+        started.setMaxSize(jfr.getMaxSizeMb() * 1024L * 1024L);
+        int seconds = durationSeconds != null && durationSeconds > 0 ? durationSeconds : jfr.getDefaultDurationSeconds();
+        if (seconds > 0) {
+            started.setDuration(Duration.ofSeconds(Math.min(seconds, jfr.getMaxDurationSeconds())));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Path file = dir.resolve(PREFIX + now.format(NAME_FORMATTER) + "-" + preset.getLabel() + SUFFIX);
+        started.setDestination(file);
+        started.start();
+        
+        recording = started;
+        this.preset = preset;
+        destination = file;
+        startTime = now;
+        log.info("开始JFR录制: 预设={}, 时长={}, 文件={}", preset.getLabel(), started.getDuration(), file.toAbsolutePath());
+        return status();
+    }
+    
+    /**
+     * 在不停止录制的情况下把当前已录制的数据转储到一个新文件
+     */
+    public synchronized Map<String, Object> dump() throws IOException {
+        if (!isRecording()) {
+            throw new IllegalStateException("没有进行中的JFR录制");
+        }
+        Path file = directory().resolve(PREFIX + LocalDateTime.now().format(NAME_FORMATTER)
+            + "-" + preset.getLabel() + "-dump" + SUFFIX);
+        recording.dump(file);
+        log.info("已转储JFR录制: {}", file.toAbsolutePath());
+        Map<String, Object> result = status();
+        result.put("dumpFile", file.toAbsolutePath().toString());
+        return result;
+    }
+    
+    /**
+     * 停止录制并写入文件
+     */
+    public synchronized Map<String, Object> stop() {
+        if (!isRecording()) {
+            throw new IllegalStateException("没有进行中的JFR录制");
+        }
+        recording.stop();
+        log.info("已停止JFR录制: {}", destination.toAbsolutePath());
+        Map<String, Object> result = status();
+        recording.close();
+        recording = null;
+        return result;
+    }
+    
+    /**
+     * 当前录制状态和已有的录制文件
+     */
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("available", isAvailable());
+        status.put("directory", directory().toAbsolutePath().toString());
+        if (recording != null) {
+            status.put("preset", preset.getLabel());
+            status.put("state", recording.getState().name());
+            status.put("startTime", startTime);
+            status.put("duration", recording.getDuration() != null ? recording.getDuration().getSeconds() : null);
+            status.put("file", destination.toAbsolutePath().toString());
+            status.put("sizeBytes", recording.getSize());
+        } else {
+            status.put("state", "NONE");
+        }
+        status.put("files", listRecordings());
+        return status;
+    }
+    
+    /**
+     * 是否有进行中的录制；按时长自动结束的录制在此处释放
+     */
+    private boolean isRecording() {
+        if (recording == null) {
+            return false;
+        }
+        RecordingState state = recording.getState();
+        if (state == RecordingState.STOPPED || state == RecordingState.CLOSED) {
+            recording.close();
+            recording = null;
+            return false;
+        }
+        return true;
+    }
+    
+    private Path directory() {
+        String path = appConfig.getJfr().getPath();
+        return path.trim().isEmpty() ? Paths.get(appConfig.getPersist().getPath(), "jfr") : Paths.get(path);
+    }
+    
+    private List<String> listRecordings() {
+        Path dir = directory();
+        if (!Files.isDirectory(dir)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> paths = Files.list(dir)) {
+            return paths.map(path -> path.getFileName().toString())
+                .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.warn("列出JFR录制文件失败: {}", dir.toAbsolutePath(), e);
+            return Collections.emptyList();
+        }
+    }
+    
+    /**
+     * 删除最早的录制文件（文件名以时间开头，按名称排序即按时间排序），只保留 keep 个
+     */
+    private void pruneOldRecordings(Path dir, int keep) throws IOException {
+        List<String> files = listRecordings();
+        for (int i = 0; i < files.size() - Math.max(0, keep); i++) {
+            Files.deleteIfExists(dir.resolve(files.get(i)));
+            log.info("删除旧的JFR录制文件: {}", files.get(i));
+        }
+    }
+    
+    /**
+     * 应用关闭时停止进行中的录制，已录制的数据写入文件
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (isRecording()) {
+            stop();
+        }
+    }
+}
@@ -1,15 +1,29 @@
 package com.alert.merch.service;
 
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.ReviewerLoad;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Prometheus指标服务类
+ * 描述任务数据的指标带source标签：主数据源取 app.db.source-name，附加数据源（app.sources）取各自名称；
+ * 告警发送、阶段流水线、事件流等进程级组件的指标不区分数据源
  */
 @Slf4j
 @Service
@@ -18,28 +32,75 @@ public class MetricsService {
     @Autowired
     private MeterRegistry meterRegistry;
     
+    @Autowired
+    private AppConfig appConfig;
+    
     private Counter taskTotalCounter;
     private Counter unclaimedTotalCounter;
     private Counter unfinishedTotalCounter;
+    private Counter dbQueryFailuresCounter;
+    
+    // 数据库熔断器状态：0关闭，1半开，2熔断
+    private final AtomicInteger dbCircuitBreakerState = new AtomicInteger();
+    
+    // 有积压的处理人数
+    private final AtomicInteger reviewerCount = new AtomicInteger();
+    
+    private MultiGauge reviewerBacklogGauge;
+    private MultiGauge reviewerOverdueGauge;
     
     @PostConstruct
     public void init() {
         // 注册新增入网总数指标
         taskTotalCounter = Counter.builder("task_total")
                 .description("新增入网总数")
+                .tag("source", primarySource())
                 .register(meterRegistry);
         
         // 注册未领取总数指标
         unclaimedTotalCounter = Counter.builder("unclaimed_total")
                 .description("未领取总数")
+                .tag("source", primarySource())
                 .register(meterRegistry);
         
         // 注册未完成总数指标
         unfinishedTotalCounter = Counter.builder("unfinished_total")
                 .description("未完成总数")
+                .tag("source", primarySource())
+                .register(meterRegistry);
+        
+        // 注册数据库查询失败次数指标
+        dbQueryFailuresCounter = Counter.builder("db_query_failures_total")
+                .description("数据库查询失败次数")
+                .tag("source", primarySource())
+                .register(meterRegistry);
+        
+        // 注册数据库熔断器状态指标
+        Gauge.builder("db_circuit_breaker_state", dbCircuitBreakerState, AtomicInteger::get)
+                .description("数据库熔断器状态（0关闭，1半开，2熔断）")
+                .tag("source", primarySource())
                 .register(meterRegistry);
         
-        log.info("Prometheus指标已注册: task_total, unclaimed_total, unfinished_total");
+        // 注册处理人积压指标，每周期整体替换标签取值，只保留前N人和other
+        reviewerBacklogGauge = MultiGauge.builder("reviewer_backlog")
+                .description("处理人已领取未完成的任务数（前N人，其余合并为other）")
+                .tag("source", primarySource())
+                .register(meterRegistry);
+        reviewerOverdueGauge = MultiGauge.builder("reviewer_overdue")
+                .description("处理人超时未完成的任务数（前N人，其余合并为other）")
+                .tag("source", primarySource())
+                .register(meterRegistry);
+        Gauge.builder("reviewer_count", reviewerCount, AtomicInteger::get)
+                .description("有积压的处理人数")
+                .tag("source", primarySource())
+                .register(meterRegistry);
+        
+        log.info("Prometheus指标已注册: task_total, unclaimed_total, unfinished_total, " +
+                "db_query_failures_total, db_circuit_breaker_state, reviewer_backlog, reviewer_overdue, reviewer_count");
+    }
+    
+    private String primarySource() {
+        return appConfig.getDb().getSourceName();
     }
     
     /**
@@ -95,5 +156,362 @@ public class MetricsService {
     public double getUnfinishedTotal() {
         return unfinishedTotalCounter.count();
     }
+    
+    /**
+     * 增加数据库查询失败次数
+     */
+    public void incrementDbQueryFailures() {
+        dbQueryFailuresCounter.increment();
+    }
+    
+    /**
+     * 更新数据库熔断器状态
+     * 
+     * @param state 状态码（0关闭，1半开，2熔断）
+     */
+    public void updateDbCircuitBreakerState(int state) {
+        dbCircuitBreakerState.set(state);
+    }
+    
+    /**
+     * 更新处理人积压指标，上一周期出现而本周期不在列表中的处理人会被移除
+     * 
+     * @param top 前N个处理人及合并的other
+     * @param total 有积压的处理人总数
+     */
+    public void updateReviewerGauges(List<ReviewerLoad> top, int total) {
+        reviewerBacklogGauge.register(top.stream()
+                .map(load -> MultiGauge.Row.of(Tags.of("reviewer", load.getAssignee()), load.getBacklog()))
+                .collect(Collectors.toList()), true);
+        reviewerOverdueGauge.register(top.stream()
+                .map(load -> MultiGauge.Row.of(Tags.of("reviewer", load.getAssignee()), load.getOverdue()))
+                .collect(Collectors.toList()), true);
+        reviewerCount.set(total);
+    }
+    
+    /**
+     * 注册阶段流水线交接队列深度指标
+     * 
+     * @param stage 阶段名称
+     * @param depth 当前排队的工作数
+     */
+    public void registerPipelineQueue(String stage, Supplier<Number> depth) {
+        Gauge.builder("pipeline_queue_depth", depth)
+                .description("阶段流水线交接队列深度")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 记录阶段流水线中一项工作的排队和执行耗时
+     * 
+     * @param stage 阶段名称
+     * @param waitNanos 在交接队列中等待的时间（纳秒），不经过队列的阶段传-1
+     * @param runNanos 执行耗时（纳秒）
+     * @param success 是否正常完成
+     */
+    public void recordPipelineStage(String stage, long waitNanos, long runNanos, boolean success) {
+        Timer.builder("pipeline_stage_latency")
+                .description("阶段执行耗时")
+                .tag("stage", stage)
+                .tag("result", success ? "success" : "failure")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(runNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos < 0) {
+            return;
+        }
+        Timer.builder("pipeline_queue_wait")
+                .description("工作在阶段交接队列中的等待时间")
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 增加阶段交接队列已满的次数
+     * 
+     * @param stage 阶段名称
+     * @param action 处理方式：skipped（定时工作跳过）, caller_runs（交接工作由提交方执行）
+     */
+    public void incrementPipelineOverflow(String stage, String action) {
+        Counter.builder("pipeline_overflow_total")
+                .description("阶段交接队列已满的次数")
+                .tag("stage", stage)
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    /**
+     * 注册告警目标发送队列深度指标
+     * 
+     * @param target 告警目标名称
+     * @param queue 发送队列
+     */
+    public void registerAlertQueue(String target, Collection<?> queue) {
+        Gauge.builder("alert_queue_depth", queue, Collection::size)
+                .description("告警目标发送队列深度")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 记录一次告警发送
+     * 
+     * @param target 告警目标名称
+     * @param elapsedNanos 发送耗时（纳秒）
+     * @param success 是否发送成功
+     */
+    public void recordAlertSend(String target, long elapsedNanos, boolean success) {
+        Timer.builder("alert_send_latency")
+                .description("告警发送耗时")
+                .tag("target", target)
+                .tag("result", success ? "success" : "failure")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 增加告警丢弃次数（发送队列已满）
+     * 
+     * @param target 告警目标名称
+     */
+    public void incrementAlertDropped(String target) {
+        Counter.builder("alert_dropped_total")
+                .description("发送队列已满而丢弃的告警数")
+                .tag("target", target)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    /**
+     * 增加收到的任务事件数
+     * 
+     * @param outcome 处理结果：applied（已应用）, duplicate（重复或过期）, invalid（无效）
+     * @param count 事件数
+     */
+    public void incrementTaskEvents(String outcome, int count) {
+        Counter.builder("task_events_total")
+                .description("推送的任务事件数")
+                .tag("source", primarySource())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+    
+    /**
+     * 增加对账修正的任务数
+     */
+    public void incrementReconcileCorrections(int count) {
+        Counter.builder("task_event_reconcile_corrections_total")
+                .description("推送模式下对账修正的任务数")
+                .tag("source", primarySource())
+                .register(meterRegistry)
+                .increment(count);
+    }
+    
+    /**
+     * 注册推送模式下内存任务数指标
+     */
+    public void registerPushTaskGauge(Supplier<Number> tasks) {
+        Gauge.builder("task_event_state_tasks", tasks)
+                .description("推送模式下内存中的未完成任务数")
+                .tag("source", primarySource())
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 注册事件流客户端数指标
+     */
+    public void registerStreamClients(Supplier<Number> clients) {
+        Gauge.builder("stream_clients", clients)
+                .description("/api/stream 当前连接的客户端数")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 增加事件流合并快照次数（客户端落后过多，丢弃增量改发快照）
+     */
+    public void incrementStreamCoalesced() {
+        Counter.builder("stream_coalesced_total")
+                .description("事件流客户端落后而改发快照的次数")
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    /**
+     * 增加事件流客户端因写入超时被移出的次数
+     */
+    public void incrementStreamEvicted() {
+        Counter.builder("stream_evicted_total")
+                .description("事件流客户端写入超过截止时间而被移出的次数")
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    /**
+     * 注册超时任务存储相关指标
+     * 
+     * @param unclaimed 当前超时未领取任务数
+     * @param unfinished 当前超时未完成任务数
+     * @param unfinishedLastHour 最近一小时内创建的超时未完成任务数
+     */
+    public void registerTimeoutTaskGauges(Supplier<Number> unclaimed, Supplier<Number> unfinished,
+                                          Supplier<Number> unfinishedLastHour) {
+        Gauge.builder("timeout_tasks", unclaimed)
+                .description("当前记录的超时任务数")
+                .tag("source", primarySource())
+                .tag("type", "unclaimed")
+                .register(meterRegistry);
+        Gauge.builder("timeout_tasks", unfinished)
+                .description("当前记录的超时任务数")
+                .tag("source", primarySource())
+                .tag("type", "unfinished")
+                .register(meterRegistry);
+        Gauge.builder("timeout_unfinished_last_hour", unfinishedLastHour)
+                .description("最近一小时内创建的超时未完成任务数")
+                .tag("source", primarySource())
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 注册附加数据源的状态指标
+     * 
+     * @param source 数据源名称
+     * @param breakerState 熔断器状态码（0关闭，1半开，2熔断）
+     * @param tasks 最近一次查询的任务数
+     * @param unclaimed 当前超时未领取任务数
+     * @param unfinished 当前超时未完成任务数
+     */
+    public void registerSourceGauges(String source, Supplier<Number> breakerState, Supplier<Number> tasks,
+                                     Supplier<Number> unclaimed, Supplier<Number> unfinished) {
+        Gauge.builder("db_circuit_breaker_state", breakerState)
+                .description("数据库熔断器状态（0关闭，1半开，2熔断）")
+                .tag("source", source)
+                .register(meterRegistry);
+        Gauge.builder("source_tasks", tasks)
+                .description("附加数据源最近一次查询的任务数")
+                .tag("source", source)
+                .register(meterRegistry);
+        Gauge.builder("timeout_tasks", unclaimed)
+                .description("当前记录的超时任务数")
+                .tag("source", source)
+                .tag("type", "unclaimed")
+                .register(meterRegistry);
+        Gauge.builder("timeout_tasks", unfinished)
+                .description("当前记录的超时任务数")
+                .tag("source", source)
+                .tag("type", "unfinished")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 增加附加数据源首次超时的任务数
+     * 
+     * @param source 数据源名称
+     * @param type 超时类型（unclaimed/unfinished）
+     * @param count 任务数
+     */
+    public void incrementSourceTimeouts(String source, String type, int count) {
+        Counter.builder("unclaimed".equals(type) ? "unclaimed_total" : "unfinished_total")
+                .description("unclaimed".equals(type) ? "未领取总数" : "未完成总数")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment(count);
+    }
+    
+    /**
+     * 增加附加数据源查询失败次数
+     */
+    public void incrementSourceQueryFailures(String source) {
+        Counter.builder("db_query_failures_total")
+                .description("数据库查询失败次数")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    /**
+     * 记录附加数据源一次检查（查询和超时分类）的耗时
+     * 
+     * @param source 数据源名称
+     * @param elapsedNanos 耗时（纳秒）
+     * @param success 查询是否成功
+     */
+    public void recordSourcePoll(String source, long elapsedNanos, boolean success) {
+        Timer.builder("source_poll_latency")
+                .description("附加数据源检查耗时")
+                .tag("source", source)
+                .tag("result", success ? "success" : "failure")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 注册告警补充信息缓存指标
+     * 
+     * @param size 缓存条目数
+     * @param hitRatio 启动以来的缓存命中率
+     */
+    public void registerEnrichmentGauges(Supplier<Number> size, Supplier<Number> hitRatio) {
+        Gauge.builder("enrichment_cache_size", size)
+                .description("告警补充信息缓存条目数")
+                .tag("source", primarySource())
+                .register(meterRegistry);
+        Gauge.builder("enrichment_cache_hit_ratio", hitRatio)
+                .description("告警补充信息缓存命中率（启动以来）")
+                .tag("source", primarySource())
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 增加告警补充信息缓存命中/未命中次数
+     * 
+     * @param hit 是否命中
+     * @param count 流程数
+     */
+    public void incrementEnrichmentCache(boolean hit, int count) {
+        Counter.builder("enrichment_cache_requests_total")
+                .description("告警补充信息缓存查找次数")
+                .tag("source", primarySource())
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment(count);
+    }
+    
+    /**
+     * 记录一次告警补充信息批量查询的耗时
+     * 
+     * @param elapsedNanos 耗时（纳秒）
+     * @param success 查询是否成功
+     */
+    public void recordEnrichmentLookup(long elapsedNanos, boolean success) {
+        Timer.builder("enrichment_lookup_latency")
+                .description("告警补充信息批量查询耗时")
+                .tag("source", primarySource())
+                .tag("result", success ? "success" : "failure")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 记录启动到首个检查周期结束的耗时和常驻内存
+     * 
+     * @param seconds 启动到首个检查周期结束的秒数
+     * @param rssBytes 此时的常驻内存（字节），未知时为-1
+     */
+    public void recordFirstCycle(double seconds, long rssBytes) {
+        Gauge.builder("startup_first_cycle_seconds", () -> seconds)
+                .description("启动到首个检查周期结束的耗时（秒）")
+                .register(meterRegistry);
+        if (rssBytes >= 0) {
+            Gauge.builder("startup_first_cycle_rss_bytes", () -> rssBytes)
+                    .description("首个检查周期结束时的常驻内存（字节）")
+                    .register(meterRegistry);
+        }
+    }
 }
-
@@ -0,0 +1,103 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.ReviewerLoad;
+import com.alert.merch.model.TaskTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 处理人积压统计服务类
+ * 每个检查周期由超时分类的同一次扫描按处理人汇总已领取任务的积压数和超时未完成数，
+ * 完整明细通过 /api/reviewers 查询；Prometheus指标只发布积压最重的前N人，其余合并为 reviewer="other"，
+ * 标签取值最多 N+1 个，处理人再多也不会让时间序列数无限增长
+ */
+@Slf4j
+@Service
+public class ReviewerStatsService {
+    
+    public static final String OTHER = "other";
+    
+    // 配置错误时指标标签数的硬上限
+    private static final int MAX_TOP_N = 50;
+    
+    // 超时未完成多的在前，其次积压多的在前
+    static final Comparator<ReviewerLoad> LOAD_ORDER = Comparator.comparingInt(ReviewerLoad::getOverdue).reversed()
+        .thenComparing(Comparator.comparingInt(ReviewerLoad::getBacklog).reversed())
+        .thenComparing(ReviewerLoad::getAssignee);
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    private volatile List<ReviewerLoad> reviewers = Collections.emptyList();
+    private volatile LocalDateTime updateTime;
+    
+    /**
+     * 按本周期的分类结果更新处理人积压
+     */
+    public void update(TaskTable table, TaskTable.Classification classification, LocalDateTime now) {
+        int[] backlog = classification.getAssigneeBacklog();
+        int[] overdue = classification.getAssigneeOverdue();
+        int[] oldestRows = classification.getAssigneeOldestRows();
+        
+        List<ReviewerLoad> loads = new ArrayList<>(backlog.length);
+        for (int i = 0; i < backlog.length; i++) {
+            if (backlog[i] == 0) {
+                continue;
+            }
+            ReviewerLoad load = new ReviewerLoad(table.getAssigneeName(i), backlog[i], overdue[i]);
+            load.setOldestTaskId(table.getTaskId(oldestRows[i]));
+            load.setOldestCreateTime(table.getCreateTime(oldestRows[i]));
+            loads.add(load);
+        }
+        loads.sort(LOAD_ORDER);
+        
+        reviewers = Collections.unmodifiableList(loads);
+        updateTime = now;
+        metricsService.updateReviewerGauges(top(loads, Math.min(appConfig.getReviewer().getTopN(), MAX_TOP_N)),
+            loads.size());
+    }
+    
+    /**
+     * 取前 topN 个处理人，其余合并为一行 other
+     *
+     * @param sorted 按 LOAD_ORDER 排序的处理人
+     */
+    static List<ReviewerLoad> top(List<ReviewerLoad> sorted, int topN) {
+        int limit = Math.max(0, Math.min(topN, sorted.size()));
+        List<ReviewerLoad> top = new ArrayList<>(sorted.subList(0, limit));
+        if (sorted.size() > limit) {
+            ReviewerLoad other = new ReviewerLoad(OTHER, 0, 0);
+            for (ReviewerLoad load : sorted.subList(limit, sorted.size())) {
+                other.setBacklog(other.getBacklog() + load.getBacklog());
+                other.setOverdue(other.getOverdue() + load.getOverdue());
+            }
+            top.add(other);
+        }
+        return top;
+    }
+    
+    /**
+     * 全部有积压的处理人，按超时未完成数、积压数从多到少
+     */
+    public List<ReviewerLoad> getReviewers() {
+        return reviewers;
+    }
+    
+    /**
+     * 最近一次统计时间，尚未完成检查周期时为null
+     */
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+}
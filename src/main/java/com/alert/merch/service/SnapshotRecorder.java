@@ -0,0 +1,63 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.RecordedSnapshot;
+import com.alert.merch.model.TaskSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 任务快照录制服务
+ * 配置 app.replay.record-path 后，每次成功查询的任务快照按天追加到
+ * snapshots-yyyy-MM-dd.jsonl.gz（每条快照一个gzip分段），供回放模式使用
+ */
+@Slf4j
+@Service
+public class SnapshotRecorder {
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    public boolean isEnabled() {
+        return !appConfig.getReplay().getRecordPath().trim().isEmpty();
+    }
+    
+    /**
+     * 录制一次任务快照，失败只记录日志，不影响检查周期
+     */
+    public void record(TaskSnapshot snapshot) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            Path dir = Paths.get(appConfig.getReplay().getRecordPath());
+            Files.createDirectories(dir);
+            Path file = dir.resolve("snapshots-"
+                + snapshot.getFetchTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) + ".jsonl.gz");
+            
+            RecordedSnapshot recorded = new RecordedSnapshot(snapshot.getFetchTime(), snapshot.getTable().toTaskInfos());
+            byte[] line = (objectMapper.writeValueAsString(recorded) + "\n").getBytes(StandardCharsets.UTF_8);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                out.write(line);
+            }
+        } catch (IOException e) {
+            log.error("录制任务快照失败", e);
+        }
+    }
+}
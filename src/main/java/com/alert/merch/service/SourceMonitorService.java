@@ -0,0 +1,357 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.config.MyBatisConfig;
+import com.alert.merch.mapper.TaskMapper;
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskSnapshot;
+import com.alert.merch.model.TaskTable;
+import com.alert.merch.util.CircuitBreaker;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 附加数据源监控服务类
+ * app.sources 中的每个数据源（其他集群上的流程引擎租户）有独立的Hikari连接池、TaskMapper、熔断器和检查线程，
+ * 按各自的间隔并行检查：查询、超时分类，首次超时的任务发送到该数据源的webhook。
+ * 某个集群变慢或不可用只会占住自己的检查线程，不会推迟其他数据源和主数据源的检查周期；
+ * 主数据源（spring.datasource）仍由 TaskMonitorService 负责日报、升级、路由等完整流程
+ */
+@Slf4j
+@Service
+public class SourceMonitorService {
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private WeComAlertService weComAlertService;
+    
+    @Autowired
+    private AlertRouter alertRouter;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private Clock clock;
+    
+    private final Map<String, SourceState> sources = new LinkedHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        Set<String> names = new HashSet<>();
+        names.add(appConfig.getDb().getSourceName());
+        for (AppConfig.Source config : appConfig.getSources()) {
+            if (config.getName() == null || config.getName().trim().isEmpty()
+                || config.getJdbcUrl() == null || config.getJdbcUrl().trim().isEmpty()) {
+                throw new IllegalArgumentException("附加数据源必须配置name和jdbc-url");
+            }
+            if (!names.add(config.getName())) {
+                throw new IllegalArgumentException("数据源名称重复: " + config.getName());
+            }
+            SourceState state = new SourceState(config, createDataSource(config), new CircuitBreaker(
+                config.getName(),
+                appConfig.getDb().getBreakerFailureThreshold(),
+                Duration.ofSeconds(appConfig.getDb().getBreakerOpenSeconds()),
+                Duration.ofSeconds(appConfig.getDb().getBreakerMaxOpenSeconds())));
+            metricsService.registerSourceGauges(config.getName(), () -> state.breaker.getState().getCode(),
+                () -> state.taskCount, () -> state.unclaimedCount, () -> state.unfinishedCount);
+            
+            int interval = config.getCheckIntervalSeconds() > 0
+                ? config.getCheckIntervalSeconds() : appConfig.getTask().getCheckIntervalSeconds();
+            state.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "source-" + config.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            state.executor.scheduleWithFixedDelay(() -> poll(state), 0, Math.max(1, interval), TimeUnit.SECONDS);
+            sources.put(config.getName(), state);
+            log.info("已启用附加数据源[{}]，连接池大小: {}，检查间隔: {}秒", config.getName(),
+                config.getMaxPoolSize(), interval);
+        }
+    }
+    
+    /**
+     * 创建数据源的连接池，启动时不连接数据库，集群不可达不影响应用启动
+     */
+    private HikariDataSource createDataSource(AppConfig.Source config) {
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName("source-" + config.getName());
+        hikari.setJdbcUrl(config.getJdbcUrl());
+        hikari.setUsername(config.getUsername());
+        hikari.setPassword(config.getPassword());
+        hikari.setDriverClassName(config.getDriverClassName());
+        hikari.setMaximumPoolSize(Math.max(1, config.getMaxPoolSize()));
+        hikari.setMinimumIdle(1);
+        hikari.setConnectionTimeout(config.getConnectionTimeoutMs());
+        hikari.setInitializationFailTimeout(-1);
+        // 连接池指标以 pool="source-名称" 区分
+        hikari.setMetricRegistry(meterRegistry);
+        return new HikariDataSource(hikari);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        for (SourceState state : sources.values()) {
+            state.executor.shutdownNow();
+        }
+        for (SourceState state : sources.values()) {
+            try {
+                state.executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            state.dataSource.close();
+        }
+    }
+    
+    /**
+     * 检查一个数据源，在该数据源的检查线程上执行
+     */
+    private void poll(SourceState state) {
+        long start = System.nanoTime();
+        boolean fresh = false;
+        try {
+            TaskSnapshot snapshot = fetch(state);
+            if (snapshot != null) {
+                fresh = !snapshot.isStale();
+                detect(state, snapshot);
+            }
+        } catch (Exception e) {
+            // 异常会终止定时任务，这里必须捕获
+            log.error("数据源[{}]检查异常", state.config.getName(), e);
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            state.lastPollTime = LocalDateTime.now(clock);
+            state.lastPollMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            metricsService.recordSourcePoll(state.config.getName(), elapsedNanos, fresh);
+        }
+    }
+    
+    /**
+     * 查询数据源的任务，失败或熔断时返回最后一次成功查询的快照（标记为过期），从未成功时返回null
+     */
+    private TaskSnapshot fetch(SourceState state) {
+        AppConfig.Source config = state.config;
+        if (state.breaker.allowRequest()) {
+            try {
+                TaskSnapshot last = state.lastSnapshot;
+                TaskTable table = new TaskTable(last != null ? last.getTable().size() : 256);
+                mapper(state).scanTasksByStatus(config.getQueryDays(), config.getProcKey(), config.getTaskKeys(),
+                    context -> table.add(context.getResultObject()));
+                state.breaker.recordSuccess();
+                state.lastError = null;
+                state.lastSnapshot = new TaskSnapshot(table, LocalDateTime.now(clock), false);
+                return state.lastSnapshot;
+            } catch (Exception e) {
+                log.error("查询数据源[{}]失败: {}", config.getName(), e.getMessage());
+                state.breaker.recordFailure();
+                state.lastError = e.getMessage();
+                metricsService.incrementSourceQueryFailures(config.getName());
+            }
+        }
+        TaskSnapshot snapshot = state.lastSnapshot;
+        if (snapshot == null) {
+            return null;
+        }
+        return new TaskSnapshot(snapshot.getTable(), snapshot.getFetchTime(), true);
+    }
+    
+    /**
+     * 获取数据源的映射器，首次连接成功后才创建，方言自动识别不会因启动时集群不可达而固定为默认值
+     */
+    private TaskMapper mapper(SourceState state) throws Exception {
+        if (state.mapper == null) {
+            state.dataSource.getConnection().close();
+            log.info("数据源[{}]连接成功", state.config.getName());
+            state.mapper = new SqlSessionTemplate(MyBatisConfig.buildSqlSessionFactory(state.dataSource,
+                state.config.getDialect(), appConfig.getDb().getStatementTimeoutSeconds())).getMapper(TaskMapper.class);
+        }
+        return state.mapper;
+    }
+    
+    /**
+     * 按数据源的规则做超时分类，首次超时的任务在工作时间内发送告警
+     */
+    private void detect(SourceState state, TaskSnapshot snapshot) {
+        AppConfig.Source config = state.config;
+        LocalDateTime now = LocalDateTime.now(clock);
+        int unclaimedMinutes = config.getTimeoutMinutes() > 0
+            ? config.getTimeoutMinutes() : appConfig.getTask().getTimeoutMinutes();
+        int unfinishedMinutes = config.getUnfinishedTimeoutMinutes() > 0
+            ? config.getUnfinishedTimeoutMinutes() : appConfig.getTask().getUnfinishedTimeoutMinutes();
+        
+        TaskTable table = snapshot.getTable();
+        TaskTable.Classification classification = table.classify(
+            TaskTable.toEpochSecond(now), unclaimedMinutes * 60L, unfinishedMinutes * 60L);
+        state.taskCount = table.size();
+        state.unclaimedCount = classification.getUnclaimedCount();
+        state.unfinishedCount = classification.getUnfinishedCount();
+        log.info("数据源[{}]检查任务{}条，超时未领取{}条，超时未完成{}条", config.getName(),
+            table.size(), classification.getUnclaimedCount(), classification.getUnfinishedCount());
+        
+        if (!now.toLocalDate().equals(state.day)) {
+            state.day = now.toLocalDate();
+            state.dailyUnclaimed.clear();
+            state.dailyUnfinished.clear();
+        }
+        LocalDateTime staleSince = snapshot.isStale() ? snapshot.getFetchTime() : null;
+        boolean workingHours = isWorkingHours(now);
+        notifyNewTimeouts(state, "unclaimed",
+            toTaskInfos(table, classification.getUnclaimedRows(), classification.getUnclaimedCount()),
+            state.alertedUnclaimed, state.dailyUnclaimed, staleSince, workingHours);
+        notifyNewTimeouts(state, "unfinished",
+            toTaskInfos(table, classification.getUnfinishedRows(), classification.getUnfinishedCount()),
+            state.alertedUnfinished, state.dailyUnfinished, staleSince, workingHours);
+    }
+    
+    /**
+     * 发送本周期新出现的超时任务；不在工作时间时不发送，到工作时间后一并发送
+     *
+     * @param alerted 已告警且仍超时的任务ID，已领取或已完成的任务会被移除
+     * @param daily 当天出现过的超时任务ID
+     */
+    private void notifyNewTimeouts(SourceState state, String type, List<TaskInfo> tasks, Set<String> alerted,
+                                   Set<String> daily, LocalDateTime staleSince, boolean workingHours) {
+        Set<String> current = new HashSet<>();
+        List<TaskInfo> newTasks = new ArrayList<>();
+        int firstSeen = 0;
+        for (TaskInfo task : tasks) {
+            current.add(task.getTaskId());
+            if (daily.add(task.getTaskId())) {
+                firstSeen++;
+            }
+            if (!alerted.contains(task.getTaskId())) {
+                newTasks.add(task);
+            }
+        }
+        alerted.retainAll(current);
+        if (firstSeen > 0) {
+            metricsService.incrementSourceTimeouts(state.config.getName(), type, firstSeen);
+        }
+        if (newTasks.isEmpty() || !workingHours) {
+            return;
+        }
+        // 未能入队（队列已满、分发已停止）的不标记为已告警，下个周期重新发送
+        if (weComAlertService.sendSourceTimeoutAlert(state.config.getName(), type, target(state, type), newTasks,
+                tasks.size(), daily.size(), staleSince)) {
+            newTasks.forEach(task -> alerted.add(task.getTaskId()));
+        }
+    }
+    
+    /**
+     * 数据源的告警目标：配置了webhook时发送到以数据源命名的目标，否则发送到默认目标
+     */
+    private AlertTarget target(SourceState state, String type) {
+        String webhook = state.config.getWebhook();
+        if (webhook == null || webhook.trim().isEmpty()) {
+            return alertRouter.getDefaultTarget(type);
+        }
+        return new AlertTarget(state.config.getName(), webhook);
+    }
+    
+    private static List<TaskInfo> toTaskInfos(TaskTable table, int[] rows, int count) {
+        List<TaskInfo> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(table.toTaskInfo(rows[i]));
+        }
+        return tasks;
+    }
+    
+    /**
+     * 工作时间（9:00-21:00），与主数据源相同
+     */
+    private static boolean isWorkingHours(LocalDateTime now) {
+        int hour = now.getHour();
+        return hour >= 9 && hour < 21;
+    }
+    
+    /**
+     * 获取各附加数据源的检查状态
+     */
+    public List<Map<String, Object>> getSourceStats() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (SourceState state : sources.values()) {
+            Map<String, Object> stat = new LinkedHashMap<>();
+            stat.put("name", state.config.getName());
+            stat.put("circuitBreaker", state.breaker.getState().name());
+            stat.put("lastPollTime", state.lastPollTime != null ? state.lastPollTime.format(formatter) : "N/A");
+            stat.put("lastPollMillis", state.lastPollMillis);
+            TaskSnapshot snapshot = state.lastSnapshot;
+            stat.put("lastSnapshotTime", snapshot != null ? snapshot.getFetchTime().format(formatter) : "N/A");
+            stat.put("tasks", state.taskCount);
+            stat.put("unclaimed", state.unclaimedCount);
+            stat.put("unfinished", state.unfinishedCount);
+            HikariPoolMXBean pool = state.dataSource.getHikariPoolMXBean();
+            if (pool != null) {
+                stat.put("activeConnections", pool.getActiveConnections());
+                stat.put("totalConnections", pool.getTotalConnections());
+            }
+            if (state.lastError != null) {
+                stat.put("lastError", state.lastError);
+            }
+            stats.add(stat);
+        }
+        return stats;
+    }
+    
+    /**
+     * 单个附加数据源的连接池、映射器和检查状态，除状态字段外只在该数据源的检查线程上访问
+     */
+    private static class SourceState {
+        private final AppConfig.Source config;
+        private final HikariDataSource dataSource;
+        private final CircuitBreaker breaker;
+        private ScheduledExecutorService executor;
+        private TaskMapper mapper;
+        
+        private final Set<String> alertedUnclaimed = new HashSet<>();
+        private final Set<String> alertedUnfinished = new HashSet<>();
+        private final Set<String> dailyUnclaimed = new HashSet<>();
+        private final Set<String> dailyUnfinished = new HashSet<>();
+        private LocalDate day;
+        
+        private volatile TaskSnapshot lastSnapshot;
+        private volatile LocalDateTime lastPollTime;
+        private volatile long lastPollMillis;
+        private volatile int taskCount;
+        private volatile int unclaimedCount;
+        private volatile int unfinishedCount;
+        private volatile String lastError;
+        
+        SourceState(AppConfig.Source config, HikariDataSource dataSource, CircuitBreaker breaker) {
+            this.config = config;
+            this.dataSource = dataSource;
+            this.breaker = breaker;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.util.StageExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 检查周期阶段流水线服务类
+ * 检测（定时调度线程）之外，统计和落盘各有一个阶段线程和有界交接队列，通知由 AlertDispatcher 的各目标发送队列承担：
+ * 落盘或统计变慢只会让各自的队列积压，不会推迟下一次检测。
+ * 各阶段的队列深度和执行耗时发布为指标，可分别观察和调整吞吐；回放模式下所有阶段在周期线程中顺序执行
+ */
+@Slf4j
+@Service
+public class StagePipelineService {
+    
+    public static final String DETECTION = "detection";
+    public static final String STATISTICS = "statistics";
+    public static final String PERSISTENCE = "persistence";
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    private final Map<String, StageExecutor> stages = new LinkedHashMap<>();
+    
+    // 定时向各阶段队列投递工作，只负责投递，不执行阶段逻辑
+    private ScheduledExecutorService timer;
+    
+    @PostConstruct
+    public void init() {
+        AppConfig.Pipeline pipeline = appConfig.getPipeline();
+        boolean inline = !pipeline.isDecoupled();
+        for (String name : new String[]{STATISTICS, PERSISTENCE}) {
+            StageExecutor stage = new StageExecutor(name, pipeline.getQueueCapacity(), inline,
+                (waitNanos, runNanos, success) -> metricsService.recordPipelineStage(name, waitNanos, runNanos, success));
+            metricsService.registerPipelineQueue(name, stage::depth);
+            stages.put(name, stage);
+        }
+        if (!inline) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pipeline-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        log.info("阶段流水线: {}，交接队列容量: {}", inline ? "周期内顺序执行" : "统计、落盘使用独立线程",
+            pipeline.getQueueCapacity());
+    }
+    
+    /**
+     * 统计、落盘是否在独立线程上执行
+     */
+    public boolean isDecoupled() {
+        return timer != null;
+    }
+    
+    /**
+     * 按固定间隔向阶段投递工作，阶段队列已满时本次跳过
+     * 顺序执行模式下不投递，由检查周期直接调用
+     */
+    public void schedule(String stage, Runnable work, long initialDelaySeconds, long periodSeconds) {
+        if (timer == null) {
+            return;
+        }
+        timer.scheduleWithFixedDelay(() -> {
+            if (!stages.get(stage).offer(work)) {
+                metricsService.incrementPipelineOverflow(stage, "skipped");
+                log.warn("阶段[{}]队列已满，跳过本次定时工作", stage);
+            }
+        }, initialDelaySeconds, Math.max(1, periodSeconds), TimeUnit.SECONDS);
+    }
+    
+    /**
+     * 把检测结果交给下游阶段，队列已满时在当前线程执行（背压到检测）
+     */
+    public void handoff(String stage, Runnable work) {
+        StageExecutor executor = stages.get(stage);
+        if (!executor.handoff(work) && !executor.isInline()) {
+            metricsService.incrementPipelineOverflow(stage, "caller_runs");
+        }
+    }
+    
+    /**
+     * 记录一次检测阶段耗时（检测在定时调度线程上执行，不经过交接队列）
+     */
+    public void recordDetection(long runNanos, boolean success) {
+        metricsService.recordPipelineStage(DETECTION, -1, runNanos, success);
+    }
+    
+    /**
+     * 各阶段的队列和执行状态
+     */
+    public List<Map<String, Object>> getStageStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (StageExecutor stage : stages.values()) {
+            Map<String, Object> stat = new LinkedHashMap<>();
+            stat.put("stage", stage.getName());
+            stat.put("inline", stage.isInline());
+            stat.put("queueDepth", stage.depth());
+            stat.put("completed", stage.getCompleted());
+            stat.put("failed", stage.getFailed());
+            stat.put("skipped", stage.getSkipped());
+            stat.put("callerRuns", stage.getCallerRuns());
+            stat.put("lastRunMillis", stage.getLastRunMillis());
+            stats.add(stat);
+        }
+        return stats;
+    }
+    
+    /**
+     * 停止定时投递，等待各阶段已入队的工作执行完
+     * 由检查周期服务在关闭时调用，保证统计阶段排队的记录在每日汇总落盘之前写入
+     */
+    public void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        for (StageExecutor stage : stages.values()) {
+            if (!stage.shutdown(TimeUnit.SECONDS.toMillis(10))) {
+                log.warn("阶段[{}]关闭时仍有{}项工作未完成", stage.getName(), stage.depth());
+            }
+        }
+    }
+}
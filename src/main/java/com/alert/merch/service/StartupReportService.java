@@ -0,0 +1,74 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 启动耗时报告服务
+ * 记录JVM启动到首个检查周期结束的耗时和常驻内存，供启动基准和Prometheus使用；
+ * 构建镜像生成AppCDS归档时，首个周期结束后退出进程
+ */
+@Slf4j
+@Service
+public class StartupReportService {
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Autowired
+    private ApplicationContext applicationContext;
+    
+    private final AtomicBoolean reported = new AtomicBoolean(false);
+    
+    /**
+     * 检查周期结束时调用，仅首次生效
+     */
+    public void onCycleFinished() {
+        if (!reported.compareAndSet(false, true)) {
+            return;
+        }
+        
+        long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        long rssBytes = readResidentSetBytes();
+        // 启动基准按uptimeMs/rssKb字段解析，修改格式时需同步修改StartupBenchmark
+        log.info("首个检查周期完成: uptimeMs={}, rssKb={}", uptimeMs, rssBytes >= 0 ? rssBytes / 1024 : -1);
+        metricsService.recordFirstCycle(uptimeMs / 1000.0, rssBytes);
+        
+        if (appConfig.getStartup().isExitAfterFirstCycle()) {
+            log.info("已配置首个检查周期后退出，正在关闭应用");
+            // 在独立线程中关闭，避免调度线程等待自身结束
+            Thread exitThread = new Thread(() -> System.exit(SpringApplication.exit(applicationContext)),
+                "startup-exit");
+            exitThread.start();
+        }
+    }
+    
+    /**
+     * 读取当前进程常驻内存（VmRSS），非Linux环境返回-1
+     */
+    private long readResidentSetBytes() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("读取常驻内存失败", e);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,439 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.util.BroadcastBuffer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 实时事件流服务类
+ * 检查周期把积压数量变化、新超时任务、告警发送作为事件发布到有界广播缓冲区，每个事件只序列化一次；
+ * 少量发送线程按各客户端自己的读取位置推送，落后超过缓冲区一半的客户端改为收到一条合并后的快照，之后继续接收增量。
+ * 写入是阻塞的servlet输出，每次写入都有截止时间：超过 write-timeout-ms 仍未完成的客户端被移出（浏览器重连后从快照或断点继续），
+ * 卡住的发送线程不再计入共享线程数，线程池临时补一个线程，其他客户端不受影响；卡住的写入结束后线程池恢复原大小
+ */
+@Slf4j
+@Service
+public class StreamService {
+    
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // 单次从缓冲区读取的事件数
+    private static final int READ_BATCH = 64;
+    // 新超时任务事件中最多列出的任务数
+    private static final int MAX_LISTED_TASKS = 50;
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    private BroadcastBuffer<StreamEvent> buffer;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor senders;
+    private ScheduledExecutorService heartbeat;
+    private int lagThreshold;
+    private int senderThreads;
+    private long writeTimeoutNanos;
+    // 已被移出但写入仍未返回的客户端数，线程池按此补充线程
+    private int stalledWrites;
+    
+    private final Object publishLock = new Object();
+    // 最新的积压状态，作为新客户端和落后客户端的快照
+    private volatile String snapshotJson = "{}";
+    private Map<String, Object> lastBacklog;
+    
+    @PostConstruct
+    public void init() {
+        AppConfig.Stream stream = appConfig.getStream();
+        buffer = new BroadcastBuffer<>(stream.getBufferSize());
+        lagThreshold = Math.max(1, buffer.capacity() / 2);
+        senderThreads = Math.max(1, stream.getSenderThreads());
+        writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, stream.getWriteTimeoutMs()));
+        AtomicInteger threadIndex = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "stream-sender-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats,
+            stream.getHeartbeatSeconds(), stream.getHeartbeatSeconds(), TimeUnit.SECONDS);
+        long checkMillis = Math.max(50, stream.getWriteTimeoutMs() / 4);
+        heartbeat.scheduleWithFixedDelay(this::evictStalledClients, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        metricsService.registerStreamClients(clients::size);
+    }
+    
+    /**
+     * 订阅事件流
+     *
+     * @param lastEventId 断线重连时浏览器携带的最后事件ID，仍在缓冲区内时从其后继续，否则先发送快照
+     * @return 事件流，客户端数已满时返回null
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        AppConfig.Stream stream = appConfig.getStream();
+        if (clients.size() >= stream.getMaxClients()) {
+            return null;
+        }
+        SseEmitter emitter = createEmitter(TimeUnit.MINUTES.toMillis(stream.getTimeoutMinutes()));
+        Client client = new Client(emitter);
+        long resumeFrom = parseEventId(lastEventId);
+        if (resumeFrom >= buffer.head() && resumeFrom < buffer.tail()) {
+            client.cursor = resumeFrom + 1;
+        } else {
+            client.needsSnapshot = true;
+        }
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onTimeout(() -> {
+            clients.remove(client);
+            emitter.complete();
+        });
+        emitter.onError(error -> clients.remove(client));
+        clients.add(client);
+        schedule(client);
+        log.debug("事件流客户端已连接，当前客户端数: {}", clients.size());
+        return emitter;
+    }
+    
+    /**
+     * 发布积压数量，与上一次相同时不发布
+     */
+    public void publishBacklog(LocalDateTime time, int tasks, int unclaimed, int unfinished, LocalDateTime staleSince) {
+        Map<String, Object> backlog = new LinkedHashMap<>();
+        backlog.put("tasks", tasks);
+        backlog.put("unclaimed", unclaimed);
+        backlog.put("unfinished", unfinished);
+        backlog.put("staleSince", staleSince != null ? staleSince.format(TIME_FORMATTER) : null);
+        
+        Map<String, Object> snapshot = new LinkedHashMap<>(backlog);
+        snapshot.put("time", time.format(TIME_FORMATTER));
+        String json = toJson(snapshot);
+        synchronized (publishLock) {
+            snapshotJson = json;
+            if (backlog.equals(lastBacklog)) {
+                return;
+            }
+            lastBacklog = backlog;
+            publishLocked("backlog", json);
+        }
+        wakeAll();
+    }
+    
+    /**
+     * 发布本周期新超时的任务
+     *
+     * @param type 超时类型（unclaimed/unfinished）
+     */
+    public void publishTimeouts(LocalDateTime time, String type, List<TaskInfo> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> listed = new ArrayList<>();
+        for (TaskInfo task : tasks.subList(0, Math.min(tasks.size(), MAX_LISTED_TASKS))) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("taskId", task.getTaskId());
+            item.put("createTime", task.getCreateTime().format(TIME_FORMATTER));
+            item.put("taskKey", task.getTaskKey());
+            listed.add(item);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("time", time.format(TIME_FORMATTER));
+        data.put("type", type);
+        data.put("count", tasks.size());
+        data.put("tasks", listed);
+        publish("timeout", data);
+    }
+    
+    /**
+     * 发布一条已送达企业微信的告警（由发送线程在发送成功后调用）
+     */
+    public void publishAlert(LocalDateTime time, String type, AlertTarget target, int tasks) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("time", time.format(TIME_FORMATTER));
+        data.put("type", type);
+        data.put("target", target.getName());
+        data.put("escalation", target.getEscalation());
+        data.put("tasks", tasks);
+        publish("alert", data);
+    }
+    
+    public int getClientCount() {
+        return clients.size();
+    }
+    
+    SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+    
+    private void publish(String name, Map<String, Object> data) {
+        String json = toJson(data);
+        synchronized (publishLock) {
+            publishLocked(name, json);
+        }
+        wakeAll();
+    }
+    
+    private void publishLocked(String name, String json) {
+        buffer.publish(new StreamEvent(buffer.tail(), name, json));
+    }
+    
+    private void wakeAll() {
+        for (Client client : clients) {
+            schedule(client);
+        }
+    }
+    
+    /**
+     * 客户端没有正在进行的发送时提交一次发送；正在发送（写入慢）的客户端跳过，由其发送任务结束前补发
+     */
+    private void schedule(Client client) {
+        if (client.sending.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(client));
+            } catch (RuntimeException e) {
+                client.sending.set(false);
+            }
+        }
+    }
+    
+    private void drain(Client client) {
+        try {
+            do {
+                flush(client);
+                client.sending.set(false);
+            } while (!client.closed && client.cursor < buffer.tail() && client.sending.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            client.closed = true;
+        }
+        if (client.closed) {
+            // 被移出的客户端在写入返回后才关闭：SseEmitter 的发送和关闭共用同一把锁
+            close(client);
+        }
+    }
+    
+    private void flush(Client client) throws IOException {
+        if (client.needsSnapshot) {
+            client.needsSnapshot = false;
+            sendSnapshot(client, 0);
+        }
+        if (client.needsPing) {
+            client.needsPing = false;
+            send(client, SseEmitter.event().comment("ping"));
+        }
+        List<StreamEvent> batch = new ArrayList<>(READ_BATCH);
+        while (!client.closed) {
+            long tail = buffer.tail();
+            if (client.cursor >= tail) {
+                return;
+            }
+            batch.clear();
+            long next = tail - client.cursor > lagThreshold ? -1 : buffer.read(client.cursor, READ_BATCH, batch);
+            if (next < 0) {
+                // 落后太多，丢弃中间的增量，合并为一条快照
+                sendSnapshot(client, tail - client.cursor);
+                metricsService.incrementStreamCoalesced();
+                continue;
+            }
+            for (StreamEvent event : batch) {
+                send(client, SseEmitter.event()
+                    .id(Long.toString(event.sequence))
+                    .name(event.name)
+                    .data(event.json, MediaType.APPLICATION_JSON));
+            }
+            client.cursor = next;
+        }
+    }
+    
+    /**
+     * 写入一条事件并记录写入开始时间，供截止时间检查
+     */
+    private void send(Client client, SseEmitter.SseEventBuilder event) throws IOException {
+        client.writeStartNanos = System.nanoTime();
+        try {
+            client.emitter.send(event);
+        } finally {
+            synchronized (client) {
+                client.writeStartNanos = 0;
+                if (client.stalled) {
+                    client.stalled = false;
+                    resizeSenders(-1);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 移出写入超过截止时间的客户端，并为卡住的发送线程临时补一个线程
+     */
+    private void evictStalledClients() {
+        long now = System.nanoTime();
+        for (Client client : clients) {
+            synchronized (client) {
+                long start = client.writeStartNanos;
+                if (start == 0 || client.stalled || now - start < writeTimeoutNanos) {
+                    continue;
+                }
+                client.stalled = true;
+                client.closed = true;
+                clients.remove(client);
+                resizeSenders(1);
+            }
+            metricsService.incrementStreamEvicted();
+            log.warn("事件流客户端写入超过{}ms未完成，已移出，当前客户端数: {}",
+                TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos), clients.size());
+        }
+    }
+    
+    private void resizeSenders(int delta) {
+        synchronized (senders) {
+            stalledWrites += delta;
+            int size = senderThreads + stalledWrites;
+            // 核心线程数不能超过最大线程数，扩大时先调最大值，缩小时后调
+            if (delta > 0) {
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+        }
+    }
+    
+    /**
+     * 发送当前快照，并把客户端的读取位置移到缓冲区末尾
+     */
+    private void sendSnapshot(Client client, long missedEvents) throws IOException {
+        long tail;
+        String json;
+        synchronized (publishLock) {
+            tail = buffer.tail();
+            json = snapshotJson;
+        }
+        SseEmitter.SseEventBuilder event = SseEmitter.event().name("snapshot")
+            .data("{\"missedEvents\":" + missedEvents + ",\"backlog\":" + json + "}", MediaType.APPLICATION_JSON);
+        if (tail > 0) {
+            event.id(Long.toString(tail - 1));
+        }
+        send(client, event);
+        client.cursor = tail;
+    }
+    
+    /**
+     * 定期发送注释行，防止代理因连接空闲而断开；正在发送的客户端不需要
+     */
+    private void sendHeartbeats() {
+        for (Client client : clients) {
+            if (!client.sending.get()) {
+                client.needsPing = true;
+                schedule(client);
+            }
+        }
+    }
+    
+    private void close(Client client) {
+        client.closed = true;
+        clients.remove(client);
+        try {
+            client.emitter.complete();
+        } catch (RuntimeException e) {
+            // 已关闭
+        }
+    }
+    
+    private String toJson(Map<String, Object> data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("事件序列化失败", e);
+        }
+    }
+    
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        clients.forEach(this::close);
+        senders.shutdownNow();
+    }
+    
+    /**
+     * 已序列化的事件
+     */
+    private static final class StreamEvent {
+        private final long sequence;
+        private final String name;
+        private final String json;
+        
+        StreamEvent(long sequence, String name, String json) {
+            this.sequence = sequence;
+            this.name = name;
+            this.json = json;
+        }
+    }
+    
+    /**
+     * 一个事件流客户端
+     */
+    private static final class Client {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // 只在持有 sending 的发送任务中读写
+        private volatile long cursor;
+        private volatile boolean needsSnapshot;
+        private volatile boolean needsPing;
+        // 正在进行的写入的开始时间，0表示没有写入
+        private volatile long writeStartNanos;
+        // 已因写入超时被移出、写入尚未返回（持有客户端锁读写）
+        private boolean stalled;
+        private volatile boolean closed;
+        
+        Client(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.mapper.TaskMapper;
+import com.alert.merch.model.TaskEnrichment;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.util.CircuitBreaker;
+import com.alert.merch.util.LruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 告警补充信息服务类
+ * 告警的流程清单只有 PROC_ID，启用后在发送前按流程ID从业务表查询商户名称和渠道：
+ * 每个检查周期把本周期要告警的流程中缓存未命中的合并为一次 IN 查询，结果放在容量有界、带过期时间的LRU缓存中，
+ * 升级重复提醒等再次告警的流程直接命中缓存。业务表中没有记录的流程也会缓存，避免每个周期重复查询
+ */
+@Slf4j
+@Service
+public class TaskEnrichmentService {
+    
+    // 表名和列名直接拼入SQL，只允许普通标识符或 schema.table
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$#]*(\\.[A-Za-z_][A-Za-z0-9_$#]*)?");
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private ObjectProvider<TaskMapper> taskMapperProvider;
+    
+    @Autowired
+    private TaskQueryService taskQueryService;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    private LruCache<String, TaskEnrichment> cache;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        AppConfig.Enrichment config = appConfig.getEnrichment();
+        if (!config.isEnabled()) {
+            return;
+        }
+        for (String identifier : new String[]{config.getTable(), config.getKeyColumn(),
+            config.getMerchantNameColumn(), config.getChannelColumn()}) {
+            if (identifier == null || !IDENTIFIER.matcher(identifier).matches()) {
+                throw new IllegalArgumentException("告警补充信息的表名或列名不合法: " + identifier);
+            }
+        }
+        cache = new LruCache<>(config.getCacheSize(), Duration.ofMinutes(config.getTtlMinutes()));
+        metricsService.registerEnrichmentGauges(cache::size, this::getHitRatio);
+        log.info("已启用告警补充信息，业务表: {}，缓存容量: {}，过期时间: {}分钟",
+            config.getTable(), cache.getMaxSize(), config.getTtlMinutes());
+    }
+    
+    public boolean isEnabled() {
+        return cache != null;
+    }
+    
+    /**
+     * 为本周期要告警的流程加载补充信息
+     * 先查缓存，未命中的流程合并为一次批量查询（超过 batch-size 时分批），查询结果写入缓存；
+     * 数据库熔断（含半开探测期间）或查询失败时不查询，告警中这些流程只列出流程ID，下个周期再查；
+     * 半开时的单次探测留给主查询，补充信息查询不占用
+     *
+     * @param taskLists 本周期各告警目标的任务列表
+     * @return 查询数据库的流程数
+     */
+    public int prefetch(Collection<List<TaskInfo>> taskLists) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        Set<String> missing = new LinkedHashSet<>();
+        int hitCount = 0;
+        Set<String> seen = new HashSet<>();
+        for (List<TaskInfo> tasks : taskLists) {
+            for (TaskInfo task : tasks) {
+                if (!seen.add(task.getTaskId())) {
+                    continue;
+                }
+                if (cache.get(task.getTaskId()) != null) {
+                    hitCount++;
+                } else {
+                    missing.add(task.getTaskId());
+                }
+            }
+        }
+        recordLookups(hitCount, missing.size());
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        if (taskQueryService.getCircuitBreakerState() != CircuitBreaker.State.CLOSED) {
+            log.warn("数据库熔断未恢复，跳过{}个流程的告警补充信息查询", missing.size());
+            return 0;
+        }
+        
+        AppConfig.Enrichment config = appConfig.getEnrichment();
+        List<String> ids = new ArrayList<>(missing);
+        int batchSize = Math.max(1, config.getBatchSize());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            long start = System.nanoTime();
+            List<TaskEnrichment> rows;
+            try {
+                rows = taskMapperProvider.getObject().selectEnrichments(config.getTable(), config.getKeyColumn(),
+                    config.getMerchantNameColumn(), config.getChannelColumn(), batch);
+            } catch (Exception e) {
+                metricsService.recordEnrichmentLookup(System.nanoTime() - start, false);
+                log.warn("查询告警补充信息失败，本周期告警只列出流程ID: {}", e.getMessage());
+                return from;
+            }
+            metricsService.recordEnrichmentLookup(System.nanoTime() - start, true);
+            
+            for (TaskEnrichment row : rows) {
+                cache.put(row.getTaskId(), row);
+            }
+            for (String taskId : batch) {
+                if (cache.get(taskId) == null) {
+                    // 业务表中没有记录，缓存空结果
+                    cache.put(taskId, new TaskEnrichment(taskId, null, null));
+                }
+            }
+        }
+        log.debug("告警补充信息：命中{}个，查询{}个", hitCount, ids.size());
+        return ids.size();
+    }
+    
+    /**
+     * 从缓存读取流程的补充信息，不查询数据库，也不计入命中率；未加载或没有内容时返回null
+     */
+    public TaskEnrichment getCached(String taskId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        TaskEnrichment enrichment = cache.get(taskId);
+        return enrichment == null || enrichment.isEmpty() ? null : enrichment;
+    }
+    
+    private void recordLookups(int hitCount, int missCount) {
+        hits.addAndGet(hitCount);
+        misses.addAndGet(missCount);
+        if (hitCount > 0) {
+            metricsService.incrementEnrichmentCache(true, hitCount);
+        }
+        if (missCount > 0) {
+            metricsService.incrementEnrichmentCache(false, missCount);
+        }
+    }
+    
+    /**
+     * 启动以来的缓存命中率，尚未查找时为0
+     */
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
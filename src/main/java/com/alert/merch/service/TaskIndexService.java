@@ -0,0 +1,67 @@
+package com.alert.merch.service;
+
+import com.alert.merch.model.TaskPage;
+import com.alert.merch.model.TaskSnapshot;
+import com.alert.merch.model.TaskTable;
+import com.alert.merch.util.TaskIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 当前任务索引服务
+ * 由检查周期在每次查询后同步，供任务查询接口分页浏览，不访问数据库
+ */
+@Slf4j
+@Service
+public class TaskIndexService {
+    
+    private final TaskIndex taskIndex = new TaskIndex();
+    
+    private volatile LocalDateTime snapshotTime;
+    private volatile boolean stale;
+    
+    /**
+     * 按检查周期取得的任务快照更新索引
+     */
+    public void update(TaskSnapshot snapshot) {
+        long start = System.nanoTime();
+        taskIndex.sync(snapshot.getTable());
+        snapshotTime = snapshot.getFetchTime();
+        stale = snapshot.isStale();
+        log.debug("任务索引已同步: {} 条，耗时 {} ms", taskIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * 分页查询当前任务
+     *
+     * @param status 任务状态（unclaimed/unfinished），null表示不限
+     * @param taskKey 任务节点键，null表示不限
+     * @param minAgeMinutes 最小等待时长（分钟），null表示不限
+     * @param maxAgeMinutes 最大等待时长（分钟），null表示不限
+     * @param newestFirst 是否按等待时长升序
+     * @param cursor 上一页返回的游标
+     * @param limit 每页条数
+     * @param now 计算等待时长的当前时间
+     */
+    public TaskPage query(String status, String taskKey, Integer minAgeMinutes, Integer maxAgeMinutes,
+                          boolean newestFirst, String cursor, int limit, LocalDateTime now) {
+        long nowEpochSecond = TaskTable.toEpochSecond(now);
+        long from = maxAgeMinutes != null ? nowEpochSecond - maxAgeMinutes * 60L : Long.MIN_VALUE;
+        long to = minAgeMinutes != null ? nowEpochSecond - minAgeMinutes * 60L : Long.MAX_VALUE - 1;
+        return taskIndex.query(status, taskKey, from, to, newestFirst, cursor, limit);
+    }
+    
+    public int size() {
+        return taskIndex.size();
+    }
+    
+    public LocalDateTime getSnapshotTime() {
+        return snapshotTime;
+    }
+    
+    public boolean isStale() {
+        return stale;
+    }
+}
@@ -1,33 +1,49 @@
 package com.alert.merch.service;
 
 import com.alert.merch.config.AppConfig;
+import com.alert.merch.jfr.CycleEvent;
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.model.TaskAlertEvent;
 import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskSnapshot;
+import com.alert.merch.model.TaskTable;
+import com.alert.merch.source.TaskEventSource;
+import com.alert.merch.util.CycleStage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.alert.merch.mapper.TaskMapper;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * 任务监控服务类
+ * 负责定时调度，启用延迟初始化（faststart）时仍需在启动时创建。
+ * 检测在定时调度线程上执行；统计（日报、当天入网）和落盘由阶段流水线在各自线程上定时执行，
+ * 检测发现的超时任务通过统计阶段的交接队列计入每日汇总
  */
 @Slf4j
 @Service
+@Lazy(false)
 public class TaskMonitorService {
     
     @Autowired
-    private TaskMapper taskMapper;
+    private TaskEventSource taskEventSource;
     
     @Autowired
     private AppConfig appConfig;
@@ -38,34 +54,88 @@ public class TaskMonitorService {
     @Autowired
     private WeComAlertService weComAlertService;
     
+    @Autowired
+    private TaskEnrichmentService taskEnrichmentService;
+    
+    @Autowired
+    private AlertRouter alertRouter;
+    
     @Autowired
     private MetricsService metricsService;
     
-    // 告警记录，key为任务ID，value为最后告警时间
-    private final Map<String, LocalDateTime> alertRecords = new ConcurrentHashMap<>();
+    @Autowired
+    private ReviewerStatsService reviewerStatsService;
+    
+    @Autowired
+    private CycleWatchdogService cycleWatchdogService;
+    
+    @Autowired
+    private StartupReportService startupReportService;
+    
+    @Autowired
+    private TaskIndexService taskIndexService;
     
-    // 未完成告警记录
-    private final Map<String, LocalDateTime> unfinishedAlertRecords = new ConcurrentHashMap<>();
+    @Autowired
+    private SnapshotRecorder snapshotRecorder;
     
-    // 每日统计相关
-    private boolean checkDailyStatsDone = false;
-    private int checkDailyStatsDoneDay = 0;
-    private LocalDateTime lastSaveTime = LocalDateTime.now();
+    @Autowired
+    private Clock clock;
     
-    // 当天入网人数统计相关
-    private int todayTaskCount = 0;  // 当天累计入网人数（根据task_id累加）
-    private Set<String> todayTaskIds = new HashSet<>();  // 已统计的task_id集合
-    private int lastStatsDay = 0;
-    private LocalDateTime lastStatsTime = LocalDateTime.now();
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
-    // 每日入网人数统计（日期 -> 入网人数），用于保存历史统计
-    private final Map<String, Integer> dailyTaskStats = new ConcurrentHashMap<>();
+    @Autowired
+    private EscalationService escalationService;
+    
+    @Autowired
+    private CycleTraceService cycleTraceService;
+    
+    @Autowired
+    private DailyRollupService dailyRollupService;
+    
+    @Autowired
+    private StreamService streamService;
+    
+    @Autowired
+    private StagePipelineService stagePipelineService;
+    
+    // 顺序执行模式下上次落盘时间
+    private LocalDateTime lastSaveTime;
+    
+    // 当天入网人数统计相关（累计人数来自每日统计汇总），由统计阶段写入
+    private volatile LocalDateTime lastStatsTime;
     
     // 已统计的未领取任务ID集合（用于Prometheus指标，避免重复统计）
-    private final Set<String> countedUnclaimedTaskIds = new HashSet<>();
+    // 被看门狗放弃的阶段线程可能仍在运行，与下一个周期同时写入，使用并发集合
+    private final Set<String> countedUnclaimedTaskIds = ConcurrentHashMap.newKeySet();
     
     // 已统计的未完成任务ID集合（用于Prometheus指标，避免重复统计）
-    private final Set<String> countedUnfinishedTaskIds = new HashSet<>();
+    private final Set<String> countedUnfinishedTaskIds = ConcurrentHashMap.newKeySet();
+    
+    // 最近一个周期中等待最久的超时任务：类型（unclaimed/unfinished） -> 按创建时间从早到晚
+    private volatile Map<String, List<TaskInfo>> oldestTasks = Collections.emptyMap();
+    private volatile LocalDateTime oldestTime;
+    
+    @PostConstruct
+    public void init() {
+        lastSaveTime = LocalDateTime.now(clock);
+        lastStatsTime = lastSaveTime;
+        
+        AppConfig.Pipeline pipeline = appConfig.getPipeline();
+        int statisticsInterval = pipeline.getStatisticsIntervalSeconds() > 0
+            ? pipeline.getStatisticsIntervalSeconds() : appConfig.getTask().getCheckIntervalSeconds();
+        stagePipelineService.schedule(StagePipelineService.STATISTICS, this::runStatistics, 0, statisticsInterval);
+        stagePipelineService.schedule(StagePipelineService.PERSISTENCE, this::flushPersistence,
+            pipeline.getPersistIntervalSeconds(), pipeline.getPersistIntervalSeconds());
+    }
+    
+    /**
+     * 等待统计阶段排队的记录写完，之后每日汇总才会在关闭时落盘
+     */
+    @PreDestroy
+    public void shutdown() {
+        stagePipelineService.shutdown();
+    }
     
     /**
      * 定时检查任务状态
@@ -73,70 +143,98 @@ public class TaskMonitorService {
     @Scheduled(fixedDelayString = "${app.task.check-interval-seconds}000")
     public void checkAndAlert() {
         log.info("开始查询任务...");
+        cycleWatchdogService.beginCycle();
+        cycleTraceService.beginCycle();
+        CycleEvent cycleEvent = new CycleEvent();
+        cycleEvent.begin();
+        boolean success = false;
         
         try {
-            // 检查每日统计（仅在9点执行）
-            checkDailyStats();
-            
-            // 统计当天新增入网人数（与检查频率一致）
-            statisticsTodayTasks();
+            // 顺序执行模式下统计在检测之前执行，否则由统计阶段定时执行
+            if (!stagePipelineService.isDecoupled()) {
+                cycleWatchdogService.runStage("statistics", this::runStatistics);
+            }
             
             // 检查所有任务状态
-            checkTasks();
+            long detectionStart = System.nanoTime();
+            boolean detected = false;
+            try {
+                cycleWatchdogService.runStage("checkTasks", this::checkTasks);
+                detected = true;
+            } finally {
+                stagePipelineService.recordDetection(System.nanoTime() - detectionStart, detected);
+            }
             
-            // 定期保存数据
-            LocalDateTime now = LocalDateTime.now();
-            if (now.isAfter(lastSaveTime.plusMinutes(10))) {
-                timeoutTasksService.saveAllTimeoutTasks();
+            // 顺序执行模式下定期保存数据
+            LocalDateTime now = LocalDateTime.now(clock);
+            if (!stagePipelineService.isDecoupled()
+                && now.isAfter(lastSaveTime.plusSeconds(appConfig.getPipeline().getPersistIntervalSeconds()))) {
+                cycleWatchdogService.runStage("persist", this::flushPersistence);
                 lastSaveTime = now;
             }
             
+            cycleWatchdogService.completeCycle();
+            success = true;
         } catch (Exception e) {
             log.error("任务检查异常", e);
+            cycleWatchdogService.failCycle();
+        } finally {
+            if (cycleEvent.shouldCommit()) {
+                cycleEvent.cycleId = cycleTraceService.currentCycleId();
+                cycleEvent.success = success;
+                cycleEvent.commit();
+            }
+            cycleTraceService.endCycle(success);
+            startupReportService.onCycleFinished();
         }
     }
     
+    /**
+     * 统计阶段：检查每日统计（仅在日报时间执行），统计当天新增入网人数
+     */
+    private void runStatistics() {
+        long cycleId = cycleTraceService.currentCycleId();
+        long stageStart = System.nanoTime();
+        checkDailyStats();
+        cycleTraceService.recordFor(cycleId, CycleStage.DAILY_STATS, System.nanoTime() - stageStart, 0);
+        
+        stageStart = System.nanoTime();
+        statisticsTodayTasks();
+        cycleTraceService.recordFor(cycleId, CycleStage.TODAY_STATS, System.nanoTime() - stageStart, 0);
+    }
+    
+    /**
+     * 落盘阶段：保存超时任务和每日汇总
+     */
+    private void flushPersistence() {
+        long cycleId = cycleTraceService.currentCycleId();
+        long stageStart = System.nanoTime();
+        timeoutTasksService.saveAllTimeoutTasks();
+        dailyRollupService.save();
+        cycleTraceService.recordFor(cycleId, CycleStage.PERSISTENCE, System.nanoTime() - stageStart, 0);
+    }
+    
     /**
      * 统计当天新增入网人数
-     * 与任务检查频率一致，根据task_id进行累加统计
+     * 与任务检查频率一致，根据task_id计入按创建日期分桶的每日汇总
      * 因为任务完成后记录会被删除，需要根据task_id记录已统计的任务
      */
     private void statisticsTodayTasks() {
         try {
-            LocalDateTime now = LocalDateTime.now();
-            int currentDay = now.getDayOfYear();
-            
-            // 如果是新的一天，先保存前一天的统计，然后重置
-            if (lastStatsDay != currentDay && lastStatsDay != 0) {
-                // 保存前一天的统计
-                String yesterdayDate = now.minusDays(1).format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                dailyTaskStats.put(yesterdayDate, todayTaskCount);
-                log.info("保存前一天（{}）的入网人数统计: {} 人", yesterdayDate, todayTaskCount);
-            }
-            
-            // 如果是新的一天，重置统计
-            if (lastStatsDay != currentDay) {
-                todayTaskCount = 0;
-                todayTaskIds.clear();
-                lastStatsDay = currentDay;
-                log.info("新的一天开始，重置当天入网人数统计");
-            }
+            LocalDateTime now = LocalDateTime.now(clock);
             
             // 查询当天任务
             List<String> taskKeys = Arrays.asList("LICENSE_MASTER_NEW_CHECK_TASK", "PERSON_MASTER_NEW_CHECK_TASK");
-            List<TaskInfo> todayTasks = taskMapper.selectTodayTasks("ACT_MERCH_ACCESS_REGISTER", taskKeys);
+            List<TaskInfo> todayTasks = taskEventSource.todayTasks("ACT_MERCH_ACCESS_REGISTER", taskKeys);
             
-            // 根据task_id进行累加统计
+            // 根据task_id进行累加统计，汇总中已有的task_id不重复计数（含重启前已统计的）
             int newTaskCount = 0;
             for (TaskInfo task : todayTasks) {
-                String taskId = task.getTaskId();
-                // 如果这个task_id还没有统计过，则累加
-                if (!todayTaskIds.contains(taskId)) {
-                    todayTaskIds.add(taskId);
-                    todayTaskCount++;
+                if (dailyRollupService.recordTask(task)) {
                     newTaskCount++;
                 }
             }
+            int todayTaskCount = dailyRollupService.getTotalTasks(now.toLocalDate());
             
             // 记录统计结果
             if (newTaskCount > 0) {
@@ -164,12 +262,26 @@ public class TaskMonitorService {
     private void checkTasks() {
         // 查询最近6天的任务，使用更灵活的查询方法
         List<String> taskKeys = Arrays.asList("LICENSE_MASTER_NEW_CHECK_TASK", "PERSON_MASTER_NEW_CHECK_TASK");
-        List<TaskInfo> allTasks = taskMapper.selectTasksByStatus(6, "ACT_MERCH_ACCESS_REGISTER", taskKeys);
+        long stageStart = cycleTraceService.start();
+        TaskSnapshot snapshot = taskEventSource.currentTasks(6, "ACT_MERCH_ACCESS_REGISTER", taskKeys);
+        TaskTable table = snapshot.getTable();
+        cycleTraceService.record(CycleStage.QUERY, stageStart, table.size());
+        // 查询可能卡住超过阶段时限，阶段被放弃后醒来的线程不再继续
+        cycleWatchdogService.ensureCurrentCycle();
+        // 同步当前任务索引，供 /api/tasks 查询
+        stageStart = cycleTraceService.start();
+        taskIndexService.update(snapshot);
+        if (!snapshot.isStale()) {
+            snapshotRecorder.record(snapshot);
+        }
+        cycleTraceService.record(CycleStage.INDEX, stageStart, table.size());
+        // 数据库熔断时沿用旧快照，告警中注明数据时间
+        LocalDateTime staleSince = snapshot.isStale() ? snapshot.getFetchTime() : null;
         
         List<TaskInfo> unclaimedTasks = new ArrayList<>();
         List<TaskInfo> unfinishedTasks = new ArrayList<>();
         
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now(clock);
         int unclaimedTimeoutMinutes = appConfig.getTask().getTimeoutMinutes();
         int unfinishedTimeoutMinutes = appConfig.getTask().getUnfinishedTimeoutMinutes();
         
@@ -177,198 +289,202 @@ public class TaskMonitorService {
             now.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), 
             unclaimedTimeoutMinutes, unfinishedTimeoutMinutes);
         
-        for (TaskInfo task : allTasks) {
-            log.info("检查任务: ID={}, 创建时间={}, 状态={}", 
-                task.getTaskId(), task.getCreateTime(), task.getType());
+        // 在列式任务表上一次扫描完成超时分类，只有超时的行才还原为TaskInfo
+        stageStart = cycleTraceService.start();
+        TaskTable.Classification classification = table.classify(
+            TaskTable.toEpochSecond(now), unclaimedTimeoutMinutes * 60L, unfinishedTimeoutMinutes * 60L,
+            appConfig.getTask().getOldestTopK());
+        cycleTraceService.record(CycleStage.CLASSIFICATION, stageStart, table.size());
+        Map<String, List<TaskInfo>> oldest = new LinkedHashMap<>();
+        oldest.put("unclaimed", toTaskInfos(table, classification.getOldestUnclaimedRows()));
+        oldest.put("unfinished", toTaskInfos(table, classification.getOldestUnfinishedRows()));
+        oldestTasks = oldest;
+        oldestTime = now;
+        reviewerStatsService.update(table, classification, now);
+        log.info("检查任务{}条，超时未领取{}条，超时未完成{}条", 
+            table.size(), classification.getUnclaimedCount(), classification.getUnfinishedCount());
+        cycleWatchdogService.ensureCurrentCycle();
+        streamService.publishBacklog(now, table.size(),
+            classification.getUnclaimedCount(), classification.getUnfinishedCount(), staleSince);
+        List<TaskInfo> newUnclaimedTasks = new ArrayList<>();
+        List<TaskInfo> newUnfinishedTasks = new ArrayList<>();
+        
+        stageStart = cycleTraceService.start();
+        for (int i = 0; i < classification.getUnclaimedCount(); i++) {
+            TaskInfo task = table.toTaskInfo(classification.getUnclaimedRows()[i]);
+            log.info("发现超时未分配任务: ID={}, 超时时间={}分钟", 
+                task.getTaskId(), unclaimedTimeoutMinutes);
+            // 记录超时未分配的任务
+            timeoutTasksService.saveTimeoutTask(task);
+            unclaimedTasks.add(task);
             
-            // 根据任务状态和时间判断是否超时
-            if ("unclaimed".equals(task.getType()) && 
-                now.isAfter(task.getCreateTime().plusMinutes(unclaimedTimeoutMinutes))) {
-                log.info("发现超时未分配任务: ID={}, 超时时间={}分钟", 
-                    task.getTaskId(), unclaimedTimeoutMinutes);
-                // 记录超时未分配的任务
-                timeoutTasksService.saveTimeoutTask(task);
-                unclaimedTasks.add(task);
-                
-                // 更新Prometheus指标：未领取总数（只统计一次）
-                String taskId = task.getTaskId();
-                if (!countedUnclaimedTaskIds.contains(taskId)) {
-                    countedUnclaimedTaskIds.add(taskId);
-                    metricsService.incrementUnclaimedTotal(1);
-                }
-            } else if ("unfinished".equals(task.getType()) && 
-                     now.isAfter(task.getCreateTime().plusMinutes(unfinishedTimeoutMinutes))) {
-                log.info("发现超时未完成任务: ID={}, 超时时间={}分钟", 
-                    task.getTaskId(), unfinishedTimeoutMinutes);
-                // 记录超时未完成的任务
-                timeoutTasksService.saveTimeoutFinishTask(task);
-                unfinishedTasks.add(task);
-                
-                // 更新Prometheus指标：未完成总数（只统计一次）
-                String taskId = task.getTaskId();
-                if (!countedUnfinishedTaskIds.contains(taskId)) {
-                    countedUnfinishedTaskIds.add(taskId);
-                    metricsService.incrementUnfinishedTotal(1);
-                }
-            } else {
-                log.info("任务未超时: ID={}, 状态={}", task.getTaskId(), task.getType());
+            // 更新Prometheus指标：未领取总数（只统计一次）
+            if (countedUnclaimedTaskIds.add(task.getTaskId())) {
+                metricsService.incrementUnclaimedTotal(1);
+                newUnclaimedTasks.add(task);
             }
         }
         
-        // 处理未领取超时任务
-        if (!unclaimedTasks.isEmpty() && isWorkingHours()) {
-            List<TaskInfo> alertTasks = unclaimedTasks.stream()
-                .filter(task -> shouldAlert(task.getTaskId()))
-                .collect(Collectors.toList());
+        for (int i = 0; i < classification.getUnfinishedCount(); i++) {
+            TaskInfo task = table.toTaskInfo(classification.getUnfinishedRows()[i]);
+            log.info("发现超时未完成任务: ID={}, 超时时间={}分钟", 
+                task.getTaskId(), unfinishedTimeoutMinutes);
+            // 记录超时未完成的任务
+            timeoutTasksService.saveTimeoutFinishTask(task);
+            unfinishedTasks.add(task);
             
-            if (!alertTasks.isEmpty()) {
-                String taskIds = alertTasks.stream()
-                    .map(task -> String.format("<font color=\"blue\">%s</font>", task.getTaskId()))
-                    .collect(Collectors.joining("\n"));
-                
-                weComAlertService.sendUnclaimedTimeoutAlert(
-                    alertTasks.size(),
-                    unclaimedTasks.size(),
-                    timeoutTasksService.getTimeoutTasksCount(),
-                    taskIds
-                );
-                
-                // 更新告警记录
-                alertTasks.forEach(task -> updateAlertRecord(task.getTaskId()));
+            // 更新Prometheus指标：未完成总数（只统计一次）
+            if (countedUnfinishedTaskIds.add(task.getTaskId())) {
+                metricsService.incrementUnfinishedTotal(1);
+                newUnfinishedTasks.add(task);
             }
         }
         
-        // 处理已领取但未完成超时任务
-        if (!unfinishedTasks.isEmpty()) {
-            log.info("发现{}个超时未完成任务", unfinishedTasks.size());
-            if (isWorkingHours()) {
-                log.info("当前在工作时间内，准备发送告警");
-                List<TaskInfo> alertTasks = unfinishedTasks.stream()
-                    .filter(task -> shouldAlertUnfinished(task.getTaskId()))
-                    .collect(Collectors.toList());
-                
-                if (!alertTasks.isEmpty()) {
-                    String taskIds = alertTasks.stream()
-                        .map(task -> String.format("<font color=\"blue\">%s</font>", task.getTaskId()))
-                        .collect(Collectors.joining("\n"));
-                    
-                    weComAlertService.sendUnfinishedTimeoutAlert(
-                        alertTasks.size(),
-                        unfinishedTasks.size(),
-                        timeoutTasksService.getTimeoutFinishTasksCount(),
-                        taskIds
-                    );
-                    
-                    // 更新告警记录
-                    alertTasks.forEach(task -> updateUnfinishedAlertRecord(task.getTaskId()));
-                }
-            } else {
-                log.info("当前不在工作时间内，跳过告警发送");
-            }
+        cycleTraceService.record(CycleStage.PERSISTENCE, stageStart, unclaimedTasks.size() + unfinishedTasks.size());
+        
+        cycleWatchdogService.ensureCurrentCycle();
+        // 超时任务交给统计阶段计入每日汇总，之后两个列表不再修改
+        long cycleId = cycleTraceService.currentCycleId();
+        stagePipelineService.handoff(StagePipelineService.STATISTICS, () -> {
+            long recordStart = System.nanoTime();
+            unclaimedTasks.forEach(dailyRollupService::recordUnclaimedTimeout);
+            unfinishedTasks.forEach(dailyRollupService::recordUnfinishedTimeout);
+            cycleTraceService.recordFor(cycleId, CycleStage.PERSISTENCE, System.nanoTime() - recordStart, 0);
+        });
+        streamService.publishTimeouts(now, "unclaimed", newUnclaimedTasks);
+        streamService.publishTimeouts(now, "unfinished", newUnfinishedTasks);
+        
+        // 同步升级队列：新超时的任务入队，已领取或已完成的任务出队
+        cycleWatchdogService.ensureCurrentCycle();
+        escalationService.sync("unclaimed", unclaimedTasks);
+        escalationService.sync("unfinished", unfinishedTasks);
+        
+        if (!isWorkingHours()) {
+            log.info("当前不在工作时间内，跳过告警发送");
+            return;
         }
-    }
-    
-    /**
-     * 检查每日统计
-     */
-    private void checkDailyStats() {
-        LocalDateTime now = LocalDateTime.now();
-        int currentDay = now.getDayOfYear();
         
-        // 每天0点重置标志
-        if (checkDailyStatsDoneDay != currentDay) {
-            checkDailyStatsDone = false;
-            checkDailyStatsDoneDay = currentDay;
+        cycleWatchdogService.ensureCurrentCycle();
+        // 只取出已到期的升级通知，本周期要告警的流程一次批量补充商户名称和渠道（只查询缓存未命中的）
+        Map<AlertTarget, List<TaskInfo>> unclaimedDue = escalationService.pollDue("unclaimed", now);
+        Map<AlertTarget, List<TaskInfo>> unfinishedDue = escalationService.pollDue("unfinished", now);
+        if (taskEnrichmentService.isEnabled()) {
+            stageStart = cycleTraceService.start();
+            List<List<TaskInfo>> dueTasks = new ArrayList<>(unclaimedDue.values());
+            dueTasks.addAll(unfinishedDue.values());
+            int queried = taskEnrichmentService.prefetch(dueTasks);
+            cycleTraceService.record(CycleStage.ENRICHMENT, stageStart, queried);
         }
         
-        if (now.getHour() == 9 && now.getMinute() < 5 && !checkDailyStatsDone) {
-            log.info("开始每日统计，当前时间: {}", now.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            
-            // 统计未完成任务数量
-            int totalTimeout = 0;
-            Map<String, TaskInfo> timeoutFinishTasks = timeoutTasksService.getTimeoutFinishTasks();
-            
-            for (TaskInfo task : timeoutFinishTasks.values()) {
-                LocalDateTime createTime = task.getCreateTime();
-                if (createTime.isBefore(now) && createTime.isAfter(now.minusDays(1))) {
-                    if (createTime.getHour() < 21 && createTime.getHour() > 8) {
-                        totalTimeout++;
-                    }
-                }
-            }
-            
-            String yesterday = now.minusDays(1).format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            
-            // 获取昨日总入网条数（从保存的统计中读取）
-            int yesterdayTotalTasks = dailyTaskStats.getOrDefault(yesterday, 0);
-            
-            // 如果统计中没有昨天的数据，可能是跨天时统计还没保存，尝试保存当前统计（如果适用）
-            if (yesterdayTotalTasks == 0) {
-                // 如果当前统计的是昨天（系统可能在跨天时重启了），保存昨天的统计
-                if (lastStatsDay != currentDay && todayTaskCount > 0) {
-                    dailyTaskStats.put(yesterday, todayTaskCount);
-                    yesterdayTotalTasks = todayTaskCount;
-                    log.info("检测到昨天的统计未保存，已保存昨天（{}）的入网人数统计: {} 人", yesterday, todayTaskCount);
-                } else {
-                    log.warn("未找到昨天（{}）的入网人数统计，使用0", yesterday);
-                }
-            }
-            
-            weComAlertService.sendDailyStatsAlert(yesterday, totalTimeout, yesterdayTotalTasks);
-            
-            timeoutTasksService.cleanupAllTimeoutTasks();
-            checkDailyStatsDone = true;
-            log.info("每日统计已完成，今日不会重复执行");
+        // 处理未领取超时任务，按级别和路由规则分发
+        stageStart = cycleTraceService.start();
+        int messages = 0;
+        Map<AlertTarget, List<TaskInfo>> unclaimedRouted = alertRouter.route(unclaimedTasks, "unclaimed", now);
+        for (Map.Entry<AlertTarget, List<TaskInfo>> entry : unclaimedDue.entrySet()) {
+            List<TaskInfo> alertTasks = entry.getValue();
+            cycleWatchdogService.ensureCurrentCycle();
+            weComAlertService.sendUnclaimedTimeoutAlert(
+                entry.getKey(),
+                alertTasks,
+                routedTotal(unclaimedRouted, entry.getKey(), unclaimedTasks.size()),
+                timeoutTasksService.getTimeoutTasksCount(),
+                staleSince
+            );
+            alertTasks.forEach(task ->
+                eventPublisher.publishEvent(new TaskAlertEvent(task, entry.getKey().getName(), now)));
+            messages++;
         }
+        
+        // 处理已领取但未完成超时任务
+        Map<AlertTarget, List<TaskInfo>> unfinishedRouted = alertRouter.route(unfinishedTasks, "unfinished", now);
+        for (Map.Entry<AlertTarget, List<TaskInfo>> entry : unfinishedDue.entrySet()) {
+            List<TaskInfo> alertTasks = entry.getValue();
+            log.info("告警目标[{}]有{}个到期的超时未完成任务", entry.getKey().getName(), alertTasks.size());
+            cycleWatchdogService.ensureCurrentCycle();
+            weComAlertService.sendUnfinishedTimeoutAlert(
+                entry.getKey(),
+                alertTasks,
+                routedTotal(unfinishedRouted, entry.getKey(), unfinishedTasks.size()),
+                timeoutTasksService.getTimeoutFinishTasksCount(),
+                staleSince
+            );
+            alertTasks.forEach(task ->
+                eventPublisher.publishEvent(new TaskAlertEvent(task, entry.getKey().getName(), now)));
+            messages++;
+        }
+        cycleTraceService.record(CycleStage.WEBHOOK, stageStart, messages);
     }
     
-    /**
-     * 检查当前时间是否在工作时间内（9:00-21:00）
-     */
-    private boolean isWorkingHours() {
-        LocalDateTime now = LocalDateTime.now();
-        int hour = now.getHour();
-        return hour >= 9 && hour < 21;
+    private static List<TaskInfo> toTaskInfos(TaskTable table, int[] rows) {
+        List<TaskInfo> tasks = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            tasks.add(table.toTaskInfo(row));
+        }
+        return tasks;
     }
     
     /**
-     * 检查是否应该发送告警
+     * 告警目标当前的超时任务总数：第一级取路由到该目标的任务数，升级级别取该类型的全部超时任务数
      */
-    private boolean shouldAlert(String taskId) {
-        LocalDateTime lastAlert = alertRecords.get(taskId);
-        if (lastAlert == null) {
-            return true;
+    private int routedTotal(Map<AlertTarget, List<TaskInfo>> routed, AlertTarget target, int typeTotal) {
+        if (target.getEscalation() != null) {
+            return typeTotal;
         }
-        
-        // 如果上次告警时间在10分钟内，则不发送
-        return LocalDateTime.now().isAfter(lastAlert.plusMinutes(10));
+        List<TaskInfo> tasks = routed.get(target);
+        return tasks != null ? tasks.size() : typeTotal;
     }
     
     /**
-     * 检查是否应该发送未完成告警
+     * 检查每日统计
+     * 到达日报时间后发送前一天的日报，计数直接取自每日汇总；
+     * 错过发送时间（周期卡住、进程重启）时由之后的周期补发，停机多天时每个周期补发一天
      */
-    private boolean shouldAlertUnfinished(String taskId) {
-        LocalDateTime lastAlert = unfinishedAlertRecords.get(taskId);
-        if (lastAlert == null) {
-            return true;
+    private void checkDailyStats() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDate reportDate = dailyRollupService.pendingReportDate(now);
+        if (reportDate == null) {
+            return;
         }
         
-        // 如果上次告警时间在10分钟内，则不发送
-        return LocalDateTime.now().isAfter(lastAlert.plusMinutes(10));
-    }
-    
-    /**
-     * 更新告警记录
-     */
-    private void updateAlertRecord(String taskId) {
-        alertRecords.put(taskId, LocalDateTime.now());
+        boolean late = !now.isBefore(now.toLocalDate().atTime(appConfig.getReport().getHour(), 5));
+        if (late && !dailyRollupService.hasData(reportDate)) {
+            // 前一天没有运行，汇总中没有数据，补发只会得到错误的0
+            log.warn("{}没有采集到统计数据，跳过该日日报", reportDate);
+            dailyRollupService.markReported(reportDate);
+            return;
+        }
+        
+        Map<String, Object> summary = dailyRollupService.summary(reportDate);
+        log.info("开始每日统计，当前时间: {}, 统计日期: {}{}, 汇总: {}",
+            now.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), reportDate, late ? "（补发）" : "", summary);
+        
+        cycleWatchdogService.ensureCurrentCycle();
+        boolean queued = weComAlertService.sendDailyStatsAlert(reportDate.toString(),
+            (Integer) summary.get("unfinishedInWindow"), (Integer) summary.get("totalTasks"), late,
+            dailyRollupService.distinctTasks(reportDate.minusDays(6), reportDate),
+            dailyRollupService.distinctTasks(reportDate.minusDays(29), reportDate));
+        if (!queued) {
+            // 日报未能入队，不标记为已发送，下个周期重试
+            log.error("{}的日报未能放入发送队列，下个周期重试", reportDate);
+            return;
+        }
+        
+        dailyRollupService.markReported(reportDate);
+        if (reportDate.equals(now.toLocalDate().minusDays(1))) {
+            timeoutTasksService.cleanupAllTimeoutTasks();
+            log.info("每日统计已完成，今日不会重复执行");
+        } else {
+            log.info("已补发{}的日报，之后的周期继续补发", reportDate);
+        }
     }
     
     /**
-     * 更新未完成告警记录
+     * 检查当前时间是否在工作时间内（9:00-21:00）
      */
-    private void updateUnfinishedAlertRecord(String taskId) {
-        unfinishedAlertRecords.put(taskId, LocalDateTime.now());
+    private boolean isWorkingHours() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int hour = now.getHour();
+        return hour >= 9 && hour < 21;
     }
     
     /**
@@ -377,7 +493,7 @@ public class TaskMonitorService {
      * @return 当天入网人数
      */
     public int getTodayTaskCount() {
-        return todayTaskCount;
+        return dailyRollupService.getTotalTasks(LocalDate.now(clock));
     }
     
     /**
@@ -388,4 +504,20 @@ public class TaskMonitorService {
     public LocalDateTime getLastStatsTime() {
         return lastStatsTime;
     }
+    
+    /**
+     * 获取最近一个周期中等待最久的超时任务
+     * 
+     * @return 超时类型（unclaimed/unfinished） -> 按创建时间从早到晚的任务
+     */
+    public Map<String, List<TaskInfo>> getOldestTasks() {
+        return oldestTasks;
+    }
+    
+    /**
+     * 获取最久任务的统计时间，尚未完成检查周期时为null
+     */
+    public LocalDateTime getOldestTime() {
+        return oldestTime;
+    }
 }
@@ -0,0 +1,214 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.jfr.QueryEvent;
+import com.alert.merch.mapper.TaskMapper;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskSnapshot;
+import com.alert.merch.model.TaskTable;
+import com.alert.merch.util.CircuitBreaker;
+import com.alert.merch.util.CycleStage;
+import com.alert.merch.util.PartitionedRangeScanner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务查询服务类
+ * 在TaskMapper外加熔断保护：数据库连续失败时熔断并按指数退避重试，
+ * 熔断期间返回最后一次成功查询的快照（标记为过期），监控继续按当前时间判断超时
+ */
+@Slf4j
+@Service
+public class TaskQueryService {
+    
+    // 主数据源的映射器延迟到首次查询时创建（见 MyBatisConfig），启动时数据库不可达不会固定方言
+    @Autowired
+    private ObjectProvider<TaskMapper> taskMapperProvider;
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Autowired
+    private Clock clock;
+    
+    @Autowired
+    private CycleTraceService cycleTraceService;
+    
+    private CircuitBreaker circuitBreaker;
+    
+    // 分区并行查询，fetch-partitions 大于1时启用
+    private ExecutorService fetchExecutor;
+    private PartitionedRangeScanner rangeScanner;
+    
+    // 最后一次成功查询的任务快照
+    private volatile TaskSnapshot lastSnapshot;
+    
+    @PostConstruct
+    public void init() {
+        AppConfig.Db db = appConfig.getDb();
+        circuitBreaker = new CircuitBreaker("oceanbase",
+            db.getBreakerFailureThreshold(),
+            Duration.ofSeconds(db.getBreakerOpenSeconds()),
+            Duration.ofSeconds(db.getBreakerMaxOpenSeconds()));
+        metricsService.updateDbCircuitBreakerState(circuitBreaker.getState().getCode());
+        
+        if (db.getFetchPartitions() > 1) {
+            int concurrency = Math.max(1, Math.min(db.getFetchConcurrency(), db.getFetchPartitions()));
+            AtomicInteger threadIndex = new AtomicInteger();
+            fetchExecutor = Executors.newFixedThreadPool(concurrency, runnable -> {
+                Thread thread = new Thread(runnable, "task-fetch-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            rangeScanner = new PartitionedRangeScanner(fetchExecutor);
+            log.info("启用分区并行查询: 分区数={}, 并发数={}", db.getFetchPartitions(), concurrency);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 查询最近任务，数据库不可用时返回最后一次成功查询的快照
+     *
+     * @param days 查询天数范围
+     * @param procKey 流程键
+     * @param taskKeys 任务键列表
+     * @return 任务快照
+     */
+    public TaskSnapshot selectTasksByStatus(int days, String procKey, List<String> taskKeys) {
+        if (circuitBreaker.allowRequest()) {
+            QueryEvent queryEvent = new QueryEvent();
+            queryEvent.begin();
+            queryEvent.partitions = rangeScanner != null ? appConfig.getDb().getFetchPartitions() : 1;
+            try {
+                TaskTable table = fetchTable(days, procKey, taskKeys);
+                queryEvent.rows = table.size();
+                queryEvent.success = true;
+                onSuccess();
+                lastSnapshot = new TaskSnapshot(table, LocalDateTime.now(clock), false);
+                return lastSnapshot;
+            } catch (RuntimeException e) {
+                onFailure(e);
+            } finally {
+                queryEvent.commit();
+            }
+        }
+        
+        TaskSnapshot snapshot = lastSnapshot;
+        if (snapshot == null) {
+            throw new IllegalStateException("数据库不可用且没有可用的任务快照");
+        }
+        log.warn("数据库不可用，使用{}的任务快照继续检查，共{}条", snapshot.getFetchTime(), snapshot.getTable().size());
+        return new TaskSnapshot(snapshot.getTable(), snapshot.getFetchTime(), true);
+    }
+    
+    /**
+     * 查询任务并逐行写入列式任务表，不保留每行的TaskInfo对象
+     * 启用分区时按创建时间切分为多个子区间并行查询，每个子区间占用连接池中的一个连接。
+     * 启用周期追踪时累计逐行写入的耗时，记为映射阶段（每行两次 nanoTime）
+     */
+    private TaskTable fetchTable(int days, String procKey, List<String> taskKeys) {
+        int expectedRows = lastSnapshot != null ? lastSnapshot.getTable().size() : 256;
+        boolean traced = cycleTraceService.isEnabled();
+        TaskMapper taskMapper = taskMapperProvider.getObject();
+        if (rangeScanner == null) {
+            TaskTable table = new TaskTable(expectedRows);
+            long[] mappingNanos = new long[1];
+            taskMapper.scanTasksByStatus(days, procKey, taskKeys,
+                context -> addRow(table, context.getResultObject(), traced, mappingNanos));
+            cycleTraceService.add(CycleStage.MAPPING, mappingNanos[0], table.size());
+            return table;
+        }
+        
+        // 与单条查询的 TRUNC(SYSDATE) - days 对应，时间以应用时钟为准
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime from = now.toLocalDate().minusDays(days).atStartOfDay();
+        return rangeScanner.scan(from, now, appConfig.getDb().getFetchPartitions(), expectedRows,
+            (lower, upper, sink) -> {
+                long[] mappingNanos = new long[1];
+                taskMapper.scanTasksByRange(lower, upper, procKey, taskKeys,
+                    context -> addRow(sink, context.getResultObject(), traced, mappingNanos));
+                cycleTraceService.add(CycleStage.MAPPING, mappingNanos[0], sink.size());
+            });
+    }
+    
+    private static void addRow(TaskTable table, TaskInfo row, boolean traced, long[] mappingNanos) {
+        if (!traced) {
+            table.add(row);
+            return;
+        }
+        long start = System.nanoTime();
+        table.add(row);
+        mappingNanos[0] += System.nanoTime() - start;
+    }
+    
+    /**
+     * 查询当天任务，熔断期间返回空列表
+     *
+     * @param procKey 流程键
+     * @param taskKeys 任务键列表
+     * @return 任务列表
+     */
+    public List<TaskInfo> selectTodayTasks(String procKey, List<String> taskKeys) {
+        if (!circuitBreaker.allowRequest()) {
+            log.debug("数据库熔断中，跳过当天任务查询");
+            return Collections.emptyList();
+        }
+        try {
+            List<TaskInfo> tasks = taskMapperProvider.getObject().selectTodayTasks(procKey, taskKeys);
+            onSuccess();
+            return tasks;
+        } catch (RuntimeException e) {
+            onFailure(e);
+            return Collections.emptyList();
+        }
+    }
+    
+    private void onSuccess() {
+        circuitBreaker.recordSuccess();
+        metricsService.updateDbCircuitBreakerState(circuitBreaker.getState().getCode());
+    }
+    
+    private void onFailure(RuntimeException e) {
+        log.error("查询OceanBase失败", e);
+        circuitBreaker.recordFailure();
+        metricsService.incrementDbQueryFailures();
+        metricsService.updateDbCircuitBreakerState(circuitBreaker.getState().getCode());
+    }
+    
+    /**
+     * 获取熔断器状态
+     */
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+    
+    /**
+     * 获取最后一次成功查询的时间
+     */
+    public LocalDateTime getLastSnapshotTime() {
+        TaskSnapshot snapshot = lastSnapshot;
+        return snapshot != null ? snapshot.getFetchTime() : null;
+    }
+}
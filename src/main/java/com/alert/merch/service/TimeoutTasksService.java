@@ -2,6 +2,7 @@ package com.alert.merch.service;
 
 import com.alert.merch.config.AppConfig;
 import com.alert.merch.model.TaskInfo;
+import com.alert.merch.util.TimeIndexedTaskStore;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
@@ -14,8 +15,10 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 超时任务服务类
@@ -33,29 +36,42 @@ public class TimeoutTasksService {
     @Autowired
     private ObjectMapper objectMapper;
     
-    // 超时未领取任务
-    private final Map<String, TaskInfo> timeoutTasks = new ConcurrentHashMap<>();
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Autowired
+    private Clock clock;
+    
+    // 超时未领取任务（按创建时间索引）
+    private final TimeIndexedTaskStore timeoutTasks = new TimeIndexedTaskStore();
     
-    // 超时未完成任务
-    private final Map<String, TaskInfo> timeoutFinishTasks = new ConcurrentHashMap<>();
+    // 超时未完成任务（按创建时间索引）
+    private final TimeIndexedTaskStore timeoutFinishTasks = new TimeIndexedTaskStore();
     
     @PostConstruct
     public void init() {
         loadAllTimeoutTasks();
+        metricsService.registerTimeoutTaskGauges(
+            timeoutTasks::size,
+            timeoutFinishTasks::size,
+            () -> {
+                LocalDateTime now = LocalDateTime.now(clock);
+                return timeoutFinishTasks.countBetween(now.minusHours(1), now);
+            });
     }
     
     /**
      * 保存超时未领取任务
      */
     public void saveTimeoutTask(TaskInfo task) {
-        timeoutTasks.put(task.getTaskId(), task);
+        timeoutTasks.put(task);
     }
     
     /**
      * 保存超时未完成任务
      */
     public void saveTimeoutFinishTask(TaskInfo task) {
-        timeoutFinishTasks.put(task.getTaskId(), task);
+        timeoutFinishTasks.put(task);
     }
     
     /**
@@ -73,17 +89,38 @@ public class TimeoutTasksService {
     }
     
     /**
-     * 获取超时未领取任务列表
+     * 获取超时未领取任务列表（只读视图）
      */
     public Map<String, TaskInfo> getTimeoutTasks() {
-        return new ConcurrentHashMap<>(timeoutTasks);
+        return timeoutTasks.asMap();
     }
     
     /**
-     * 获取超时未完成任务列表
+     * 获取超时未完成任务列表（只读视图）
      */
     public Map<String, TaskInfo> getTimeoutFinishTasks() {
-        return new ConcurrentHashMap<>(timeoutFinishTasks);
+        return timeoutFinishTasks.asMap();
+    }
+    
+    /**
+     * 统计创建时间在 [from, to) 内的超时未领取任务数
+     */
+    public int countTimeoutTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return timeoutTasks.countBetween(from, to);
+    }
+    
+    /**
+     * 统计创建时间在 [from, to) 内的超时未完成任务数
+     */
+    public int countTimeoutFinishTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return timeoutFinishTasks.countBetween(from, to);
+    }
+    
+    /**
+     * 获取创建时间在 [from, to) 内的超时未完成任务（只读视图，按创建时间升序）
+     */
+    public Collection<TaskInfo> getTimeoutFinishTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return timeoutFinishTasks.between(from, to);
     }
     
     /**
@@ -139,8 +176,8 @@ public class TimeoutTasksService {
     /**
      * 保存数据到文件
      */
-    private void saveToFile(Map<String, TaskInfo> tasks, String filePath) throws IOException {
-        String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(tasks);
+    private void saveToFile(TimeIndexedTaskStore tasks, String filePath) throws IOException {
+        String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(tasks.asMap());
         Files.write(Paths.get(filePath), json.getBytes());
         log.info("已保存超时任务数据到文件: {}", filePath);
     }
@@ -148,7 +185,7 @@ public class TimeoutTasksService {
     /**
      * 从文件加载数据
      */
-    private void loadFromFile(Map<String, TaskInfo> tasks, String filePath) throws IOException {
+    private void loadFromFile(TimeIndexedTaskStore tasks, String filePath) throws IOException {
         File file = new File(filePath);
         if (!file.exists()) {
             log.info("文件不存在，使用空数据: {}", filePath);
@@ -160,8 +197,7 @@ public class TimeoutTasksService {
         Map<String, TaskInfo> loadedTasks = objectMapper.readValue(json, 
             new TypeReference<Map<String, TaskInfo>>() {});
         
-        tasks.clear();
-        tasks.putAll(loadedTasks);
+        tasks.replaceAll(loadedTasks);
         
         log.info("已从文件加载超时任务数据: {}，共 {} 条记录", filePath, tasks.size());
     }
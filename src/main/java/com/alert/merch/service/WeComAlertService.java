@@ -1,21 +1,24 @@
 package com.alert.merch.service;
 
 import com.alert.merch.config.AppConfig;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.model.TaskEnrichment;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskTable;
+import com.alert.merch.util.OldestTopK;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.http.HttpEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 
 /**
  * 企业微信告警服务类
@@ -24,76 +27,192 @@ import java.util.Map;
 @Service
 public class WeComAlertService {
     
+    @Autowired
+    private AlertDispatcher alertDispatcher;
+    
+    @Autowired
+    private AlertRouter alertRouter;
+    
+    @Autowired
+    private AlertAuditService alertAuditService;
+    
+    @Autowired
+    private StreamService streamService;
+    
     @Autowired
     private AppConfig appConfig;
     
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private TaskEnrichmentService taskEnrichmentService;
+    
+    @Autowired
+    private Clock clock;
     
     /**
-     * 发送Markdown格式的告警消息
+     * 发送Markdown格式的告警消息（放入告警目标的发送队列，异步发送）
+     *
+     * @return 是否成功入队
      */
-    public void sendMarkdownAlert(String content, String webhookUrl) {
-        if (webhookUrl == null || webhookUrl.trim().isEmpty()) {
-            log.warn("企业微信Webhook地址为空，跳过发送告警");
-            return;
-        }
-        
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost httpPost = new HttpPost(webhookUrl);
-            httpPost.setHeader("Content-Type", "application/json");
-            
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("msgtype", "markdown");
-            
-            Map<String, String> markdown = new HashMap<>();
-            markdown.put("content", content);
-            payload.put("markdown", markdown);
-            
-            String jsonPayload = objectMapper.writeValueAsString(payload);
-            httpPost.setEntity(new StringEntity(jsonPayload, "UTF-8"));
-            
-            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                HttpEntity entity = response.getEntity();
-                String responseBody = EntityUtils.toString(entity);
-                
-                if (response.getStatusLine().getStatusCode() == 200) {
-                    log.info("告警已发送成功");
-                } else {
-                    log.error("企业微信返回状态异常: {}, 响应: {}", 
-                        response.getStatusLine().getStatusCode(), responseBody);
-                }
-            }
-        } catch (IOException e) {
-            log.error("发送告警失败", e);
-        }
+    public boolean sendMarkdownAlert(String content, AlertTarget target) {
+        return sendMarkdownAlert(content, target, null);
+    }
+    
+    /**
+     * 发送Markdown格式的告警消息，得到发送结果后回调
+     *
+     * @param onResult 发送结果回调（成功入队的在发送线程中执行），可为null
+     * @return 是否成功入队
+     */
+    public boolean sendMarkdownAlert(String content, AlertTarget target, Consumer<Boolean> onResult) {
+        return alertDispatcher.dispatch(target, content, onResult);
     }
     
     /**
      * 发送超时未领取告警
+     *
+     * @return 是否成功入队
      */
-    public void sendUnclaimedTimeoutAlert(int newAlertCount, int totalCount, int dailyCount, String taskIds) {
-        String content = String.format(
-            "【超时提醒】超时未领取\n您有<font color=\"red\">%d</font>条新的商户入网审核流程超时未领取，" +
-            "当前超时未领取审核流程总共 <font color=\"red\">%d</font> 条，" +
-            "当天累计超时未领取审核流程共 <font color=\"red\">%d</font> 条，请尽快操作。流程清单：%s\n",
-            newAlertCount, totalCount, dailyCount, taskIds
-        );
+    public boolean sendUnclaimedTimeoutAlert(AlertTarget target, List<TaskInfo> alertTasks, int totalCount, int dailyCount,
+                                          LocalDateTime staleSince) {
+        String content = unclaimedContent(alertTasks, totalCount, dailyCount, true) + escalationNote(target) + staleNote(staleSince);
         
-        sendMarkdownAlert(content, appConfig.getWecom().getWebhook());
+        return sendMarkdownAlert(content, target, onResult("unclaimed", target, alertTasks, true));
     }
     
     /**
      * 发送超时未完成告警
+     *
+     * @return 是否成功入队
      */
-    public void sendUnfinishedTimeoutAlert(int newAlertCount, int totalCount, int dailyCount, String taskIds) {
-        String content = String.format(
+    public boolean sendUnfinishedTimeoutAlert(AlertTarget target, List<TaskInfo> alertTasks, int totalCount, int dailyCount,
+                                           LocalDateTime staleSince) {
+        String content = unfinishedContent(alertTasks, totalCount, dailyCount, true) + escalationNote(target) + staleNote(staleSince);
+        
+        return sendMarkdownAlert(content, target, onResult("unfinished", target, alertTasks, true));
+    }
+    
+    /**
+     * 发送附加数据源（app.sources）的超时告警，消息开头注明数据源
+     *
+     * @param source 数据源名称
+     * @param type 超时类型（unclaimed/unfinished）
+     * @return 是否成功入队
+     */
+    public boolean sendSourceTimeoutAlert(String source, String type, AlertTarget target, List<TaskInfo> alertTasks,
+                                       int totalCount, int dailyCount, LocalDateTime staleSince) {
+        String content = String.format("<font color=\"comment\">数据源：%s</font>\n", source)
+            + ("unclaimed".equals(type)
+                ? unclaimedContent(alertTasks, totalCount, dailyCount, false)
+                : unfinishedContent(alertTasks, totalCount, dailyCount, false))
+            + staleNote(staleSince);
+        
+        return sendMarkdownAlert(content, target, onResult(type, target, alertTasks, false));
+    }
+    
+    /**
+     * 得到发送结果后写入审计记录，丢弃和发送失败的告警也记录，并标明未送达；
+     * stream为true时，送达的告警再推送到事件流
+     */
+    private Consumer<Boolean> onResult(String type, AlertTarget target, List<TaskInfo> alertTasks, boolean stream) {
+        List<TaskInfo> tasks = new ArrayList<>(alertTasks);
+        return delivered -> {
+            LocalDateTime time = LocalDateTime.now(clock);
+            alertAuditService.record(time, type, target, tasks, delivered);
+            if (stream && delivered) {
+                streamService.publishAlert(time, type, target, tasks.size());
+            }
+        };
+    }
+    
+    private String unclaimedContent(List<TaskInfo> alertTasks, int totalCount, int dailyCount, boolean enriched) {
+        return String.format(
+            "【超时提醒】超时未领取\n您有<font color=\"red\">%d</font>条新的商户入网审核流程超时未领取，" +
+            "当前超时未领取审核流程总共 <font color=\"red\">%d</font> 条，" +
+            "当天累计超时未领取审核流程共 <font color=\"red\">%d</font> 条，请尽快操作。流程清单：%s\n",
+            alertTasks.size(), totalCount, dailyCount, formatTaskIds(alertTasks, enriched)
+        );
+    }
+    
+    private String unfinishedContent(List<TaskInfo> alertTasks, int totalCount, int dailyCount, boolean enriched) {
+        return String.format(
             "【超时提醒】超时未完成\n您有<font color=\"red\">%d</font>条新的商户入网审核流程已领取但审核超时，" +
             "当前审核超时流程总共 <font color=\"red\">%d</font> 条," +
             "当天累计审核超时流程共 <font color=\"red\">%d</font> 条，请尽快操作。\n流程清单：%s\n",
-            newAlertCount, totalCount, dailyCount, taskIds
+            alertTasks.size(), totalCount, dailyCount, formatTaskIds(alertTasks, enriched)
         );
+    }
+    
+    /**
+     * 格式化告警中的流程清单
+     * 等待最久的前K条排在最前并注明等待时长，其余按原顺序列出；
+     * enriched为true时在流程ID后附上已缓存的商户名称和渠道（本周期由 TaskEnrichmentService 批量加载）。
+     * 附加数据源的流程ID不在主数据源的业务表中，不补充
+     */
+    private String formatTaskIds(List<TaskInfo> tasks, boolean enriched) {
+        OldestTopK oldest = new OldestTopK(appConfig.getTask().getOldestTopK());
+        for (int i = 0; i < tasks.size(); i++) {
+            oldest.offer(i, TaskTable.toEpochSecond(tasks.get(i).getCreateTime()));
+        }
+        int[] oldestIndexes = oldest.sortedRows();
+        boolean[] listed = new boolean[tasks.size()];
+        LocalDateTime now = LocalDateTime.now(clock);
         
-        sendMarkdownAlert(content, appConfig.getWecom().getWebhook2());
+        StringJoiner joiner = new StringJoiner("\n");
+        for (int index : oldestIndexes) {
+            TaskInfo task = tasks.get(index);
+            joiner.add(String.format("<font color=\"blue\">%s</font>%s（已等待%d分钟）",
+                task.getTaskId(), enrichmentNote(task, enriched), Duration.between(task.getCreateTime(), now).toMinutes()));
+            listed[index] = true;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!listed[i]) {
+                joiner.add(String.format("<font color=\"blue\">%s</font>%s",
+                    tasks.get(i).getTaskId(), enrichmentNote(tasks.get(i), enriched)));
+            }
+        }
+        return joiner.toString();
+    }
+    
+    /**
+     * 流程的商户名称和渠道，如 " 某某商户｜线上渠道"，未启用或缓存中没有时为空
+     */
+    private String enrichmentNote(TaskInfo task, boolean enriched) {
+        if (!enriched) {
+            return "";
+        }
+        TaskEnrichment enrichment = taskEnrichmentService.getCached(task.getTaskId());
+        if (enrichment == null) {
+            return "";
+        }
+        StringJoiner note = new StringJoiner("｜", " ", "");
+        if (enrichment.getMerchantName() != null && !enrichment.getMerchantName().isEmpty()) {
+            note.add(enrichment.getMerchantName());
+        }
+        if (enrichment.getChannel() != null && !enrichment.getChannel().isEmpty()) {
+            note.add(enrichment.getChannel());
+        }
+        return note.toString();
+    }
+    
+    /**
+     * 升级级别提示，第一级不加
+     */
+    private String escalationNote(AlertTarget target) {
+        if (target.getEscalation() == null) {
+            return "";
+        }
+        return String.format("<font color=\"warning\">以上流程已长时间未处理，已升级至：%s</font>\n", target.getEscalation());
+    }
+    
+    /**
+     * 数据库不可用时的快照提示
+     */
+    private String staleNote(LocalDateTime staleSince) {
+        if (staleSince == null) {
+            return "";
+        }
+        return String.format("<font color=\"warning\">注意：数据库暂不可用，以上数据基于 %s 的查询快照</font>\n",
+            staleSince.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
     }
     
     /**
@@ -102,16 +221,25 @@ public class WeComAlertService {
      * @param date 日期
      * @param totalTimeout 超时未完成条数
      * @param totalTasks 总入网条数
+     * @param late 是否为错过发送时间后的补发
+     * @param weekDistinct 截至该日近7天去重入网数（估计值）
+     * @param monthDistinct 截至该日近30天去重入网数（估计值）
+     * @return 是否成功入队
      */
-    public void sendDailyStatsAlert(String date, int totalTimeout, int totalTasks) {
+    public boolean sendDailyStatsAlert(String date, int totalTimeout, int totalTasks, boolean late,
+                                       long weekDistinct, long monthDistinct) {
+        // 停机多天后补发的更早的日报不是昨日
+        String day = date.equals(LocalDate.now(clock).minusDays(1).toString()) ? "昨日（" + date + "）" : date;
         String content = String.format(
-            "【每日统计】\n昨日（%s）统计：\n" +
+            "【每日统计%s】\n%s统计：\n" +
             "- 总入网条数: <font color=\"blue\">%d</font> 条\n" +
-            "- 超时未完成: <font color=\"red\">%d</font> 条",
-            date, totalTasks, totalTimeout
+            "- 超时未完成: <font color=\"red\">%d</font> 条\n" +
+            "- 近7天去重入网: 约 <font color=\"blue\">%d</font> 条\n" +
+            "- 近30天去重入网: 约 <font color=\"blue\">%d</font> 条",
+            late ? "（补发）" : "", day, totalTasks, totalTimeout, weekDistinct, monthDistinct
         );
         
-        sendMarkdownAlert(content, appConfig.getWecom().getWebhook3());
+        return sendMarkdownAlert(content, alertRouter.getDailyTarget());
     }
     
     /**
@@ -138,6 +266,6 @@ public class WeComAlertService {
             );
         }
         
-        sendMarkdownAlert(content, appConfig.getWecom().getWebhook3());
+        sendMarkdownAlert(content, alertRouter.getDailyTarget());
     }
 }
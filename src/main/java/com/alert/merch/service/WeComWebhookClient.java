@@ -0,0 +1,96 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 企业微信Webhook客户端，负责同步发送消息
+ */
+@Slf4j
+@Service
+public class WeComWebhookClient {
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    /**
+     * 发送Markdown格式的消息
+     *
+     * @return 是否发送成功
+     */
+    public boolean sendMarkdown(String content, String webhookUrl) {
+        if (webhookUrl == null || webhookUrl.trim().isEmpty()) {
+            log.warn("企业微信Webhook地址为空，跳过发送告警");
+            return false;
+        }
+        
+        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            HttpPost httpPost = new HttpPost(webhookUrl);
+            httpPost.setHeader("Content-Type", "application/json");
+            httpPost.setConfig(buildRequestConfig());
+            
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("msgtype", "markdown");
+            
+            Map<String, String> markdown = new HashMap<>();
+            markdown.put("content", content);
+            payload.put("markdown", markdown);
+            
+            String jsonPayload = objectMapper.writeValueAsString(payload);
+            httpPost.setEntity(new StringEntity(jsonPayload, "UTF-8"));
+            
+            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                HttpEntity entity = response.getEntity();
+                String responseBody = EntityUtils.toString(entity);
+                
+                if (response.getStatusLine().getStatusCode() != 200) {
+                    log.error("企业微信返回状态异常: {}, 响应: {}",
+                        response.getStatusLine().getStatusCode(), responseBody);
+                    return false;
+                }
+                // 企业微信在HTTP 200中用errcode表示业务错误，如45009为调用频率超限（每个机器人每分钟20条）
+                JsonNode result = objectMapper.readTree(responseBody);
+                int errcode = result.path("errcode").asInt(0);
+                if (errcode != 0) {
+                    log.error("企业微信返回错误码: {}, 错误信息: {}", errcode, result.path("errmsg").asText());
+                    return false;
+                }
+                log.info("告警已发送成功");
+                return true;
+            }
+        } catch (IOException e) {
+            log.error("发送告警失败", e);
+        }
+        return false;
+    }
+    
+    /**
+     * 构建请求超时配置，避免Webhook连接挂起时阻塞发送线程
+     */
+    private RequestConfig buildRequestConfig() {
+        AppConfig.Wecom wecom = appConfig.getWecom();
+        return RequestConfig.custom()
+            .setConnectTimeout(wecom.getConnectTimeoutMs())
+            .setConnectionRequestTimeout(wecom.getConnectTimeoutMs())
+            .setSocketTimeout(wecom.getSocketTimeoutMs())
+            .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.alert.merch.source;
+
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskSnapshot;
+import com.alert.merch.service.TaskQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 轮询任务来源，每个检查周期查询一次 T_CURRENT_TASK
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.ingest", name = "mode", havingValue = "polling", matchIfMissing = true)
+public class PollingTaskEventSource implements TaskEventSource {
+    
+    @Autowired
+    private TaskQueryService taskQueryService;
+    
+    @Override
+    public TaskSnapshot currentTasks(int days, String procKey, List<String> taskKeys) {
+        return taskQueryService.selectTasksByStatus(days, procKey, taskKeys);
+    }
+    
+    @Override
+    public List<TaskInfo> todayTasks(String procKey, List<String> taskKeys) {
+        return taskQueryService.selectTodayTasks(procKey, taskKeys);
+    }
+}
@@ -0,0 +1,127 @@
+package com.alert.merch.source;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.TaskEvent;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskSnapshot;
+import com.alert.merch.model.TaskTable;
+import com.alert.merch.service.MetricsService;
+import com.alert.merch.service.TaskQueryService;
+import com.alert.merch.util.TaskEventState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 推送任务来源
+ * 流程引擎的任务监听器通过 POST /api/events 批量推送创建、领取、完成事件，事件直接应用到内存任务状态，
+ * 检查周期不再查询数据库；每隔 reconcile-minutes 查询一次数据库对账，补齐漏收的事件
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "app.ingest", name = "mode", havingValue = "push")
+public class PushTaskEventSource implements TaskEventSource {
+    
+    @Autowired
+    private TaskQueryService taskQueryService;
+    
+    @Autowired
+    private AppConfig appConfig;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Autowired
+    private Clock clock;
+    
+    private final TaskEventState state = new TaskEventState();
+    
+    // 最后一次成功对账的时间，null表示尚未对账（启动后第一个周期先全量加载）
+    private volatile LocalDateTime lastReconcileTime;
+    
+    @PostConstruct
+    public void init() {
+        String token = appConfig.getIngest().getToken();
+        if (token == null || token.trim().isEmpty()) {
+            // 未配置令牌时任何能访问端口的客户端都能伪造任务事件
+            throw new IllegalStateException("推送模式必须配置事件推送令牌（app.ingest.token / INGEST_TOKEN）");
+        }
+        log.info("任务来源: 推送事件，对账间隔: {}分钟", appConfig.getIngest().getReconcileMinutes());
+        metricsService.registerPushTaskGauge(state::size);
+    }
+    
+    /**
+     * 应用一批事件
+     *
+     * @return 各处理结果的事件数
+     */
+    public Map<TaskEventState.Outcome, Integer> accept(List<TaskEvent> events) {
+        Map<TaskEventState.Outcome, Integer> outcomes = new EnumMap<>(TaskEventState.Outcome.class);
+        for (TaskEventState.Outcome outcome : TaskEventState.Outcome.values()) {
+            outcomes.put(outcome, 0);
+        }
+        for (TaskEvent event : events) {
+            outcomes.merge(state.apply(event), 1, Integer::sum);
+        }
+        outcomes.forEach((outcome, count) -> metricsService.incrementTaskEvents(outcome.name().toLowerCase(), count));
+        log.debug("收到任务事件{}条: {}", events.size(), outcomes);
+        return outcomes;
+    }
+    
+    @Override
+    public TaskSnapshot currentTasks(int days, String procKey, List<String> taskKeys) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        reconcileIfDue(now, days, procKey, taskKeys);
+        
+        List<TaskInfo> tasks = state.tasks(now.toLocalDate().minusDays(days).atStartOfDay(), procKey, taskKeys);
+        return new TaskSnapshot(TaskTable.of(tasks), now, false);
+    }
+    
+    @Override
+    public List<TaskInfo> todayTasks(String procKey, List<String> taskKeys) {
+        LocalDateTime todayStart = LocalDate.now(clock).atStartOfDay();
+        List<TaskInfo> tasks = state.tasks(todayStart, procKey, taskKeys);
+        // 两个周期之间创建并完成的任务也计入当天入网人数
+        tasks.addAll(state.drainCompleted(todayStart, taskKeys));
+        return tasks;
+    }
+    
+    /**
+     * 到达对账时间时查询数据库，以查询结果修正内存状态；数据库不可用时下个周期重试
+     */
+    private void reconcileIfDue(LocalDateTime now, int days, String procKey, List<String> taskKeys) {
+        LocalDateTime last = lastReconcileTime;
+        if (last != null && now.isBefore(last.plusMinutes(appConfig.getIngest().getReconcileMinutes()))) {
+            return;
+        }
+        long sinceVersion = state.version();
+        TaskSnapshot snapshot;
+        try {
+            snapshot = taskQueryService.selectTasksByStatus(days, procKey, taskKeys);
+        } catch (RuntimeException e) {
+            log.warn("对账查询失败，下个周期重试: {}", e.getMessage());
+            return;
+        }
+        if (snapshot.isStale()) {
+            log.warn("数据库不可用，跳过本次对账");
+            return;
+        }
+        int corrections = state.reconcile(snapshot.getTable(), procKey, sinceVersion);
+        metricsService.incrementReconcileCorrections(corrections);
+        lastReconcileTime = now;
+        if (last != null && corrections > 0) {
+            log.warn("对账修正{}个任务（漏收或乱序的事件），当前任务数: {}", corrections, state.size());
+        } else {
+            log.info("对账完成，修正{}个任务，当前任务数: {}", corrections, state.size());
+        }
+    }
+}
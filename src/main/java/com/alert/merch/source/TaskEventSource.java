@@ -0,0 +1,28 @@
+package com.alert.merch.source;
+
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskSnapshot;
+
+import java.util.List;
+
+/**
+ * 任务来源
+ * 检查周期通过任务来源获取当前任务，由 app.ingest.mode 选择实现：
+ * polling（默认）每个周期查询数据库，push 由流程引擎推送任务事件、定期查询数据库对账
+ */
+public interface TaskEventSource {
+    
+    /**
+     * 本周期的当前任务快照
+     *
+     * @param days 创建时间范围（天）
+     * @param procKey 流程键
+     * @param taskKeys 任务键列表
+     */
+    TaskSnapshot currentTasks(int days, String procKey, List<String> taskKeys);
+    
+    /**
+     * 当天创建的任务，用于入网人数统计
+     */
+    List<TaskInfo> todayTasks(String procKey, List<String> taskKeys);
+}
@@ -0,0 +1,313 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.AlertAuditRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 告警审计日志
+ * 只追加的gzip分段文件，每条记录一行JSON，写入后同步刷新，进程异常退出最多丢失未刷新的一条。
+ * 分段在跨天或任务ID数达到上限时轮转，轮转时写入该分段的稀疏索引（布隆过滤器 + 时间范围），
+ * 按任务ID查询时只解压布隆过滤器命中的分段
+ */
+public class AlertAuditLog {
+    
+    private static final String PREFIX = "alert-audit-";
+    private static final String SEGMENT_SUFFIX = ".jsonl.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_MAGIC = 0x41414931; // "AAI1"
+    private static final double FPP = 0.01;
+    private static final DateTimeFormatter NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+    private final int maxIdsPerSegment;
+    private final int retentionDays;
+    
+    // 已封存的分段，按时间顺序
+    private final List<Segment> sealed = new ArrayList<>();
+    
+    // 当前写入的分段
+    private Segment active;
+    private OutputStream activeOut;
+    private final List<AlertAuditRecord> activeRecords = new ArrayList<>();
+    private final Set<String> activeIds = new HashSet<>();
+    
+    public AlertAuditLog(Path dir, ObjectMapper objectMapper, int maxIdsPerSegment, int retentionDays) {
+        this.dir = dir;
+        this.objectMapper = objectMapper;
+        this.maxIdsPerSegment = Math.max(1, maxIdsPerSegment);
+        this.retentionDays = retentionDays;
+    }
+    
+    /**
+     * 加载已有分段的索引；上次未正常轮转的分段（没有索引文件）扫描后补写索引并封存
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> segmentFiles;
+        try (Stream<Path> paths = Files.list(dir)) {
+            segmentFiles = paths
+                .filter(path -> path.getFileName().toString().startsWith(PREFIX)
+                    && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        for (Path file : segmentFiles) {
+            Path indexFile = indexPath(file);
+            Segment segment = Files.exists(indexFile) ? readIndex(file, indexFile) : rebuildIndex(file);
+            if (segment != null) {
+                sealed.add(segment);
+            }
+        }
+    }
+    
+    /**
+     * 追加一条审计记录
+     */
+    public synchronized void append(AlertAuditRecord record) throws IOException {
+        if (active != null && (!record.getTime().toLocalDate().equals(active.firstTime.toLocalDate())
+                || activeIds.size() + record.getTaskIds().size() > maxIdsPerSegment)) {
+            rotate();
+        }
+        if (active == null) {
+            startSegment(record.getTime());
+        }
+        
+        activeOut.write((objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8));
+        activeOut.flush();
+        
+        activeRecords.add(record);
+        for (String taskId : record.getTaskIds()) {
+            if (activeIds.add(taskId)) {
+                active.bloom.put(taskId);
+            }
+        }
+        active.lastTime = record.getTime();
+        active.records++;
+    }
+    
+    /**
+     * 查询某个任务的告警历史，按时间顺序返回
+     */
+    public List<AlertAuditRecord> query(String taskId) throws IOException {
+        return query(taskId, new int[1]);
+    }
+    
+    /**
+     * 查询某个任务的告警历史
+     *
+     * @param scannedSegments 输出参数，返回实际解压扫描的分段数
+     */
+    public List<AlertAuditRecord> query(String taskId, int[] scannedSegments) throws IOException {
+        List<Segment> candidates = new ArrayList<>();
+        List<AlertAuditRecord> result = new ArrayList<>();
+        synchronized (this) {
+            for (Segment segment : sealed) {
+                if (segment.bloom.mightContain(taskId)) {
+                    candidates.add(segment);
+                }
+            }
+            if (activeIds.contains(taskId)) {
+                activeRecords.stream().filter(record -> record.getTaskIds().contains(taskId)).forEach(result::add);
+            }
+        }
+        
+        // 已封存的分段不再修改，解压扫描不持锁
+        List<AlertAuditRecord> sealedMatches = new ArrayList<>();
+        for (Segment segment : candidates) {
+            try {
+                for (AlertAuditRecord record : readSegment(segment.file, "\"" + taskId + "\"")) {
+                    if (record.getTaskIds().contains(taskId)) {
+                        sealedMatches.add(record);
+                    }
+                }
+                scannedSegments[0]++;
+            } catch (NoSuchFileException e) {
+                // 查询期间被保留策略删除
+            }
+        }
+        sealedMatches.addAll(result);
+        sealedMatches.sort(Comparator.comparing(AlertAuditRecord::getTime));
+        return sealedMatches;
+    }
+    
+    /**
+     * 分段数（含当前写入的分段）
+     */
+    public synchronized int getSegmentCount() {
+        return sealed.size() + (active != null ? 1 : 0);
+    }
+    
+    /**
+     * 封存当前分段
+     */
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            rotate();
+        }
+    }
+    
+    private void startSegment(LocalDateTime time) throws IOException {
+        Path file = dir.resolve(PREFIX + time.format(NAME_FORMATTER) + SEGMENT_SUFFIX);
+        for (int seq = 1; Files.exists(file); seq++) {
+            file = dir.resolve(PREFIX + time.format(NAME_FORMATTER) + "-" + seq + SEGMENT_SUFFIX);
+        }
+        active = new Segment(file, new BloomFilter(maxIdsPerSegment, FPP), time);
+        // syncFlush：每条记录写入后即可从文件中解压读出
+        activeOut = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)), true);
+    }
+    
+    private void rotate() throws IOException {
+        activeOut.close();
+        writeIndex(active);
+        sealed.add(active);
+        active = null;
+        activeOut = null;
+        activeRecords.clear();
+        activeIds.clear();
+        applyRetention();
+    }
+    
+    private void applyRetention() throws IOException {
+        if (retentionDays <= 0 || sealed.isEmpty()) {
+            return;
+        }
+        LocalDate cutoff = sealed.get(sealed.size() - 1).lastTime.toLocalDate().minusDays(retentionDays);
+        while (!sealed.isEmpty() && sealed.get(0).lastTime.toLocalDate().isBefore(cutoff)) {
+            Segment expired = sealed.remove(0);
+            Files.deleteIfExists(expired.file);
+            Files.deleteIfExists(indexPath(expired.file));
+        }
+    }
+    
+    /**
+     * 读取分段中的记录
+     *
+     * @param contains 只解析包含该字符串的行，null表示全部
+     */
+    private List<AlertAuditRecord> readSegment(Path file, String contains) throws IOException {
+        // 先整体解压：进程异常退出时分段缺少gzip尾部，读到末尾会抛出EOFException，已刷新的记录仍然有效
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                content.write(buffer, 0, n);
+            }
+        } catch (EOFException e) {
+            // 未封存的分段
+        }
+        
+        List<AlertAuditRecord> records = new ArrayList<>();
+        for (String line : content.toString(StandardCharsets.UTF_8.name()).split("\n")) {
+            if (line.isEmpty() || (contains != null && !line.contains(contains))) {
+                continue;
+            }
+            try {
+                records.add(objectMapper.readValue(line, AlertAuditRecord.class));
+            } catch (JsonProcessingException e) {
+                // 写入中途退出留下的不完整行，只可能出现在分段末尾
+                break;
+            }
+        }
+        return records;
+    }
+    
+    /**
+     * 扫描分段补写索引，分段中没有有效记录时删除该分段并返回null
+     */
+    private Segment rebuildIndex(Path file) throws IOException {
+        List<AlertAuditRecord> records = readSegment(file, null);
+        if (records.isEmpty()) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(indexPath(file));
+            return null;
+        }
+        Set<String> ids = new HashSet<>();
+        records.forEach(record -> ids.addAll(record.getTaskIds()));
+        Segment segment = new Segment(file, new BloomFilter(ids.size(), FPP), records.get(0).getTime());
+        ids.forEach(segment.bloom::put);
+        segment.lastTime = records.get(records.size() - 1).getTime();
+        segment.records = records.size();
+        writeIndex(segment);
+        return segment;
+    }
+    
+    private void writeIndex(Segment segment) throws IOException {
+        Path indexFile = indexPath(segment.file);
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeLong(segment.records);
+            out.writeUTF(segment.firstTime.toString());
+            out.writeUTF(segment.lastTime.toString());
+            segment.bloom.writeTo(out);
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private Segment readIndex(Path file, Path indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC) {
+                return rebuildIndex(file);
+            }
+            long records = in.readLong();
+            LocalDateTime firstTime = LocalDateTime.parse(in.readUTF());
+            LocalDateTime lastTime = LocalDateTime.parse(in.readUTF());
+            Segment segment = new Segment(file, BloomFilter.readFrom(in), firstTime);
+            segment.lastTime = lastTime;
+            segment.records = records;
+            return segment;
+        }
+    }
+    
+    private static Path indexPath(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+    
+    private static final class Segment {
+        private final Path file;
+        private final BloomFilter bloom;
+        private final LocalDateTime firstTime;
+        private LocalDateTime lastTime;
+        private long records;
+        
+        Segment(Path file, BloomFilter bloom, LocalDateTime firstTime) {
+            this.file = file;
+            this.bloom = bloom;
+            this.firstTime = firstTime;
+            this.lastTime = firstTime;
+        }
+    }
+}
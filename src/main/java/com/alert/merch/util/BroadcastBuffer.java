@@ -0,0 +1,84 @@
+package com.alert.merch.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单生产者、多读者的有界广播缓冲区
+ * 每条消息分配递增的序号，读者各自保存读取位置；缓冲区满后覆盖最早的消息，
+ * 落后超过容量的读者会被告知已错过消息，由调用方改为发送合并后的快照
+ */
+public class BroadcastBuffer<T> {
+    
+    private final AtomicReferenceArray<Entry<T>> entries;
+    private final int capacity;
+    // 下一条消息的序号，只由生产者写入
+    private volatile long tail;
+    
+    public BroadcastBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.entries = new AtomicReferenceArray<>(this.capacity);
+    }
+    
+    /**
+     * 发布一条消息（只能由单个线程调用，或由调用方加锁）
+     *
+     * @return 消息序号
+     */
+    public long publish(T value) {
+        long sequence = tail;
+        entries.set((int) (sequence % capacity), new Entry<>(sequence, value));
+        tail = sequence + 1;
+        return sequence;
+    }
+    
+    /**
+     * 下一条消息的序号，即已发布的消息数
+     */
+    public long tail() {
+        return tail;
+    }
+    
+    /**
+     * 仍保留在缓冲区中的最早序号
+     */
+    public long head() {
+        return Math.max(0, tail - capacity);
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * 从 cursor 开始读取最多 max 条消息
+     *
+     * @param out 读取到的消息追加到该列表
+     * @return 下一次读取的位置；读者已落后到被覆盖的消息时返回-1
+     */
+    public long read(long cursor, int max, List<T> out) {
+        long end = Math.min(tail, cursor + max);
+        if (cursor < head()) {
+            return -1;
+        }
+        for (long sequence = cursor; sequence < end; sequence++) {
+            Entry<T> entry = entries.get((int) (sequence % capacity));
+            if (entry == null || entry.sequence != sequence) {
+                // 读取期间被生产者覆盖
+                return -1;
+            }
+            out.add(entry.value);
+        }
+        return end;
+    }
+    
+    private static final class Entry<T> {
+        private final long sequence;
+        private final T value;
+        
+        Entry(long sequence, T value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
+}
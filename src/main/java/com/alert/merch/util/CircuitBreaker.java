@@ -0,0 +1,120 @@
+package com.alert.merch.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 简单熔断器
+ * 连续失败达到阈值后熔断，熔断期间拒绝请求；到期后只放行一个探测请求（探测结束前其他调用方仍被拒绝），
+ * 探测失败则熔断时长翻倍（不超过上限），探测成功则恢复
+ */
+@Slf4j
+public class CircuitBreaker {
+    
+    public enum State {
+        CLOSED(0), HALF_OPEN(1), OPEN(2);
+        
+        private final int code;
+        
+        State(int code) {
+            this.code = code;
+        }
+        
+        public int getCode() {
+            return code;
+        }
+    }
+    
+    private final String name;
+    private final int failureThreshold;
+    private final Duration baseOpenDuration;
+    private final Duration maxOpenDuration;
+    
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private int openCount = 0;
+    private LocalDateTime nextAttemptTime;
+    // 半开状态下已放行、尚未记录结果的探测请求
+    private boolean probeInFlight = false;
+    private LocalDateTime probeStartTime;
+    
+    public CircuitBreaker(String name, int failureThreshold, Duration baseOpenDuration, Duration maxOpenDuration) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.baseOpenDuration = baseOpenDuration;
+        this.maxOpenDuration = maxOpenDuration;
+    }
+    
+    /**
+     * 是否允许发起请求，熔断到期时转为半开并只放行一个探测请求
+     * 放行后调用方必须调用 recordSuccess 或 recordFailure；探测超过熔断时长上限仍无结果（如调用线程被放弃）时放行新的探测
+     */
+    public synchronized boolean allowRequest() {
+        LocalDateTime now = LocalDateTime.now();
+        if (state == State.OPEN && !now.isBefore(nextAttemptTime)) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+            log.info("熔断器[{}]进入半开状态，放行探测请求", name);
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN
+            && (!probeInFlight || !now.isBefore(probeStartTime.plus(maxOpenDuration)))) {
+            probeInFlight = true;
+            probeStartTime = now;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 记录请求成功
+     */
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            log.info("熔断器[{}]探测成功，恢复正常", name);
+        }
+        state = State.CLOSED;
+        probeInFlight = false;
+        consecutiveFailures = 0;
+        openCount = 0;
+        nextAttemptTime = null;
+    }
+    
+    /**
+     * 记录请求失败，达到阈值或半开探测失败时熔断
+     */
+    public synchronized void recordFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            Duration openDuration = baseOpenDuration.multipliedBy(1L << Math.min(openCount, 16));
+            if (openDuration.compareTo(maxOpenDuration) > 0) {
+                openDuration = maxOpenDuration;
+            }
+            openCount++;
+            state = State.OPEN;
+            nextAttemptTime = LocalDateTime.now().plus(openDuration);
+            log.warn("熔断器[{}]已熔断，连续失败{}次，{}秒后重试", name, consecutiveFailures, openDuration.getSeconds());
+        }
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+    
+    public synchronized LocalDateTime getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+    
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,28 @@
+package com.alert.merch.util;
+
+/**
+ * 检查周期中被追踪的阶段
+ */
+public enum CycleStage {
+    
+    DAILY_STATS("dailyStats"),       // 每日统计（9点）
+    TODAY_STATS("todayStats"),       // 当天入网人数统计（含查询）
+    QUERY("query"),                  // 任务查询（流式读取，包含逐行映射）
+    MAPPING("mapping"),              // 逐行映射为列式任务表的累计耗时
+    INDEX("index"),                  // 同步任务索引和快照录制
+    CLASSIFICATION("classification"), // 超时分类
+    PERSISTENCE("persistence"),      // 超时任务记录及定期落盘
+    ENRICHMENT("enrichment"),        // 告警流程补充商户名称和渠道（缓存未命中时批量查询）
+    WEBHOOK("webhook"),              // 告警组装与入队
+    WEBHOOK_SEND("webhookSend");     // 告警实际发送（异步，归属于入队的周期）
+    
+    private final String label;
+    
+    CycleStage(String label) {
+        this.label = label;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,183 @@
+package com.alert.merch.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 检查周期追踪环形缓冲区
+ * 启动时预分配固定数量的槽位，每个槽位按阶段保存累计耗时、次数和处理条数，
+ * 记录路径只做数组写入，不分配对象；超过容量后覆盖最早的周期
+ */
+public class CycleTraceBuffer {
+    
+    private static final int STAGE_COUNT = CycleStage.values().length;
+    
+    private final Slot[] slots;
+    // begin()由调度线程串行调用（fixedDelay周期不会重叠，但不保证是同一个线程），
+    // snapshot()在HTTP线程中读取，需要volatile保证可见性
+    private volatile long sequence;
+    private volatile Slot current;
+    
+    public CycleTraceBuffer(int capacity) {
+        slots = new Slot[Math.max(1, capacity)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+    }
+    
+    /**
+     * 开始一个新周期，覆盖最早的槽位
+     *
+     * @return 周期编号
+     */
+    public long begin(long startEpochMillis) {
+        long cycleId = ++sequence;
+        Slot slot = slots[(int) ((cycleId - 1) % slots.length)];
+        slot.cycleId = 0; // 重置期间读取方视为无效
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            slot.nanos.set(i, 0);
+            slot.calls.set(i, 0);
+            slot.items.set(i, 0);
+        }
+        slot.startEpochMillis = startEpochMillis;
+        slot.startNanos = System.nanoTime();
+        slot.totalNanos = -1;
+        slot.success = false;
+        slot.cycleId = cycleId;
+        current = slot;
+        return cycleId;
+    }
+    
+    /**
+     * 当前周期编号，没有进行中的周期时返回0
+     */
+    public long currentCycleId() {
+        Slot slot = current;
+        return slot != null ? slot.cycleId : 0;
+    }
+    
+    /**
+     * 记录当前周期的一个阶段，从 startNanos 计到现在，同一阶段多次记录时累加
+     */
+    public void record(CycleStage stage, long startNanos, long items) {
+        Slot slot = current;
+        if (slot != null) {
+            add(slot, stage, System.nanoTime() - startNanos, items);
+        }
+    }
+    
+    /**
+     * 为当前周期的阶段累加已测得的耗时（用于在其他线程中分段计时的阶段）
+     */
+    public void add(CycleStage stage, long elapsedNanos, long items) {
+        Slot slot = current;
+        if (slot != null) {
+            add(slot, stage, elapsedNanos, items);
+        }
+    }
+    
+    /**
+     * 记录指定周期的阶段耗时（用于异步完成的阶段），该周期已被覆盖时忽略
+     */
+    public void recordFor(long cycleId, CycleStage stage, long elapsedNanos, long items) {
+        if (cycleId <= 0) {
+            return;
+        }
+        Slot slot = slots[(int) ((cycleId - 1) % slots.length)];
+        if (slot.cycleId == cycleId) {
+            add(slot, stage, elapsedNanos, items);
+        }
+    }
+    
+    /**
+     * 结束当前周期
+     *
+     * @return 周期总耗时（纳秒）
+     */
+    public long end(boolean success) {
+        Slot slot = current;
+        if (slot == null) {
+            return 0;
+        }
+        slot.success = success;
+        slot.totalNanos = System.nanoTime() - slot.startNanos;
+        current = null;
+        return slot.totalNanos;
+    }
+    
+    private static void add(Slot slot, CycleStage stage, long elapsedNanos, long items) {
+        int index = stage.ordinal();
+        slot.nanos.addAndGet(index, elapsedNanos);
+        slot.calls.incrementAndGet(index);
+        slot.items.addAndGet(index, items);
+    }
+    
+    /**
+     * 复制最近的周期记录，最新的在前
+     *
+     * @param limit 最多返回的周期数
+     */
+    public List<Map<String, Object>> snapshot(int limit) {
+        List<Map<String, Object>> cycles = new ArrayList<>();
+        long last = sequence;
+        for (long cycleId = last; cycleId > 0 && cycleId > last - slots.length && cycles.size() < limit; cycleId--) {
+            Map<String, Object> cycle = snapshotOf(cycleId);
+            if (cycle != null) {
+                cycles.add(cycle);
+            }
+        }
+        return cycles;
+    }
+    
+    /**
+     * 复制单个周期的记录，该周期已被覆盖时返回null
+     */
+    public Map<String, Object> snapshotOf(long cycleId) {
+        Slot slot = slots[(int) ((cycleId - 1) % slots.length)];
+        if (slot.cycleId != cycleId) {
+            return null;
+        }
+        long totalNanos = slot.totalNanos;
+        Map<String, Object> cycle = new LinkedHashMap<>();
+        cycle.put("cycleId", cycleId);
+        cycle.put("startEpochMillis", slot.startEpochMillis);
+        cycle.put("running", totalNanos < 0);
+        cycle.put("success", slot.success);
+        cycle.put("durationMs", totalNanos < 0 ? (System.nanoTime() - slot.startNanos) / 1e6 : totalNanos / 1e6);
+        
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (CycleStage stage : CycleStage.values()) {
+            int index = stage.ordinal();
+            long calls = slot.calls.get(index);
+            if (calls == 0) {
+                continue;
+            }
+            Map<String, Object> stat = new LinkedHashMap<>();
+            stat.put("ms", slot.nanos.get(index) / 1e6);
+            stat.put("calls", calls);
+            stat.put("items", slot.items.get(index));
+            stages.put(stage.getLabel(), stat);
+        }
+        cycle.put("stages", stages);
+        // 读取期间槽位被覆盖则丢弃
+        return slot.cycleId == cycleId ? cycle : null;
+    }
+    
+    public int capacity() {
+        return slots.length;
+    }
+    
+    private static final class Slot {
+        private volatile long cycleId;
+        private volatile long startEpochMillis;
+        private volatile long startNanos;
+        private volatile long totalNanos;
+        private volatile boolean success;
+        private final AtomicLongArray nanos = new AtomicLongArray(STAGE_COUNT);
+        private final AtomicLongArray calls = new AtomicLongArray(STAGE_COUNT);
+        private final AtomicLongArray items = new AtomicLongArray(STAGE_COUNT);
+    }
+}
@@ -0,0 +1,267 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.DailyRollup;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 每日统计汇总
+ * 检查周期在分类时增量写入按创建日期分桶的汇总，日报直接读取某一天的计数，不再遍历超时任务；
+ * 汇总和最后一次日报的日期一起持久化，重启后可以补发错过的日报。
+ * 只有未结算的天（今天，以及日报发送前的昨天）保留精确的任务ID集合去重；日报发送后该天及更早的天结算为计数，
+ * 之后再出现的该天任务不再计入，持久化文件和内存只随未结算天的任务量增长
+ */
+public class DailyRollupStore {
+    
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final int windowStartHour;
+    private final int windowEndHour;
+    private final int retentionDays;
+    
+    private final TreeMap<LocalDate, DailyRollup> days = new TreeMap<>();
+    private LocalDate lastReportedDate;
+    
+    /**
+     * @param windowStartHour 统计时段开始（含），按任务创建时间
+     * @param windowEndHour 统计时段结束（不含）
+     * @param retentionDays 保留的天数，0表示不清理
+     */
+    public DailyRollupStore(Path file, ObjectMapper objectMapper, int windowStartHour, int windowEndHour, int retentionDays) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        this.windowStartHour = windowStartHour;
+        this.windowEndHour = windowEndHour;
+        this.retentionDays = retentionDays;
+    }
+    
+    /**
+     * 记录一条入网任务
+     *
+     * @return 是否为首次记录
+     */
+    public synchronized boolean recordTask(String taskId, LocalDateTime createTime) {
+        DailyRollup rollup = day(createTime);
+        if (rollup.isClosed() || !rollup.getTaskIds().add(taskId)) {
+            return false;
+        }
+        rollup.setTaskCount(rollup.getTaskCount() + 1);
+        return true;
+    }
+    
+    /**
+     * 记录一条超时未领取任务
+     *
+     * @return 是否为首次记录
+     */
+    public synchronized boolean recordUnclaimed(String taskId, LocalDateTime createTime) {
+        DailyRollup rollup = day(createTime);
+        if (rollup.isClosed() || !rollup.getUnclaimedIds().add(taskId)) {
+            return false;
+        }
+        rollup.setUnclaimedCount(rollup.getUnclaimedCount() + 1);
+        if (inWindow(createTime)) {
+            rollup.setUnclaimedInWindow(rollup.getUnclaimedInWindow() + 1);
+        }
+        return true;
+    }
+    
+    /**
+     * 记录一条超时未完成任务
+     *
+     * @return 是否为首次记录
+     */
+    public synchronized boolean recordUnfinished(String taskId, LocalDateTime createTime) {
+        DailyRollup rollup = day(createTime);
+        if (rollup.isClosed() || !rollup.getUnfinishedIds().add(taskId)) {
+            return false;
+        }
+        rollup.setUnfinishedCount(rollup.getUnfinishedCount() + 1);
+        if (inWindow(createTime)) {
+            rollup.setUnfinishedInWindow(rollup.getUnfinishedInWindow() + 1);
+        }
+        return true;
+    }
+    
+    /**
+     * 某天的汇总计数，没有数据时各项为0
+     */
+    public synchronized Map<String, Object> summary(LocalDate date) {
+        DailyRollup rollup = days.get(date);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("date", date.toString());
+        summary.put("totalTasks", rollup != null ? rollup.getTaskCount() : 0);
+        summary.put("unclaimedTimeouts", rollup != null ? rollup.getUnclaimedCount() : 0);
+        summary.put("unfinishedTimeouts", rollup != null ? rollup.getUnfinishedCount() : 0);
+        summary.put("unclaimedInWindow", rollup != null ? rollup.getUnclaimedInWindow() : 0);
+        summary.put("unfinishedInWindow", rollup != null ? rollup.getUnfinishedInWindow() : 0);
+        return summary;
+    }
+    
+    public synchronized int getTotalTasks(LocalDate date) {
+        DailyRollup rollup = days.get(date);
+        return rollup != null ? rollup.getTaskCount() : 0;
+    }
+    
+    /**
+     * 仍保留任务ID集合的各天（未结算）入网任务ID的副本
+     */
+    public synchronized Map<LocalDate, List<String>> getTaskIds() {
+        Map<LocalDate, List<String>> taskIds = new TreeMap<>();
+        days.forEach((date, rollup) -> {
+            if (!rollup.isClosed()) {
+                taskIds.put(date, new ArrayList<>(rollup.getTaskIds()));
+            }
+        });
+        return taskIds;
+    }
+    
+    public synchronized boolean hasData(LocalDate date) {
+        return days.containsKey(date);
+    }
+    
+    /**
+     * 需要发送的日报日期，到达日报时间前或前一天的日报已发送时返回null。
+     * 停机超过一天时，从最后一次日报之后最早的有汇总数据的一天开始逐天返回，补发完这些天后才返回前一天；
+     * 没有发送过日报时只返回前一天
+     */
+    public synchronized LocalDate pendingReportDate(LocalDateTime now, int reportHour) {
+        if (now.getHour() < reportHour) {
+            return null;
+        }
+        LocalDate yesterday = now.toLocalDate().minusDays(1);
+        if (lastReportedDate == null) {
+            return yesterday;
+        }
+        if (!lastReportedDate.isBefore(yesterday)) {
+            return null;
+        }
+        LocalDate missed = days.higherKey(lastReportedDate);
+        return missed != null && missed.isBefore(yesterday) ? missed : yesterday;
+    }
+    
+    /**
+     * 记录日报已发送，该天及更早的天结算为计数
+     */
+    public synchronized void markReported(LocalDate date) {
+        if (lastReportedDate == null || date.isAfter(lastReportedDate)) {
+            lastReportedDate = date;
+        }
+        closeReportedDays();
+        prune(date);
+    }
+    
+    /**
+     * 结算已发送日报的天（不晚于最后一次日报日期），丢弃任务ID集合只保留计数
+     *
+     * @return 本次结算的天数
+     */
+    public synchronized int closeReportedDays() {
+        if (lastReportedDate == null) {
+            return 0;
+        }
+        int closed = 0;
+        for (DailyRollup rollup : days.headMap(lastReportedDate, true).values()) {
+            if (!rollup.isClosed()) {
+                // 换成新集合而不是clear()，释放原集合的哈希表
+                rollup.setTaskIds(new HashSet<>());
+                rollup.setUnclaimedIds(new HashSet<>());
+                rollup.setUnfinishedIds(new HashSet<>());
+                rollup.setClosed(true);
+                closed++;
+            }
+        }
+        return closed;
+    }
+    
+    public synchronized LocalDate getLastReportedDate() {
+        return lastReportedDate;
+    }
+    
+    public synchronized void clear() {
+        days.clear();
+        lastReportedDate = null;
+    }
+    
+    /**
+     * 写入临时文件后替换，避免写入中途退出留下损坏的文件
+     */
+    public void save() throws IOException {
+        byte[] json;
+        synchronized (this) {
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("lastReportedDate", lastReportedDate != null ? lastReportedDate.toString() : null);
+            state.put("days", new ArrayList<>(days.values()));
+            json = objectMapper.writeValueAsString(state).getBytes(StandardCharsets.UTF_8);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(tmp, json);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    /**
+     * 加载持久化的汇总，文件不存在时为空
+     */
+    public synchronized void load() throws IOException {
+        days.clear();
+        lastReportedDate = null;
+        if (!Files.exists(file)) {
+            return;
+        }
+        Map<String, Object> state = objectMapper.readValue(Files.readAllBytes(file), new TypeReference<Map<String, Object>>() {});
+        Object reported = state.get("lastReportedDate");
+        lastReportedDate = reported != null ? LocalDate.parse(reported.toString()) : null;
+        List<DailyRollup> rollups = objectMapper.convertValue(state.get("days"), new TypeReference<List<DailyRollup>>() {});
+        if (rollups != null) {
+            for (DailyRollup rollup : rollups) {
+                if (!rollup.isClosed()) {
+                    // 未结算的天计数与集合一致（兼容只保存了集合的旧文件）
+                    rollup.setTaskCount(rollup.getTaskIds().size());
+                    rollup.setUnclaimedCount(rollup.getUnclaimedIds().size());
+                    rollup.setUnfinishedCount(rollup.getUnfinishedIds().size());
+                }
+                days.put(LocalDate.parse(rollup.getDate()), rollup);
+            }
+        }
+    }
+    
+    public synchronized int size() {
+        return days.size();
+    }
+    
+    private DailyRollup day(LocalDateTime createTime) {
+        LocalDate date = createTime.toLocalDate();
+        DailyRollup rollup = days.get(date);
+        if (rollup == null) {
+            rollup = new DailyRollup(date.toString());
+            days.put(date, rollup);
+        }
+        return rollup;
+    }
+    
+    private boolean inWindow(LocalDateTime createTime) {
+        int hour = createTime.getHour();
+        return hour >= windowStartHour && hour < windowEndHour;
+    }
+    
+    private void prune(LocalDate latest) {
+        if (retentionDays > 0) {
+            days.headMap(latest.minusDays(retentionDays)).clear();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.alert.merch.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 按天保存的去重计数草图
+ * 每天一个HyperLogLog草图，按任务创建日期写入，每天一个文件（precision=12 时约4KB）；
+ * 查询任意日期范围时把范围内的草图合并后估计，不需要保存任务ID集合。
+ * 持久化只写入有变化的天，并删除已过保留期或已清空的天的文件
+ */
+public class DistinctSketchStore {
+    
+    private static final String PREFIX = "tasks-";
+    private static final String SUFFIX = ".hll";
+    private static final int MAGIC = 0x484c4c31; // "HLL1"
+    
+    private final Path dir;
+    private final int precision;
+    private final int retentionDays;
+    
+    private final TreeMap<LocalDate, HyperLogLog> days = new TreeMap<>();
+    private final Set<LocalDate> dirty = new HashSet<>();
+    
+    /**
+     * @param precision HyperLogLog精度
+     * @param retentionDays 保留的天数，0表示不清理
+     */
+    public DistinctSketchStore(Path dir, int precision, int retentionDays) {
+        this.dir = dir;
+        this.precision = precision;
+        this.retentionDays = retentionDays;
+    }
+    
+    /**
+     * 记录一个任务ID
+     */
+    public synchronized void add(String taskId, LocalDate date) {
+        HyperLogLog sketch = days.get(date);
+        if (sketch == null) {
+            sketch = new HyperLogLog(precision);
+            days.put(date, sketch);
+            dirty.add(date);
+        }
+        if (sketch.add(taskId)) {
+            dirty.add(date);
+        }
+    }
+    
+    /**
+     * 估计 [from, to] 内（含两端）不同任务ID的个数
+     */
+    public synchronized long estimate(LocalDate from, LocalDate to) {
+        HyperLogLog merged = new HyperLogLog(precision);
+        for (HyperLogLog sketch : days.subMap(from, true, to, true).values()) {
+            merged.merge(sketch);
+        }
+        return merged.estimate();
+    }
+    
+    /**
+     * [from, to] 内有数据的天数
+     */
+    public synchronized int daysWithData(LocalDate from, LocalDate to) {
+        return days.subMap(from, true, to, true).size();
+    }
+    
+    public synchronized boolean hasDay(LocalDate date) {
+        return days.containsKey(date);
+    }
+    
+    /**
+     * 最早有数据的日期，没有数据时返回null
+     */
+    public synchronized LocalDate firstDate() {
+        return days.isEmpty() ? null : days.firstKey();
+    }
+    
+    public double getStandardError() {
+        return HyperLogLog.standardError(precision);
+    }
+    
+    public synchronized int size() {
+        return days.size();
+    }
+    
+    public synchronized void clear() {
+        days.clear();
+        dirty.clear();
+    }
+    
+    /**
+     * 写入有变化的天，删除内存中已不存在的天的文件；每个文件写入临时文件后替换
+     */
+    public void save() throws IOException {
+        Map<LocalDate, byte[]> changed = new LinkedHashMap<>();
+        Set<LocalDate> retained;
+        synchronized (this) {
+            prune();
+            for (LocalDate date : dirty) {
+                HyperLogLog sketch = days.get(date);
+                if (sketch != null) {
+                    changed.put(date, sketch.toBytes());
+                }
+            }
+            dirty.clear();
+            retained = new HashSet<>(days.keySet());
+        }
+        
+        Files.createDirectories(dir);
+        for (Map.Entry<LocalDate, byte[]> entry : changed.entrySet()) {
+            Path file = dir.resolve(PREFIX + entry.getKey() + SUFFIX);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(precision);
+                out.write(entry.getValue());
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        for (Path file : listFiles()) {
+            LocalDate date = parseDate(file);
+            if (date != null && !retained.contains(date)) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+    
+    /**
+     * 加载目录中的草图，精度与当前配置不同或格式错误的文件跳过
+     *
+     * @return 跳过的文件数
+     */
+    public synchronized int load() throws IOException {
+        days.clear();
+        dirty.clear();
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        int skipped = 0;
+        for (Path file : listFiles()) {
+            LocalDate date = parseDate(file);
+            HyperLogLog sketch = date != null ? readSketch(file) : null;
+            if (sketch == null) {
+                skipped++;
+                continue;
+            }
+            days.put(date, sketch);
+        }
+        return skipped;
+    }
+    
+    private HyperLogLog readSketch(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != precision) {
+                return null;
+            }
+            byte[] registers = new byte[1 << precision];
+            in.readFully(registers);
+            return HyperLogLog.of(precision, registers);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+    
+    private void prune() {
+        if (retentionDays > 0 && !days.isEmpty()) {
+            days.headMap(days.lastKey().minusDays(retentionDays)).clear();
+        }
+    }
+    
+    private List<Path> listFiles() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.list(dir)) {
+            return paths
+                .filter(path -> path.getFileName().toString().startsWith(PREFIX)
+                    && path.getFileName().toString().endsWith(SUFFIX))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+    
+    private static LocalDate parseDate(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return LocalDate.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskTable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 告警升级调度
+ * 每条超时任务只在按截止时间排序的集合中保留一个待处理项，截止时间取“下次重复提醒”和“升级到下一级”中较早者。
+ * 每个周期只弹出已到期的项，不需要遍历全部任务和全部级别
+ */
+public class EscalationSchedule {
+    
+    private static final Comparator<State> DEADLINE_ORDER =
+        Comparator.comparingLong((State state) -> state.deadline).thenComparing(state -> state.task.getTaskId());
+    
+    private final List<Level> levels;
+    private final Map<String, State> states = new HashMap<>();
+    private final TreeSet<State> queue = new TreeSet<>(DEADLINE_ORDER);
+    private long generation;
+    
+    public EscalationSchedule(List<Level> levels) {
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("升级阶梯不能为空");
+        }
+        for (int i = 1; i < levels.size(); i++) {
+            if (levels.get(i).afterSeconds <= levels.get(i - 1).afterSeconds) {
+                throw new IllegalArgumentException("升级阶梯的时间必须递增: " + levels.get(i).name);
+            }
+        }
+        this.levels = new ArrayList<>(levels);
+    }
+    
+    /**
+     * 按本周期的超时任务同步：新任务入队，已不再超时（已领取/已完成）的任务出队
+     */
+    public synchronized void sync(List<TaskInfo> tasks) {
+        long current = ++generation;
+        for (TaskInfo task : tasks) {
+            State state = states.get(task.getTaskId());
+            if (state == null) {
+                state = new State(task, TaskTable.toEpochSecond(task.getCreateTime()));
+                state.deadline = state.createEpochSecond + levels.get(0).afterSeconds;
+                states.put(task.getTaskId(), state);
+                queue.add(state);
+            } else {
+                state.task = task;
+            }
+            state.generation = current;
+        }
+        
+        states.values().removeIf(state -> {
+            if (state.generation == current) {
+                return false;
+            }
+            queue.remove(state);
+            return true;
+        });
+    }
+    
+    /**
+     * 弹出截止时间不晚于当前时间的项，并按通知结果重新排期
+     */
+    public synchronized List<Notification> pollDue(long nowEpochSecond) {
+        List<Notification> due = new ArrayList<>();
+        while (!queue.isEmpty() && queue.first().deadline <= nowEpochSecond) {
+            State state = queue.pollFirst();
+            long age = nowEpochSecond - state.createEpochSecond;
+            
+            // 跳到已满足时间条件的最高级别，长时间未处理的任务首次出现时直接升级
+            int level = state.level;
+            while (level + 1 < levels.size() && levels.get(level + 1).afterSeconds <= age) {
+                level++;
+            }
+            if (level > state.level) {
+                state.level = level;
+                state.notifyCount = 0;
+            } else {
+                state.notifyCount++;
+            }
+            due.add(new Notification(state.task, state.level, levels.get(state.level), state.notifyCount));
+            
+            state.deadline = nextDeadline(state, nowEpochSecond);
+            queue.add(state);
+        }
+        return due;
+    }
+    
+    private long nextDeadline(State state, long nowEpochSecond) {
+        Level level = levels.get(state.level);
+        long deadline = Long.MAX_VALUE;
+        if (level.renotifySeconds > 0) {
+            double interval = level.renotifySeconds * Math.pow(level.backoffMultiplier, state.notifyCount);
+            deadline = nowEpochSecond + (long) Math.min(interval, level.maxRenotifySeconds);
+        }
+        if (state.level + 1 < levels.size()) {
+            deadline = Math.min(deadline, state.createEpochSecond + levels.get(state.level + 1).afterSeconds);
+        }
+        return deadline;
+    }
+    
+    public synchronized int size() {
+        return states.size();
+    }
+    
+    /**
+     * 最早的截止时间，没有待处理项时返回Long.MAX_VALUE
+     */
+    public synchronized long nextDeadline() {
+        return queue.isEmpty() ? Long.MAX_VALUE : queue.first().deadline;
+    }
+    
+    /**
+     * 升级级别
+     */
+    public static final class Level {
+        private final String name;
+        private final String webhook;
+        private final long afterSeconds;
+        private final long renotifySeconds;
+        private final double backoffMultiplier;
+        private final long maxRenotifySeconds;
+        
+        public Level(String name, String webhook, long afterSeconds, long renotifySeconds,
+                     double backoffMultiplier, long maxRenotifySeconds) {
+            this.name = name;
+            this.webhook = webhook;
+            this.afterSeconds = afterSeconds;
+            this.renotifySeconds = renotifySeconds;
+            this.backoffMultiplier = Math.max(1.0, backoffMultiplier);
+            this.maxRenotifySeconds = Math.max(renotifySeconds, maxRenotifySeconds);
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getWebhook() {
+            return webhook;
+        }
+    }
+    
+    /**
+     * 一次到期的通知
+     */
+    public static final class Notification {
+        private final TaskInfo task;
+        private final int levelIndex;
+        private final Level level;
+        private final int notifyCount; // 当前级别的第几次重复提醒，0表示首次通知
+        
+        Notification(TaskInfo task, int levelIndex, Level level, int notifyCount) {
+            this.task = task;
+            this.levelIndex = levelIndex;
+            this.level = level;
+            this.notifyCount = notifyCount;
+        }
+        
+        public TaskInfo getTask() {
+            return task;
+        }
+        
+        public int getLevelIndex() {
+            return levelIndex;
+        }
+        
+        public Level getLevel() {
+            return level;
+        }
+        
+        public int getNotifyCount() {
+            return notifyCount;
+        }
+    }
+    
+    private static final class State {
+        private TaskInfo task;
+        private final long createEpochSecond;
+        private int level = -1;
+        private int notifyCount;
+        private long deadline;
+        private long generation;
+        
+        State(TaskInfo task, long createEpochSecond) {
+            this.task = task;
+            this.createEpochSecond = createEpochSecond;
+        }
+    }
+}
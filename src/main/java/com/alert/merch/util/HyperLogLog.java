@@ -0,0 +1,155 @@
+package com.alert.merch.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog基数估计
+ * 2^precision 个单字节寄存器（precision=12 时4KB），标准误差约 1.04/sqrt(2^precision)。
+ * 同一精度的草图可以逐寄存器取最大值合并，合并结果等于对全部元素直接估计，用于按天保存、按任意日期范围去重计数
+ */
+public class HyperLogLog {
+    
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+    
+    private final int precision;
+    private final byte[] registers;
+    
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("HyperLogLog精度必须在4到16之间: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+    
+    /**
+     * @param registers 寄存器内容，长度必须为 2^precision
+     */
+    public static HyperLogLog of(int precision, byte[] registers) {
+        HyperLogLog sketch = new HyperLogLog(precision);
+        if (registers.length != sketch.registers.length) {
+            throw new IllegalArgumentException("寄存器数与精度不符: " + registers.length);
+        }
+        System.arraycopy(registers, 0, sketch.registers, 0, registers.length);
+        return sketch;
+    }
+    
+    /**
+     * 加入一个元素
+     *
+     * @return 寄存器是否发生变化
+     */
+    public boolean add(String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - precision));
+        // 剩余位的前导零个数+1，低位补一个1使其不超过 64-precision+1
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 合并另一个草图（逐寄存器取最大值）
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("只能合并相同精度的草图: " + precision + " / " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+    
+    /**
+     * 估计不同元素的个数
+     * 使用 Ertl 的改进估计（按寄存器值的直方图迭代修正小基数和大基数两端），
+     * 不需要经验偏差表，在原始HyperLogLog估计偏高的 2.5m~5m 区间同样无明显偏差
+     */
+    public long estimate() {
+        int q = 64 - precision;
+        int m = registers.length;
+        int[] histogram = new int[q + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        double z = m * tau(1.0 - (double) histogram[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma((double) histogram[0] / m);
+        return Math.round(m * (double) m / (2 * Math.log(2) * z));
+    }
+    
+    public int getPrecision() {
+        return precision;
+    }
+    
+    /**
+     * 寄存器内容的副本，用于持久化
+     */
+    public byte[] toBytes() {
+        return registers.clone();
+    }
+    
+    /**
+     * 给定精度下的相对标准误差
+     */
+    public static double standardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+    
+    private static double sigma(double x) {
+        if (x == 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1.0;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+    
+    private static double tau(double x) {
+        if (x == 0.0 || x == 1.0) {
+            return 0.0;
+        }
+        double y = 1.0;
+        double z = 1.0 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1.0 - x) * (1.0 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+    
+    /**
+     * 64位FNV-1a哈希，再用MurmurHash3的fmix64充分混合，连续的数字ID也能均匀分布到高位
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,91 @@
+package com.alert.merch.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 容量有界、带过期时间的LRU缓存
+ * 按访问顺序维护（LinkedHashMap accessOrder），超过容量时淘汰最久未访问的条目；
+ * 写入超过TTL的条目在读取时视为未命中并移除。方法级同步，读写都很短，可在检查线程和告警组装中共用
+ */
+public class LruCache<K, V> {
+    
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+    
+    private long evictions = 0;
+    
+    public LruCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+    
+    /**
+     * @param nanoTime 单调时间来源（纳秒），测试中可替换
+     */
+    public LruCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * 读取未过期的值并标记为最近访问，不存在或已过期时返回null
+     */
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nanoTime.getAsLong() - entry.loadedNanos >= ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+    
+    /**
+     * 写入值，过期时间从写入时开始计算
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, new CacheEntry<>(value, nanoTime.getAsLong()));
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    /**
+     * 因超过容量淘汰的条目数（不含过期移除）
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long loadedNanos;
+        
+        CacheEntry(V value, long loadedNanos) {
+            this.value = value;
+            this.loadedNanos = loadedNanos;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.alert.merch.util;
 
+import com.alert.merch.config.DialectDatabaseIdProvider;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -22,21 +27,32 @@ public class OceanBaseUtil {
     @Autowired
     private DataSource dataSource;
     
+    // 延迟创建，首次连接数据库成功时才确定方言
+    @Autowired
+    private ObjectProvider<SqlSessionFactory> sqlSessionFactoryProvider;
+    
     /**
      * 获取OceanBase数据库信息
+     * 版本、库名和用户取自JDBC元数据，Oracle模式、MySQL模式和H2下都可用
      */
     public Map<String, Object> getDatabaseInfo() {
         Map<String, Object> info = new HashMap<>();
         
         try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            
             // 获取数据库版本
-            info.put("version", getDatabaseVersion(connection));
+            info.put("version", getDatabaseVersion(connection, metaData));
             
-            // 获取数据库名称
-            info.put("database", getDatabaseName(connection));
+            // 获取数据库名称（Oracle模式下没有catalog，取schema）
+            String catalog = connection.getCatalog();
+            info.put("database", catalog != null && !catalog.isEmpty() ? catalog : connection.getSchema());
             
             // 获取当前用户
-            info.put("user", getCurrentUser(connection));
+            info.put("user", metaData.getUserName());
+            
+            // 映射文件使用的方言
+            info.put("databaseId", databaseId());
             
             // 获取连接信息
             info.put("connectionInfo", getConnectionInfo(connection));
@@ -50,57 +66,32 @@ public class OceanBaseUtil {
     }
     
     /**
-     * 获取数据库版本
+     * 获取数据库版本，OceanBase优先取OB_VERSION()（两种模式都支持），失败时取JDBC元数据中的版本
      */
-    private String getDatabaseVersion(Connection connection) {
-        try (PreparedStatement stmt = connection.prepareStatement("SELECT VERSION() FROM DUAL");
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                return rs.getString(1);
-            }
-        } catch (SQLException e) {
-            log.warn("无法获取数据库版本，尝试其他方式", e);
-            // 尝试OceanBase特有的版本查询
+    private String getDatabaseVersion(Connection connection, DatabaseMetaData metaData) throws SQLException {
+        if (!DialectDatabaseIdProvider.H2.equals(databaseId())) {
             try (PreparedStatement stmt = connection.prepareStatement("SELECT OB_VERSION() FROM DUAL");
                  ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getString(1);
+                    return "OceanBase " + rs.getString(1);
                 }
-            } catch (SQLException e2) {
-                log.warn("无法获取OceanBase版本", e2);
-            }
-        }
-        return "Unknown";
-    }
-    
-    /**
-     * 获取数据库名称
-     */
-    private String getDatabaseName(Connection connection) {
-        try (PreparedStatement stmt = connection.prepareStatement("SELECT DATABASE() FROM DUAL");
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                return rs.getString(1);
+            } catch (SQLException e) {
+                log.debug("无法获取OceanBase版本，使用JDBC元数据中的版本", e);
             }
-        } catch (SQLException e) {
-            log.warn("无法获取数据库名称", e);
         }
-        return "Unknown";
+        return metaData.getDatabaseProductName() + " " + metaData.getDatabaseProductVersion();
     }
     
     /**
-     * 获取当前用户
+     * 映射文件使用的方言，SqlSessionFactory 无法创建（数据库不可达）时返回null
      */
-    private String getCurrentUser(Connection connection) {
-        try (PreparedStatement stmt = connection.prepareStatement("SELECT USER() FROM DUAL");
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                return rs.getString(1);
-            }
-        } catch (SQLException e) {
-            log.warn("无法获取当前用户", e);
+    private String databaseId() {
+        try {
+            return sqlSessionFactoryProvider.getObject().getConfiguration().getDatabaseId();
+        } catch (BeansException e) {
+            log.warn("无法创建SqlSessionFactory: {}", e.getMessage());
+            return null;
         }
-        return "Unknown";
     }
     
     /**
@@ -0,0 +1,102 @@
+package com.alert.merch.util;
+
+/**
+ * 等待最久的前K个元素
+ * 以创建时间为键的有界大顶堆，堆顶是当前保留的K个中最晚创建的一个，新元素比堆顶更早时替换堆顶。
+ * 一次遍历 n 个元素为 O(n log k)，不需要对全部元素排序；元素以行号（或下标）表示，不分配对象
+ */
+public class OldestTopK {
+    
+    private final int[] rows;
+    private final long[] keys;
+    private int size;
+    
+    /**
+     * @param k 保留的元素数，0表示不保留
+     */
+    public OldestTopK(int k) {
+        this.rows = new int[Math.max(0, k)];
+        this.keys = new long[Math.max(0, k)];
+    }
+    
+    /**
+     * 提交一个元素，创建时间相同时行号小的优先保留
+     *
+     * @param row 行号或下标
+     * @param createEpochSecond 创建时间（秒级时间戳）
+     */
+    public void offer(int row, long createEpochSecond) {
+        if (size < rows.length) {
+            siftUp(size++, row, createEpochSecond);
+        } else if (size > 0 && before(createEpochSecond, row, keys[0], rows[0])) {
+            siftDown(rows, keys, size, row, createEpochSecond);
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 按创建时间从早到晚返回保留的行号，O(k log k)
+     */
+    public int[] sortedRows() {
+        int[] heapRows = rows.clone();
+        long[] heapKeys = keys.clone();
+        // 堆排序：依次把堆顶（最晚）换到末尾，得到从早到晚的顺序
+        for (int end = size - 1; end > 0; end--) {
+            int row = heapRows[end];
+            long key = heapKeys[end];
+            heapRows[end] = heapRows[0];
+            heapKeys[end] = heapKeys[0];
+            siftDown(heapRows, heapKeys, end, row, key);
+        }
+        int[] sorted = new int[size];
+        System.arraycopy(heapRows, 0, sorted, 0, size);
+        return sorted;
+    }
+    
+    private void siftUp(int index, int row, long key) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(keys[parent], rows[parent], key, row)) {
+                break;
+            }
+            rows[index] = rows[parent];
+            keys[index] = keys[parent];
+            index = parent;
+        }
+        rows[index] = row;
+        keys[index] = key;
+    }
+    
+    /**
+     * 把新元素放到堆顶位置并下沉，子节点逐层上移填补空位，每层只写一次
+     */
+    private static void siftDown(int[] rows, long[] keys, int end, int row, long key) {
+        int index = 0;
+        int half = end >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < end && before(keys[child], rows[child], keys[right], rows[right])) {
+                child = right;
+            }
+            if (!before(key, row, keys[child], rows[child])) {
+                break;
+            }
+            rows[index] = rows[child];
+            keys[index] = keys[child];
+            index = child;
+        }
+        rows[index] = row;
+        keys[index] = key;
+    }
+    
+    /**
+     * a 是否排在 b 之前（更早创建，同一时间行号更小）
+     */
+    private static boolean before(long keyA, int rowA, long keyB, int rowB) {
+        return keyA < keyB || (keyA == keyB && rowA < rowB);
+    }
+}
@@ -0,0 +1,96 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskTable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 按创建时间分区的并行范围查询
+ * 把 [from, 不限) 切成若干连续子区间，每个子区间一条查询、一个连接，在有界线程池上并发执行，
+ * 结果按子区间顺序合并为一张任务表。任一分区失败时取消其余分区并抛出异常
+ */
+public class PartitionedRangeScanner {
+    
+    /**
+     * 单个分区的查询
+     */
+    public interface RangeScan {
+        /**
+         * @param from 创建时间下限（含）
+         * @param to 创建时间上限（不含），null表示不限
+         * @param sink 该分区的结果表
+         */
+        void scan(LocalDateTime from, LocalDateTime to, TaskTable sink);
+    }
+    
+    private final ExecutorService executor;
+    
+    public PartitionedRangeScanner(ExecutorService executor) {
+        this.executor = executor;
+    }
+    
+    /**
+     * 将 [from, until) 按分钟对齐均分为 partitions 段，最后一段上限不限（包含 until 之后创建的任务）
+     *
+     * @return 每段的 [下限, 上限]，上限为null表示不限
+     */
+    public static List<LocalDateTime[]> split(LocalDateTime from, LocalDateTime until, int partitions) {
+        List<LocalDateTime[]> ranges = new ArrayList<>();
+        long totalMinutes = Math.max(0, Duration.between(from, until).toMinutes());
+        int count = (int) Math.max(1, Math.min(partitions, totalMinutes));
+        LocalDateTime lower = from;
+        for (int i = 1; i < count; i++) {
+            LocalDateTime upper = from.plus(totalMinutes * i / count, ChronoUnit.MINUTES);
+            ranges.add(new LocalDateTime[]{lower, upper});
+            lower = upper;
+        }
+        ranges.add(new LocalDateTime[]{lower, null});
+        return ranges;
+    }
+    
+    /**
+     * 并行查询各分区并按顺序合并
+     *
+     * @param expectedRows 预计总行数，用于预分配合并结果
+     */
+    public TaskTable scan(LocalDateTime from, LocalDateTime until, int partitions, int expectedRows, RangeScan rangeScan) {
+        List<LocalDateTime[]> ranges = split(from, until, partitions);
+        int rowsPerPartition = Math.max(16, expectedRows / ranges.size());
+        
+        List<Future<TaskTable>> futures = new ArrayList<>(ranges.size());
+        for (LocalDateTime[] range : ranges) {
+            futures.add(executor.submit(() -> {
+                TaskTable sink = new TaskTable(rowsPerPartition);
+                rangeScan.scan(range[0], range[1], sink);
+                return sink;
+            }));
+        }
+        
+        TaskTable merged = new TaskTable(Math.max(expectedRows, 256));
+        try {
+            for (Future<TaskTable> future : futures) {
+                merged.addAll(future.get());
+            }
+            return merged;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("分区查询被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("分区查询失败", cause);
+        } finally {
+            // 失败或中断时取消尚未完成的分区，正在执行的查询随线程中断或语句超时结束
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+}
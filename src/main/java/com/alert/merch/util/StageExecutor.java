@@ -0,0 +1,199 @@
+package com.alert.merch.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单线程阶段执行器
+ * 每个阶段一个工作线程和一个有界交接队列，同一阶段的工作按提交顺序串行执行，阶段之间互不阻塞。
+ * 队列满时定时触发的工作直接跳过（下一次触发会做同样的事），不能丢的交接工作由提交方线程执行，形成背压。
+ * inline模式下提交即在调用方线程执行，回放时保持与单线程周期相同的确定性顺序
+ */
+@Slf4j
+public class StageExecutor {
+    
+    /**
+     * 每项工作完成后的回调，用于记录指标
+     */
+    public interface Listener {
+        /**
+         * @param waitNanos 在队列中等待的时间
+         * @param runNanos 执行时间
+         * @param success 是否正常完成
+         */
+        void onCompleted(long waitNanos, long runNanos, boolean success);
+    }
+    
+    private final String name;
+    private final boolean inline;
+    private final BlockingQueue<Work> queue;
+    private final Listener listener;
+    private final Thread worker;
+    
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong callerRuns = new AtomicLong();
+    private volatile long lastRunNanos;
+    private volatile boolean running = true;
+    
+    /**
+     * @param name 阶段名称，也用于线程名 pipeline-名称
+     * @param capacity 交接队列容量
+     * @param inline 是否在调用方线程直接执行
+     */
+    public StageExecutor(String name, int capacity, boolean inline, Listener listener) {
+        this.name = name;
+        this.inline = inline;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.listener = listener;
+        if (inline) {
+            worker = null;
+        } else {
+            worker = new Thread(this::runWorker, "pipeline-" + name);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+    
+    /**
+     * 提交可以跳过的工作（定时触发），队列已满时放弃
+     *
+     * @return 是否已接受
+     */
+    public boolean offer(Runnable task) {
+        if (inline) {
+            run(task, System.nanoTime());
+            return true;
+        }
+        if (!running || !queue.offer(new Work(task, System.nanoTime()))) {
+            skipped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 提交不能丢的工作（阶段间交接），队列已满时在调用方线程执行
+     *
+     * @return 是否进入了队列，false表示已在调用方线程执行完
+     */
+    public boolean handoff(Runnable task) {
+        long submitNanos = System.nanoTime();
+        if (!inline && running && queue.offer(new Work(task, submitNanos))) {
+            return true;
+        }
+        if (!inline) {
+            callerRuns.incrementAndGet();
+            log.warn("阶段[{}]交接队列已满（{}条），由提交方线程执行", name, queue.size());
+        }
+        run(task, submitNanos);
+        return false;
+    }
+    
+    private void runWorker() {
+        while (running || !queue.isEmpty()) {
+            Work work;
+            try {
+                work = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (work != null) {
+                run(work.task, work.submitNanos);
+            }
+        }
+    }
+    
+    private void run(Runnable task, long submitNanos) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            task.run();
+            success = true;
+        } catch (Exception e) {
+            log.error("阶段[{}]执行异常", name, e);
+        } finally {
+            long runNanos = System.nanoTime() - start;
+            lastRunNanos = runNanos;
+            (success ? completed : failed).incrementAndGet();
+            if (listener != null) {
+                listener.onCompleted(start - submitNanos, runNanos, success);
+            }
+        }
+    }
+    
+    /**
+     * 停止接收新工作，等待已入队的工作执行完
+     *
+     * @return 是否在时限内执行完
+     */
+    public boolean shutdown(long timeoutMillis) {
+        running = false;
+        if (worker == null) {
+            return true;
+        }
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !worker.isAlive();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public boolean isInline() {
+        return inline;
+    }
+    
+    /**
+     * 当前排队的工作数
+     */
+    public int depth() {
+        return queue.size();
+    }
+    
+    public long getCompleted() {
+        return completed.get();
+    }
+    
+    public long getFailed() {
+        return failed.get();
+    }
+    
+    /**
+     * 队列已满而跳过的定时工作数
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+    
+    /**
+     * 队列已满而由提交方执行的交接工作数
+     */
+    public long getCallerRuns() {
+        return callerRuns.get();
+    }
+    
+    public long getLastRunMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastRunNanos);
+    }
+    
+    private static final class Work {
+        private final Runnable task;
+        private final long submitNanos;
+        
+        Work(Runnable task, long submitNanos) {
+            this.task = task;
+            this.submitNanos = submitNanos;
+        }
+    }
+}
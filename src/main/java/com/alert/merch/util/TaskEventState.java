@@ -0,0 +1,204 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskEvent;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskTable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 由推送事件维护的内存任务状态
+ * 每个任务记录最后应用的事件序号，重复投递和乱序到达的旧事件被忽略；完成的任务保留墓碑，
+ * 防止迟到的创建事件把它重新加入。定期用数据库查询结果对账，修正漏收的事件
+ */
+public class TaskEventState {
+    
+    /**
+     * 单个事件的处理结果
+     */
+    public enum Outcome {
+        APPLIED, DUPLICATE, INVALID
+    }
+    
+    // 两次读取之间最多保留的已完成任务数
+    private static final int MAX_COMPLETED = 100_000;
+    
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final List<TaskInfo> completed = new ArrayList<>();
+    // 每应用一个事件加1，用于对账时区分查询开始后才到达的事件
+    private long version;
+    
+    /**
+     * 应用一个事件
+     */
+    public synchronized Outcome apply(TaskEvent event) {
+        if (event.getTaskId() == null || event.getType() == null) {
+            return Outcome.INVALID;
+        }
+        Entry entry = entries.get(event.getTaskId());
+        if (entry != null && event.getSequence() <= entry.sequence) {
+            return Outcome.DUPLICATE;
+        }
+        TaskInfo previous = entry != null ? entry.task : null;
+        
+        TaskInfo task;
+        switch (event.getType()) {
+            case TaskEvent.CREATED:
+                if (event.getCreateTime() == null) {
+                    return Outcome.INVALID;
+                }
+                task = toTask(event, event.getCreateTime(), "unclaimed", previous);
+                break;
+            case TaskEvent.ASSIGNED:
+                LocalDateTime createTime = event.getCreateTime() != null ? event.getCreateTime()
+                    : previous != null ? previous.getCreateTime() : null;
+                if (createTime == null) {
+                    // 未知任务且没有创建时间，等待对账补齐
+                    return Outcome.INVALID;
+                }
+                task = toTask(event, createTime, "unfinished", previous);
+                task.setAssignee(event.getAssignee() != null ? event.getAssignee()
+                    : previous != null ? previous.getAssignee() : null);
+                break;
+            case TaskEvent.COMPLETED:
+                task = null;
+                if (previous != null && completed.size() < MAX_COMPLETED) {
+                    completed.add(previous);
+                }
+                break;
+            default:
+                return Outcome.INVALID;
+        }
+        
+        String procKey = event.getProcKey() != null ? event.getProcKey() : entry != null ? entry.procKey : null;
+        entries.put(event.getTaskId(), new Entry(task, procKey, event.getSequence(), ++version));
+        return Outcome.APPLIED;
+    }
+    
+    /**
+     * 当前版本号，对账前在查询数据库之前读取
+     */
+    public synchronized long version() {
+        return version;
+    }
+    
+    /**
+     * 用数据库查询结果对账
+     * 版本号不晚于 sinceVersion 的状态以数据库为准：数据库中有而状态中没有（或状态不同）的任务补入，
+     * 状态中有而数据库中没有的任务（漏收完成事件）以及过期的墓碑移除；查询开始后到达的事件保留
+     *
+     * @param table 数据库查询结果，与 procKey 对应
+     * @param sinceVersion 查询开始前读取的版本号
+     * @return 修正的任务数
+     */
+    public synchronized int reconcile(TaskTable table, String procKey, long sinceVersion) {
+        int corrections = 0;
+        Set<String> seen = new HashSet<>(table.size() * 2);
+        for (int row = 0; row < table.size(); row++) {
+            TaskInfo task = table.toTaskInfo(row);
+            seen.add(task.getTaskId());
+            Entry entry = entries.get(task.getTaskId());
+            if (entry != null && entry.appliedVersion > sinceVersion) {
+                continue;
+            }
+            if (entry == null || entry.task == null || !task.getType().equals(entry.task.getType())) {
+                corrections++;
+            }
+            entries.put(task.getTaskId(), new Entry(task, procKey, entry != null ? entry.sequence : 0, sinceVersion));
+        }
+        
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> item = iterator.next();
+            Entry entry = item.getValue();
+            if (seen.contains(item.getKey()) || entry.appliedVersion > sinceVersion
+                    || (entry.procKey != null && !entry.procKey.equals(procKey))) {
+                continue;
+            }
+            if (entry.task != null) {
+                corrections++;
+            }
+            iterator.remove();
+        }
+        return corrections;
+    }
+    
+    /**
+     * 当前未完成的任务
+     *
+     * @param createdFrom 创建时间下限（含）
+     * @param procKey 流程键，事件未携带流程键的任务视为匹配
+     * @param taskKeys 任务节点键
+     */
+    public synchronized List<TaskInfo> tasks(LocalDateTime createdFrom, String procKey, Collection<String> taskKeys) {
+        List<TaskInfo> tasks = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.task != null && matches(entry.task, entry.procKey, createdFrom, procKey, taskKeys)) {
+                tasks.add(entry.task);
+            }
+        }
+        return tasks;
+    }
+    
+    /**
+     * 取出上次调用以来完成的任务
+     */
+    public synchronized List<TaskInfo> drainCompleted(LocalDateTime createdFrom, Collection<String> taskKeys) {
+        List<TaskInfo> drained = new ArrayList<>();
+        for (TaskInfo task : completed) {
+            if (matches(task, null, createdFrom, null, taskKeys)) {
+                drained.add(task);
+            }
+        }
+        completed.clear();
+        return drained;
+    }
+    
+    /**
+     * 未完成的任务数
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.task != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+    
+    private static boolean matches(TaskInfo task, String taskProcKey, LocalDateTime createdFrom,
+                                   String procKey, Collection<String> taskKeys) {
+        return !task.getCreateTime().isBefore(createdFrom)
+            && (procKey == null || taskProcKey == null || procKey.equals(taskProcKey))
+            && (taskKeys == null || taskKeys.contains(task.getTaskKey()));
+    }
+    
+    private static TaskInfo toTask(TaskEvent event, LocalDateTime createTime, String type, TaskInfo previous) {
+        TaskInfo task = new TaskInfo(event.getTaskId(), createTime, type);
+        task.setTaskKey(event.getTaskKey() != null ? event.getTaskKey() : previous != null ? previous.getTaskKey() : null);
+        return task;
+    }
+    
+    private static final class Entry {
+        private final TaskInfo task; // null表示已完成（墓碑）
+        private final String procKey;
+        private final long sequence;
+        private final long appliedVersion;
+        
+        Entry(TaskInfo task, String procKey, long sequence, long appliedVersion) {
+            this.task = task;
+            this.procKey = procKey;
+            this.sequence = sequence;
+            this.appliedVersion = appliedVersion;
+        }
+    }
+}
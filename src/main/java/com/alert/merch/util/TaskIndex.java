@@ -0,0 +1,162 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskPage;
+import com.alert.merch.model.TaskTable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 当前任务的内存有序索引
+ * 以(创建时间, 任务ID)为键的并发跳表，每个检查周期按最新快照增量同步：
+ * 未变化的任务只更新周期号，新增或变化的任务重新写入，本周期未出现的任务删除。
+ * 查询按创建时间范围取子视图并用游标做键集分页，读取无需加锁，也不访问数据库
+ */
+public class TaskIndex {
+    
+    private static final Comparator<Key> KEY_ORDER =
+        Comparator.comparingLong((Key key) -> key.createEpochSecond).thenComparing(key -> key.taskId);
+    
+    private final ConcurrentSkipListMap<Key, Entry> byTime = new ConcurrentSkipListMap<>(KEY_ORDER);
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private long generation;
+    
+    /**
+     * 按最新一次查询结果同步索引
+     */
+    public synchronized void sync(TaskTable table) {
+        long current = ++generation;
+        for (int row = 0; row < table.size(); row++) {
+            String taskId = table.getTaskId(row);
+            long createEpochSecond = table.getCreateEpochSecond(row);
+            Entry existing = byId.get(taskId);
+            if (existing != null && existing.key.createEpochSecond == createEpochSecond
+                    && existing.status == table.getStatus(row)
+                    && Objects.equals(existing.task.getTaskKey(), table.getTaskKey(row))
+                    && Objects.equals(existing.task.getAssignee(), table.getAssignee(row))) {
+                existing.generation = current;
+                continue;
+            }
+            if (existing != null) {
+                byTime.remove(existing.key);
+            }
+            Entry entry = new Entry(new Key(createEpochSecond, taskId), table.toTaskInfo(row),
+                table.getStatus(row), current);
+            byId.put(taskId, entry);
+            byTime.put(entry.key, entry);
+        }
+        
+        byId.values().removeIf(entry -> {
+            if (entry.generation == current) {
+                return false;
+            }
+            byTime.remove(entry.key);
+            return true;
+        });
+    }
+    
+    public int size() {
+        return byId.size();
+    }
+    
+    /**
+     * 分页查询
+     *
+     * @param status 任务状态，null表示不限
+     * @param taskKey 任务节点键，null表示不限
+     * @param fromEpochSecond 创建时间下限（含）
+     * @param toEpochSecond 创建时间上限（含）
+     * @param newestFirst 是否按创建时间倒序（即按等待时长升序）
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param limit 每页条数
+     * @return 当前页及下一页游标
+     */
+    public TaskPage query(String status, String taskKey, long fromEpochSecond, long toEpochSecond,
+                          boolean newestFirst, String cursor, int limit) {
+        List<TaskInfo> tasks = new ArrayList<>(Math.min(limit, 256));
+        if (fromEpochSecond > toEpochSecond) {
+            return new TaskPage(tasks, null);
+        }
+        
+        byte statusCode = status != null ? TaskTable.encodeStatus(status) : TaskTable.STATUS_UNKNOWN;
+        NavigableMap<Key, Entry> range = byTime.subMap(
+            new Key(fromEpochSecond, ""), true, new Key(toEpochSecond + 1, ""), false);
+        if (newestFirst) {
+            range = range.descendingMap();
+        }
+        if (cursor != null) {
+            range = range.tailMap(parseCursor(cursor), false);
+        }
+        
+        Key last = null;
+        for (Entry entry : range.values()) {
+            if (status != null && entry.status != statusCode) {
+                continue;
+            }
+            if (taskKey != null && !taskKey.equals(entry.task.getTaskKey())) {
+                continue;
+            }
+            if (tasks.size() == limit) {
+                // 还有下一条匹配记录，返回游标
+                return new TaskPage(tasks, formatCursor(last));
+            }
+            tasks.add(entry.task);
+            last = entry.key;
+        }
+        return new TaskPage(tasks, null);
+    }
+    
+    /**
+     * 游标格式：创建时间秒级时间戳_任务ID
+     */
+    static String formatCursor(Key key) {
+        return key.createEpochSecond + "_" + key.taskId;
+    }
+    
+    static Key parseCursor(String cursor) {
+        int separator = cursor.indexOf('_');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+        try {
+            return new Key(Long.parseLong(cursor.substring(0, separator)), cursor.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+    }
+    
+    /**
+     * 跳表键：创建时间 + 任务ID
+     */
+    static final class Key {
+        private final long createEpochSecond;
+        private final String taskId;
+        
+        Key(long createEpochSecond, String taskId) {
+            this.createEpochSecond = createEpochSecond;
+            this.taskId = taskId;
+        }
+    }
+    
+    private static final class Entry {
+        private final Key key;
+        private final TaskInfo task;
+        private final byte status;
+        // 最近一次出现在快照中的周期号
+        private volatile long generation;
+        
+        Entry(Key key, TaskInfo task, byte status, long generation) {
+            this.key = key;
+            this.task = task;
+            this.status = status;
+            this.generation = generation;
+        }
+    }
+}
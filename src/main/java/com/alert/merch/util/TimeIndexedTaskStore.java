@@ -0,0 +1,196 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskInfo;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 按创建时间索引的任务存储
+ * 任务ID -> 任务的哈希表用于去重写入，(创建时间, 任务ID)有序跳表用于按时间范围取视图，
+ * 另有按分钟分桶的树状数组用于范围计数：整分钟部分O(log n)，两端不足一分钟的部分在跳表上扫描。
+ * 读取方法均返回只读视图，不复制数据
+ */
+public class TimeIndexedTaskStore {
+    
+    private static final Comparator<TimeKey> TIME_KEY_ORDER =
+        Comparator.comparing((TimeKey key) -> key.createTime).thenComparing(key -> key.taskId);
+    
+    private final Map<String, TaskInfo> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<TimeKey, TaskInfo> byTime = new ConcurrentSkipListMap<>(TIME_KEY_ORDER);
+    private final MinuteCounter minuteCounter = new MinuteCounter();
+    
+    /**
+     * 写入任务，同一任务ID重复写入时覆盖
+     */
+    public synchronized void put(TaskInfo task) {
+        TaskInfo previous = byId.put(task.getTaskId(), task);
+        if (previous != null) {
+            byTime.remove(new TimeKey(previous.getCreateTime(), previous.getTaskId()));
+            minuteCounter.add(epochMinute(previous.getCreateTime()), -1);
+        }
+        byTime.put(new TimeKey(task.getCreateTime(), task.getTaskId()), task);
+        minuteCounter.add(epochMinute(task.getCreateTime()), 1);
+    }
+    
+    /**
+     * 用给定数据替换全部内容
+     */
+    public synchronized void replaceAll(Map<String, TaskInfo> tasks) {
+        clear();
+        tasks.values().forEach(this::put);
+    }
+    
+    public synchronized void clear() {
+        byId.clear();
+        byTime.clear();
+        minuteCounter.clear();
+    }
+    
+    public int size() {
+        return byId.size();
+    }
+    
+    /**
+     * 任务ID -> 任务的只读视图
+     */
+    public Map<String, TaskInfo> asMap() {
+        return Collections.unmodifiableMap(byId);
+    }
+    
+    /**
+     * 创建时间在 [from, to) 内的任务只读视图，按创建时间升序
+     */
+    public Collection<TaskInfo> between(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(byTime.subMap(lowerKey(from), lowerKey(to)).values());
+    }
+    
+    /**
+     * 统计创建时间在 [from, to) 内的任务数
+     */
+    public synchronized int countBetween(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return 0;
+        }
+        LocalDateTime firstFullMinute = from.truncatedTo(ChronoUnit.MINUTES);
+        if (firstFullMinute.isBefore(from)) {
+            firstFullMinute = firstFullMinute.plusMinutes(1);
+        }
+        LocalDateTime lastMinuteStart = to.truncatedTo(ChronoUnit.MINUTES);
+        if (!firstFullMinute.isBefore(lastMinuteStart)) {
+            // 范围不足一个整分钟，直接在跳表上计数
+            return byTime.subMap(lowerKey(from), lowerKey(to)).size();
+        }
+        return byTime.subMap(lowerKey(from), lowerKey(firstFullMinute)).size()
+            + minuteCounter.count(epochMinute(firstFullMinute), epochMinute(lastMinuteStart) - 1)
+            + byTime.subMap(lowerKey(lastMinuteStart), lowerKey(to)).size();
+    }
+    
+    private static TimeKey lowerKey(LocalDateTime time) {
+        return new TimeKey(time, "");
+    }
+    
+    private static long epochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+    
+    /**
+     * 跳表键：创建时间 + 任务ID
+     */
+    private static final class TimeKey {
+        private final LocalDateTime createTime;
+        private final String taskId;
+        
+        TimeKey(LocalDateTime createTime, String taskId) {
+            this.createTime = createTime;
+            this.taskId = taskId;
+        }
+    }
+    
+    /**
+     * 按分钟分桶的树状数组，覆盖范围不够时整体重建
+     */
+    private static final class MinuteCounter {
+        private static final int INITIAL_BUCKETS = 8 * 24 * 60;
+        
+        private long baseMinute;
+        private int[] counts;
+        private int[] tree;
+        
+        void add(long minute, int delta) {
+            ensureRange(minute);
+            int index = (int) (minute - baseMinute);
+            counts[index] += delta;
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+        
+        /**
+         * 统计 [fromMinute, toMinute] 内的任务数
+         */
+        int count(long fromMinute, long toMinute) {
+            if (tree == null || fromMinute > toMinute) {
+                return 0;
+            }
+            return prefix(toMinute) - prefix(fromMinute - 1);
+        }
+        
+        void clear() {
+            counts = null;
+            tree = null;
+        }
+        
+        private int prefix(long minute) {
+            if (minute < baseMinute) {
+                return 0;
+            }
+            int sum = 0;
+            for (int i = (int) Math.min(minute - baseMinute + 1, tree.length - 1); i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+        
+        private void ensureRange(long minute) {
+            if (counts == null) {
+                // 首次写入时以该分钟为中心，前后各留出余量
+                baseMinute = minute - INITIAL_BUCKETS / 2;
+                counts = new int[INITIAL_BUCKETS];
+                tree = new int[INITIAL_BUCKETS + 1];
+                return;
+            }
+            if (minute >= baseMinute && minute < baseMinute + counts.length) {
+                return;
+            }
+            long newBase = Math.min(baseMinute, minute - INITIAL_BUCKETS / 4);
+            long newEnd = Math.max(baseMinute + counts.length, minute + INITIAL_BUCKETS / 4);
+            int[] newCounts = new int[Math.toIntExact(newEnd - newBase)];
+            System.arraycopy(counts, 0, newCounts, (int) (baseMinute - newBase), counts.length);
+            baseMinute = newBase;
+            counts = newCounts;
+            rebuildTree();
+        }
+        
+        private void rebuildTree() {
+            tree = new int[counts.length + 1];
+            for (int i = 1; i < tree.length; i++) {
+                tree[i] += counts[i - 1];
+                int parent = i + (i & -i);
+                if (parent < tree.length) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.alert.merch.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 可手动设置和推进的时钟，用于回放和测试
+ */
+public class VirtualClock extends Clock {
+    
+    private final ZoneId zone;
+    private volatile Instant instant;
+    
+    public VirtualClock(Instant instant, ZoneId zone) {
+        this.instant = instant;
+        this.zone = zone;
+    }
+    
+    public void set(LocalDateTime time) {
+        instant = time.atZone(zone).toInstant();
+    }
+    
+    public void advance(Duration duration) {
+        instant = instant.plus(duration);
+    }
+    
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+    
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new VirtualClock(instant, zone);
+    }
+    
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}
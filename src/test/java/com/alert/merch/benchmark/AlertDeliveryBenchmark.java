@@ -0,0 +1,182 @@
+package com.alert.merch.benchmark;
+
+import com.alert.merch.AlertMerchApplication;
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.service.AlertDispatcher;
+import com.alert.merch.service.WeComAlertService;
+import com.alert.merch.service.WeComStubServer;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 告警发送吞吐基准：启动应用上下文（H2内存库、推送模式，不访问生产库），把告警目标指向本地企业微信桩服务，
+ * 以逐级提高的速率调用 WeComAlertService 发送超时告警（开环，按固定间隔提交，不等待发送结果），
+ * 每级输出桩服务实际收到的消息数/秒、提交到桩服务收到的端到端延迟p50/p99，以及发送失败数和队列满丢弃数。手动运行：
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.alert.merch.benchmark.AlertDeliveryBenchmark \
+ *   -Dexec.args="4 50 10 20 50 100 200 400"
+ * 参数：[告警目标数] [桩服务响应延迟ms] [每级秒数] [速率（条/秒）...]；
+ * 系统属性 stub.rateLimitPerMinute（如20，模拟企业微信每个机器人每分钟20条）、stub.httpErrorRate、stub.systemBusyRate 注入限流和失败
+ */
+public class AlertDeliveryBenchmark {
+    
+    private static final Pattern TASK_SEQ = Pattern.compile("bench-(\\d+)");
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+    
+    public static void main(String[] args) throws Exception {
+        int targetCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 50;
+        int stepSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int[] rates = args.length > 3
+            ? Arrays.stream(args, 3, args.length).mapToInt(Integer::parseInt).toArray()
+            : new int[]{20, 50, 100, 200, 400};
+        
+        // 提交时间按序号记录，桩服务收到消息时按内容中的序号计算端到端延迟
+        Map<Long, Long> submitNanos = new ConcurrentHashMap<>();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        
+        Path persistPath = Files.createTempDirectory("alert-delivery-bench");
+        try (WeComStubServer stub = WeComStubServer.start(Math.max(8, targetCount * 2));
+             ConfigurableApplicationContext context = startContext(persistPath)) {
+            stub.latencyMillis(latencyMillis)
+                .rateLimitPerMinute(Integer.getInteger("stub.rateLimitPerMinute", 0))
+                .httpErrorRate(Double.parseDouble(System.getProperty("stub.httpErrorRate", "0")))
+                .systemBusyRate(Double.parseDouble(System.getProperty("stub.systemBusyRate", "0")))
+                .listener((key, content, receivedNanos) -> {
+                    Matcher matcher = TASK_SEQ.matcher(content);
+                    if (matcher.find()) {
+                        Long submitted = submitNanos.remove(Long.parseLong(matcher.group(1)));
+                        if (submitted != null) {
+                            latencies.add(receivedNanos - submitted);
+                        }
+                    }
+                });
+            
+            WeComAlertService weComAlertService = context.getBean(WeComAlertService.class);
+            AlertDispatcher alertDispatcher = context.getBean(AlertDispatcher.class);
+            List<AlertTarget> targets = new ArrayList<>();
+            for (int i = 0; i < targetCount; i++) {
+                targets.add(new AlertTarget("bench-" + i, stub.webhookUrl("bench-key-" + i)));
+            }
+            
+            System.out.printf("告警目标: %d，桩服务延迟: %d ms，每级 %d 秒，每个目标发送队列容量: %s%n",
+                targetCount, latencyMillis, stepSeconds, context.getEnvironment().getProperty("app.wecom.queue-capacity"));
+            System.out.printf("%8s %8s %8s %10s %10s %10s %8s %8s%n",
+                "速率", "提交", "送达", "送达/秒", "p50(ms)", "p99(ms)", "失败", "丢弃");
+            
+            long seq = 0;
+            for (int rate : rates) {
+                latencies.clear();
+                long acceptedBefore = stub.getAccepted();
+                long[] sendBefore = sendCounters(alertDispatcher);
+                long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+                long total = (long) rate * stepSeconds;
+                
+                long start = System.nanoTime();
+                for (long i = 0; i < total; i++) {
+                    long due = start + i * intervalNanos;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    long id = seq++;
+                    submitNanos.put(id, System.nanoTime());
+                    TaskInfo task = new TaskInfo("bench-" + id, LocalDateTime.now().minusMinutes(30), "unclaimed");
+                    weComAlertService.sendUnclaimedTimeoutAlert(targets.get((int) (id % targetCount)),
+                        Collections.singletonList(task), 1, 1, null);
+                }
+                awaitHandled(alertDispatcher, sendBefore[2] + total);
+                long elapsedNanos = System.nanoTime() - start;
+                
+                long delivered = stub.getAccepted() - acceptedBefore;
+                long[] sendAfter = sendCounters(alertDispatcher);
+                List<Long> sorted;
+                synchronized (latencies) {
+                    sorted = new ArrayList<>(latencies);
+                }
+                Collections.sort(sorted);
+                System.out.printf("%8d %8d %8d %10.1f %10.1f %10.1f %8d %8d%n",
+                    rate, total, delivered, delivered * 1e9 / elapsedNanos,
+                    percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99),
+                    sendAfter[0] - sendBefore[0], sendAfter[1] - sendBefore[1]);
+                submitNanos.clear();
+            }
+            System.out.printf("桩服务合计: 请求 %d，成功 %d，限流(45009) %d，注入失败 %d%n",
+                stub.getRequests(), stub.getAccepted(), stub.getRateLimited(), stub.getInjectedFailures());
+        }
+    }
+    
+    private static ConfigurableApplicationContext startContext(Path persistPath) {
+        // 以命令行参数传入，优先于application.yml中的默认连接串
+        return new SpringApplicationBuilder(AlertMerchApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:deliverybench;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.hikari.connection-test-query=SELECT 1",
+                "--spring.sql.init.mode=always",
+                "--spring.sql.init.schema-locations=classpath:schema-h2.sql",
+                "--app.ingest.mode=push",
+                "--app.ingest.token=bench",
+                "--app.task.check-interval-seconds=3600",
+                "--app.persist.path=" + persistPath,
+                "--logging.level.com.alert.merch=WARN",
+                // 队列满丢弃和发送失败逐条打印错误日志，基准中由结果表汇总
+                "--logging.level.com.alert.merch.service.AlertDispatcher=OFF",
+                "--logging.level.com.alert.merch.service.WeComWebhookClient=OFF",
+                "--logging.level.org.apache.http=WARN");
+    }
+    
+    /**
+     * 各告警目标累计 {发送失败数, 队列满丢弃数, 已处理数（成功+失败+丢弃）}
+     */
+    private static long[] sendCounters(AlertDispatcher alertDispatcher) {
+        long sent = 0;
+        long failed = 0;
+        long dropped = 0;
+        for (Map<String, Object> stat : alertDispatcher.getTargetStats()) {
+            if (String.valueOf(stat.get("target")).startsWith("bench-")) {
+                sent += (Long) stat.get("sent");
+                failed += (Long) stat.get("failed");
+                dropped += (Long) stat.get("dropped");
+            }
+        }
+        return new long[]{failed, dropped, sent + failed + dropped};
+    }
+    
+    /**
+     * 等待本级提交的告警全部有结果（发送成功、失败或入队时丢弃）
+     */
+    private static void awaitHandled(AlertDispatcher alertDispatcher, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        while (sendCounters(alertDispatcher)[2] < expected) {
+            if (System.nanoTime() > deadline) {
+                System.out.println("等待发送完成超时");
+                return;
+            }
+            Thread.sleep(5);
+        }
+    }
+    
+    private static double percentileMillis(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+}
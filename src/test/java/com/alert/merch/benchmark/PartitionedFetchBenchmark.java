@@ -0,0 +1,131 @@
+package com.alert.merch.benchmark;
+
+import com.alert.merch.mapper.TaskMapper;
+import com.alert.merch.model.TaskTable;
+import com.alert.merch.util.PartitionedRangeScanner;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 分区并行查询与单条查询的对比基准（H2内存库，Oracle兼容模式）
+ * 在6天范围内生成积压任务，比较单条 scanTasksByStatus 与不同分区数/并发数的 scanTasksByRange 耗时，手动运行：
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.alert.merch.benchmark.PartitionedFetchBenchmark
+ * 参数：[任务数] [并发数]，H2与查询在同一进程中，加速比受CPU核数限制；真实库上还可并行掩盖网络往返
+ */
+public class PartitionedFetchBenchmark {
+    
+    private static final int TASK_COUNT = 300_000;
+    private static final int ROUNDS = 5;
+    private static final String PROC_KEY = "ACT_MERCH_ACCESS_REGISTER";
+    private static final List<String> TASK_KEYS = Arrays.asList("LICENSE_MASTER_NEW_CHECK_TASK", "PERSON_MASTER_NEW_CHECK_TASK");
+    
+    public static void main(String[] args) throws Exception {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : TASK_COUNT;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl("jdbc:h2:mem:fetchbench;MODE=Oracle;DB_CLOSE_DELAY=-1");
+        hikariConfig.setMaximumPoolSize(20);
+        try (HikariDataSource dataSource = new HikariDataSource(hikariConfig)) {
+            LocalDateTime now = LocalDateTime.now().withNano(0);
+            populate(dataSource, taskCount, now);
+            
+            Configuration configuration = new Configuration(
+                new Environment("bench", new JdbcTransactionFactory(), dataSource));
+            try (InputStream in = PartitionedFetchBenchmark.class.getResourceAsStream("/mapper/TaskMapper.xml")) {
+                new XMLMapperBuilder(in, configuration, "mapper/TaskMapper.xml", configuration.getSqlFragments()).parse();
+            }
+            SqlSessionManager sessionManager = SqlSessionManager.newInstance(new SqlSessionFactoryBuilder().build(configuration));
+            TaskMapper taskMapper = sessionManager.getMapper(TaskMapper.class);
+            
+            System.out.printf("任务数: %d，并发数: %d，CPU核数: %d%n", taskCount, concurrency,
+                Runtime.getRuntime().availableProcessors());
+            
+            long serialNanos = measure(() -> {
+                TaskTable table = new TaskTable(taskCount);
+                taskMapper.scanTasksByStatus(6, PROC_KEY, TASK_KEYS, context -> table.add(context.getResultObject()));
+                return table.size();
+            });
+            System.out.printf("单条查询:          %8.1f ms%n", serialNanos / 1e6);
+            
+            ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+            try {
+                PartitionedRangeScanner scanner = new PartitionedRangeScanner(executor);
+                LocalDateTime from = now.toLocalDate().minusDays(6).atStartOfDay();
+                for (int partitions : new int[]{1, 7, 24, 168}) {
+                    long nanos = measure(() -> scanner.scan(from, now, partitions, taskCount,
+                        (lower, upper, sink) -> taskMapper.scanTasksByRange(lower, upper, PROC_KEY, TASK_KEYS,
+                            context -> sink.add(context.getResultObject()))).size());
+                    System.out.printf("分区查询 %3d 分区: %8.1f ms（加速比 %.2f）%n",
+                        partitions, nanos / 1e6, (double) serialNanos / nanos);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+    
+    private static void populate(HikariDataSource dataSource, int taskCount, LocalDateTime now) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE T_CURRENT_TASK (PROC_ID VARCHAR(64) PRIMARY KEY, CREATE_TIME TIMESTAMP, "
+                + "ASSIGNEE VARCHAR(64), ASSIGNEE_ID VARCHAR(64), PROC_KEY VARCHAR(64), TASK_KEY VARCHAR(64))");
+            statement.execute("CREATE INDEX IDX_TASK_CREATE_TIME ON T_CURRENT_TASK(CREATE_TIME)");
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO T_CURRENT_TASK VALUES (?, ?, ?, ?, ?, ?)")) {
+                long rangeSeconds = 6L * 24 * 3600;
+                for (int i = 0; i < taskCount; i++) {
+                    insert.setString(1, String.valueOf(100_000_000L + i));
+                    insert.setTimestamp(2, Timestamp.valueOf(now.minusSeconds(rangeSeconds * i / taskCount)));
+                    insert.setString(3, i % 3 == 0 ? null : "user" + (i % 50));
+                    insert.setString(4, i % 3 == 0 ? null : String.valueOf(i % 50));
+                    insert.setString(5, PROC_KEY);
+                    insert.setString(6, TASK_KEYS.get(i % 2));
+                    insert.addBatch();
+                    if (i % 10_000 == 9_999) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+    
+    private static long measure(RowCountingRun run) throws Exception {
+        long rows = 0;
+        for (int i = 0; i < 2; i++) {
+            rows += run.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            rows += run.run();
+        }
+        long nanos = (System.nanoTime() - start) / ROUNDS;
+        if (rows == 0) {
+            throw new IllegalStateException("查询结果为空");
+        }
+        return nanos;
+    }
+    
+    private interface RowCountingRun {
+        long run() throws Exception;
+    }
+}
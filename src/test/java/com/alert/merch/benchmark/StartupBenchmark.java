@@ -0,0 +1,88 @@
+package com.alert.merch.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 启动基准：多次启动应用，统计启动到首个检查周期结束的耗时和此时的常驻内存
+ * 解析StartupReportService输出的“首个检查周期完成”日志行中的uptimeMs/rssKb字段，读到后结束进程。
+ * 手动运行，参数为运行次数和启动命令，例如对比默认配置与faststart+AppCDS：
+ * java -cp target/test-classes com.alert.merch.benchmark.StartupBenchmark 5 java -jar target/alert-merch-1.0.0.jar
+ * java -cp target/test-classes com.alert.merch.benchmark.StartupBenchmark 5 \
+ *   java -XX:SharedArchiveFile=app.jsa -Dspring.profiles.active=faststart @classpath.args com.alert.merch.AlertMerchApplication
+ */
+public class StartupBenchmark {
+    
+    private static final Pattern FIRST_CYCLE = Pattern.compile("uptimeMs=(\\d+), rssKb=(-?\\d+)");
+    private static final long TIMEOUT_SECONDS = 180;
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("用法: StartupBenchmark <运行次数> <启动命令...>");
+            System.exit(1);
+        }
+        int runs = Integer.parseInt(args[0]);
+        List<String> command = Arrays.asList(args).subList(1, args.length);
+        
+        List<Long> uptimes = new ArrayList<>();
+        List<Long> wallTimes = new ArrayList<>();
+        List<Long> rssKbs = new ArrayList<>();
+        for (int i = 1; i <= runs; i++) {
+            long[] result = runOnce(command);
+            wallTimes.add(result[0]);
+            uptimes.add(result[1]);
+            rssKbs.add(result[2]);
+            System.out.printf("第%d次: 进程启动到首个周期 %d ms（JVM uptime %d ms），RSS %.1f MB%n",
+                i, result[0], result[1], result[2] / 1024.0);
+        }
+        
+        System.out.printf("首个周期耗时 中位数 %d ms，最小 %d ms%n", median(wallTimes), Collections.min(wallTimes));
+        System.out.printf("JVM uptime   中位数 %d ms，最小 %d ms%n", median(uptimes), Collections.min(uptimes));
+        System.out.printf("RSS          中位数 %.1f MB，最大 %.1f MB%n",
+            median(rssKbs) / 1024.0, Collections.max(rssKbs) / 1024.0);
+    }
+    
+    /**
+     * 启动一次应用，返回 {进程启动到首个周期的毫秒数, JVM uptime毫秒数, RSS KB}
+     */
+    private static long[] runOnce(List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = FIRST_CYCLE.matcher(line);
+                if (matcher.find()) {
+                    long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    return new long[] {wallMs, Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))};
+                }
+                if (TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) > TIMEOUT_SECONDS) {
+                    break;
+                }
+            }
+            throw new IllegalStateException("未在日志中找到首个检查周期完成记录，进程退出码: "
+                + (process.isAlive() ? "运行中" : String.valueOf(process.exitValue())));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+    
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,98 @@
+package com.alert.merch.benchmark;
+
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskTable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列式任务表与TaskInfo对象模型的对比基准
+ * 比较每条任务的堆内存占用和一次超时分类的耗时，手动运行：
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.alert.merch.benchmark.TaskTableBenchmark
+ */
+public class TaskTableBenchmark {
+    
+    private static final int TASK_COUNT = 200_000;
+    private static final int ROUNDS = 50;
+    
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : TASK_COUNT;
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        
+        long baseline = usedHeap();
+        List<TaskInfo> tasks = generateTasks(taskCount, now);
+        long objectBytes = usedHeap() - baseline;
+        
+        baseline = usedHeap();
+        TaskTable table = TaskTable.of(tasks);
+        long tableBytes = usedHeap() - baseline;
+        
+        System.out.printf("任务数: %d%n", taskCount);
+        System.out.printf("TaskInfo对象模型: %.1f 字节/条%n", (double) objectBytes / taskCount);
+        System.out.printf("列式任务表:       %.1f 字节/条（估算 %.1f）%n",
+            (double) tableBytes / taskCount, (double) table.estimatedBytes() / taskCount);
+        
+        // 预热
+        long checksum = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum += classifyObjects(tasks, now) + classifyTable(table, now);
+        }
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum += classifyObjects(tasks, now);
+        }
+        long objectNanos = (System.nanoTime() - start) / ROUNDS;
+        
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum += classifyTable(table, now);
+        }
+        long tableNanos = (System.nanoTime() - start) / ROUNDS;
+        
+        System.out.printf("TaskInfo对象模型分类: %.3f ms/周期%n", objectNanos / 1e6);
+        System.out.printf("列式任务表分类:       %.3f ms/周期%n", tableNanos / 1e6);
+        System.out.println("checksum=" + checksum);
+    }
+    
+    /**
+     * 原有的按对象判断超时的方式
+     */
+    private static int classifyObjects(List<TaskInfo> tasks, LocalDateTime now) {
+        int timeout = 0;
+        for (TaskInfo task : tasks) {
+            if ("unclaimed".equals(task.getType()) && now.isAfter(task.getCreateTime().plusMinutes(3))) {
+                timeout++;
+            } else if ("unfinished".equals(task.getType()) && now.isAfter(task.getCreateTime().plusMinutes(10))) {
+                timeout++;
+            }
+        }
+        return timeout;
+    }
+    
+    private static int classifyTable(TaskTable table, LocalDateTime now) {
+        TaskTable.Classification classification = table.classify(TaskTable.toEpochSecond(now), 180, 600, 5);
+        return classification.getUnclaimedCount() + classification.getUnfinishedCount();
+    }
+    
+    private static List<TaskInfo> generateTasks(int count, LocalDateTime now) {
+        List<TaskInfo> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TaskInfo task = new TaskInfo(String.valueOf(100_000_000L + i),
+                now.minusSeconds(i % (6 * 24 * 3600)), i % 3 == 0 ? "unclaimed" : "unfinished");
+            task.setTaskKey(i % 2 == 0 ? "LICENSE_MASTER_NEW_CHECK_TASK" : "PERSON_MASTER_NEW_CHECK_TASK");
+            tasks.add(task);
+        }
+        return tasks;
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
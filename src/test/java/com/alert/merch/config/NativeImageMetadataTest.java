@@ -0,0 +1,96 @@
+package com.alert.merch.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 原生镜像可达性元数据测试
+ * 在JVM上校验元数据与代码保持一致：登记的类和代理接口存在，model包中由Jackson读写的类都已登记反射，
+ * 映射文件都被资源配置覆盖。
+ * 原生镜像下的完整测试通过 mvn -Pnative test 运行
+ */
+class NativeImageMetadataTest {
+    
+    private static final String METADATA_DIR = "META-INF/native-image/com.alert/alert-merch/";
+    
+    private static final String MODEL_PACKAGE = "com.alert.merch.model";
+    
+    // 只在进程内传递、不经过Jackson序列化的模型类；新增的模型类默认需要登记反射
+    private static final Set<String> NOT_JACKSON_BOUND = new TreeSet<>(Arrays.asList(
+        "AlertTarget", "TaskAlertEvent", "TaskPage", "TaskSnapshot", "TaskTable"));
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Test
+    void testReflectionAndProxyTypesExist() throws Exception {
+        for (JsonNode entry : read("reflect-config.json")) {
+            Class.forName(entry.get("name").asText());
+        }
+        for (JsonNode entry : read("proxy-config.json")) {
+            for (JsonNode type : entry.get("interfaces")) {
+                assertTrue(Class.forName(type.asText()).isInterface(), type.asText());
+            }
+        }
+    }
+    
+    @Test
+    void testJacksonModelTypesRegistered() throws Exception {
+        Set<String> registered = new TreeSet<>();
+        for (JsonNode entry : read("reflect-config.json")) {
+            registered.add(entry.get("name").asText());
+        }
+        
+        Set<String> missing = new TreeSet<>();
+        String pattern = "classpath*:" + MODEL_PACKAGE.replace('.', '/') + "/*.class";
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(pattern)) {
+            String simpleName = resource.getFilename().substring(0, resource.getFilename().length() - ".class".length());
+            // 跳过内部类和同包的测试类
+            if (simpleName.contains("$") || simpleName.endsWith("Test") || NOT_JACKSON_BOUND.contains(simpleName)) {
+                continue;
+            }
+            if (!registered.contains(MODEL_PACKAGE + "." + simpleName)) {
+                missing.add(simpleName);
+            }
+        }
+        assertTrue(missing.isEmpty(), "reflect-config.json缺少Jackson读写的模型类: " + missing);
+    }
+    
+    @Test
+    void testMapperXmlIncludedAsResources() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        for (JsonNode include : read("resource-config.json").get("resources").get("includes")) {
+            patterns.add(Pattern.compile(include.get("pattern").asText()));
+        }
+        
+        Set<String> mapperFiles = new TreeSet<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml")) {
+            String path = "mapper/" + resource.getFilename();
+            mapperFiles.add(path);
+            assertTrue(patterns.stream().anyMatch(pattern -> pattern.matcher(path).matches()), path);
+        }
+        
+        // 原生镜像按固定列表加载映射文件，列表需与实际文件一致
+        assertEquals(mapperFiles, new TreeSet<>(Arrays.asList(MyBatisConfig.NATIVE_MAPPER_LOCATIONS)));
+    }
+    
+    private JsonNode read(String fileName) throws IOException {
+        try (InputStream in = new ClassPathResource(METADATA_DIR + fileName).getInputStream()) {
+            return objectMapper.readTree(in);
+        }
+    }
+}
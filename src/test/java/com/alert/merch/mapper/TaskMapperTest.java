@@ -1,42 +1,104 @@
 package com.alert.merch.mapper;
 
+import com.alert.merch.config.DialectDatabaseIdProvider;
+import com.alert.merch.model.TaskEnrichment;
 import com.alert.merch.model.TaskInfo;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
  * TaskMapper测试类
+ * 在H2上执行与生产相同的映射语句，与方言相关的片段按databaseId选择H2写法
  */
 @SpringBootTest
 @TestPropertySource(properties = {
     "spring.datasource.url=jdbc:h2:mem:testdb",
     "spring.datasource.driver-class-name=org.h2.Driver",
-    "spring.jpa.hibernate.ddl-auto=create-drop"
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.sql.init.mode=always",
+    "spring.sql.init.schema-locations=classpath:schema-h2.sql",
+    "spring.sql.init.data-locations=classpath:data-h2.sql"
 })
 public class TaskMapperTest {
     
+    private static final String PROC_KEY = "ACT_MERCH_ACCESS_REGISTER";
+    private static final List<String> TASK_KEYS = Arrays.asList("LICENSE_MASTER_NEW_CHECK_TASK", "PERSON_MASTER_NEW_CHECK_TASK");
+    
     @Autowired
     private TaskMapper taskMapper;
     
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+    
+    @Test
+    public void testDatabaseIdDetected() {
+        assertEquals(DialectDatabaseIdProvider.H2, sqlSessionFactory.getConfiguration().getDatabaseId());
+    }
+    
     @Test
     public void testSelectTimeoutTasks() {
         List<TaskInfo> tasks = taskMapper.selectTimeoutTasks(6);
-        assertNotNull(tasks);
-        // 由于使用H2内存数据库，可能没有数据，但至少应该能正常执行
+        // 10天前、其他流程和其他任务节点的任务不在结果中
+        assertEquals(Arrays.asList("1001", "1002", "1003"), taskIds(tasks));
     }
     
     @Test
     public void testSelectTasksByStatus() {
-        List<String> taskKeys = Arrays.asList("LICENSE_MASTER_NEW_CHECK_TASK", "PERSON_MASTER_NEW_CHECK_TASK");
-        List<TaskInfo> tasks = taskMapper.selectTasksByStatus(6, "ACT_MERCH_ACCESS_REGISTER", taskKeys);
-        assertNotNull(tasks);
-        // 由于使用H2内存数据库，可能没有数据，但至少应该能正常执行
+        List<TaskInfo> tasks = taskMapper.selectTasksByStatus(6, PROC_KEY, TASK_KEYS);
+        assertEquals(Arrays.asList("1001", "1002", "1003"), taskIds(tasks));
+        // 查询没有ORDER BY，按流程ID取结果
+        Map<String, TaskInfo> byId = tasks.stream().collect(Collectors.toMap(TaskInfo::getTaskId, task -> task));
+        assertEquals("unclaimed", byId.get("1001").getType());
+        assertEquals("unfinished", byId.get("1002").getType());
+        // 处理人优先取ASSIGNEE，为空时取ASSIGNEE_ID
+        assertEquals("zhangsan", byId.get("1002").getAssignee());
+        assertEquals("u1003", byId.get("1003").getAssignee());
+    }
+    
+    @Test
+    public void testSelectTodayTasks() {
+        assertEquals(Arrays.asList("1001"), taskIds(taskMapper.selectTodayTasks(PROC_KEY, TASK_KEYS)));
+    }
+    
+    @Test
+    public void testScanTasks() {
+        List<TaskInfo> scanned = new ArrayList<>();
+        taskMapper.scanTasksByStatus(6, PROC_KEY, TASK_KEYS, context -> scanned.add(context.getResultObject()));
+        assertEquals(3, scanned.size());
+        
+        List<TaskInfo> range = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        taskMapper.scanTasksByRange(today.minusDays(4).atStartOfDay(), today.atStartOfDay(), PROC_KEY, TASK_KEYS,
+            context -> range.add(context.getResultObject()));
+        assertEquals(Arrays.asList("1002", "1003"), taskIds(range));
+    }
+    
+    @Test
+    public void testSelectEnrichments() {
+        List<TaskEnrichment> rows = taskMapper.selectEnrichments("T_MERCH_ACCESS_APPLY", "PROC_ID", "MERCH_NAME",
+            "CHANNEL_NAME", Arrays.asList("1001", "1002", "1003"));
+        rows.sort(Comparator.comparing(TaskEnrichment::getTaskId));
+        
+        // 业务表中没有记录的流程不在结果中
+        assertEquals(2, rows.size());
+        assertEquals(new TaskEnrichment("1001", "测试商户一", "线上"), rows.get(0));
+        assertEquals(new TaskEnrichment("1002", "测试商户二", null), rows.get(1));
+    }
+    
+    private static List<String> taskIds(List<TaskInfo> tasks) {
+        return tasks.stream().map(TaskInfo::getTaskId).sorted().collect(Collectors.toList());
     }
 }
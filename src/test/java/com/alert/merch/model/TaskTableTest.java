@@ -0,0 +1,90 @@
+package com.alert.merch.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列式任务表测试
+ */
+public class TaskTableTest {
+    
+    @Test
+    public void testRoundTrip() {
+        LocalDateTime createTime = LocalDateTime.of(2025, 8, 21, 17, 30, 0);
+        TaskInfo numeric = new TaskInfo("1234567", createTime, "unclaimed");
+        numeric.setTaskKey("LICENSE_MASTER_NEW_CHECK_TASK");
+        TaskInfo uuid = new TaskInfo("5f1c9a2e-0b7d-4c11-9a55-3e2f1d7c8b90", createTime, "unfinished");
+        uuid.setAssignee("zhangsan");
+        TaskInfo leadingZero = new TaskInfo("00123", createTime, "unfinished");
+        
+        TaskTable table = TaskTable.of(Arrays.asList(numeric, uuid, leadingZero));
+        
+        assertEquals(3, table.size());
+        assertEquals(numeric, table.toTaskInfo(0));
+        assertEquals(uuid, table.toTaskInfo(1));
+        assertEquals(leadingZero, table.toTaskInfo(2));
+    }
+    
+    @Test
+    public void testClassify() {
+        LocalDateTime now = LocalDateTime.of(2025, 8, 21, 10, 0, 0);
+        TaskTable table = new TaskTable(1);
+        table.add("1", now.minusMinutes(5), "unclaimed", null);
+        table.add("2", now.minusMinutes(2), "unclaimed", null);
+        table.add("3", now.minusMinutes(15), "unfinished", null);
+        table.add("4", now.minusMinutes(10), "unfinished", null);
+        
+        TaskTable.Classification classification = table.classify(TaskTable.toEpochSecond(now), 3 * 60, 10 * 60);
+        
+        assertEquals(1, classification.getUnclaimedCount());
+        assertEquals("1", table.getTaskId(classification.getUnclaimedRows()[0]));
+        // 恰好等于阈值时不算超时，与 now.isAfter(createTime + 阈值) 一致
+        assertEquals(1, classification.getUnfinishedCount());
+        assertEquals("3", table.getTaskId(classification.getUnfinishedRows()[0]));
+    }
+    
+    @Test
+    public void testClassifyOldest() {
+        LocalDateTime now = LocalDateTime.of(2025, 8, 21, 10, 0, 0);
+        TaskTable table = new TaskTable(1);
+        table.add("1", now.minusMinutes(30), "unclaimed", null);
+        table.add("2", now.minusMinutes(90), "unclaimed", null);
+        table.add("3", now.minusMinutes(60), "unclaimed", null);
+        table.add("4", now.minusMinutes(1), "unclaimed", null);
+        table.add("5", now.minusMinutes(20), "unfinished", null);
+        
+        TaskTable.Classification classification = table.classify(TaskTable.toEpochSecond(now), 3 * 60, 10 * 60, 2);
+        
+        int[] oldest = classification.getOldestUnclaimedRows();
+        assertEquals(2, oldest.length);
+        assertEquals("2", table.getTaskId(oldest[0]));
+        assertEquals("3", table.getTaskId(oldest[1]));
+        assertEquals(1, classification.getOldestUnfinishedRows().length);
+        assertEquals(0, table.classify(TaskTable.toEpochSecond(now), 3 * 60, 10 * 60).getOldestUnclaimedRows().length);
+    }
+    
+    @Test
+    public void testClassifyAssignees() {
+        LocalDateTime now = LocalDateTime.of(2025, 8, 21, 10, 0, 0);
+        TaskTable table = new TaskTable(1);
+        table.add("1", now.minusMinutes(30), "unfinished", null, "zhangsan");
+        table.add("2", now.minusMinutes(60), "unfinished", null, "zhangsan");
+        table.add("3", now.minusMinutes(5), "unfinished", null, "zhangsan");
+        table.add("4", now.minusMinutes(5), "unfinished", null, "lisi");
+        table.add("5", now.minusMinutes(90), "unclaimed", null);
+        
+        TaskTable.Classification classification = table.classify(TaskTable.toEpochSecond(now), 3 * 60, 10 * 60);
+        
+        assertEquals(2, table.getAssigneeCount());
+        assertEquals("zhangsan", table.getAssigneeName(0));
+        assertArrayEquals(new int[]{3, 1}, classification.getAssigneeBacklog());
+        assertArrayEquals(new int[]{2, 0}, classification.getAssigneeOverdue());
+        assertEquals("2", table.getTaskId(classification.getAssigneeOldestRows()[0]));
+        assertEquals("4", table.getTaskId(classification.getAssigneeOldestRows()[1]));
+        assertNull(table.getAssignee(4));
+    }
+}
@@ -0,0 +1,95 @@
+package com.alert.merch.replay;
+
+import com.alert.merch.model.RecordedSnapshot;
+import com.alert.merch.model.TaskInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 回放驱动测试
+ * 构造两天的录制快照，在虚拟时间下跑完整检查周期，校验每日报告和告警统计
+ */
+@SpringBootTest
+@ActiveProfiles("replay")
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "app.replay.exit-on-finish=false"
+})
+public class ReplayDriverTest {
+    
+    @TempDir
+    static Path tempDir;
+    
+    @Autowired
+    private ReplayDriver replayDriver;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    public void testReplayTwoDays() throws Exception {
+        Path input = tempDir.resolve("snapshots-2024-01-01.jsonl.gz");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        
+        // 每个工作时段整点创建一条未领取任务，30分钟后被领取，领取后20分钟完成
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(input));
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (LocalDateTime time = start; time.isBefore(start.plusDays(2)); time = time.plusMinutes(1)) {
+                List<TaskInfo> tasks = new ArrayList<>();
+                for (LocalDateTime created = start; !created.isAfter(time); created = created.plusHours(1)) {
+                    if (created.getHour() < 9 || created.getHour() >= 21) {
+                        continue;
+                    }
+                    long age = Duration.between(created, time).toMinutes();
+                    if (age < 30) {
+                        tasks.add(task(created, "unclaimed"));
+                    } else if (age < 50) {
+                        tasks.add(task(created, "unfinished"));
+                    }
+                }
+                writer.write(objectMapper.writeValueAsString(new RecordedSnapshot(time, tasks)));
+                writer.write('\n');
+            }
+        }
+        
+        ReplayReport report = replayDriver.replay(tempDir);
+        
+        assertEquals(2 * 24 * 60, report.getSnapshots());
+        assertEquals(2 * 24 * 60 + 1, report.getCycles());
+        // 两次9点统计：1月1日和1月2日
+        assertEquals(2, report.getDailyReports());
+        // 每天12个工作时段任务，每条都会超过未领取阈值；领取后20分钟完成，超过未完成阈值
+        assertEquals(24 * 2, report.getAlertedTasks());
+        assertTrue(report.getAlertsByTarget().getOrDefault("default-unclaimed", 0) > 0);
+        assertTrue(report.getAlertsByTarget().getOrDefault("default-unfinished", 0) > 0);
+        // 每分钟一个周期，检测延迟不超过一个检查间隔
+        assertTrue(report.getDetectionLagMaxSeconds() <= 60);
+        assertTrue(report.getRowsPerSecond() > 0);
+    }
+    
+    private static TaskInfo task(LocalDateTime created, String type) {
+        TaskInfo task = new TaskInfo("T" + created.toLocalDate() + "-" + created.getHour(), created, type);
+        task.setTaskKey("LICENSE_MASTER_NEW_CHECK_TASK");
+        return task;
+    }
+}
@@ -0,0 +1,122 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.AlertTarget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AlertDispatcher测试（对接本地企业微信桩服务）
+ */
+class AlertDispatcherTest {
+    
+    private WeComStubServer stub;
+    private AlertDispatcher dispatcher;
+    private SimpleMeterRegistry meterRegistry;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = WeComStubServer.start(4);
+        AppConfig appConfig = new AppConfig();
+        appConfig.getWecom().setConnectTimeoutMs(1000);
+        appConfig.getWecom().setSocketTimeoutMs(1000);
+        
+        WeComWebhookClient client = new WeComWebhookClient();
+        ReflectionTestUtils.setField(client, "appConfig", appConfig);
+        meterRegistry = new SimpleMeterRegistry();
+        MetricsService metricsService = new MetricsService();
+        ReflectionTestUtils.setField(metricsService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(metricsService, "appConfig", appConfig);
+        
+        dispatcher = new AlertDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "appConfig", appConfig);
+        ReflectionTestUtils.setField(dispatcher, "weComWebhookClient", client);
+        ReflectionTestUtils.setField(dispatcher, "metricsService", metricsService);
+        ReflectionTestUtils.setField(dispatcher, "cycleTraceService", new CycleTraceService());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        stub.close();
+    }
+    
+    @Test
+    void testSameNameDifferentWebhooksKeepSeparateQueues() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        stub.listener((key, content, receivedNanos) -> received.add(key + ":" + content));
+        
+        // 升级级别与路由规则同名但地址不同，消息不能串到对方的群
+        assertTrue(dispatcher.dispatch(new AlertTarget("team-a", stub.webhookUrl("route")), "1"));
+        assertTrue(dispatcher.dispatch(new AlertTarget("team-a", stub.webhookUrl("level"), "level-2"), "2"));
+        assertTrue(dispatcher.dispatch(new AlertTarget("team-a", stub.webhookUrl("route")), "3"));
+        awaitAccepted(3);
+        
+        assertEquals(List.of("route:1", "route:3"), filter(received, "route:"));
+        assertEquals(List.of("level:2"), filter(received, "level:"));
+        
+        Map<Object, Object> sentByQueue = dispatcher.getTargetStats().stream()
+            .collect(Collectors.toMap(stat -> stat.get("target"), stat -> stat.get("sent")));
+        assertEquals(Map.of("team-a", 2L, "team-a#2", 1L), sentByQueue);
+        assertNotNull(meterRegistry.find("alert_queue_depth").tag("target", "team-a#2").gauge());
+    }
+    
+    @Test
+    void testDifferentNamesSameWebhookShareQueue() throws Exception {
+        assertTrue(dispatcher.dispatch(new AlertTarget("source-a", stub.webhookUrl("shared")), "1"));
+        assertTrue(dispatcher.dispatch(new AlertTarget("source-b", stub.webhookUrl("shared")), "2"));
+        awaitAccepted(2);
+        
+        List<Map<String, Object>> stats = dispatcher.getTargetStats();
+        assertEquals(1, stats.size());
+        assertEquals("source-a", stats.get(0).get("target"));
+        assertEquals(2L, stats.get(0).get("sent"));
+    }
+    
+    @Test
+    void testResultCallbackReportsRejectedMessages() throws Exception {
+        // 每分钟只接收1条，第二条返回errcode 45009，入队成功但未送达
+        stub.rateLimitPerMinute(1);
+        List<String> results = new CopyOnWriteArrayList<>();
+        AlertTarget target = new AlertTarget("team-a", stub.webhookUrl("limited"));
+        assertTrue(dispatcher.dispatch(target, "1", delivered -> results.add("1:" + delivered)));
+        assertTrue(dispatcher.dispatch(target, "2", delivered -> results.add("2:" + delivered)));
+        
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (results.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("1:true", "2:false"), results);
+        assertEquals(1, stub.getRateLimited());
+        
+        // 分发停止后入队失败，立即以false回调
+        dispatcher.shutdown();
+        assertFalse(dispatcher.dispatch(target, "3", delivered -> results.add("3:" + delivered)));
+        assertEquals("3:false", results.get(2));
+    }
+    
+    private void awaitAccepted(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stub.getAccepted() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // 发送计数在收到响应后更新
+        Thread.sleep(100);
+        assertEquals(expected, stub.getAccepted());
+    }
+    
+    private static List<String> filter(List<String> received, String prefix) {
+        return received.stream().filter(item -> item.startsWith(prefix)).collect(Collectors.toList());
+    }
+}
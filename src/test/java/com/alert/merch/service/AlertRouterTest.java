@@ -0,0 +1,55 @@
+package com.alert.merch.service;
+
+import com.alert.merch.model.AlertTarget;
+import com.alert.merch.model.TaskInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AlertRouter测试
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "app.routes[0].name=license-team",
+    "app.routes[0].webhook=http://localhost/license",
+    "app.routes[0].task-keys=LICENSE_MASTER_NEW_CHECK_TASK",
+    "app.routes[1].name=lead",
+    "app.routes[1].webhook=http://localhost/lead",
+    "app.routes[1].types=unfinished",
+    "app.routes[1].min-age-minutes=60"
+})
+class AlertRouterTest {
+    
+    @Autowired
+    private AlertRouter alertRouter;
+    
+    @Test
+    void testRouteByTaskKeyAndAge() {
+        LocalDateTime now = LocalDateTime.of(2025, 8, 21, 10, 0, 0);
+        TaskInfo license = new TaskInfo("task-1", now.minusMinutes(5), "unfinished");
+        license.setTaskKey("LICENSE_MASTER_NEW_CHECK_TASK");
+        TaskInfo personOld = new TaskInfo("task-2", now.minusMinutes(90), "unfinished");
+        personOld.setTaskKey("PERSON_MASTER_NEW_CHECK_TASK");
+        TaskInfo personNew = new TaskInfo("task-3", now.minusMinutes(15), "unfinished");
+        personNew.setTaskKey("PERSON_MASTER_NEW_CHECK_TASK");
+        
+        Map<AlertTarget, List<TaskInfo>> routed = alertRouter.route(
+            Arrays.asList(license, personOld, personNew), "unfinished", now);
+        
+        assertEquals(3, routed.size());
+        assertEquals(Arrays.asList(license), routed.get(new AlertTarget("license-team", "http://localhost/license")));
+        assertEquals(Arrays.asList(personOld), routed.get(new AlertTarget("lead", "http://localhost/lead")));
+        assertEquals(Arrays.asList(personNew), routed.get(alertRouter.getDefaultTarget("unfinished")));
+    }
+}
@@ -0,0 +1,157 @@
+package com.alert.merch.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CycleWatchdogService测试
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "app.task.check-interval-seconds=3600",
+    "app.watchdog.stage-timeout-seconds=1",
+    "app.watchdog.stale-cycle-seconds=1"
+})
+class CycleWatchdogServiceTest {
+    
+    @Autowired
+    private CycleWatchdogService cycleWatchdogService;
+    
+    @Test
+    void testStuckStageIsAbandoned() throws Exception {
+        long abandonedBefore = cycleWatchdogService.getAbandonedStages();
+        
+        // 模拟卡住的阶段
+        assertThrows(TimeoutException.class, () -> cycleWatchdogService.runStage("stuck", () -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertEquals(abandonedBefore + 1, cycleWatchdogService.getAbandonedStages());
+        
+        // 放弃后新的阶段仍能正常执行
+        assertEquals("ok", cycleWatchdogService.runStage("next", () -> "ok"));
+    }
+    
+    @Test
+    void testAbandonedStageStopsBeforeSideEffects() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean sideEffect = new AtomicBoolean();
+        AtomicReference<Throwable> stopped = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        
+        // 模拟阻塞在IO上、不响应中断的阶段，放弃后才返回
+        cycleWatchdogService.beginCycle();
+        assertThrows(TimeoutException.class, () -> cycleWatchdogService.runStage("checkTasks", () -> {
+            try {
+                awaitUninterruptibly(release);
+                cycleWatchdogService.ensureCurrentCycle();
+                sideEffect.set(true);
+            } catch (RuntimeException e) {
+                stopped.set(e);
+            } finally {
+                finished.countDown();
+            }
+        }));
+        cycleWatchdogService.failCycle();
+        
+        // 新周期开始后旧线程醒来，不再产生副作用
+        cycleWatchdogService.beginCycle();
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertFalse(sideEffect.get());
+        assertInstanceOf(CancellationException.class, stopped.get());
+        
+        // 当前周期的阶段不受影响
+        assertEquals("ok", cycleWatchdogService.runStage("next", () -> {
+            cycleWatchdogService.ensureCurrentCycle();
+            return "ok";
+        }));
+        cycleWatchdogService.completeCycle();
+    }
+    
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Test
+    void testCompletedCycleIsNotStale() {
+        cycleWatchdogService.beginCycle();
+        cycleWatchdogService.completeCycle();
+        
+        assertFalse(cycleWatchdogService.isStale());
+        assertNotNull(cycleWatchdogService.getLastSuccessTime());
+    }
+    
+    @Test
+    void testCleanFailureIsStaleButNotWedged() throws Exception {
+        // 模拟数据库不可用：阶段正常抛出异常
+        cycleWatchdogService.beginCycle();
+        assertThrows(IllegalStateException.class, () -> cycleWatchdogService.runStage("checkTasks", () -> {
+            throw new IllegalStateException("数据库不可用");
+        }));
+        cycleWatchdogService.failCycle();
+        Thread.sleep(2100);
+        
+        // 只影响就绪检查，不触发重启
+        assertTrue(cycleWatchdogService.isStale());
+        assertFalse(cycleWatchdogService.isWedged());
+    }
+    
+    @Test
+    void testAbandonedStageIsWedgedUntilCleanCycle() throws Exception {
+        cycleWatchdogService.beginCycle();
+        assertThrows(TimeoutException.class, () -> cycleWatchdogService.runStage("stuck", () -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        cycleWatchdogService.failCycle();
+        Thread.sleep(2100);
+        assertTrue(cycleWatchdogService.isWedged());
+        
+        // 之后有正常结束的周期即恢复
+        cycleWatchdogService.beginCycle();
+        cycleWatchdogService.completeCycle();
+        assertFalse(cycleWatchdogService.isWedged());
+    }
+    
+    @Test
+    void testUnfinishedCycleIsWedged() throws Exception {
+        cycleWatchdogService.beginCycle();
+        assertFalse(cycleWatchdogService.isWedged());
+        Thread.sleep(2100);
+        assertTrue(cycleWatchdogService.isWedged());
+        
+        cycleWatchdogService.completeCycle();
+        assertFalse(cycleWatchdogService.isWedged());
+    }
+}
@@ -0,0 +1,123 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import com.alert.merch.model.AlertTarget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamService测试（写入卡住的客户端不影响其他客户端）
+ */
+class StreamServiceTest {
+    
+    private final CountDownLatch releaseStalled = new CountDownLatch(1);
+    private volatile boolean nextStalled;
+    private SimpleMeterRegistry meterRegistry;
+    private StreamService streamService;
+    
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getStream().setSenderThreads(2);
+        appConfig.getStream().setWriteTimeoutMs(200);
+        meterRegistry = new SimpleMeterRegistry();
+        MetricsService metricsService = new MetricsService();
+        ReflectionTestUtils.setField(metricsService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(metricsService, "appConfig", appConfig);
+        
+        streamService = new StreamService() {
+            @Override
+            SseEmitter createEmitter(long timeoutMillis) {
+                return new RecordingEmitter(timeoutMillis, nextStalled);
+            }
+        };
+        ReflectionTestUtils.setField(streamService, "appConfig", appConfig);
+        ReflectionTestUtils.setField(streamService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(streamService, "metricsService", metricsService);
+        streamService.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        releaseStalled.countDown();
+        streamService.shutdown();
+    }
+    
+    @Test
+    void testStalledClientsDoNotBlockOthers() throws Exception {
+        // 卡住的客户端比发送线程多，原来会占满全部发送线程
+        nextStalled = true;
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(streamService.subscribe(null));
+        }
+        nextStalled = false;
+        RecordingEmitter healthy = (RecordingEmitter) streamService.subscribe(null);
+        assertTrue(await(() -> healthy.contains("event:snapshot")), "正常客户端应收到连接快照");
+        
+        streamService.publishAlert(LocalDateTime.now(), "unfinished", new AlertTarget("team-a", "http://localhost"), 3);
+        assertTrue(await(() -> healthy.contains("event:alert")), "正常客户端应收到告警事件");
+        assertTrue(await(() -> meterRegistry.counter("stream_evicted_total").count() == 3));
+        assertEquals(1, streamService.getClientCount());
+        
+        // 移出后继续发布的事件照常送达
+        streamService.publishAlert(LocalDateTime.now(), "unclaimed", new AlertTarget("team-b", "http://localhost"), 1);
+        assertTrue(await(() -> healthy.contains("team-b")));
+    }
+    
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+    
+    /**
+     * 记录写入内容的事件流，stalled 为true时写入一直阻塞（模拟不读取数据的客户端）
+     */
+    private class RecordingEmitter extends SseEmitter {
+        private final boolean stalled;
+        private final List<String> written = new CopyOnWriteArrayList<>();
+        
+        RecordingEmitter(long timeoutMillis, boolean stalled) {
+            super(timeoutMillis);
+            this.stalled = stalled;
+        }
+        
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (stalled) {
+                try {
+                    releaseStalled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(data -> text.append(data.getData()));
+            written.add(text.toString());
+        }
+        
+        boolean contains(String text) {
+            return written.stream().anyMatch(item -> item.contains(text));
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.alert.merch.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地企业微信群机器人Webhook桩服务，用于离线测试和压测告警发送链路
+ * 模拟 POST /cgi-bin/webhook/send?key=机器人key 接口：HTTP 200 + {"errcode":0,"errmsg":"ok"} 表示成功，
+ * 按机器人key做每分钟滑动窗口限流（超限返回45009），markdown内容超过4096字节返回40058，缺少key返回93000。
+ * 可配置每个请求的响应延迟，以及按比例注入HTTP 503和errcode -1（系统繁忙）失败
+ */
+public class WeComStubServer implements AutoCloseable {
+    
+    public static final int ERR_SYSTEM_BUSY = -1;
+    public static final int ERR_CONTENT_TOO_LONG = 40058;
+    public static final int ERR_RATE_LIMITED = 45009;
+    public static final int ERR_INVALID_KEY = 93000;
+    
+    private static final int MAX_MARKDOWN_BYTES = 4096;
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    
+    /**
+     * 成功接收一条消息时的回调，在桩服务的处理线程上调用
+     */
+    public interface Listener {
+        void onAccepted(String key, String content, long receivedNanos);
+    }
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    
+    // 每个机器人key最近一分钟内成功的请求时间
+    private final Map<String, Deque<Long>> windows = new ConcurrentHashMap<>();
+    
+    private volatile long latencyMillis;
+    private volatile int rateLimitPerMinute;
+    private volatile double httpErrorRate;
+    private volatile double systemBusyRate;
+    private volatile Listener listener;
+    
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    
+    private WeComStubServer(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "wecom-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/cgi-bin/webhook/send", this::handle);
+        server.start();
+    }
+    
+    /**
+     * 在本机随机端口启动桩服务
+     *
+     * @param threads 处理线程数，决定配置延迟时能同时处理的请求数
+     */
+    public static WeComStubServer start(int threads) throws IOException {
+        return new WeComStubServer(threads);
+    }
+    
+    /**
+     * 指定机器人key的Webhook地址
+     */
+    public String webhookUrl(String key) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/cgi-bin/webhook/send?key=" + key;
+    }
+    
+    /**
+     * 每个请求在响应前等待的时间
+     */
+    public WeComStubServer latencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+    
+    /**
+     * 每个机器人key每分钟允许的消息数，0表示不限流（企业微信为20）
+     */
+    public WeComStubServer rateLimitPerMinute(int rateLimitPerMinute) {
+        this.rateLimitPerMinute = rateLimitPerMinute;
+        return this;
+    }
+    
+    /**
+     * 返回HTTP 503的请求比例
+     */
+    public WeComStubServer httpErrorRate(double httpErrorRate) {
+        this.httpErrorRate = httpErrorRate;
+        return this;
+    }
+    
+    /**
+     * 返回errcode -1（系统繁忙）的请求比例
+     */
+    public WeComStubServer systemBusyRate(double systemBusyRate) {
+        this.systemBusyRate = systemBusyRate;
+        return this;
+    }
+    
+    public WeComStubServer listener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            long receivedNanos = System.nanoTime();
+            if (latencyMillis > 0) {
+                sleep(latencyMillis);
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                rejected.incrementAndGet();
+                respond(exchange, 405, "");
+                return;
+            }
+            String key = queryParam(exchange.getRequestURI(), "key");
+            if (key == null || key.isEmpty()) {
+                rejected.incrementAndGet();
+                respondError(exchange, ERR_INVALID_KEY, "invalid webhook url");
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (httpErrorRate > 0 && random.nextDouble() < httpErrorRate) {
+                injectedFailures.incrementAndGet();
+                respond(exchange, 503, "Service Unavailable");
+                return;
+            }
+            if (systemBusyRate > 0 && random.nextDouble() < systemBusyRate) {
+                injectedFailures.incrementAndGet();
+                respondError(exchange, ERR_SYSTEM_BUSY, "system busy");
+                return;
+            }
+            
+            String content;
+            try (InputStream in = exchange.getRequestBody()) {
+                JsonNode body = objectMapper.readTree(in);
+                content = body.path("markdown").path("content").asText(null);
+                if (!"markdown".equals(body.path("msgtype").asText()) || content == null) {
+                    rejected.incrementAndGet();
+                    respondError(exchange, 40008, "invalid message type");
+                    return;
+                }
+            } catch (IOException e) {
+                rejected.incrementAndGet();
+                respondError(exchange, 40008, "invalid json");
+                return;
+            }
+            if (content.getBytes(StandardCharsets.UTF_8).length > MAX_MARKDOWN_BYTES) {
+                rejected.incrementAndGet();
+                respondError(exchange, ERR_CONTENT_TOO_LONG, "markdown.content exceed max length 4096");
+                return;
+            }
+            if (!acquire(key, receivedNanos)) {
+                rateLimited.incrementAndGet();
+                respondError(exchange, ERR_RATE_LIMITED, "api freq out of limit");
+                return;
+            }
+            
+            accepted.incrementAndGet();
+            Listener current = listener;
+            if (current != null) {
+                current.onAccepted(key, content, System.nanoTime());
+            }
+            respondError(exchange, 0, "ok");
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * 滑动窗口限流：最近一分钟内该key成功的请求数未达上限时占用一个名额
+     */
+    private boolean acquire(String key, long nowNanos) {
+        int limit = rateLimitPerMinute;
+        if (limit <= 0) {
+            return true;
+        }
+        Deque<Long> window = windows.computeIfAbsent(key, k -> new ArrayDeque<>());
+        synchronized (window) {
+            while (!window.isEmpty() && nowNanos - window.peekFirst() >= WINDOW_NANOS) {
+                window.pollFirst();
+            }
+            if (window.size() >= limit) {
+                return false;
+            }
+            window.addLast(nowNanos);
+            return true;
+        }
+    }
+    
+    private void respondError(HttpExchange exchange, int errcode, String errmsg) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        respond(exchange, 200, "{\"errcode\":" + errcode + ",\"errmsg\":\"" + errmsg + "\"}");
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+    
+    private static String queryParam(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 收到的请求总数
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+    
+    /**
+     * 成功接收（errcode 0）的消息数
+     */
+    public long getAccepted() {
+        return accepted.get();
+    }
+    
+    /**
+     * 因限流返回45009的请求数
+     */
+    public long getRateLimited() {
+        return rateLimited.get();
+    }
+    
+    /**
+     * 注入的503和系统繁忙失败数
+     */
+    public long getInjectedFailures() {
+        return injectedFailures.get();
+    }
+    
+    /**
+     * 因请求不合法（缺少key、格式错误、内容过长）被拒绝的请求数
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package com.alert.merch.service;
+
+import com.alert.merch.config.AppConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WeComWebhookClient测试（对接本地企业微信桩服务）
+ */
+class WeComWebhookClientTest {
+    
+    private WeComStubServer stub;
+    private WeComWebhookClient client;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = WeComStubServer.start(4);
+        AppConfig appConfig = new AppConfig();
+        appConfig.getWecom().setConnectTimeoutMs(1000);
+        appConfig.getWecom().setSocketTimeoutMs(300);
+        client = new WeComWebhookClient();
+        ReflectionTestUtils.setField(client, "appConfig", appConfig);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+    
+    @Test
+    void testSendMarkdown() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        stub.listener((key, content, receivedNanos) -> received.add(key + ":" + content));
+        
+        assertTrue(client.sendMarkdown("【超时提醒】测试", stub.webhookUrl("team-a")));
+        assertEquals(List.of("team-a:【超时提醒】测试"), received);
+        assertEquals(1, stub.getAccepted());
+    }
+    
+    @Test
+    void testRateLimitErrcodeIsFailure() {
+        stub.rateLimitPerMinute(2);
+        assertTrue(client.sendMarkdown("1", stub.webhookUrl("team-a")));
+        assertTrue(client.sendMarkdown("2", stub.webhookUrl("team-a")));
+        assertFalse(client.sendMarkdown("3", stub.webhookUrl("team-a")));
+        // 限流按机器人key计算
+        assertTrue(client.sendMarkdown("4", stub.webhookUrl("team-b")));
+        
+        assertEquals(1, stub.getRateLimited());
+        assertEquals(3, stub.getAccepted());
+    }
+    
+    @Test
+    void testInjectedFailures() {
+        stub.httpErrorRate(1.0);
+        assertFalse(client.sendMarkdown("503", stub.webhookUrl("team-a")));
+        stub.httpErrorRate(0).systemBusyRate(1.0);
+        assertFalse(client.sendMarkdown("busy", stub.webhookUrl("team-a")));
+        
+        assertEquals(2, stub.getInjectedFailures());
+        assertEquals(0, stub.getAccepted());
+    }
+    
+    @Test
+    void testRejectedRequests() {
+        assertFalse(client.sendMarkdown("x".repeat(4097), stub.webhookUrl("team-a")));
+        assertFalse(client.sendMarkdown("缺少key", stub.webhookUrl("")));
+        assertEquals(2, stub.getRejected());
+    }
+    
+    @Test
+    void testSlowResponseTimesOut() {
+        stub.latencyMillis(1000);
+        long start = System.nanoTime();
+        assertFalse(client.sendMarkdown("slow", stub.webhookUrl("team-a")));
+        assertTrue(System.nanoTime() - start < 900_000_000L);
+    }
+}
@@ -0,0 +1,106 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.AlertAuditRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 告警审计日志测试
+ */
+class AlertAuditLogTest {
+    
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 10, 0);
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void testQuerySkipsSegmentsWithoutTask() throws Exception {
+        AlertAuditLog auditLog = new AlertAuditLog(dir, objectMapper, 1000, 0);
+        auditLog.open();
+        // 10天，每天一个分段，任务 t-<天>-<序号>
+        for (int day = 0; day < 10; day++) {
+            for (int i = 0; i < 50; i++) {
+                auditLog.append(record(BASE.plusDays(day).plusMinutes(i), "t-" + day + "-" + i));
+            }
+        }
+        // 同一任务第3天再次被告警
+        auditLog.append(record(BASE.plusDays(10), "t-3-7"));
+        assertEquals(11, auditLog.getSegmentCount());
+        
+        int[] scanned = new int[1];
+        List<AlertAuditRecord> history = auditLog.query("t-3-7", scanned);
+        assertEquals(2, history.size());
+        assertEquals(BASE.plusDays(3).plusMinutes(7), history.get(0).getTime());
+        assertEquals(BASE.plusDays(10), history.get(1).getTime());
+        // 当前分段从内存查询；10个已封存分段中只有命中的分段（及少量误判）被解压
+        assertTrue(scanned[0] >= 1 && scanned[0] <= 2, "scanned=" + scanned[0]);
+        
+        assertTrue(auditLog.query("missing").isEmpty());
+    }
+    
+    @Test
+    void testRotateByIdCount() throws Exception {
+        AlertAuditLog auditLog = new AlertAuditLog(dir, objectMapper, 10, 0);
+        auditLog.open();
+        for (int i = 0; i < 25; i++) {
+            auditLog.append(record(BASE.plusSeconds(i), "t" + i));
+        }
+        assertEquals(3, auditLog.getSegmentCount());
+        assertEquals(1, auditLog.query("t12").size());
+    }
+    
+    @Test
+    void testRecoverUnsealedSegmentAfterCrash() throws Exception {
+        AlertAuditLog auditLog = new AlertAuditLog(dir, objectMapper, 1000, 0);
+        auditLog.open();
+        auditLog.append(record(BASE, "t1", "t2"));
+        auditLog.append(record(BASE.plusMinutes(10), "t1"));
+        // 不调用close，模拟进程退出：分段没有gzip尾部和索引文件
+        
+        AlertAuditLog reopened = new AlertAuditLog(dir, objectMapper, 1000, 0);
+        reopened.open();
+        assertEquals(1, reopened.getSegmentCount());
+        assertEquals(2, reopened.query("t1").size());
+        assertEquals(1, reopened.query("t2").size());
+        
+        reopened.append(record(BASE.plusMinutes(20), "t1"));
+        assertEquals(3, reopened.query("t1").size());
+        reopened.close();
+        
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(4, files.count()); // 两个分段及各自的索引
+        }
+    }
+    
+    @Test
+    void testRetentionDropsOldSegments() throws Exception {
+        AlertAuditLog auditLog = new AlertAuditLog(dir, objectMapper, 1000, 3);
+        auditLog.open();
+        for (int day = 0; day < 10; day++) {
+            auditLog.append(record(BASE.plusDays(day), "t" + day));
+        }
+        auditLog.close();
+        
+        assertTrue(auditLog.query("t0").isEmpty());
+        assertEquals(1, auditLog.query("t9").size());
+        assertEquals(4, auditLog.getSegmentCount());
+    }
+    
+    private static AlertAuditRecord record(LocalDateTime time, String... taskIds) {
+        return new AlertAuditRecord(time, "unclaimed", "default-unclaimed", null, Arrays.asList(taskIds), true);
+    }
+}
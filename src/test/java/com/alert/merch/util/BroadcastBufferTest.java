@@ -0,0 +1,56 @@
+package com.alert.merch.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 有界广播缓冲区测试
+ */
+class BroadcastBufferTest {
+    
+    @Test
+    void readersKeepIndependentCursors() {
+        BroadcastBuffer<String> buffer = new BroadcastBuffer<>(4);
+        buffer.publish("a");
+        buffer.publish("b");
+        buffer.publish("c");
+        
+        List<String> fast = new ArrayList<>();
+        long fastCursor = buffer.read(0, 10, fast);
+        assertEquals(Arrays.asList("a", "b", "c"), fast);
+        assertEquals(3, fastCursor);
+        
+        List<String> paged = new ArrayList<>();
+        long pagedCursor = buffer.read(0, 2, paged);
+        assertEquals(2, pagedCursor);
+        assertEquals(3, buffer.read(pagedCursor, 2, paged));
+        assertEquals(Arrays.asList("a", "b", "c"), paged);
+        
+        // 没有新消息时位置不变
+        List<String> none = new ArrayList<>();
+        assertEquals(3, buffer.read(3, 10, none));
+        assertTrue(none.isEmpty());
+    }
+    
+    @Test
+    void laggingReaderIsToldItMissedMessages() {
+        BroadcastBuffer<Integer> buffer = new BroadcastBuffer<>(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.publish(i);
+        }
+        assertEquals(2, buffer.head());
+        assertEquals(5, buffer.tail());
+        
+        List<Integer> out = new ArrayList<>();
+        assertEquals(-1, buffer.read(1, 10, out));
+        assertTrue(out.isEmpty());
+        
+        assertEquals(5, buffer.read(buffer.head(), 10, out));
+        assertEquals(Arrays.asList(2, 3, 4), out);
+    }
+}
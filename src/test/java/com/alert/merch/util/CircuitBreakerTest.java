@@ -0,0 +1,106 @@
+package com.alert.merch.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 熔断器测试
+ */
+public class CircuitBreakerTest {
+    
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMinutes(1), Duration.ofMinutes(15));
+        
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+    
+    @Test
+    public void testSuccessResetsFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, Duration.ofMinutes(1), Duration.ofMinutes(15));
+        
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.getConsecutiveFailures());
+    }
+    
+    @Test
+    public void testHalfOpenProbeFailureBacksOff() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO, Duration.ofMinutes(15));
+        
+        breaker.recordFailure();
+        // 熔断时长为0，立即进入半开放行探测
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.getNextAttemptTime().isAfter(LocalDateTime.now().plusMinutes(15)));
+        
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    
+    @Test
+    public void testHalfOpenAdmitsSingleProbe() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO, Duration.ofMinutes(15));
+        breaker.recordFailure();
+        
+        // 两个调用方（如检测线程和统计线程）同时到达，只有一个作为探测放行
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        
+        // 探测成功后恢复，所有调用方放行
+        breaker.recordSuccess();
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+    
+    @Test
+    public void testConcurrentCallersInHalfOpen() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO, Duration.ofMinutes(15));
+        breaker.recordFailure();
+        
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            for (int i = 0; i < callers; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    if (breaker.allowRequest()) {
+                        admitted.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, admitted.get());
+    }
+}
@@ -0,0 +1,74 @@
+package com.alert.merch.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 检查周期追踪环形缓冲区测试
+ */
+class CycleTraceBufferTest {
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordsStagesOfCurrentCycle() {
+        CycleTraceBuffer buffer = new CycleTraceBuffer(4);
+        long cycleId = buffer.begin(1000L);
+        buffer.add(CycleStage.QUERY, 3_000_000L, 120);
+        buffer.add(CycleStage.WEBHOOK, 1_000_000L, 1);
+        buffer.add(CycleStage.WEBHOOK, 2_000_000L, 1);
+        buffer.end(true);
+        
+        Map<String, Object> cycle = buffer.snapshotOf(cycleId);
+        assertEquals(cycleId, cycle.get("cycleId"));
+        assertEquals(false, cycle.get("running"));
+        assertEquals(true, cycle.get("success"));
+        Map<String, Object> stages = (Map<String, Object>) cycle.get("stages");
+        assertEquals(2, stages.size());
+        Map<String, Object> webhook = (Map<String, Object>) stages.get("webhook");
+        assertEquals(3.0, webhook.get("ms"));
+        assertEquals(2L, webhook.get("calls"));
+        assertEquals(2L, webhook.get("items"));
+        assertEquals(120L, ((Map<String, Object>) stages.get("query")).get("items"));
+    }
+    
+    @Test
+    void overwritesOldestCycles() {
+        CycleTraceBuffer buffer = new CycleTraceBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.begin(i);
+            buffer.add(CycleStage.QUERY, i, i);
+            buffer.end(true);
+        }
+        
+        List<Map<String, Object>> cycles = buffer.snapshot(10);
+        assertEquals(3, cycles.size());
+        assertEquals(5L, cycles.get(0).get("cycleId"));
+        assertEquals(3L, cycles.get(2).get("cycleId"));
+        assertNull(buffer.snapshotOf(2));
+        assertEquals(2, buffer.snapshot(2).size());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void attributesAsyncStageToOriginatingCycle() {
+        CycleTraceBuffer buffer = new CycleTraceBuffer(2);
+        long first = buffer.begin(0);
+        buffer.end(true);
+        buffer.begin(0);
+        
+        buffer.recordFor(first, CycleStage.WEBHOOK_SEND, 5_000_000L, 1);
+        Map<String, Object> stages = (Map<String, Object>) buffer.snapshotOf(first).get("stages");
+        assertEquals(5.0, ((Map<String, Object>) stages.get("webhookSend")).get("ms"));
+        assertEquals(true, buffer.snapshot(1).get(0).get("running"));
+        
+        // 周期已被覆盖后到达的记录被忽略
+        buffer.end(true);
+        long third = buffer.begin(0);
+        buffer.recordFor(first, CycleStage.WEBHOOK_SEND, 5_000_000L, 1);
+        assertTrue(((Map<String, Object>) buffer.snapshotOf(third).get("stages")).isEmpty());
+    }
+}
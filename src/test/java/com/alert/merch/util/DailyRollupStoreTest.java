@@ -0,0 +1,159 @@
+package com.alert.merch.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 每日统计汇总测试
+ */
+class DailyRollupStoreTest {
+    
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+    
+    @TempDir
+    Path tempDir;
+    
+    private DailyRollupStore newStore() {
+        return new DailyRollupStore(tempDir.resolve("daily_rollups.json"), new ObjectMapper(), 9, 21, 35);
+    }
+    
+    @Test
+    void countsEachTaskOncePerCreateDay() {
+        DailyRollupStore store = newStore();
+        assertTrue(store.recordTask("t1", DAY.atTime(10, 0)));
+        assertFalse(store.recordTask("t1", DAY.atTime(10, 0)));
+        store.recordTask("t2", DAY.atTime(22, 0));
+        
+        assertTrue(store.recordUnfinished("t1", DAY.atTime(10, 0)));
+        assertFalse(store.recordUnfinished("t1", DAY.atTime(10, 0)));
+        store.recordUnfinished("t2", DAY.atTime(22, 0));
+        store.recordUnclaimed("t3", DAY.atTime(8, 59));
+        
+        Map<String, Object> summary = store.summary(DAY);
+        assertEquals(2, summary.get("totalTasks"));
+        assertEquals(2, summary.get("unfinishedTimeouts"));
+        assertEquals(1, summary.get("unfinishedInWindow"));
+        assertEquals(1, summary.get("unclaimedTimeouts"));
+        assertEquals(0, summary.get("unclaimedInWindow"));
+        assertEquals(0, store.summary(DAY.plusDays(1)).get("totalTasks"));
+    }
+    
+    @Test
+    void reportsYesterdayOnceAfterReportHour() {
+        DailyRollupStore store = newStore();
+        LocalDate today = DAY.plusDays(1);
+        assertNull(store.pendingReportDate(today.atTime(8, 59), 9));
+        assertEquals(DAY, store.pendingReportDate(today.atTime(9, 0), 9));
+        // 错过9点后的任意时间仍可补发
+        assertEquals(DAY, store.pendingReportDate(today.atTime(15, 30), 9));
+        
+        store.markReported(DAY);
+        assertNull(store.pendingReportDate(today.atTime(15, 31), 9));
+        assertEquals(today, store.pendingReportDate(today.plusDays(1).atTime(9, 1), 9));
+    }
+    
+    @Test
+    void reportsMissedDaysOneAtATimeAfterOutage() {
+        DailyRollupStore store = newStore();
+        store.markReported(DAY.minusDays(1));
+        store.recordTask("t1", DAY.atTime(10, 0));
+        store.recordTask("t2", DAY.plusDays(2).atTime(10, 0));
+        
+        // 停机到第4天：有数据的第1天、第3天先逐天补发，没有数据的第2天跳过，最后是前一天
+        LocalDateTime now = DAY.plusDays(4).atTime(10, 0);
+        assertEquals(DAY, store.pendingReportDate(now, 9));
+        store.markReported(DAY);
+        assertEquals(DAY.plusDays(2), store.pendingReportDate(now, 9));
+        store.markReported(DAY.plusDays(2));
+        assertEquals(DAY.plusDays(3), store.pendingReportDate(now, 9));
+        store.markReported(DAY.plusDays(3));
+        assertNull(store.pendingReportDate(now, 9));
+    }
+    
+    @Test
+    void survivesRestart() throws Exception {
+        DailyRollupStore store = newStore();
+        store.recordTask("t1", DAY.atTime(10, 0));
+        store.recordUnfinished("t1", DAY.atTime(10, 0));
+        store.markReported(DAY.minusDays(1));
+        store.save();
+        
+        DailyRollupStore reopened = newStore();
+        reopened.load();
+        assertEquals(DAY.minusDays(1), reopened.getLastReportedDate());
+        assertEquals(1, reopened.summary(DAY).get("unfinishedInWindow"));
+        // 重启后重新查询到的任务不会重复计数
+        assertFalse(reopened.recordTask("t1", DAY.atTime(10, 0)));
+        assertEquals(DAY, reopened.pendingReportDate(LocalDateTime.of(2024, 1, 2, 11, 0), 9));
+    }
+    
+    @Test
+    void prunesDaysBeyondRetention() {
+        DailyRollupStore store = new DailyRollupStore(tempDir.resolve("r.json"), new ObjectMapper(), 9, 21, 2);
+        for (int i = 0; i < 5; i++) {
+            store.recordTask("t" + i, DAY.plusDays(i).atTime(10, 0));
+        }
+        store.markReported(DAY.plusDays(4));
+        assertEquals(3, store.size());
+        assertFalse(store.hasData(DAY.plusDays(1)));
+    }
+    
+    @Test
+    void collapsesReportedDaysToCounts() throws Exception {
+        DailyRollupStore store = newStore();
+        LocalDate today = DAY.plusDays(1);
+        store.recordTask("t1", DAY.atTime(10, 0));
+        store.recordTask("t2", DAY.atTime(11, 0));
+        store.recordUnfinished("t1", DAY.atTime(10, 0));
+        store.recordTask("t3", today.atTime(8, 0));
+        
+        store.markReported(DAY);
+        // 已结算的天不再保存ID，之后出现的该天任务不计入，计数保持日报发送时的值
+        assertEquals(Map.of(today, List.of("t3")), store.getTaskIds());
+        assertFalse(store.recordTask("t4", DAY.atTime(12, 0)));
+        assertFalse(store.recordUnfinished("t2", DAY.atTime(11, 0)));
+        assertEquals(2, store.summary(DAY).get("totalTasks"));
+        assertEquals(1, store.summary(DAY).get("unfinishedTimeouts"));
+        assertEquals(1, store.summary(DAY).get("unfinishedInWindow"));
+        assertTrue(store.recordTask("t5", today.atTime(9, 0)));
+        
+        store.save();
+        String json = new String(Files.readAllBytes(tempDir.resolve("daily_rollups.json")), StandardCharsets.UTF_8);
+        assertFalse(json.contains("\"t1\""));
+        assertTrue(json.contains("\"t5\""));
+        
+        DailyRollupStore reopened = newStore();
+        reopened.load();
+        assertEquals(2, reopened.summary(DAY).get("totalTasks"));
+        assertFalse(reopened.recordTask("t1", DAY.atTime(10, 0)));
+        assertFalse(reopened.recordTask("t5", today.atTime(9, 0)));
+        assertEquals(2, reopened.getTotalTasks(today));
+    }
+    
+    @Test
+    void loadsLegacyFileWithIdsOnly() throws Exception {
+        Files.write(tempDir.resolve("daily_rollups.json"), ("{\"lastReportedDate\":\"2024-01-01\",\"days\":["
+            + "{\"date\":\"2024-01-01\",\"taskIds\":[\"t1\",\"t2\"],\"unclaimedIds\":[\"t2\"],\"unclaimedInWindow\":1},"
+            + "{\"date\":\"2024-01-02\",\"taskIds\":[\"t3\"]}]}").getBytes(StandardCharsets.UTF_8));
+        DailyRollupStore store = newStore();
+        store.load();
+        assertEquals(2, store.summary(DAY).get("totalTasks"));
+        assertEquals(1, store.summary(DAY).get("unclaimedTimeouts"));
+        
+        assertEquals(1, store.closeReportedDays());
+        assertEquals(2, store.getTotalTasks(DAY));
+        assertEquals(Map.of(DAY.plusDays(1), List.of("t3")), store.getTaskIds());
+        assertFalse(store.recordTask("t3", DAY.plusDays(1).atTime(10, 0)));
+    }
+}
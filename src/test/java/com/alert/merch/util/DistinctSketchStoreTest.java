@@ -0,0 +1,78 @@
+package com.alert.merch.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按天去重计数草图测试
+ */
+class DistinctSketchStoreTest {
+    
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testRangeCountsEachIdOnce() {
+        DistinctSketchStore store = new DistinctSketchStore(tempDir, 12, 0);
+        // 同一流程的两个任务节点在相邻两天创建
+        for (int i = 0; i < 100; i++) {
+            store.add("p" + i, DAY);
+            store.add("p" + i, DAY.plusDays(1));
+        }
+        store.add("p100", DAY.plusDays(2));
+        
+        assertEquals(100, store.estimate(DAY, DAY));
+        assertEquals(100, store.estimate(DAY, DAY.plusDays(1)));
+        assertEquals(101, store.estimate(DAY, DAY.plusDays(6)));
+        assertEquals(0, store.estimate(DAY.plusDays(3), DAY.plusDays(9)));
+        assertEquals(3, store.daysWithData(DAY.minusDays(30), DAY.plusDays(30)));
+    }
+    
+    @Test
+    void testSaveAndLoad() throws Exception {
+        DistinctSketchStore store = new DistinctSketchStore(tempDir, 12, 0);
+        for (int i = 0; i < 500; i++) {
+            store.add(String.valueOf(i), DAY.plusDays(i % 3));
+        }
+        store.save();
+        
+        assertTrue(Files.exists(tempDir.resolve("tasks-2024-01-01.hll")));
+        assertEquals(8 + 4096, Files.size(tempDir.resolve("tasks-2024-01-01.hll")));
+        
+        DistinctSketchStore loaded = new DistinctSketchStore(tempDir, 12, 0);
+        assertEquals(0, loaded.load());
+        assertEquals(3, loaded.size());
+        assertEquals(store.estimate(DAY, DAY.plusDays(2)), loaded.estimate(DAY, DAY.plusDays(2)));
+        
+        // 精度不同的文件跳过
+        assertEquals(3, new DistinctSketchStore(tempDir, 10, 0).load());
+    }
+    
+    @Test
+    void testRetentionAndClearRemoveFiles() throws Exception {
+        DistinctSketchStore store = new DistinctSketchStore(tempDir, 12, 30);
+        store.add("a", DAY);
+        store.add("b", DAY.plusDays(10));
+        store.save();
+        assertEquals(2, store.size());
+        
+        store.add("c", DAY.plusDays(40));
+        store.save();
+        assertEquals(2, store.size());
+        assertFalse(Files.exists(tempDir.resolve("tasks-2024-01-01.hll")));
+        assertTrue(Files.exists(tempDir.resolve("tasks-2024-01-11.hll")));
+        
+        store.clear();
+        store.save();
+        assertEquals(0, new DistinctSketchStore(tempDir, 12, 30).load());
+        assertEquals(0, Files.list(tempDir).count());
+    }
+}
@@ -0,0 +1,94 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 告警升级调度测试
+ */
+class EscalationScheduleTest {
+    
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 10, 0);
+    
+    private final EscalationSchedule schedule = new EscalationSchedule(Arrays.asList(
+        new EscalationSchedule.Level("team", null, 3 * 60, 10 * 60, 2.0, 40 * 60),
+        new EscalationSchedule.Level("lead", "http://lead", 15 * 60, 30 * 60, 1.0, 30 * 60),
+        new EscalationSchedule.Level("manager", "http://manager", 60 * 60, 0, 1.0, 0)));
+    
+    @Test
+    void testLadderAndBackoff() {
+        TaskInfo task = new TaskInfo("t1", BASE, "unclaimed");
+        List<TaskInfo> tasks = Collections.singletonList(task);
+        
+        schedule.sync(tasks);
+        assertTrue(schedule.pollDue(at(2)).isEmpty());
+        
+        List<EscalationSchedule.Notification> due = schedule.pollDue(at(3));
+        assertEquals(1, due.size());
+        assertEquals("team", due.get(0).getLevel().getName());
+        assertEquals(0, due.get(0).getNotifyCount());
+        
+        // 同一周期内不会重复通知
+        assertTrue(schedule.pollDue(at(3)).isEmpty());
+        assertTrue(schedule.pollDue(at(12)).isEmpty());
+        
+        // 第一次重复提醒在10分钟后，下一次间隔翻倍为20分钟，但15分钟时先升级到组长
+        due = schedule.pollDue(at(13));
+        assertEquals(1, due.get(0).getNotifyCount());
+        assertTrue(schedule.pollDue(at(14)).isEmpty());
+        due = schedule.pollDue(at(15));
+        assertEquals("lead", due.get(0).getLevel().getName());
+        assertEquals(1, due.get(0).getLevelIndex());
+        
+        // 组长级别每30分钟提醒一次，60分钟升级到经理，经理级别只通知一次
+        assertEquals(1, schedule.pollDue(at(45)).size());
+        due = schedule.pollDue(at(60));
+        assertEquals("manager", due.get(0).getLevel().getName());
+        assertTrue(schedule.pollDue(at(600)).isEmpty());
+        assertEquals(Long.MAX_VALUE, schedule.nextDeadline());
+    }
+    
+    @Test
+    void testLateTaskJumpsToHighestLevel() {
+        schedule.sync(Collections.singletonList(new TaskInfo("t1", BASE, "unfinished")));
+        
+        List<EscalationSchedule.Notification> due = schedule.pollDue(at(20));
+        assertEquals(1, due.size());
+        assertEquals("lead", due.get(0).getLevel().getName());
+        assertEquals(0, due.get(0).getNotifyCount());
+    }
+    
+    @Test
+    void testResolvedTasksLeaveQueue() {
+        TaskInfo first = new TaskInfo("t1", BASE, "unclaimed");
+        TaskInfo second = new TaskInfo("t2", BASE.plusMinutes(1), "unclaimed");
+        schedule.sync(Arrays.asList(first, second));
+        assertEquals(2, schedule.size());
+        
+        // t1 已被领取，不再出现在超时列表中
+        schedule.sync(Collections.singletonList(second));
+        assertEquals(1, schedule.size());
+        List<EscalationSchedule.Notification> due = schedule.pollDue(at(10));
+        assertEquals(1, due.size());
+        assertEquals("t2", due.get(0).getTask().getTaskId());
+    }
+    
+    @Test
+    void testRejectsNonIncreasingLadder() {
+        assertThrows(IllegalArgumentException.class, () -> new EscalationSchedule(Arrays.asList(
+            new EscalationSchedule.Level("a", null, 600, 0, 1.0, 0),
+            new EscalationSchedule.Level("b", null, 600, 0, 1.0, 0))));
+    }
+    
+    private static long at(int minutes) {
+        return TaskTable.toEpochSecond(BASE.plusMinutes(minutes));
+    }
+}
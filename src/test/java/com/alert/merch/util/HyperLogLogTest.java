@@ -0,0 +1,63 @@
+package com.alert.merch.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HyperLogLog基数估计测试
+ */
+class HyperLogLogTest {
+    
+    @Test
+    void testEmptyAndDuplicates() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        assertEquals(0, sketch.estimate());
+        
+        assertTrue(sketch.add("1001"));
+        assertFalse(sketch.add("1001"));
+        assertEquals(1, sketch.estimate());
+    }
+    
+    @Test
+    void testAccuracyOnSequentialIds() {
+        // 流程ID通常是连续的数字，验证哈希在高位分布均匀
+        for (int cardinality : new int[]{100, 1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add(String.valueOf(250_000_000L + i));
+            }
+            double error = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+            assertTrue(error < 4 * HyperLogLog.standardError(12), cardinality + " 误差 " + error);
+        }
+    }
+    
+    @Test
+    void testMergeEqualsUnion() {
+        HyperLogLog monday = new HyperLogLog(12);
+        HyperLogLog tuesday = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) {
+            monday.add("p" + i);
+            union.add("p" + i);
+        }
+        // 一半的流程在第二天又出现（另一个任务节点）
+        for (int i = 15_000; i < 45_000; i++) {
+            tuesday.add("p" + i);
+            union.add("p" + i);
+        }
+        
+        monday.merge(tuesday);
+        
+        assertEquals(union.estimate(), monday.estimate());
+        assertTrue(Math.abs(monday.estimate() - 45_000) < 45_000 * 4 * HyperLogLog.standardError(12));
+        assertArrayEquals(union.toBytes(), monday.toBytes());
+    }
+    
+    @Test
+    void testPrecisionMismatch() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.of(12, new byte[16]));
+    }
+}
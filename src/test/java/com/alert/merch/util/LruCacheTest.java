@@ -0,0 +1,60 @@
+package com.alert.merch.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 带过期时间的LRU缓存测试
+ */
+class LruCacheTest {
+    
+    private long now = 0;
+    
+    @Test
+    void testEvictsLeastRecentlyAccessed() {
+        LruCache<String, String> cache = new LruCache<>(2, Duration.ofMinutes(10), () -> now);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        // 访问a后b成为最久未访问的条目
+        assertEquals("A", cache.get("a"));
+        cache.put("c", "C");
+        
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+    
+    @Test
+    void testExpiresAfterTtl() {
+        LruCache<String, String> cache = new LruCache<>(10, Duration.ofMinutes(10), () -> now);
+        cache.put("a", "A");
+        
+        now = TimeUnit.MINUTES.toNanos(10) - 1;
+        assertEquals("A", cache.get("a"));
+        // 读取不延长过期时间
+        now = TimeUnit.MINUTES.toNanos(10);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        
+        cache.put("a", "A2");
+        assertEquals("A2", cache.get("a"));
+        assertEquals(0, cache.getEvictions());
+    }
+    
+    @Test
+    void testPutReplacesValue() {
+        LruCache<String, String> cache = new LruCache<>(1, Duration.ofMinutes(1), () -> now);
+        cache.put("a", "A");
+        cache.put("a", "A2");
+        
+        assertEquals(1, cache.size());
+        assertEquals("A2", cache.get("a"));
+        assertEquals(0, cache.getEvictions());
+    }
+}
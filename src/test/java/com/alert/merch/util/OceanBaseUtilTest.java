@@ -7,6 +7,7 @@ import org.springframework.test.context.TestPropertySource;
 
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 /**
@@ -28,6 +29,8 @@ public class OceanBaseUtilTest {
         Map<String, Object> info = oceanBaseUtil.getDatabaseInfo();
         assertNotNull(info);
         // 由于使用H2内存数据库，可能没有OceanBase特有的信息，但至少应该能正常执行
+        assertEquals("h2", info.get("databaseId"));
+        assertNotNull(info.get("version"));
     }
     
     @Test
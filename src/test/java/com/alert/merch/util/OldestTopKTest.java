@@ -0,0 +1,68 @@
+package com.alert.merch.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 等待最久的前K个元素测试
+ */
+class OldestTopKTest {
+    
+    @Test
+    void testKeepsOldestInOrder() {
+        OldestTopK topK = new OldestTopK(3);
+        long[] createTimes = {500, 100, 900, 300, 200, 800};
+        for (int i = 0; i < createTimes.length; i++) {
+            topK.offer(i, createTimes[i]);
+        }
+        
+        assertEquals(3, topK.size());
+        assertArrayEquals(new int[]{1, 4, 3}, topK.sortedRows());
+    }
+    
+    @Test
+    void testFewerThanK() {
+        OldestTopK topK = new OldestTopK(5);
+        topK.offer(7, 20);
+        topK.offer(3, 10);
+        
+        assertArrayEquals(new int[]{3, 7}, topK.sortedRows());
+        assertArrayEquals(new int[0], new OldestTopK(0).sortedRows());
+    }
+    
+    @Test
+    void testTiesPreferLowerRow() {
+        OldestTopK topK = new OldestTopK(2);
+        topK.offer(5, 100);
+        topK.offer(2, 100);
+        topK.offer(9, 100);
+        topK.offer(1, 100);
+        
+        assertArrayEquals(new int[]{1, 2}, topK.sortedRows());
+    }
+    
+    @Test
+    void testMatchesFullSort() {
+        Random random = new Random(42);
+        long[] createTimes = new long[10_000];
+        for (int i = 0; i < createTimes.length; i++) {
+            createTimes[i] = random.nextInt(5_000);
+        }
+        OldestTopK topK = new OldestTopK(20);
+        for (int i = 0; i < createTimes.length; i++) {
+            topK.offer(i, createTimes[i]);
+        }
+        
+        int[] expected = IntStream.range(0, createTimes.length).boxed()
+            .sorted(Comparator.<Integer>comparingLong(i -> createTimes[i]).thenComparingInt(i -> i))
+            .limit(20)
+            .mapToInt(Integer::intValue)
+            .toArray();
+        assertArrayEquals(expected, topK.sortedRows());
+    }
+}
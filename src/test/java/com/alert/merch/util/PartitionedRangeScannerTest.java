@@ -0,0 +1,86 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分区并行查询测试
+ */
+class PartitionedRangeScannerTest {
+    
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    
+    @Test
+    void testSplitCoversRangeContiguously() {
+        LocalDateTime until = FROM.plusDays(6).plusHours(10).plusMinutes(30);
+        List<LocalDateTime[]> ranges = PartitionedRangeScanner.split(FROM, until, 7);
+        
+        assertEquals(7, ranges.size());
+        assertEquals(FROM, ranges.get(0)[0]);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i - 1)[1], ranges.get(i)[0]);
+            assertTrue(ranges.get(i)[0].isAfter(ranges.get(i - 1)[0]));
+        }
+        // 最后一个分区不设上限，包含查询期间新创建的任务
+        assertNull(ranges.get(6)[1]);
+        
+        assertEquals(1, PartitionedRangeScanner.split(FROM, FROM, 24).size());
+        assertEquals(1, PartitionedRangeScanner.split(FROM, until, 1).size());
+    }
+    
+    @Test
+    void testScanMergesPartitionsInOrder() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            PartitionedRangeScanner scanner = new PartitionedRangeScanner(executor);
+            LocalDateTime until = FROM.plusDays(6);
+            // 每小时一条任务，后面的分区先完成
+            TaskTable table = scanner.scan(FROM, until, 6, 0, (lower, upper, sink) -> {
+                sleepQuietly(upper == null ? 0 : 60 - lower.getDayOfMonth() * 10);
+                for (LocalDateTime time = lower; upper == null ? !time.isAfter(until) : time.isBefore(upper);
+                        time = time.plusHours(1)) {
+                    sink.add(String.valueOf(TaskTable.toEpochSecond(time)), time, "unclaimed", null);
+                }
+            });
+            
+            assertEquals(6 * 24 + 1, table.size());
+            for (int row = 1; row < table.size(); row++) {
+                assertTrue(table.getCreateEpochSecond(row) > table.getCreateEpochSecond(row - 1));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void testPartitionFailurePropagates() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            PartitionedRangeScanner scanner = new PartitionedRangeScanner(executor);
+            IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> scanner.scan(FROM, FROM.plusDays(2), 4, 0, (lower, upper, sink) -> {
+                    if (upper == null) {
+                        throw new IllegalStateException("数据库错误");
+                    }
+                }));
+            assertEquals("数据库错误", error.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.alert.merch.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单线程阶段执行器测试
+ */
+class StageExecutorTest {
+    
+    @Test
+    void runsInOrderOnOwnThread() throws Exception {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        AtomicInteger listened = new AtomicInteger();
+        StageExecutor stage = new StageExecutor("test", 8, false, (wait, run, success) -> listened.incrementAndGet());
+        for (int i = 0; i < 5; i++) {
+            int value = i;
+            assertTrue(stage.handoff(() -> {
+                order.add(value);
+                threads.add(Thread.currentThread().getName());
+            }));
+        }
+        assertTrue(stage.shutdown(5000));
+        
+        assertEquals(List.of(0, 1, 2, 3, 4), order);
+        assertTrue(threads.stream().allMatch("pipeline-test"::equals));
+        assertEquals(5, stage.getCompleted());
+        assertEquals(5, listened.get());
+    }
+    
+    @Test
+    void fullQueueSkipsTicksAndRunsHandoffsOnCaller() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StageExecutor stage = new StageExecutor("slow", 1, false, null);
+        stage.offer(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // 工作线程被占住，队列容量1
+        assertTrue(stage.offer(() -> { }));
+        assertFalse(stage.offer(() -> { }));
+        assertEquals(1, stage.getSkipped());
+        
+        List<String> threads = new CopyOnWriteArrayList<>();
+        assertFalse(stage.handoff(() -> threads.add(Thread.currentThread().getName())));
+        assertEquals(List.of(Thread.currentThread().getName()), threads);
+        assertEquals(1, stage.getCallerRuns());
+        assertEquals(1, stage.depth());
+        
+        release.countDown();
+        assertTrue(stage.shutdown(5000));
+        assertEquals(0, stage.depth());
+    }
+    
+    @Test
+    void inlineRunsOnCallerAndIsolatesFailures() {
+        StageExecutor stage = new StageExecutor("inline", 1, true, null);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        assertTrue(stage.offer(() -> threads.add(Thread.currentThread().getName())));
+        assertFalse(stage.handoff(() -> {
+            throw new IllegalStateException("boom");
+        }));
+        
+        assertEquals(List.of(Thread.currentThread().getName()), threads);
+        assertEquals(1, stage.getCompleted());
+        assertEquals(1, stage.getFailed());
+        assertEquals(0, stage.getCallerRuns());
+        assertTrue(stage.shutdown(0));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskEvent;
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推送事件任务状态测试
+ */
+class TaskEventStateTest {
+    
+    private static final String PROC = "ACT_MERCH_ACCESS_REGISTER";
+    private static final String KEY = "LICENSE_MASTER_NEW_CHECK_TASK";
+    private static final List<String> KEYS = Collections.singletonList(KEY);
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 10, 0);
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    
+    private static TaskEvent event(long sequence, String type, String taskId) {
+        return new TaskEvent(sequence, type, taskId, PROC, KEY, TaskEvent.CREATED.equals(type) ? CREATED : null);
+    }
+    
+    @Test
+    void appliesLifecycleAndIgnoresDuplicates() {
+        TaskEventState state = new TaskEventState();
+        assertEquals(TaskEventState.Outcome.APPLIED, state.apply(event(1, TaskEvent.CREATED, "t1")));
+        assertEquals(TaskEventState.Outcome.DUPLICATE, state.apply(event(1, TaskEvent.CREATED, "t1")));
+        assertEquals("unclaimed", state.tasks(FROM, PROC, KEYS).get(0).getType());
+        
+        TaskEvent assign = event(2, TaskEvent.ASSIGNED, "t1");
+        assign.setAssignee("zhangsan");
+        assertEquals(TaskEventState.Outcome.APPLIED, state.apply(assign));
+        TaskInfo assigned = state.tasks(FROM, PROC, KEYS).get(0);
+        assertEquals("unfinished", assigned.getType());
+        assertEquals(CREATED, assigned.getCreateTime());
+        assertEquals("zhangsan", assigned.getAssignee());
+        
+        assertEquals(TaskEventState.Outcome.APPLIED, state.apply(event(3, TaskEvent.COMPLETED, "t1")));
+        assertTrue(state.tasks(FROM, PROC, KEYS).isEmpty());
+        // 完成后迟到的创建事件不会重新加入
+        assertEquals(TaskEventState.Outcome.DUPLICATE, state.apply(event(1, TaskEvent.CREATED, "t1")));
+        assertEquals(1, state.drainCompleted(FROM, KEYS).size());
+        assertTrue(state.drainCompleted(FROM, KEYS).isEmpty());
+    }
+    
+    @Test
+    void rejectsEventsWithoutEnoughInformation() {
+        TaskEventState state = new TaskEventState();
+        assertEquals(TaskEventState.Outcome.INVALID, state.apply(event(1, TaskEvent.ASSIGNED, "unknown")));
+        assertEquals(TaskEventState.Outcome.INVALID, state.apply(new TaskEvent(1, "deleted", "t1", PROC, KEY, CREATED)));
+        assertEquals(TaskEventState.Outcome.INVALID, state.apply(new TaskEvent(1, TaskEvent.CREATED, "t1", PROC, KEY, null)));
+        assertEquals(0, state.size());
+    }
+    
+    @Test
+    void reconcileFixesMissedEventsButKeepsNewerOnes() {
+        TaskEventState state = new TaskEventState();
+        state.apply(event(1, TaskEvent.CREATED, "missedCompletion"));
+        state.apply(event(1, TaskEvent.CREATED, "missedAssign"));
+        long sinceVersion = state.version();
+        // 查询开始后才到达的事件
+        state.apply(event(1, TaskEvent.CREATED, "newer"));
+        
+        TaskInfo assignedInDb = new TaskInfo("missedAssign", CREATED, "unfinished");
+        assignedInDb.setTaskKey(KEY);
+        TaskInfo missedCreate = new TaskInfo("missedCreate", CREATED, "unclaimed");
+        missedCreate.setTaskKey(KEY);
+        TaskTable db = TaskTable.of(Arrays.asList(assignedInDb, missedCreate));
+        
+        assertEquals(3, state.reconcile(db, PROC, sinceVersion));
+        assertEquals(3, state.size());
+        List<TaskInfo> tasks = state.tasks(FROM, PROC, KEYS);
+        assertTrue(tasks.stream().anyMatch(task -> task.getTaskId().equals("newer")));
+        assertTrue(tasks.stream().noneMatch(task -> task.getTaskId().equals("missedCompletion")));
+        assertTrue(tasks.stream().anyMatch(task -> task.getTaskId().equals("missedAssign")
+            && task.getType().equals("unfinished")));
+        
+        // 对账后的任务仍按序号去重
+        assertEquals(TaskEventState.Outcome.APPLIED, state.apply(event(2, TaskEvent.COMPLETED, "missedAssign")));
+        assertEquals(2, state.size());
+    }
+}
@@ -0,0 +1,97 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskInfo;
+import com.alert.merch.model.TaskPage;
+import com.alert.merch.model.TaskTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 当前任务索引测试
+ */
+public class TaskIndexTest {
+    
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 8, 21, 9, 0, 0);
+    
+    @Test
+    public void testSyncAddsUpdatesAndRemoves() {
+        TaskIndex index = new TaskIndex();
+        TaskTable first = new TaskTable();
+        first.add("1", BASE, "unclaimed", "LICENSE_MASTER_NEW_CHECK_TASK");
+        first.add("2", BASE.plusMinutes(1), "unclaimed", "PERSON_MASTER_NEW_CHECK_TASK");
+        index.sync(first);
+        assertEquals(2, index.size());
+        
+        // 任务1被领取，任务2已完成，新增任务3
+        TaskTable second = new TaskTable();
+        second.add("1", BASE, "unfinished", "LICENSE_MASTER_NEW_CHECK_TASK");
+        second.add("3", BASE.plusMinutes(2), "unclaimed", "PERSON_MASTER_NEW_CHECK_TASK");
+        index.sync(second);
+        
+        TaskPage page = index.query(null, null, Long.MIN_VALUE, Long.MAX_VALUE - 1, false, null, 10);
+        assertEquals(2, page.getTasks().size());
+        assertEquals("1", page.getTasks().get(0).getTaskId());
+        assertEquals("unfinished", page.getTasks().get(0).getType());
+        assertEquals("3", page.getTasks().get(1).getTaskId());
+        assertNull(page.getNextCursor());
+    }
+    
+    @Test
+    public void testKeysetPaginationWithFilters() {
+        TaskIndex index = new TaskIndex();
+        TaskTable table = new TaskTable();
+        for (int i = 0; i < 100; i++) {
+            // 每分钟两条，保证同一创建时间下按任务ID排序
+            table.add(String.valueOf(1000 + i), BASE.plusMinutes(i / 2), i % 3 == 0 ? "unclaimed" : "unfinished",
+                i % 2 == 0 ? "LICENSE_MASTER_NEW_CHECK_TASK" : "PERSON_MASTER_NEW_CHECK_TASK");
+        }
+        index.sync(table);
+        
+        long from = TaskTable.toEpochSecond(BASE.plusMinutes(5));
+        long to = TaskTable.toEpochSecond(BASE.plusMinutes(40));
+        List<String> expected = table.toTaskInfos().stream()
+            .filter(task -> "unfinished".equals(task.getType()))
+            .filter(task -> !task.getCreateTime().isBefore(BASE.plusMinutes(5))
+                && !task.getCreateTime().isAfter(BASE.plusMinutes(40)))
+            .map(TaskInfo::getTaskId)
+            .collect(Collectors.toList());
+        
+        List<String> oldestFirst = collectAll(index, from, to, false);
+        assertEquals(expected, oldestFirst);
+        
+        List<String> newestFirst = collectAll(index, from, to, true);
+        List<String> reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+        assertEquals(reversed, newestFirst);
+        
+        TaskPage byKey = index.query(null, "PERSON_MASTER_NEW_CHECK_TASK", from, to, false, null, 100);
+        assertTrue(byKey.getTasks().stream()
+            .allMatch(task -> "PERSON_MASTER_NEW_CHECK_TASK".equals(task.getTaskKey())));
+    }
+    
+    @Test
+    public void testInvalidCursor() {
+        TaskIndex index = new TaskIndex();
+        assertThrows(IllegalArgumentException.class,
+            () -> index.query(null, null, 0, 1, false, "abc", 10));
+    }
+    
+    private List<String> collectAll(TaskIndex index, long from, long to, boolean newestFirst) {
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            TaskPage page = index.query("unfinished", null, from, to, newestFirst, cursor, 7);
+            assertTrue(page.getTasks().size() <= 7);
+            page.getTasks().forEach(task -> ids.add(task.getTaskId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+}
@@ -0,0 +1,66 @@
+package com.alert.merch.util;
+
+import com.alert.merch.model.TaskInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按创建时间索引的任务存储测试
+ */
+public class TimeIndexedTaskStoreTest {
+    
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 8, 21, 9, 0, 0);
+    
+    @Test
+    public void testCountBetweenMatchesScan() {
+        TimeIndexedTaskStore store = new TimeIndexedTaskStore();
+        Map<String, TaskInfo> expected = new HashMap<>();
+        Random random = new Random(42);
+        // 跨度超过初始分桶范围，覆盖扩容重建
+        for (int i = 0; i < 5000; i++) {
+            TaskInfo task = new TaskInfo(String.valueOf(i % 4000),
+                BASE.plusSeconds(random.nextInt(20 * 24 * 3600) - 10 * 24 * 3600), "unfinished");
+            store.put(task);
+            expected.put(task.getTaskId(), task);
+        }
+        
+        assertEquals(expected.size(), store.size());
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = BASE.plusSeconds(random.nextInt(24 * 24 * 3600) - 12 * 24 * 3600);
+            LocalDateTime to = from.plusSeconds(random.nextInt(3 * 24 * 3600));
+            long count = expected.values().stream()
+                .filter(task -> !task.getCreateTime().isBefore(from) && task.getCreateTime().isBefore(to))
+                .count();
+            assertEquals(count, store.countBetween(from, to));
+            assertEquals(count, store.between(from, to).size());
+        }
+    }
+    
+    @Test
+    public void testPutOverwritesSameTaskId() {
+        TimeIndexedTaskStore store = new TimeIndexedTaskStore();
+        store.put(new TaskInfo("1", BASE, "unfinished"));
+        store.put(new TaskInfo("1", BASE.plusHours(2), "unfinished"));
+        
+        assertEquals(1, store.size());
+        assertEquals(0, store.countBetween(BASE, BASE.plusHours(1)));
+        assertEquals(1, store.countBetween(BASE.plusHours(1), BASE.plusHours(3)));
+        assertEquals(BASE.plusHours(2), store.asMap().get("1").getCreateTime());
+    }
+    
+    @Test
+    public void testViewsAreReadOnly() {
+        TimeIndexedTaskStore store = new TimeIndexedTaskStore();
+        store.put(new TaskInfo("1", BASE, "unclaimed"));
+        
+        assertThrows(UnsupportedOperationException.class, () -> store.asMap().clear());
+        assertThrows(UnsupportedOperationException.class, () -> store.between(BASE, BASE.plusMinutes(1)).clear());
+        assertEquals(0, store.countBetween(BASE.plusMinutes(1), BASE));
+    }
+}
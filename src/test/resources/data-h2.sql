@@ -0,0 +1,12 @@
+-- 创建时间相对数据库当天零点，测试结果不随运行日期变化
+INSERT INTO T_CURRENT_TASK (PROC_ID, PROC_KEY, TASK_KEY, CREATE_TIME, ASSIGNEE, ASSIGNEE_ID) VALUES
+    ('1001', 'ACT_MERCH_ACCESS_REGISTER', 'LICENSE_MASTER_NEW_CHECK_TASK', CAST(CURRENT_DATE AS TIMESTAMP), NULL, NULL),
+    ('1002', 'ACT_MERCH_ACCESS_REGISTER', 'PERSON_MASTER_NEW_CHECK_TASK', DATEADD(DAY, -3, CURRENT_DATE), 'zhangsan', 'u1002'),
+    ('1003', 'ACT_MERCH_ACCESS_REGISTER', 'LICENSE_MASTER_NEW_CHECK_TASK', DATEADD(DAY, -3, CURRENT_DATE), NULL, 'u1003'),
+    ('1004', 'ACT_MERCH_ACCESS_REGISTER', 'LICENSE_MASTER_NEW_CHECK_TASK', DATEADD(DAY, -10, CURRENT_DATE), NULL, NULL),
+    ('1005', 'ACT_OTHER_PROCESS', 'LICENSE_MASTER_NEW_CHECK_TASK', CAST(CURRENT_DATE AS TIMESTAMP), NULL, NULL),
+    ('1006', 'ACT_MERCH_ACCESS_REGISTER', 'OTHER_TASK', CAST(CURRENT_DATE AS TIMESTAMP), NULL, NULL);
+
+INSERT INTO T_MERCH_ACCESS_APPLY (PROC_ID, MERCH_NAME, CHANNEL_NAME) VALUES
+    ('1001', '测试商户一', '线上'),
+    ('1002', '测试商户二', NULL);
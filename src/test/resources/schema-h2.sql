@@ -0,0 +1,20 @@
+-- 测试用任务表，列与生产库 T_CURRENT_TASK 中查询用到的列一致
+DROP TABLE IF EXISTS T_CURRENT_TASK;
+
+CREATE TABLE T_CURRENT_TASK (
+    PROC_ID VARCHAR(64) NOT NULL,
+    PROC_KEY VARCHAR(128),
+    TASK_KEY VARCHAR(128),
+    CREATE_TIME TIMESTAMP,
+    ASSIGNEE VARCHAR(64),
+    ASSIGNEE_ID VARCHAR(64)
+);
+
+-- 测试用业务表，告警补充信息（app.enrichment）按 PROC_ID 查询商户名称和渠道
+DROP TABLE IF EXISTS T_MERCH_ACCESS_APPLY;
+
+CREATE TABLE T_MERCH_ACCESS_APPLY (
+    PROC_ID VARCHAR(64) NOT NULL,
+    MERCH_NAME VARCHAR(256),
+    CHANNEL_NAME VARCHAR(64)
+);